@@ -0,0 +1,68 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.SplittableRandom;
+
+/**
+ * CatalogoSintetico - Libros generados para los benchmarks
+ *
+ * Los titulos y autores salen de vocabularios fijos, asi el indice de texto
+ * tiene una cantidad de palabras parecida a un catalogo real en vez de una
+ * palabra nueva por libro. Con la misma semilla se generan los mismos libros.
+ */
+public final class CatalogoSintetico {
+    private static final String[] SILABAS = {
+        "la", "ma", "ri", "so", "de", "ca", "ne", "to", "lu", "ve", "sa", "mi", "ro", "te", "na", "bo"
+    };
+    private static final int PALABRAS = 4000;
+    private static final int AUTORES = 20000;
+
+    private final SplittableRandom azar;
+
+    public CatalogoSintetico(long semilla) {
+        this.azar = new SplittableRandom(semilla);
+    }
+
+    /**
+     * Libro sin ID, con titulo de 2 a 5 palabras
+     */
+    public Libro libro() {
+        int cantidad = 2 + azar.nextInt(4);
+        StringBuilder titulo = new StringBuilder(48);
+        for (int i = 0; i < cantidad; i++) {
+            if (i > 0) {
+                titulo.append(' ');
+            }
+            titulo.append(palabra(azar.nextInt(PALABRAS)));
+        }
+        int autor = azar.nextInt(AUTORES);
+        return new Libro(null, Character.toUpperCase(titulo.charAt(0)) + titulo.substring(1),
+                nombre(autor % 700) + " " + nombre(autor / 700 + 700),
+                1500 + azar.nextInt(525), azar.nextInt(4) != 0);
+    }
+
+    /**
+     * Guarda libros en el DAO hasta que tenga al menos 'registros'
+     */
+    public void llenar(LibroDAO dao, long registros) {
+        while (dao.count() < registros) {
+            dao.save(libro());
+        }
+    }
+
+    private static String palabra(int numero) {
+        StringBuilder palabra = new StringBuilder(8);
+        do {
+            palabra.append(SILABAS[numero % SILABAS.length]);
+            numero /= SILABAS.length;
+        } while (numero > 0);
+        return palabra.toString();
+    }
+
+    private static String nombre(int numero) {
+        String palabra = palabra(numero);
+        return Character.toUpperCase(palabra.charAt(0)) + palabra.substring(1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * EjecutarBenchmarks - Punto de entrada de target/benchmarks.jar
+ *
+ * Corre los benchmarks una vez por cada cantidad de hilos (1, 4 y todos los
+ * nucleos) y deja un JSON por corrida en target/jmh/hilos-N.json, para
+ * compararlos entre versiones. Acepta las mismas opciones que JMH, por ejemplo:
+ *   java -jar target/benchmarks.jar LibroDAOBenchmark -p registros=10000000 -jvmArgs -Xmx16g
+ * Con -t se corre solo esa cantidad de hilos.
+ */
+public class EjecutarBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions lineaDeComandos = new CommandLineOptions(args);
+        File carpeta = new File("target/jmh");
+        carpeta.mkdirs();
+
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        int[] hilos = lineaDeComandos.getThreads().hasValue()
+                ? new int[] {lineaDeComandos.getThreads().get()}
+                : nucleos > 4 ? new int[] {1, 4, nucleos}
+                : nucleos > 1 ? new int[] {1, nucleos} : new int[] {1};
+        for (int cantidad : hilos) {
+            Options opciones = new OptionsBuilder()
+                    .parent(lineaDeComandos)
+                    .threads(cantidad)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(carpeta, "hilos-" + cantidad + ".json").getPath())
+                    .build();
+            new Runner(opciones).run();
+        }
+    }
+}
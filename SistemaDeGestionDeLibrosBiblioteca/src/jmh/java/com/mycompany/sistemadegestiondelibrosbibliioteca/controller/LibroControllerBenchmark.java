@@ -0,0 +1,86 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.service.LibroService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibroControllerBenchmark - GET /libros/{id} con una parte de IDs que no existen
+ *
+ * consultarLibro es el camino actual (Optional, sin excepciones); conExcepcion
+ * copia el anterior como referencia: RuntimeException con "(Error 404)" en el
+ * mensaje y getMessage().contains("404") en el controlador.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LibroControllerBenchmark {
+    private static final long REGISTROS = 100_000;
+
+    // Porcentaje de consultas a IDs que no existen (enlaces viejos)
+    @Param({"0", "50", "90"})
+    public int porcentajeFallos;
+
+    private LibroService service;
+    private LibroController controller;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        new CatalogoSintetico(42).llenar(new LibroDAO(), REGISTROS);
+        service = new LibroService();
+        controller = new LibroController(service, null);
+    }
+
+    @Benchmark
+    public RespuestaHttp<LibroDTO> consultarLibro() {
+        return controller.consultarLibro(idAlAzar());
+    }
+
+    @Benchmark
+    public RespuestaHttp<LibroDTO> conExcepcion() {
+        Long id = idAlAzar();
+        try {
+            Optional<LibroDTO> libro = service.buscarLibroPorId(id);
+            if (libro.isEmpty()) {
+                throw new RuntimeException("Libro no encontrado con ID: " + id + " (Error 404)");
+            }
+            return RespuestaHttp.ok(libro.get());
+        } catch (IllegalArgumentException e) {
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (e.getMessage().contains("404")) {
+                return RespuestaHttp.error(404, "Libro no encontrado");
+            }
+            return RespuestaHttp.error(500, "Error interno del servidor");
+        }
+    }
+
+    /**
+     * Los IDs que no existen estan por encima del catalogo
+     */
+    private Long idAlAzar() {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        long id = 1 + azar.nextLong(REGISTROS);
+        return azar.nextInt(100) < porcentajeFallos ? id + 10 * REGISTROS : id;
+    }
+}
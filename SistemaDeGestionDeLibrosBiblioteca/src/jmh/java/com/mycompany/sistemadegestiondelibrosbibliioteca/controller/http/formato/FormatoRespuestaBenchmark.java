@@ -0,0 +1,123 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FormatoRespuestaBenchmark - Codificar y decodificar una lista de LibroDTO
+ *
+ * stringBuilder es como armaba el ServidorHttp las respuestas antes (un
+ * StringBuilder, toString y getBytes); codificarJson y codificarBinario
+ * escriben con el EscritorRespuesta de cada formato en un buffer del pool. La salida se descarta.
+ * Para decodificar se compara el parser de Json con LectorBinario.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatoRespuestaBenchmark {
+    @Param({"1000"})
+    public int libros;
+
+    private final PoolBuffers pool = new PoolBuffers(32 * 1024, 4);
+    private List<LibroDTO> lista;
+    private String json;
+    private ByteBuffer binario;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        CatalogoSintetico catalogo = new CatalogoSintetico(42);
+        lista = new ArrayList<>(libros);
+        for (long id = 1; id <= libros; id++) {
+            Libro libro = catalogo.libro();
+            lista.add(new LibroDTO(id, libro.getTitulo(), libro.getAutor(), libro.getAnoPublicacion(), 1L));
+        }
+        json = new String(codificarEnMemoria(FormatoRespuesta.JSON), StandardCharsets.UTF_8);
+        binario = ByteBuffer.wrap(codificarEnMemoria(FormatoRespuesta.BINARIO));
+    }
+
+    @Benchmark
+    public int stringBuilder() throws IOException {
+        StringBuilder texto = new StringBuilder(64 + lista.size() * 96);
+        texto.append('[');
+        for (int i = 0; i < lista.size(); i++) {
+            LibroDTO libro = lista.get(i);
+            if (i > 0) {
+                texto.append(',');
+            }
+            texto.append("{\"id\":").append(libro.getId()).append(",\"titulo\":");
+            Json.escribirString(texto, libro.getTitulo()).append(",\"autor\":");
+            Json.escribirString(texto, libro.getAutor()).append(",\"anoPublicacion\":")
+                    .append(libro.getAnoPublicacion()).append(",\"version\":").append(libro.getVersion()).append('}');
+        }
+        texto.append(']');
+        byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+        OutputStream.nullOutputStream().write(bytes);
+        return bytes.length;
+    }
+
+    @Benchmark
+    public long codificarJson() throws IOException {
+        return codificar(FormatoRespuesta.JSON);
+    }
+
+    @Benchmark
+    public long codificarBinario() throws IOException {
+        return codificar(FormatoRespuesta.BINARIO);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> decodificarJson() {
+        return Json.parsearListaDeObjetos(json);
+    }
+
+    @Benchmark
+    public List<LibroDTO> decodificarBinario() {
+        return LectorBinario.leerLibros(binario.duplicate());
+    }
+
+    private long codificar(FormatoRespuesta formato) throws IOException {
+        long[] largo = new long[1];
+        try (EscritorRespuesta escritor = formato.escritor(pool, bytes -> {
+            largo[0] = bytes;
+            return new CanalSalida(OutputStream.nullOutputStream());
+        })) {
+            escritor.escribirLista(lista.iterator());
+        }
+        return largo[0];
+    }
+
+    private byte[] codificarEnMemoria(FormatoRespuesta formato) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EscritorRespuesta escritor = formato.escritor(pool, largo -> new CanalSalida(bytes))) {
+            escritor.escribirLista(lista.iterator());
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibroDAOBenchmark - findById, save y findAll segun el tamaño del catalogo
+ *
+ * Los datos del DAO son estaticos: cada valor de 'registros' necesita su
+ * propio fork (el default de JMH), no correr con -f 0.
+ * 10 millones de registros necesitan unos 8 GB de heap:
+ *   -p registros=10000000 -jvmArgs -Xmx12g
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LibroDAOBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long registros;
+
+    private LibroDAO dao;
+    private CatalogoSintetico catalogo;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        dao = new LibroDAO();
+        catalogo = new CatalogoSintetico(42);
+        catalogo.llenar(dao, registros);
+    }
+
+    @Benchmark
+    public Optional<Libro> findById() {
+        return dao.findById(idExistente());
+    }
+
+    /**
+     * Reemplaza un libro existente: el tamaño del catalogo no cambia durante la medicion
+     */
+    @Benchmark
+    public Libro saveExistente() {
+        Libro libro = new Libro(idExistente(), "Titulo reemplazado", "Autor Reemplazo", 1999, true);
+        return dao.save(libro);
+    }
+
+    /**
+     * Libros nuevos en lotes fijos, para no hacer crecer el catalogo sin limite
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = 1000)
+    @Measurement(iterations = 20, batchSize = 1000)
+    public Libro saveNuevo() {
+        // El generador no es thread-safe; cada hilo usa su propio azar
+        Libro libro = new Libro(null, "Titulo nuevo " + ThreadLocalRandom.current().nextInt(4000),
+                "Autor Nuevo", 2000, true);
+        return dao.save(libro);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Long, Libro> findAll() {
+        return dao.findAll();
+    }
+
+    private long idExistente() {
+        return 1 + ThreadLocalRandom.current().nextLong(registros);
+    }
+}
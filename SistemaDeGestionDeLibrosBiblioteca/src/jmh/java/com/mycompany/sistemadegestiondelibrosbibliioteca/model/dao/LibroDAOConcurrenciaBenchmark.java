@@ -0,0 +1,102 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibroDAOConcurrenciaBenchmark - Escrituras concurrentes de leer, cambiar y guardar
+ *
+ * Compara tres formas de que varios hilos actualicen libros:
+ *   updateOptimista  update con la version leida, reintentando si hay conflicto
+ *   updateConLock    leer y save dentro de un lock global (lo que habria que
+ *                    hacer sin versiones para no perder cambios)
+ *   saveCiego        save sin leer: el ultimo gana y se pierden cambios (referencia)
+ * 'idsCalientes' es cuantos libros distintos se escriben: con 1 todos los
+ * hilos pelean por el mismo y los conflictos se ven en el contador
+ * 'conflictos' (por operacion); con muchos casi no hay.
+ * Con un solo nucleo los hilos casi no se pisan: correr con -t igual a los nucleos.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LibroDAOConcurrenciaBenchmark {
+    private static final long REGISTROS = 100_000;
+
+    @Param({"1", "64", "100000"})
+    public int idsCalientes;
+
+    private LibroDAO dao;
+    private final Object lockGlobal = new Object();
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        dao = new LibroDAO();
+        new CatalogoSintetico(42).llenar(dao, REGISTROS);
+    }
+
+    /**
+     * Conflictos por hilo; JMH los informa como eventos por operacion
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Contadores {
+        public long conflictos;
+    }
+
+    @Benchmark
+    public Libro updateOptimista(Contadores contadores) {
+        long id = idCaliente();
+        while (true) {
+            Libro actual = dao.findById(id).orElseThrow();
+            try {
+                return dao.update(cambiado(actual), actual.getVersion()).orElseThrow();
+            } catch (ConflictoVersionException e) {
+                contadores.conflictos++;
+            }
+        }
+    }
+
+    @Benchmark
+    public Libro updateConLock() {
+        long id = idCaliente();
+        synchronized (lockGlobal) {
+            return dao.save(cambiado(dao.findById(id).orElseThrow()));
+        }
+    }
+
+    @Benchmark
+    public Libro saveCiego() {
+        return dao.save(new Libro(idCaliente(), "Titulo reemplazado", "Autor Reemplazo", 1999, true));
+    }
+
+    private long idCaliente() {
+        return 1 + ThreadLocalRandom.current().nextInt(idsCalientes);
+    }
+
+    private static Libro cambiado(Libro actual) {
+        Integer ano = actual.getAnoPublicacion();
+        return new Libro(actual.getId(), actual.getTitulo(), actual.getAutor(),
+                ano == null ? 2000 : ano % 2000 + 1, actual.getDisponible());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibroDAOParticionadoBenchmark - Como escala el DAO particionado con la cantidad de particiones
+ *
+ *   findById / save   van a una sola particion
+ *   findByFiltros, findPagina, count  consultan todas (scatter-gather)
+ * 'modo' memoria: particiones en este proceso; procesos: cada una detras de
+ * un TransporteEnProceso, pagando la codificacion y el cambio de hilo de un
+ * RPC. Con un solo nucleo las particiones no corren en paralelo: lo que se
+ * ve es el costo de repartir; correr con tantos hilos como nucleos.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LibroDAOParticionadoBenchmark {
+    private static final int REGISTROS = 200_000;
+    private static final int LOTE_CARGA = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int particiones;
+
+    @Param({"memoria", "procesos"})
+    public String modo;
+
+    private LibroDAOParticionado dao;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        dao = modo.equals("memoria")
+                ? LibroDAOParticionado.enMemoria(particiones)
+                : LibroDAOParticionado.enProcesosSimulados(particiones, 2);
+        CatalogoSintetico catalogo = new CatalogoSintetico(42);
+        for (int cargados = 0; cargados < REGISTROS; cargados += LOTE_CARGA) {
+            List<Libro> lote = new ArrayList<>(LOTE_CARGA);
+            for (int i = 0; i < LOTE_CARGA; i++) {
+                lote.add(catalogo.libro());
+            }
+            dao.saveAll(lote);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        dao.close();
+    }
+
+    @Benchmark
+    public Optional<Libro> findById() {
+        return dao.findById(idAlAzar());
+    }
+
+    @Benchmark
+    public Libro save() {
+        return dao.save(new Libro(idAlAzar(), "Titulo reemplazado", "Autor Reemplazo", 1999, true));
+    }
+
+    @Benchmark
+    public List<Libro> findByFiltros() {
+        int desde = 1500 + ThreadLocalRandom.current().nextInt(500);
+        return dao.findByFiltros(desde, desde + 20, null, true, 100);
+    }
+
+    @Benchmark
+    public List<Libro> findPagina() {
+        return dao.findPagina(idAlAzar(), 100);
+    }
+
+    @Benchmark
+    public long count() {
+        return dao.count();
+    }
+
+    private static long idAlAzar() {
+        return 1 + ThreadLocalRandom.current().nextInt(REGISTROS);
+    }
+}
@@ -0,0 +1,101 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenCompacto;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenMapa;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenNativo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ResumenCatalogoBenchmark - El reporte del catalogo con AlmacenLibros.agregar
+ * contra armar la lista de libros y agruparla con Collectors
+ *
+ * Para ver como escala con los nucleos:
+ *   java -jar target/benchmarks.jar ResumenCatalogoBenchmark -jvmArgs -Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ResumenCatalogoBenchmark {
+
+    @Param({"mapa", "compacto", "nativo"})
+    public String tipo;
+
+    @Param({"1000000"})
+    public int registros;
+
+    private AlmacenLibros almacen;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        switch (tipo) {
+            case "mapa":
+                almacen = new AlmacenMapa();
+                break;
+            case "compacto":
+                almacen = new AlmacenCompacto(registros);
+                break;
+            default:
+                almacen = new AlmacenNativo(registros);
+        }
+        CatalogoSintetico catalogo = new CatalogoSintetico(42);
+        for (long id = 1; id <= registros; id++) {
+            Libro libro = catalogo.libro();
+            libro.setId(id);
+            almacen.guardar(libro);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void liberar() {
+        if (almacen instanceof AlmacenNativo nativo) {
+            nativo.close();
+        }
+    }
+
+    /**
+     * Una pasada paralela sobre las columnas, un parcial por tarea
+     */
+    @Benchmark
+    public ResumenCatalogo agregar() {
+        return almacen.agregar(ResumenCatalogo.AGREGACION);
+    }
+
+    /**
+     * Como antes: todos los libros en una lista y una agrupacion por reporte
+     */
+    @Benchmark
+    public void listarYAgrupar(Blackhole agujero) {
+        List<Libro> libros = almacen.libros().collect(Collectors.toList());
+        agujero.consume(libros.stream().filter(libro -> Boolean.TRUE.equals(libro.getDisponible())).count());
+        agujero.consume(libros.stream().map(Libro::getAnoPublicacion).filter(Objects::nonNull)
+                .collect(Collectors.summarizingInt(Integer::intValue)));
+        agujero.consume(libros.stream().filter(libro -> libro.getAnoPublicacion() != null)
+                .collect(Collectors.groupingBy(libro -> libro.getAnoPublicacion() / 10 * 10, Collectors.counting())));
+        agujero.consume(libros.stream().filter(libro -> libro.getAutor() != null)
+                .collect(Collectors.groupingBy(Libro::getAutor, Collectors.counting())));
+    }
+}
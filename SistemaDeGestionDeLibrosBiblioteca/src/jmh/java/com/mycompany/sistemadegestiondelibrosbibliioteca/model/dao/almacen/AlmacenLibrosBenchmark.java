@@ -0,0 +1,126 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AlmacenLibrosBenchmark - obtener y guardar en los almacenes de mapa, compacto y nativo
+ *
+ * Con main (sin JMH) mide cuanta memoria ocupa cada libro en cada almacen,
+ * dentro y fuera del heap, y cuanto tarda un GC completo con el catalogo cargado:
+ *   java -cp target/benchmarks.jar com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenLibrosBenchmark 5000000
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AlmacenLibrosBenchmark {
+
+    @Param({"mapa", "compacto", "nativo"})
+    public String tipo;
+
+    @Param({"100000", "1000000"})
+    public int registros;
+
+    private AlmacenLibros almacen;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        almacen = crear(tipo, registros);
+        llenar(almacen, registros);
+    }
+
+    @Benchmark
+    public Libro obtener() {
+        return almacen.obtener(idExistente());
+    }
+
+    /**
+     * Reemplaza un libro existente: el tamaño no cambia durante la medicion
+     */
+    @Benchmark
+    public boolean guardarExistente() {
+        return almacen.guardar(new Libro(idExistente(), "Titulo reemplazado", "Autor Reemplazo", 1999, true));
+    }
+
+    private long idExistente() {
+        return 1 + ThreadLocalRandom.current().nextLong(registros);
+    }
+
+    @TearDown(Level.Trial)
+    public void liberar() {
+        if (almacen instanceof AlmacenNativo nativo) {
+            nativo.close();
+        }
+    }
+
+    private static AlmacenLibros crear(String tipo, int registros) {
+        switch (tipo) {
+            case "mapa":
+                return new AlmacenMapa();
+            case "compacto":
+                return new AlmacenCompacto(registros);
+            default:
+                return new AlmacenNativo(registros);
+        }
+    }
+
+    private static void llenar(AlmacenLibros almacen, int registros) {
+        CatalogoSintetico catalogo = new CatalogoSintetico(42);
+        for (long id = 1; id <= registros; id++) {
+            Libro libro = catalogo.libro();
+            libro.setId(id);
+            almacen.guardar(libro);
+        }
+    }
+
+    /**
+     * Heap retenido por libro en cada almacen, con los mismos libros sinteticos.
+     * Cada titulo y autor es un String nuevo, como al importar un archivo
+     */
+    public static void main(String[] args) {
+        int registros = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (String tipo : new String[] {"mapa", "compacto", "nativo"}) {
+            long antes = heapUsado();
+            AlmacenLibros almacen = crear(tipo, 1024);
+            llenar(almacen, registros);
+            long despues = heapUsado();
+            long fuera = almacen instanceof AlmacenNativo nativo ? nativo.bytesReservados() : 0;
+            long inicioGc = System.nanoTime();
+            System.gc();
+            long milisGc = (System.nanoTime() - inicioGc) / 1_000_000;
+            System.out.printf("%-9s %,d libros: heap %,.1f MB (%.1f bytes por libro), fuera del heap %,.1f MB, GC completo %d ms%n",
+                    tipo, almacen.cantidad(), (despues - antes) / 1e6, (despues - antes) / (double) registros,
+                    fuera / 1e6, milisGc);
+            if (almacen instanceof AlmacenNativo nativo) {
+                nativo.close();
+            }
+        }
+    }
+
+    private static long heapUsado() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,120 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FlujoCambiosBenchmark - Cuanto le cuesta a save publicar el evento de cambio
+ *
+ *   sinFlujo         -Dbiblioteca.cambios.capacidad=0: sin eventos (referencia)
+ *   sinSuscriptores  el evento va al buffer y nadie lo lee
+ *   conSuscriptor    un suscriptor pide lotes de 256 y los recorre; si se
+ *                    atrasa mas que la capacidad vuelve a suscribirse
+ * Cada save reemplaza un libro existente, asi el catalogo no crece.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlujoCambiosBenchmark {
+    private static final long REGISTROS = 100_000;
+
+    private LibroDAO dao;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        dao = new LibroDAO();
+        new CatalogoSintetico(42).llenar(dao, REGISTROS);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dbiblioteca.cambios.capacidad=0")
+    public Libro sinFlujo() {
+        return guardarAlAzar();
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Libro sinSuscriptores() {
+        return guardarAlAzar();
+    }
+
+    @Benchmark
+    @Fork(1)
+    public Libro conSuscriptor(Suscriptor suscriptor) {
+        return guardarAlAzar();
+    }
+
+    private Libro guardarAlAzar() {
+        long id = 1 + ThreadLocalRandom.current().nextLong(REGISTROS);
+        return dao.save(new Libro(id, "Titulo reemplazado", "Autor Reemplazo", 1999, true));
+    }
+
+    /**
+     * Suscriptor que recorre cada lote; si se atrasa vuelve a empezar desde lo mas nuevo
+     */
+    @State(Scope.Benchmark)
+    public static class Suscriptor implements Flow.Subscriber<List<EventoCambio>> {
+        private final AtomicLong versiones = new AtomicLong();
+        private FlujoCambios flujo;
+        private Flow.Subscription suscripcion;
+
+        @Setup(Level.Iteration)
+        public void suscribir() {
+            flujo = LibroDAO.getCambios();
+            flujo.subscribe(this);
+        }
+
+        @TearDown(Level.Iteration)
+        public void cancelar() {
+            suscripcion.cancel();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            this.suscripcion = suscripcion;
+            suscripcion.request(2);
+        }
+
+        @Override
+        public void onNext(List<EventoCambio> lote) {
+            long suma = 0;
+            for (EventoCambio evento : lote) {
+                suma += evento.version();
+            }
+            versiones.addAndGet(suma);
+            suscripcion.request(1);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            flujo.subscribe(this);
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
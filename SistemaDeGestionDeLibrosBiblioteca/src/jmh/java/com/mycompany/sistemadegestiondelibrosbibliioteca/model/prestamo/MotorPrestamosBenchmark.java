@@ -0,0 +1,76 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MotorPrestamosBenchmark - prestar y devolver con todos los hilos sobre pocos o muchos libros
+ *
+ * Con libros=1 todos los hilos pelean por el mismo libro (el caso del best seller):
+ * casi todos los prestamos se rechazan y los reintentos de compareAndSet muestran
+ * la contencion. Con libros=1000 los hilos casi nunca coinciden.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MotorPrestamosBenchmark {
+
+    @Param({"1", "1000"})
+    public int libros;
+
+    private MotorPrestamos motor;
+
+    @Setup
+    public void crear() {
+        motor = new MotorPrestamos(new HistorialPrestamos(1 << 16), Clock.systemUTC(),
+                Duration.ofDays(14), Duration.ofDays(3));
+    }
+
+    /**
+     * Cada hilo es un usuario distinto
+     */
+    @State(Scope.Thread)
+    public static class Usuario {
+        private static final AtomicInteger SIGUIENTE = new AtomicInteger();
+        final String nombre = "usuario-" + SIGUIENTE.incrementAndGet();
+    }
+
+    /**
+     * Pide un libro al azar y, si lo consigue, lo devuelve enseguida
+     * @return true si el prestamo se concreto
+     */
+    @Benchmark
+    public boolean prestarYDevolver(Usuario usuario) {
+        long libroId = 1 + ThreadLocalRandom.current().nextInt(libros);
+        try {
+            motor.prestar(libroId, true, usuario.nombre);
+        } catch (IllegalStateException e) {
+            return false;
+        }
+        motor.devolver(libroId, true, usuario.nombre);
+        return true;
+    }
+
+    @Benchmark
+    public EstadoPrestamo consultar() {
+        return motor.estado(1 + ThreadLocalRandom.current().nextInt(libros), true);
+    }
+}
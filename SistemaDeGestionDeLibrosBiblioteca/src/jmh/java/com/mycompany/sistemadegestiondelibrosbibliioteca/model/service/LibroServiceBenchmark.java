@@ -0,0 +1,94 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.service;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LibroServiceBenchmark - Caminos del Service: alta con validaciones,
+ * lectura por ID (con la cache), conversion a DTO y listados
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LibroServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long registros;
+
+    private LibroService service;
+    private Libro libro;
+
+    @Setup(Level.Trial)
+    public void llenar() {
+        LibroDAO dao = new LibroDAO();
+        new CatalogoSintetico(42).llenar(dao, registros);
+        service = new LibroService();
+        libro = dao.findById(1L).orElseThrow();
+    }
+
+    /**
+     * Alta completa: las seis validaciones, la conversion y el save, en lotes fijos
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 5, batchSize = 1000)
+    @Measurement(iterations = 20, batchSize = 1000)
+    public LibroDTO agregarLibro() {
+        return service.agregarLibro("Crónica de una muerte anunciada", "Gabriel García Márquez", "1981");
+    }
+
+    @Benchmark
+    public LibroDTO obtenerLibroPorId() {
+        return service.obtenerLibroPorId(1 + ThreadLocalRandom.current().nextLong(registros));
+    }
+
+    @Benchmark
+    public LibroDTO convertirADTO() {
+        return service.convertirADTO(libro);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<LibroDTO> obtenerTodosLosLibros() {
+        return service.obtenerTodosLosLibros();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public PaginaLibrosDTO obtenerPaginaDeLibros() {
+        long despues = ThreadLocalRandom.current().nextLong(registros);
+        return service.obtenerPaginaDeLibros(despues, LibroService.LIMITE_PAGINA_POR_DEFECTO);
+    }
+
+    /**
+     * Recorre el listado en streaming sin armar la lista
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamLibros() {
+        return service.streamLibros().count();
+    }
+}
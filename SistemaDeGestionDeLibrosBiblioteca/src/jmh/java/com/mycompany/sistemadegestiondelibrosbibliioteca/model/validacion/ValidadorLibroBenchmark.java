@@ -0,0 +1,123 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValidadorLibroBenchmark - ValidadorLibro contra las validaciones anteriores
+ * con String.matches, Integer.parseInt y Year.now (copiadas aca como referencia)
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidadorLibroBenchmark {
+    private static final String TITULO = "  Crónica de una muerte anunciada ";
+    private static final String AUTOR = "Gabriel García Márquez";
+    private static final String ANO = "1981";
+
+    private final ValidadorLibro validador = new ValidadorLibro();
+    private final ResultadoValidacion reutilizado = new ResultadoValidacion();
+
+    @Benchmark
+    public ResultadoValidacion validador() {
+        return validador.validar(TITULO, AUTOR, ANO);
+    }
+
+    /**
+     * Como en una carga masiva: el mismo resultado para todos los libros
+     */
+    @Benchmark
+    public boolean validadorReutilizandoResultado() {
+        return validador.validar(TITULO, AUTOR, ANO, reutilizado);
+    }
+
+    @Benchmark
+    public ErrorValidacion validadorConError() {
+        return validador.validar(TITULO, "Autor 2", ANO, reutilizado) ? null : reutilizado.getPrimerError();
+    }
+
+    @Benchmark
+    public Integer conRegex() {
+        validarTituloConRegex(TITULO);
+        validarAutorConRegex(AUTOR);
+        validarAnoConRegex(ANO);
+        return Integer.parseInt(ANO);
+    }
+
+    @Benchmark
+    public String conRegexConError() {
+        try {
+            validarAutorConRegex("Autor 2");
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static void validarTituloConRegex(String titulo) {
+        if (titulo == null || titulo.trim().isEmpty()) {
+            throw new IllegalArgumentException("El título no puede estar vacío");
+        }
+        if (titulo.trim().length() < 2) {
+            throw new IllegalArgumentException("El título debe tener al menos 2 caracteres");
+        }
+        if (titulo.trim().length() > 200) {
+            throw new IllegalArgumentException("El título no puede exceder 200 caracteres");
+        }
+    }
+
+    private static void validarAutorConRegex(String autor) {
+        if (autor == null || autor.trim().isEmpty()) {
+            throw new IllegalArgumentException("El autor no puede estar vacío");
+        }
+        if (autor.trim().length() < 2) {
+            throw new IllegalArgumentException("El autor debe tener al menos 2 caracteres");
+        }
+        if (autor.trim().length() > 100) {
+            throw new IllegalArgumentException("El autor no puede exceder 100 caracteres");
+        }
+        if (autor.matches(".*\\d.*")) {
+            throw new IllegalArgumentException("El autor no puede contener números");
+        }
+        if (!autor.matches("^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s\\.\\-']+$")) {
+            throw new IllegalArgumentException(
+                    "El autor solo puede contener letras, espacios, puntos, guiones y apostrofes");
+        }
+    }
+
+    private static void validarAnoConRegex(String anoPublicacionStr) {
+        if (anoPublicacionStr == null || anoPublicacionStr.trim().isEmpty()) {
+            throw new IllegalArgumentException("El año de publicación no puede estar vacío");
+        }
+        if (anoPublicacionStr.matches(".*[a-zA-Z].*")) {
+            throw new IllegalArgumentException("El año de publicación no puede contener letras");
+        }
+        int anoPublicacion;
+        try {
+            anoPublicacion = Integer.parseInt(anoPublicacionStr.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El año de publicación debe ser un número válido");
+        }
+        if (anoPublicacion <= 0) {
+            throw new IllegalArgumentException("El año de publicación debe ser válido");
+        }
+        if (anoPublicacion > java.time.Year.now().getValue()) {
+            throw new IllegalArgumentException("El año de publicación no puede ser futuro");
+        }
+        if (anoPublicacion < 1000) {
+            throw new IllegalArgumentException("El año de publicación debe ser desde el año 1000");
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MedidorOperacionBenchmark - costo de registrar una latencia
+ *
+ * Con -prof gc se comprueba que registrar no crea objetos (gc.alloc.rate.norm
+ * cerca de 0 B/op); con -t mayor a 1 se ve la contencion sobre las cubetas.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MedidorOperacionBenchmark {
+
+    private final MedidorOperacion medidor = Metricas.operacion("benchmark", "registrar");
+
+    @Benchmark
+    public void registrar() {
+        // Latencias entre 1 us y 1 ms, con codigos 200 y 404
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        medidor.registrar(azar.nextInt(8) == 0 ? 404 : 200, 1_000 + azar.nextLong(1_000_000));
+    }
+
+    /**
+     * Lo que paga un metodo medido: dos System.nanoTime y registrar
+     */
+    @Benchmark
+    public void registrarDesde() {
+        medidor.registrarDesde(200, System.nanoTime());
+    }
+}
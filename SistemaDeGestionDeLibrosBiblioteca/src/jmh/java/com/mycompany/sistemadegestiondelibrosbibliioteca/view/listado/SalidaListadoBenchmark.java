@@ -0,0 +1,108 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.view.listado;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.benchmark.CatalogoSintetico;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SalidaListadoBenchmark - Listar 'filas' libros de punta a punta
+ *
+ * printlnPorLibro copia el camino anterior de BibliotecaView: una
+ * concatenacion y un println por libro sobre un PrintStream armado como
+ * System.out (autoflush y un BufferedOutputStream de 128 bytes).
+ * salidaListado es el camino nuevo, en cada formato. Las dos escriben a
+ * /dev/null, asi se mide el costo de la JVM y de las llamadas al sistema
+ * operativo y no el de la terminal, que con un millon de lineas es peor todavia.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SalidaListadoBenchmark {
+    private static final Path DESCARTE = Path.of("/dev/null");
+    // Libros distintos que se repiten hasta llegar a 'filas', para no tener un millon en el heap
+    private static final int DISTINTOS = 10_000;
+
+    @Param({"10000", "1000000"})
+    public int filas;
+
+    private LibroDTO[] libros;
+    private PrintStream consolaAnterior;
+    private FileChannel canal;
+    private SalidaListado salida;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        CatalogoSintetico catalogo = new CatalogoSintetico(42);
+        libros = new LibroDTO[DISTINTOS];
+        for (int i = 0; i < DISTINTOS; i++) {
+            Libro libro = catalogo.libro();
+            libros[i] = new LibroDTO(i + 1L, libro.getTitulo(), libro.getAutor(), libro.getAnoPublicacion(), 1L);
+        }
+        consolaAnterior = new PrintStream(new BufferedOutputStream(new FileOutputStream(DESCARTE.toFile()), 128),
+                true, StandardCharsets.UTF_8);
+        canal = FileChannel.open(DESCARTE, StandardOpenOption.WRITE);
+        salida = new SalidaListado(canal, StandardCharsets.UTF_8, SalidaListado.CAPACIDAD_POR_DEFECTO);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws IOException {
+        consolaAnterior.close();
+        canal.close();
+    }
+
+    @Benchmark
+    public void printlnPorLibro() {
+        for (int i = 0; i < filas; i++) {
+            LibroDTO libro = libros[i % DISTINTOS];
+            consolaAnterior.println("ID: " + libro.getId() +
+                    " | Título: " + libro.getTitulo() +
+                    " | Autor: " + libro.getAutor() +
+                    " | Año: " + libro.getAnoPublicacion());
+        }
+    }
+
+    @Benchmark
+    public void salidaListado(Formato formato) {
+        salida.encabezado(formato.formato);
+        for (int i = 0; i < filas; i++) {
+            salida.fila(formato.formato, libros[i % DISTINTOS]);
+        }
+        salida.vaciar();
+    }
+
+    /**
+     * El camino anterior solo tenia la tabla: el formato es un parametro aparte
+     * para no medirlo tres veces
+     */
+    @State(Scope.Benchmark)
+    public static class Formato {
+        @Param({"TABLA", "CSV", "JSON_LINES"})
+        public FormatoListado formato;
+    }
+}
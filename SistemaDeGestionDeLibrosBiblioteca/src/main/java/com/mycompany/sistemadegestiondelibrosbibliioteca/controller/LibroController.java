@@ -1,24 +1,87 @@
 package com.mycompany.sistemadegestiondelibrosbibliioteca.controller;
 
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.service.LibroNoEncontradoException;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.service.LibroService;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.service.LibroServiceAsincrono;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.EstadisticasCache;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PrestamoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ReporteCatalogoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.SolicitudLibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ErrorImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.FormatoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ResultadoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.EventoPrestamo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.service.PrestamoService;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.MedidorOperacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.Metricas;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.view.BibliotecaView;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * LibroController - Controlador MVC
  * Coordina entre Model (LibroService) y View (BibliotecaView)
  * Maneja endpoints REST y peticiones HTTP
+ * Los metodos que retornan RespuestaHttp no usan la vista, asi los comparten
+ * la consola y el ServidorHttp
+ * obtenerLibro, agregarLibro, listarTodosLosLibros, actualizarLibro y
+ * modificarLibro registran su latencia y su codigo en Metricas (capa
+ * "controller"), tanto desde la consola como desde HTTP
+ * Los metodos ...Async hacen lo mismo sin bloquear a quien llama: retornan un
+ * CompletableFuture que se completa con la RespuestaHttp (ver LibroServiceAsincrono)
  *
  * @author gian_
  */
 public class LibroController {
+    private static final MedidorOperacion OBTENER_LIBRO = Metricas.operacion("controller", "obtenerLibro");
+    private static final MedidorOperacion AGREGAR_LIBRO = Metricas.operacion("controller", "agregarLibro");
+    private static final MedidorOperacion LISTAR_TODOS = Metricas.operacion("controller", "listarTodosLosLibros");
+    private static final MedidorOperacion ACTUALIZAR_LIBRO = Metricas.operacion("controller", "actualizarLibro");
+    private static final MedidorOperacion MODIFICAR_LIBRO = Metricas.operacion("controller", "modificarLibro");
+
     private LibroService libroService;  // Referencia al MODEL
+    private LibroServiceAsincrono libroServiceAsincrono;  // El mismo MODEL, sin bloquear
+    private PrestamoService prestamoService;
     private BibliotecaView view;         // Referencia a la VIEW
 
     public LibroController(BibliotecaView view) {
-        this.libroService = new LibroService();
+        this(new LibroService(), view);
+    }
+
+    /**
+     * Constructor para compartir el mismo MODEL entre varios front ends.
+     * La view puede ser null si solo se usan los metodos que retornan RespuestaHttp
+     */
+    public LibroController(LibroService libroService, BibliotecaView view) {
+        this(libroService, new PrestamoService(), view);
+    }
+
+    public LibroController(LibroService libroService, PrestamoService prestamoService, BibliotecaView view) {
+        this(libroService, new LibroServiceAsincrono(libroService), prestamoService, view);
+    }
+
+    public LibroController(LibroService libroService, LibroServiceAsincrono libroServiceAsincrono,
+                           PrestamoService prestamoService, BibliotecaView view) {
+        this.libroService = libroService;
+        this.libroServiceAsincrono = libroServiceAsincrono;
+        this.prestamoService = prestamoService;
         this.view = view;
     }
 
@@ -27,26 +90,42 @@ public class LibroController {
      * RECIBE POR PARAMETRO UN ID
      */
     public void obtenerLibro(Long id) {
+        RespuestaHttp<LibroDTO> respuesta = consultarLibro(id);
+
+        if (respuesta.esExitosa()) {
+            // Coordina con la VIEW para mostrar la respuesta exitosa
+            view.mostrarLibroEncontrado(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * OBTIENE UN LIBRO Y RETORNA EL CODIGO HTTP CORRESPONDIENTE (GET /libros/{id})
+     * No depende de la vista, lo usan la consola y el servidor HTTP
+     */
+    public RespuestaHttp<LibroDTO> consultarLibro(Long id) {
+        long inicio = System.nanoTime();
+        RespuestaHttp<LibroDTO> respuesta = buscarLibro(id);
+        OBTENER_LIBRO.registrarDesde(respuesta.getCodigo(), inicio);
+        return respuesta;
+    }
+
+    private RespuestaHttp<LibroDTO> buscarLibro(Long id) {
         try {
             // Coordina con el MODEL para obtener los datos
             // TODAS las validaciones están en el Service
-            LibroDTO libro = libroService.obtenerLibroPorId(id);
-
-            // Coordina con la VIEW para mostrar la respuesta exitosa
-            view.mostrarLibroEncontrado(libro);
+            Optional<LibroDTO> libro = libroService.buscarLibroPorId(id);
+            // Error 404 - Not Found (sin excepciones: es un resultado comun)
+            return libro.isPresent() ? RespuestaHttp.ok(libro.get()) : RespuestaHttp.noEncontrado();
 
         } catch (IllegalArgumentException e) {
             // Error 400 - Bad Request (datos inválidos)
-            view.mostrarError(400, "Datos inválidos: " + e.getMessage());
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
 
         } catch (RuntimeException e) {
-            if (e.getMessage().contains("404")) {
-                // Error 404 - Not Found
-                view.mostrarError(404, "Libro no encontrado");
-            } else {
-                // Error 500 - Internal Server Error
-                view.mostrarError(500, "Error interno del servidor");
-            }
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error interno del servidor");
         }
     }
     
@@ -55,41 +134,576 @@ public class LibroController {
      * METODO PARA OBTENER TODOS LOS LIBROS (SE IMPRIMEN EN LA VISTA)
      */
     public void listarTodosLosLibros() {
+        RespuestaHttp<Stream<LibroDTO>> respuesta = consultarStreamDeLibros();
+
+        if (!respuesta.esExitosa()) {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        // Coordina con la VIEW para mostrar la lista a medida que se recorre,
+        // sin armarla entera en memoria
+        try (Stream<LibroDTO> libros = respuesta.getCuerpo()) {
+            view.mostrarListaLibros(libroService.contarLibros(), libros.iterator());
+        } catch (Exception e) {
+            view.mostrarError(500, "Error al obtener la lista de libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * OBTIENE TODOS LOS LIBROS COMO STREAM, EN ORDEN DE ID (GET /libros)
+     * Quien lo recibe debe cerrarlo; la latencia se mide hasta que se cierra
+     */
+    public RespuestaHttp<Stream<LibroDTO>> consultarStreamDeLibros() {
+        long inicio = System.nanoTime();
+        try {
+            return RespuestaHttp.ok(libroService.streamLibros()
+                    .onClose(() -> LISTAR_TODOS.registrarDesde(200, inicio)));
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            LISTAR_TODOS.registrarDesde(500, inicio);
+            return RespuestaHttp.error(500, "Error al obtener la lista de libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * MUESTRA UNA PAGINA DEL LISTADO (SE IMPRIME EN LA VISTA)
+     * @return Cursor de la proxima pagina, o null si no hay mas (o hubo un error)
+     */
+    public Long listarPaginaDeLibros(Long despuesDeId) {
+        RespuestaHttp<PaginaLibrosDTO> respuesta = consultarPagina(despuesDeId, null);
+
+        if (respuesta.esExitosa()) {
+            view.mostrarPaginaLibros(respuesta.getCuerpo());
+            return respuesta.getCuerpo().getSiguiente();
+        }
+        view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        return null;
+    }
+
+    /**
+     * OBTIENE UNA PAGINA DEL LISTADO ORDENADO POR ID (GET /libros?despues=id&limite=n)
+     */
+    public RespuestaHttp<PaginaLibrosDTO> consultarPagina(Long despuesDeId, Integer limite) {
+        try {
+            return RespuestaHttp.ok(libroService.obtenerPaginaDeLibros(despuesDeId, limite));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error al obtener la página de libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * OBTIENE TODOS LOS LIBROS (GET /libros)
+     */
+    public RespuestaHttp<List<LibroDTO>> consultarTodosLosLibros() {
+        long inicio = System.nanoTime();
+        RespuestaHttp<List<LibroDTO>> respuesta;
         try {
             // Coordina con el MODEL para obtener todos los libros
-            List<LibroDTO> libros = libroService.obtenerTodosLosLibros();
+            respuesta = RespuestaHttp.ok(libroService.obtenerTodosLosLibros());
 
-            // Coordina con la VIEW para mostrar la lista
-            view.mostrarListaLibros(libros);
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            respuesta = RespuestaHttp.error(500, "Error al obtener la lista de libros: " + e.getMessage());
+        }
+        LISTAR_TODOS.registrarDesde(respuesta.getCodigo(), inicio);
+        return respuesta;
+    }
+
+    /**
+     * BUSCA LIBROS POR TITULO O AUTOR (SE IMPRIMEN EN LA VISTA)
+     */
+    public void buscarLibros(String consulta) {
+        RespuestaHttp<List<LibroDTO>> respuesta = consultarBusqueda(consulta, null);
+
+        if (respuesta.esExitosa()) {
+            view.mostrarResultadosBusqueda(consulta, respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * BUSCA LIBROS POR TEXTO, ORDENADOS POR RELEVANCIA (GET /libros?q=texto&limite=n)
+     * El limite puede ser null para usar el valor por defecto
+     */
+    public RespuestaHttp<List<LibroDTO>> consultarBusqueda(String consulta, Integer limite) {
+        try {
+            return RespuestaHttp.ok(libroService.buscarLibros(consulta, limite));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
 
         } catch (Exception e) {
             // Error 500 - Internal Server Error
-            view.mostrarError(500, "Error al obtener la lista de libros: " + e.getMessage());
+            return RespuestaHttp.error(500, "Error al buscar libros: " + e.getMessage());
         }
     }
+
+    /**
+     * FILTRA LIBROS POR RANGO DE AÑOS, AUTOR Y DISPONIBILIDAD
+     * (GET /libros?desde=1900&hasta=1950&autor=x&disponible=true&limite=n)
+     * Los filtros null no se aplican
+     */
+    public RespuestaHttp<List<LibroDTO>> consultarFiltro(Integer anoDesde, Integer anoHasta, String autor,
+                                                         Boolean disponible, Integer limite) {
+        try {
+            return RespuestaHttp.ok(libroService.filtrarLibros(anoDesde, anoHasta, autor, disponible, limite));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error al filtrar libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * MUESTRA EL REPORTE DEL CATALOGO (SE IMPRIME EN LA VISTA)
+     */
+    public void mostrarReporteCatalogo() {
+        RespuestaHttp<ReporteCatalogoDTO> respuesta = consultarReporteCatalogo(null);
+
+        if (respuesta.esExitosa()) {
+            view.mostrarReporteCatalogo(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * REPORTE DEL CATALOGO: DISPONIBILIDAD, AÑOS, LIBROS POR DECADA Y AUTORES
+     * CON MAS LIBROS (GET /libros/_reporte?autores=n)
+     * La cantidad de autores puede ser null para usar el valor por defecto
+     */
+    public RespuestaHttp<ReporteCatalogoDTO> consultarReporteCatalogo(Integer autores) {
+        try {
+            return RespuestaHttp.ok(libroService.obtenerReporteCatalogo(autores));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error al generar el reporte: " + e.getMessage());
+        }
+    }
+
+    /**
+     * CONTADORES DE LA CACHE DE LIBROS (GET /libros/_cache)
+     */
+    public RespuestaHttp<EstadisticasCache> consultarEstadisticasCache() {
+        return RespuestaHttp.ok(libroService.obtenerEstadisticasCache());
+    }
+
+    /**
+     * MEDIDORES DE LATENCIA DEL CONTROLLER Y EL DAO (GET /metrics)
+     */
+    public RespuestaHttp<List<MedidorOperacion>> consultarMetricas() {
+        return RespuestaHttp.ok(Metricas.operaciones());
+    }
+
     /**
      * AGREGA UN NUEVO LIBRO
      * RECIBE TRES PARAMETROS Y QUE LUEGO VALIDARA EN EL SERVICE
      */
     public void agregarLibro(String titulo, String autor, String anoPublicacionStr) {
+        RespuestaHttp<LibroDTO> respuesta = crearLibro(titulo, autor, anoPublicacionStr);
+
+        if (respuesta.esExitosa()) {
+            // Coordina con la VIEW para mostrar la respuesta exitosa (201 Created)
+            view.mostrarLibroCreado(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * CREA UN NUEVO LIBRO Y RETORNA 201, 400 O 500 (POST /libros)
+     */
+    public RespuestaHttp<LibroDTO> crearLibro(String titulo, String autor, String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        RespuestaHttp<LibroDTO> respuesta = guardarLibro(titulo, autor, anoPublicacionStr);
+        AGREGAR_LIBRO.registrarDesde(respuesta.getCodigo(), inicio);
+        return respuesta;
+    }
+
+    private RespuestaHttp<LibroDTO> guardarLibro(String titulo, String autor, String anoPublicacionStr) {
         try {
             // Coordina con el MODEL para crear el libro
             // TODAS las validaciones están en el Service
-            LibroDTO nuevoLibro = libroService.agregarLibro(titulo, autor, anoPublicacionStr);
+            return RespuestaHttp.creado(libroService.agregarLibro(titulo, autor, anoPublicacionStr));
 
-            // Coordina con la VIEW para mostrar la respuesta exitosa (201 Created)
-            view.mostrarLibroCreado(nuevoLibro);
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * METODO PARA EDITAR UN LIBRO DESDE LA CONSOLA (LO IMPRIME EN LA VISTA)
+     * Los campos null no cambian
+     */
+    public void editarLibro(Long id, Long version, String titulo, String autor, String anoPublicacionStr) {
+        RespuestaHttp<LibroDTO> respuesta = modificarLibro(id, version, titulo, autor, anoPublicacionStr);
+
+        if (respuesta.esExitosa()) {
+            view.mostrarLibroActualizado(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * REEMPLAZA LOS DATOS DE UN LIBRO (PUT /libros/{id})
+     * Retorna 200, 400, 404, 409 si la version no es la ultima, o 500
+     */
+    public RespuestaHttp<LibroDTO> actualizarLibro(Long id, Long version, String titulo, String autor,
+                                                   String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        RespuestaHttp<LibroDTO> respuesta = respuestaDeCambio(
+                () -> libroService.actualizarLibro(id, version, titulo, autor, anoPublicacionStr));
+        ACTUALIZAR_LIBRO.registrarDesde(respuesta.getCodigo(), inicio);
+        return respuesta;
+    }
+
+    /**
+     * MODIFICA SOLO LOS CAMPOS QUE VIENEN (PATCH /libros/{id})
+     * Retorna 200, 400, 404, 409 si la version no es la ultima, o 500
+     */
+    public RespuestaHttp<LibroDTO> modificarLibro(Long id, Long version, String titulo, String autor,
+                                                  String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        RespuestaHttp<LibroDTO> respuesta = respuestaDeCambio(
+                () -> libroService.modificarLibro(id, version, titulo, autor, anoPublicacionStr));
+        MODIFICAR_LIBRO.registrarDesde(respuesta.getCodigo(), inicio);
+        return respuesta;
+    }
+
+    private RespuestaHttp<LibroDTO> respuestaDeCambio(Supplier<Optional<LibroDTO>> cambio) {
+        try {
+            Optional<LibroDTO> libro = cambio.get();
+            // Error 404 - Not Found (sin excepcion)
+            return libro.isPresent() ? RespuestaHttp.ok(libro.get()) : RespuestaHttp.noEncontrado();
 
         } catch (IllegalArgumentException e) {
             // Error 400 - Bad Request (datos inválidos)
-            view.mostrarError(400, "Datos inválidos: " + e.getMessage());
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (ConflictoVersionException e) {
+            // Error 409 - Conflict (otro cambio se guardo despues de leer la version).
+            // Cualquier otro IllegalStateException (log cerrado, almacen lleno,
+            // particion caida) es un error del servidor
+            return RespuestaHttp.error(409, "Conflicto: " + e.getMessage());
 
         } catch (Exception e) {
             // Error 500 - Internal Server Error
-            view.mostrarError(500, "Error interno del servidor: " + e.getMessage());
+            return RespuestaHttp.error(500, "Error al actualizar el libro: " + e.getMessage());
         }
     }
-    
+
+    /**
+     * OBTIENE VARIOS LIBROS DE UNA VEZ (GET /libros?ids=1,2,3)
+     * Retorna 200 con un resultado por ID (200, 400 o 404), o 400 si el lote es invalido
+     */
+    public RespuestaHttp<List<ResultadoLoteDTO>> consultarLibros(List<Long> ids) {
+        try {
+            return RespuestaHttp.ok(libroService.obtenerLibrosPorIds(ids));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error al obtener los libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * CREA VARIOS LIBROS DE UNA VEZ (POST /libros/_batch)
+     * Retorna 200 con un resultado por libro (201 o 400), o 400 si el lote es invalido
+     */
+    public RespuestaHttp<List<ResultadoLoteDTO>> crearLibros(List<SolicitudLibroDTO> solicitudes) {
+        try {
+            return RespuestaHttp.ok(libroService.agregarLibros(solicitudes));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * IMPORTA UN ARCHIVO CSV O JSON LINES DEL DISCO (EL FORMATO SALE DE LA EXTENSION)
+     * Los errores de cada fila se muestran en la vista a medida que aparecen
+     */
+    public void importarArchivo(String ruta) {
+        FormatoImportacion formato;
+        try {
+            formato = FormatoImportacion.desdeArchivo(ruta);
+        } catch (IllegalArgumentException e) {
+            view.mostrarError(400, e.getMessage());
+            return;
+        }
+        RespuestaHttp<ResultadoImportacion> respuesta;
+        try (BufferedReader entrada = Files.newBufferedReader(Path.of(ruta), StandardCharsets.UTF_8)) {
+            respuesta = importarLibros(entrada, formato, view::mostrarErrorImportacion);
+        } catch (NoSuchFileException e) {
+            view.mostrarError(404, "Archivo no encontrado: " + ruta);
+            return;
+        } catch (IOException | InvalidPathException e) {
+            view.mostrarError(400, "No se pudo abrir el archivo: " + e.getMessage());
+            return;
+        }
+
+        if (respuesta.esExitosa()) {
+            view.mostrarResultadoImportacion(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * IMPORTA LIBROS EN MASA Y RETORNA 200 CON EL RESUMEN, 400 O 500 (POST /libros/_importar)
+     * Las filas invalidas no son un error de la peticion: van en el resumen
+     */
+    public RespuestaHttp<ResultadoImportacion> importarLibros(BufferedReader entrada, FormatoImportacion formato,
+                                                              Consumer<ErrorImportacion> alError) {
+        try {
+            return RespuestaHttp.ok(libroService.importarLibros(entrada, formato, alError));
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (archivo con formato invalido)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error al importar libros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * PRESTA, DEVUELVE O RESERVA UN LIBRO (SE IMPRIME EN LA VISTA)
+     * @param operacion "prestar", "devolver" o "reservar"
+     */
+    public void operarPrestamo(String operacion, Long id, String usuario) {
+        RespuestaHttp<PrestamoDTO> respuesta;
+        switch (operacion) {
+            case "prestar":
+                respuesta = pedirPrestamo(id, usuario);
+                break;
+            case "devolver":
+                respuesta = registrarDevolucion(id, usuario);
+                break;
+            default:
+                respuesta = registrarReserva(id, usuario);
+                break;
+        }
+
+        if (respuesta.esExitosa()) {
+            view.mostrarPrestamo(respuesta.getCuerpo());
+        } else {
+            view.mostrarError(respuesta.getCodigo(), respuesta.getMensaje());
+        }
+    }
+
+    /**
+     * MUESTRA EL ESTADO DEL PRESTAMO Y LOS ULTIMOS EVENTOS DE UN LIBRO
+     */
+    public void mostrarPrestamo(Long id) {
+        RespuestaHttp<PrestamoDTO> estado = consultarPrestamo(id);
+        if (!estado.esExitosa()) {
+            view.mostrarError(estado.getCodigo(), estado.getMensaje());
+            return;
+        }
+        view.mostrarPrestamo(estado.getCuerpo());
+
+        RespuestaHttp<List<EventoPrestamo>> historial = consultarHistorial(id, null);
+        if (historial.esExitosa()) {
+            view.mostrarHistorialPrestamos(historial.getCuerpo());
+        } else {
+            view.mostrarError(historial.getCodigo(), historial.getMensaje());
+        }
+    }
+
+    /**
+     * ESTADO DEL PRESTAMO DE UN LIBRO (GET /libros/{id}/prestamo)
+     */
+    public RespuestaHttp<PrestamoDTO> consultarPrestamo(Long id) {
+        return respuestaDePrestamo(() -> prestamoService.consultarPrestamo(id));
+    }
+
+    /**
+     * PRESTA UN LIBRO (POST /libros/{id}/prestamo)
+     * Retorna 200, 400, 404 o 409 si el libro no se puede prestar a ese usuario
+     */
+    public RespuestaHttp<PrestamoDTO> pedirPrestamo(Long id, String usuario) {
+        return respuestaDePrestamo(() -> prestamoService.prestarLibro(id, usuario));
+    }
+
+    /**
+     * DEVUELVE UN LIBRO (POST /libros/{id}/devolucion)
+     * Retorna 200, 400, 404 o 409 si el libro no esta prestado a ese usuario
+     */
+    public RespuestaHttp<PrestamoDTO> registrarDevolucion(Long id, String usuario) {
+        return respuestaDePrestamo(() -> prestamoService.devolverLibro(id, usuario));
+    }
+
+    /**
+     * AGREGA AL USUARIO A LA LISTA DE ESPERA (POST /libros/{id}/reserva)
+     * Retorna 200, 400, 404 o 409 si el libro esta disponible o el usuario ya esta en la lista
+     */
+    public RespuestaHttp<PrestamoDTO> registrarReserva(Long id, String usuario) {
+        return respuestaDePrestamo(() -> prestamoService.reservarLibro(id, usuario));
+    }
+
+    /**
+     * EVENTOS DE PRESTAMO DE UN LIBRO, DEL MAS NUEVO AL MAS VIEJO (GET /libros/{id}/historial?limite=n)
+     */
+    public RespuestaHttp<List<EventoPrestamo>> consultarHistorial(Long id, Integer limite) {
+        return respuestaDePrestamo(() -> prestamoService.obtenerHistorial(id, limite));
+    }
+
+    /**
+     * Los codigos de todas las operaciones de prestamos
+     */
+    private <T> RespuestaHttp<T> respuestaDePrestamo(Supplier<T> operacion) {
+        try {
+            return RespuestaHttp.ok(operacion.get());
+
+        } catch (IllegalArgumentException e) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + e.getMessage());
+
+        } catch (IllegalStateException e) {
+            // Error 409 - Conflict (el estado del libro no lo permite)
+            return RespuestaHttp.error(409, "Conflicto: " + e.getMessage());
+
+        } catch (LibroNoEncontradoException e) {
+            // Error 404 - Not Found
+            return RespuestaHttp.noEncontrado();
+
+        } catch (RuntimeException e) {
+            // Error 500 - Internal Server Error
+            return RespuestaHttp.error(500, "Error interno del servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * OBTIENE UN LIBRO SIN BLOQUEAR (GET /libros/{id} en el servidor HTTP)
+     * Los mismos codigos que consultarLibro
+     */
+    public CompletableFuture<RespuestaHttp<LibroDTO>> consultarLibroAsync(Long id) {
+        long inicio = System.nanoTime();
+        return medir(OBTENER_LIBRO, inicio, libroServiceAsincrono.buscarLibroPorId(id)
+                .handle((libro, error) -> respuestaAsincrona(libro, error, 200, "Error interno del servidor", false)));
+    }
+
+    /**
+     * CREA UN LIBRO SIN BLOQUEAR (POST /libros en el servidor HTTP)
+     * Los mismos codigos que crearLibro
+     */
+    public CompletableFuture<RespuestaHttp<LibroDTO>> crearLibroAsync(String titulo, String autor,
+                                                                      String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        return medir(AGREGAR_LIBRO, inicio, libroServiceAsincrono.agregarLibro(titulo, autor, anoPublicacionStr)
+                .handle((libro, error) -> respuestaAsincrona(Optional.ofNullable(libro), error, 201,
+                        "Error interno del servidor", false)));
+    }
+
+    /**
+     * CREA VARIOS LIBROS SIN BLOQUEAR (POST /libros/_batch en el servidor HTTP)
+     * Los mismos codigos que crearLibros
+     */
+    public CompletableFuture<RespuestaHttp<List<ResultadoLoteDTO>>> crearLibrosAsync(
+            List<SolicitudLibroDTO> solicitudes) {
+        return libroServiceAsincrono.agregarLibros(solicitudes)
+                .handle((resultados, error) -> respuestaAsincrona(Optional.ofNullable(resultados), error, 200,
+                        "Error interno del servidor", false));
+    }
+
+    /**
+     * PUT SIN BLOQUEAR; los mismos codigos que actualizarLibro
+     */
+    public CompletableFuture<RespuestaHttp<LibroDTO>> actualizarLibroAsync(Long id, Long version, String titulo,
+                                                                           String autor, String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        return medir(ACTUALIZAR_LIBRO, inicio,
+                libroServiceAsincrono.actualizarLibro(id, version, titulo, autor, anoPublicacionStr)
+                        .handle((libro, error) -> respuestaAsincrona(libro, error, 200,
+                                "Error al actualizar el libro", true)));
+    }
+
+    /**
+     * PATCH SIN BLOQUEAR; los mismos codigos que modificarLibro
+     */
+    public CompletableFuture<RespuestaHttp<LibroDTO>> modificarLibroAsync(Long id, Long version, String titulo,
+                                                                          String autor, String anoPublicacionStr) {
+        long inicio = System.nanoTime();
+        return medir(MODIFICAR_LIBRO, inicio,
+                libroServiceAsincrono.modificarLibro(id, version, titulo, autor, anoPublicacionStr)
+                        .handle((libro, error) -> respuestaAsincrona(libro, error, 200,
+                                "Error al actualizar el libro", true)));
+    }
+
+    /**
+     * Convierte el resultado (o el error) de una operacion asincrona en la
+     * respuesta, con los mismos codigos que los metodos sincronicos
+     * @param conConflicto true si un ConflictoVersionException es un 409 (cambios con version)
+     */
+    private static <T> RespuestaHttp<T> respuestaAsincrona(Optional<T> valor, Throwable error, int codigoExito,
+                                                          String mensajeInterno, boolean conConflicto) {
+        if (error == null) {
+            if (valor.isEmpty()) {
+                // Error 404 - Not Found (sin excepcion)
+                return RespuestaHttp.noEncontrado();
+            }
+            return codigoExito == 201 ? RespuestaHttp.creado(valor.get()) : RespuestaHttp.ok(valor.get());
+        }
+        // supplyAsync envuelve la excepcion del service
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (causa instanceof IllegalArgumentException) {
+            // Error 400 - Bad Request (datos inválidos)
+            return RespuestaHttp.error(400, "Datos inválidos: " + causa.getMessage());
+        }
+        if (causa instanceof LibroNoEncontradoException) {
+            return RespuestaHttp.noEncontrado();
+        }
+        if (conConflicto && causa instanceof ConflictoVersionException) {
+            // Error 409 - Conflict (otro cambio se guardo despues de leer la version)
+            return RespuestaHttp.error(409, "Conflicto: " + causa.getMessage());
+        }
+        // Error 500 - Internal Server Error
+        return RespuestaHttp.error(500, mensajeInterno + ": " + causa.getMessage());
+    }
+
+    /**
+     * Registra la latencia cuando la respuesta esta lista, no cuando se pidio
+     */
+    private static <T> CompletableFuture<RespuestaHttp<T>> medir(MedidorOperacion medidor, long inicio,
+                                                                CompletableFuture<RespuestaHttp<T>> respuesta) {
+        return respuesta.whenComplete((r, error) -> medidor.registrarDesde(r == null ? 500 : r.getCodigo(), inicio));
+    }
+
     /*
      * En el caso de una api rest los metodos se verian del siguiente modo y retornarian un ResponseEntity:
      * 
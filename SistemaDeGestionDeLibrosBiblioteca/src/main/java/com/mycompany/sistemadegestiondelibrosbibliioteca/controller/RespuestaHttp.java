@@ -0,0 +1,68 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller;
+
+/**
+ * RespuestaHttp - Resultado de una operacion del controlador
+ * Guarda el codigo HTTP y el cuerpo (o el mensaje de error) para que cada
+ * front end (consola o servidor HTTP) lo muestre a su manera
+ *
+ * @param <T> Tipo del cuerpo de la respuesta
+ */
+public class RespuestaHttp<T> {
+    // Inmutable y sin cuerpo: la misma instancia sirve para todos los "no encontrado"
+    private static final RespuestaHttp<?> NO_ENCONTRADO = new RespuestaHttp<>(404, null, "Libro no encontrado");
+
+    private final int codigo;
+    private final T cuerpo;
+    private final String mensaje;
+
+    private RespuestaHttp(int codigo, T cuerpo, String mensaje) {
+        this.codigo = codigo;
+        this.cuerpo = cuerpo;
+        this.mensaje = mensaje;
+    }
+
+    /**
+     * Respuesta exitosa 200 OK
+     */
+    public static <T> RespuestaHttp<T> ok(T cuerpo) {
+        return new RespuestaHttp<>(200, cuerpo, null);
+    }
+
+    /**
+     * Respuesta exitosa 201 CREATED
+     */
+    public static <T> RespuestaHttp<T> creado(T cuerpo) {
+        return new RespuestaHttp<>(201, cuerpo, null);
+    }
+
+    /**
+     * Respuesta 404 NOT FOUND de un libro, sin crear ningun objeto
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RespuestaHttp<T> noEncontrado() {
+        return (RespuestaHttp<T>) NO_ENCONTRADO;
+    }
+
+    /**
+     * Respuesta de error (4xx o 5xx) con su mensaje descriptivo
+     */
+    public static <T> RespuestaHttp<T> error(int codigo, String mensaje) {
+        return new RespuestaHttp<>(codigo, null, mensaje);
+    }
+
+    public boolean esExitosa() {
+        return codigo >= 200 && codigo < 300;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public T getCuerpo() {
+        return cuerpo;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
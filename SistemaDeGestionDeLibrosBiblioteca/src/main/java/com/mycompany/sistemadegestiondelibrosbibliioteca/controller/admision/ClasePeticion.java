@@ -0,0 +1,32 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision;
+
+/**
+ * ClasePeticion - Cada clase tiene su propio limite de concurrencia y sus
+ * propios cubos de fichas, asi una rafaga de altas no frena las lecturas
+ *
+ * MASIVA son las que recorren todo el catalogo (el listado completo, los
+ * reportes, las importaciones): tardan lo que tarde el catalogo, y si
+ * compartieran el limite con LECTURA cada una lo haria bajar
+ */
+public enum ClasePeticion {
+    LECTURA("lectura"),
+    ESCRITURA("escritura"),
+    MASIVA("masiva");
+
+    private final String nombre;
+
+    ClasePeticion(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /**
+     * GET y HEAD leen; el resto de los metodos escribe (MASIVA la decide quien enruta)
+     */
+    public static ClasePeticion deMetodo(String metodo) {
+        return metodo.equals("GET") || metodo.equals("HEAD") ? LECTURA : ESCRITURA;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+}
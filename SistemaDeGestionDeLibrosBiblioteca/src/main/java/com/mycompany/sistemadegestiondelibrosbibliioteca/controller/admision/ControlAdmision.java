@@ -0,0 +1,222 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ControlAdmision - Decide si una peticion entra antes de llegar al controlador
+ *
+ * Primero el cubo de fichas del cliente (429 Too Many Requests si lo vacio)
+ * y despues el LimiteAdaptativo de su clase (503 Service Unavailable si ya
+ * hay demasiadas en curso). Si la rechaza el limite, la ficha se le devuelve
+ * al cliente: la sobrecarga no le gasta el presupuesto. Las dos respuestas
+ * son inmediatas: una peticion que no entra no espera en ninguna cola, y
+ * las que entran no se atrasan detras de las que no van a poder atenderse
+ * a tiempo.
+ *
+ * Cada clase tiene su limite y sus cubos (ver ClasePeticion).
+ * Se configura con propiedades del sistema (ver desdePropiedades):
+ * -Dbiblioteca.admision=false                   sin limites
+ * -Dbiblioteca.admision.lecturas.maximo=N       lecturas en curso como maximo (1024)
+ * -Dbiblioteca.admision.lecturas.latenciaMs=N   latencia que nunca reduce el limite (50)
+ * -Dbiblioteca.admision.lecturas.porSegundo=N   lecturas por segundo de cada cliente (1000, 0 sin limite)
+ * -Dbiblioteca.admision.escrituras.maximo=N     (256)
+ * -Dbiblioteca.admision.escrituras.latenciaMs=N (250)
+ * -Dbiblioteca.admision.escrituras.porSegundo=N (200)
+ * -Dbiblioteca.admision.masivas.maximo=N        (8)
+ * -Dbiblioteca.admision.masivas.latenciaMs=N    (60000)
+ * -Dbiblioteca.admision.masivas.porSegundo=N    (5)
+ * Cada cubo admite rafagas del doble de su tasa por segundo. Lecturas y
+ * escrituras arrancan con un octavo de su maximo y lo buscan con AIMD; las
+ * masivas arrancan en su maximo, y como tardan lo que tarde el catalogo su
+ * latencia por defecto es tan alta que solo las hacen bajar los 5xx.
+ */
+public final class ControlAdmision {
+    // Por encima de esta cantidad de clientes se descartan los cubos llenos
+    private static final int MAXIMO_CLIENTES = 10_000;
+
+    private final Map<ClasePeticion, Clase> clases = new EnumMap<>(ClasePeticion.class);
+
+    private ControlAdmision() {
+    }
+
+    /**
+     * Control segun las propiedades del sistema
+     */
+    public static ControlAdmision desdePropiedades() {
+        ControlAdmision control = new ControlAdmision();
+        boolean activo = Boolean.parseBoolean(System.getProperty("biblioteca.admision", "true"));
+        control.configurar(ClasePeticion.LECTURA, activo, 1024, 50, 1000);
+        control.configurar(ClasePeticion.ESCRITURA, activo, 256, 250, 200);
+        control.configurar(ClasePeticion.MASIVA, activo, 8, 60_000, 5);
+        return control;
+    }
+
+    private void configurar(ClasePeticion clase, boolean activo, int maximo, long latenciaMs, int porSegundo) {
+        String prefijo = "biblioteca.admision." + clase.getNombre() + "s.";
+        maximo = Integer.getInteger(prefijo + "maximo", maximo);
+        if (maximo < 1) {
+            throw new IllegalArgumentException("El máximo de peticiones en curso debe ser positivo: " + maximo);
+        }
+        LimiteAdaptativo limite = new LimiteAdaptativo(clase == ClasePeticion.MASIVA ? maximo : Math.max(1, maximo / 8),
+                Math.max(1, maximo / 64), maximo,
+                TimeUnit.MILLISECONDS.toNanos(Long.getLong(prefijo + "latenciaMs", latenciaMs)));
+        clases.put(clase, !activo ? new Clase(clase, null, 0)
+                : new Clase(clase, limite, Integer.getInteger(prefijo + "porSegundo", porSegundo)));
+    }
+
+    /**
+     * Admite o rechaza la peticion sin esperar. Si fue admitida, quien la
+     * atiende debe llamar a Permiso.liberar cuando el servicio termino (antes
+     * de escribir el cuerpo, asi la latencia no incluye la red del cliente)
+     * @param cliente Quien hace la peticion (la direccion remota)
+     */
+    public Permiso admitir(ClasePeticion clase, String cliente) {
+        return clases.get(clase).admitir(cliente, System.nanoTime());
+    }
+
+    public int getLimite(ClasePeticion clase) {
+        LimiteAdaptativo limite = clases.get(clase).limite;
+        return limite == null ? 0 : limite.getLimite();
+    }
+
+    public int getEnCurso(ClasePeticion clase) {
+        LimiteAdaptativo limite = clases.get(clase).limite;
+        return limite == null ? 0 : limite.getEnCurso();
+    }
+
+    /**
+     * Peticiones de la clase rechazadas por su cliente (429)
+     */
+    public long getRechazadasPorCliente(ClasePeticion clase) {
+        return clases.get(clase).rechazadasPorCliente.sum();
+    }
+
+    /**
+     * Peticiones de la clase rechazadas por el limite de concurrencia (503)
+     */
+    public long getRechazadasPorSobrecarga(ClasePeticion clase) {
+        return clases.get(clase).rechazadasPorSobrecarga.sum();
+    }
+
+    /**
+     * Permiso - Resultado de admitir: una peticion admitida o el rechazo para responder
+     */
+    public static final class Permiso {
+        // Admitida sin limite de concurrencia: no hay nada que liberar
+        private static final Permiso LIBRE = new Permiso(null, 0, 0, null);
+
+        private final LimiteAdaptativo limite;
+        private final long inicio;
+        private final int codigo;
+        private final String mensaje;
+        private final long reintentarEnSegundos;
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        private Permiso(LimiteAdaptativo limite, long inicio, int codigo, String mensaje) {
+            this(limite, inicio, codigo, mensaje, 0);
+        }
+
+        private Permiso(LimiteAdaptativo limite, long inicio, int codigo, String mensaje, long reintentarEnSegundos) {
+            this.limite = limite;
+            this.inicio = inicio;
+            this.codigo = codigo;
+            this.mensaje = mensaje;
+            this.reintentarEnSegundos = reintentarEnSegundos;
+        }
+
+        public boolean esAdmitido() {
+            return codigo == 0;
+        }
+
+        /**
+         * 429 o 503 si fue rechazada
+         */
+        public int getCodigo() {
+            return codigo;
+        }
+
+        public String getMensaje() {
+            return mensaje;
+        }
+
+        /**
+         * Segundos para el header Retry-After de un rechazo
+         */
+        public long getReintentarEnSegundos() {
+            return reintentarEnSegundos;
+        }
+
+        /**
+         * Devuelve el lugar al limite con la latencia de la peticion. Solo
+         * cuenta la primera llamada; en un rechazo no hace nada
+         * @param codigoRespuesta Codigo HTTP de la respuesta (5xx reduce el limite)
+         */
+        public void liberar(int codigoRespuesta) {
+            if (limite != null && liberado.compareAndSet(false, true)) {
+                limite.liberar(inicio, System.nanoTime(), codigoRespuesta >= 500);
+            }
+        }
+    }
+
+    private static final class Clase {
+        private final LimiteAdaptativo limite;
+        private final double porSegundo;
+        private final Map<String, CuboFichas> cubos = new ConcurrentHashMap<>();
+        private final Permiso sobrecargado;
+        private final LongAdder rechazadasPorCliente = new LongAdder();
+        private final LongAdder rechazadasPorSobrecarga = new LongAdder();
+        private volatile int proximoBarrido = MAXIMO_CLIENTES;
+
+        private Clase(ClasePeticion clase, LimiteAdaptativo limite, double porSegundo) {
+            this.limite = limite;
+            this.porSegundo = porSegundo;
+            this.sobrecargado = new Permiso(null, 0, 503,
+                    "Servicio sobrecargado: demasiadas peticiones de " + clase.getNombre() + " en curso", 1);
+        }
+
+        private Permiso admitir(String cliente, long ahora) {
+            CuboFichas cubo = null;
+            if (porSegundo > 0) {
+                cubo = cubos.get(cliente);
+                if (cubo == null) {
+                    barrerSiHaceFalta(ahora);
+                    cubo = cubos.computeIfAbsent(cliente, c -> new CuboFichas(porSegundo, 2 * porSegundo, ahora));
+                }
+                if (!cubo.tomar(ahora)) {
+                    rechazadasPorCliente.increment();
+                    long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(cubo.nanosHastaFicha(ahora) + 999_999_999L));
+                    return new Permiso(null, 0, 429, "Demasiadas peticiones del cliente", segundos);
+                }
+            }
+            if (limite == null) {
+                return Permiso.LIBRE;
+            }
+            if (!limite.intentarAdquirir()) {
+                // El 503 es culpa de la sobrecarga, no del cliente: no le cuesta una ficha
+                if (cubo != null) {
+                    cubo.devolver();
+                }
+                rechazadasPorSobrecarga.increment();
+                return sobrecargado;
+            }
+            return new Permiso(limite, ahora, 0, null);
+        }
+
+        /**
+         * Con demasiados clientes descarta los cubos llenos (de clientes que no
+         * pidieron nada en el ultimo rato). Si aun asi quedan muchos, el
+         * proximo barrido se posterga hasta que se dupliquen
+         */
+        private void barrerSiHaceFalta(long ahora) {
+            if (cubos.size() >= proximoBarrido) {
+                cubos.values().removeIf(cubo -> cubo.estaLleno(ahora));
+                proximoBarrido = Math.max(MAXIMO_CLIENTES, cubos.size() * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision;
+
+/**
+ * CuboFichas - Token bucket de un cliente
+ *
+ * Se llena a 'porSegundo' fichas por segundo hasta 'capacidad' (la rafaga
+ * maxima) y cada peticion gasta una. Las fichas se recalculan al tomar, con
+ * el tiempo que paso desde la ultima vez: no hay ningun hilo que las reponga.
+ */
+final class CuboFichas {
+    private final double capacidad;
+    private final double porNano;
+    private double fichas;
+    private long ultimo;
+
+    CuboFichas(double porSegundo, double capacidad, long ahora) {
+        this.capacidad = capacidad;
+        this.porNano = porSegundo / 1e9;
+        this.fichas = capacidad;
+        this.ultimo = ahora;
+    }
+
+    /**
+     * Gasta una ficha si hay
+     */
+    synchronized boolean tomar(long ahora) {
+        reponer(ahora);
+        if (fichas < 1) {
+            return false;
+        }
+        fichas--;
+        return true;
+    }
+
+    /**
+     * Devuelve una ficha tomada por una peticion que al final no se atendio
+     */
+    synchronized void devolver() {
+        fichas = Math.min(capacidad, fichas + 1);
+    }
+
+    /**
+     * Nanos que faltan para tener una ficha (0 si ya hay)
+     */
+    synchronized long nanosHastaFicha(long ahora) {
+        reponer(ahora);
+        return fichas >= 1 ? 0 : (long) Math.ceil((1 - fichas) / porNano);
+    }
+
+    /**
+     * true si esta lleno: el cliente no gasto nada en el ultimo rato y el
+     * cubo se puede descartar (uno nuevo arranca igual, lleno)
+     */
+    synchronized boolean estaLleno(long ahora) {
+        reponer(ahora);
+        return fichas >= capacidad;
+    }
+
+    private void reponer(long ahora) {
+        if (ahora > ultimo) {
+            fichas = Math.min(capacidad, fichas + (ahora - ultimo) * porNano);
+            ultimo = ahora;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LimiteAdaptativo - Cuantas peticiones pueden estar en curso a la vez (AIMD)
+ *
+ * Cada peticion que termina bien y rapido suma 1/limite (uno por "vuelta"
+ * completa del limite) mientras el limite se este usando; una que tarda mas
+ * que la latencia objetivo o termina con 5xx lo multiplica por REDUCCION.
+ * La latencia objetivo es la mayor entre el piso configurado y TOLERANCIA
+ * veces la latencia base: la minima vista, que baja enseguida pero sube de a
+ * 1/DERIVA por cada ventana de MUESTRAS_VENTANA peticiones cuya minima es
+ * mayor. Asi sigue a un servicio que se volvio mas lento de verdad, pero la
+ * cola que se forma cuando el limite es alto no se vuelve la nueva base.
+ *
+ * Como en TCP, se reduce a lo sumo una vez por "ida y vuelta": solo una
+ * peticion admitida despues de la ultima reduccion puede volver a reducir, y
+ * una rafaga de respuestas lentas no lleva el limite al minimo de golpe.
+ */
+public final class LimiteAdaptativo {
+    private static final double REDUCCION = 0.9;
+    private static final double TOLERANCIA = 2.0;
+    private static final int MUESTRAS_VENTANA = 256;
+    private static final int DERIVA = 16;
+
+    private final int minimo;
+    private final int maximo;
+    private final long pisoNanos;
+    private final AtomicInteger enCurso = new AtomicInteger();
+
+    // Lo lee intentarAdquirir sin lock; lo escriben los liberar bajo el lock
+    private volatile int limite;
+    private double limiteExacto;
+    private long ultimaReduccion = Long.MIN_VALUE;
+    private long minimaVentana = Long.MAX_VALUE;
+    private long latenciaBase = Long.MAX_VALUE;
+    private int muestras;
+
+    /**
+     * @param inicial Limite con el que arranca
+     * @param pisoNanos Latencia por debajo de la cual nunca se reduce
+     */
+    public LimiteAdaptativo(int inicial, int minimo, int maximo, long pisoNanos) {
+        if (minimo < 1 || maximo < minimo || inicial < minimo || inicial > maximo) {
+            throw new IllegalArgumentException("Limites inválidos: " + minimo + " <= " + inicial + " <= " + maximo);
+        }
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.pisoNanos = pisoNanos;
+        this.limite = inicial;
+        this.limiteExacto = inicial;
+    }
+
+    /**
+     * Ocupa un lugar si hay; si no, retorna false sin esperar
+     */
+    public boolean intentarAdquirir() {
+        while (true) {
+            int actual = enCurso.get();
+            if (actual >= limite) {
+                return false;
+            }
+            if (enCurso.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera el lugar y ajusta el limite con la latencia de la peticion
+     * @param inicio System.nanoTime() de cuando se admitio
+     * @param sobrecarga true si el servicio fallo (5xx)
+     */
+    public void liberar(long inicio, long fin, boolean sobrecarga) {
+        int ocupados = enCurso.getAndDecrement();
+        long nanos = fin - inicio;
+        synchronized (this) {
+            latenciaBase = Math.min(latenciaBase, nanos);
+            minimaVentana = Math.min(minimaVentana, nanos);
+            if (++muestras == MUESTRAS_VENTANA) {
+                latenciaBase += (minimaVentana - latenciaBase) / DERIVA;
+                minimaVentana = Long.MAX_VALUE;
+                muestras = 0;
+            }
+            long objetivo = Math.max(pisoNanos, (long) (latenciaBase * TOLERANCIA));
+            if (sobrecarga || nanos > objetivo) {
+                if (inicio > ultimaReduccion) {
+                    limiteExacto = Math.max(minimo, limiteExacto * REDUCCION);
+                    ultimaReduccion = fin;
+                }
+            } else if (ocupados * 2 >= limite) {
+                // Solo crece si se esta usando: un limite ocioso no prueba nada
+                limiteExacto = Math.min(maximo, limiteExacto + 1.0 / limiteExacto);
+            }
+            limite = (int) limiteExacto;
+        }
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    public int getEnCurso() {
+        return enCurso.get();
+    }
+}
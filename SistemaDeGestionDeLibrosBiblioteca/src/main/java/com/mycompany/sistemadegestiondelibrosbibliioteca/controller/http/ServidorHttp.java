@@ -0,0 +1,820 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.LibroController;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.RespuestaHttp;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision.ClasePeticion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.admision.ControlAdmision;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato.CanalSalida;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato.EscritorRespuesta;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato.FormatoRespuesta;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato.PoolBuffers;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.EstadisticasCache;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PrestamoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ReporteCatalogoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.SolicitudLibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ErrorImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.FormatoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ResultadoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.EventoPrestamo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.Json;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.HistogramaLatencia;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.MedidorOperacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.ResumenLatencia;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * ServidorHttp - Front end HTTP de la biblioteca
+ * Usa el servidor incluido en el JDK (com.sun.net.httpserver) y atiende cada
+ * peticion en su propio hilo virtual, asi miles de clientes concurrentes no
+ * agotan un pool de hilos de plataforma. Con -Dbiblioteca.http.hilos=N las
+ * atiende un pool fijo de N hilos de plataforma.
+ *
+ * Obtener, crear (uno o un lote), actualizar y modificar un libro usan los
+ * metodos ...Async del controlador: el hilo que atendio la peticion solo lee
+ * el cuerpo y vuelve al pool, y cuando el future se completa la respuesta se
+ * escribe (y el intercambio se cierra) en el ejecutor del servidor, no en el
+ * del service. Asi un fsync lento del log o los indices no frenan a los hilos
+ * que aceptan peticiones, ni un cliente lento a los del service.
+ *
+ * Las respuestas con libros (uno, listas, paginas y lotes) se codifican sin
+ * Strings intermedios en buffers de un PoolBuffers y salen por un canal: en
+ * JSON o, con "Accept: application/x-libros", en el formato binario de
+ * EscritorBinario (ver FormatoRespuesta).
+ *
+ * Antes de enrutar, cada peticion a /libros pasa por el ControlAdmision:
+ * si su cliente (la direccion remota) supero su tasa se responde 429 y si
+ * ya hay demasiadas lecturas o escrituras en curso, 503, las dos al instante
+ * y con Retry-After. Lecturas y escrituras tienen limites separados, asi una
+ * rafaga de altas no atrasa los GET /libros/{id}, y el permiso se libera
+ * cuando el controller responde, antes de escribir el cuerpo: el limite
+ * mide el servicio y no a un cliente lento. El listado completo, el reporte
+ * y la importacion van a su propia clase (MASIVA) y la ocupan hasta terminar
+ * de responder. /metrics no se limita.
+ *
+ * ENDPOINTS:
+ * GET  /libros       - Listar todos los libros (se envia en streaming, ordenado por ID)
+ * GET  /libros?despues=id&limite=n - Pagina del listado; "siguiente" es el cursor de la proxima
+ * GET  /libros?q=texto&limite=n - Buscar por titulo o autor, ordenado por relevancia
+ * GET  /libros?desde=a&hasta=b&autor=x&disponible=true&limite=n - Filtrar con los indices
+ * GET  /libros?ids=1,2,3 - Obtener varios libros, con un codigo por ID
+ * GET  /libros/{id}  - Obtener DTO de libro por ID (incluye su "version")
+ * PUT  /libros/{id}  - Reemplazar titulo, autor y año, con la "version" leida (409 si ya cambio)
+ * PATCH /libros/{id} - Cambiar solo los campos enviados, con la "version" leida (409 si ya cambio)
+ * GET  /libros/_cache - Aciertos, fallos y desalojos de la cache de libros
+ * GET  /libros/_reporte?autores=n - Disponibilidad, años, libros por decada y los n autores con mas libros
+ * POST /libros       - Crear nuevo libro
+ * GET  /libros/{id}/prestamo  - Estado del prestamo (situacion, usuario, vencimiento, lista de espera)
+ * POST /libros/{id}/prestamo  - Prestar, con {"usuario":"..."} (409 si no se puede)
+ * POST /libros/{id}/devolucion - Devolver, con {"usuario":"..."}
+ * POST /libros/{id}/reserva   - Entrar en la lista de espera, con {"usuario":"..."}
+ * GET  /libros/{id}/historial?limite=n - Eventos de prestamo del libro
+ * POST /libros/_batch - Crear varios libros (array JSON), con un codigo por libro
+ * POST /libros/_importar?formato=csv|jsonl - Importar en masa el archivo enviado como cuerpo
+ * GET  /metrics      - Cantidad y latencia (p50, p90, p99, p99.9) por operacion y codigo,
+ *                      y contadores de la cache, en el formato de texto de Prometheus
+ */
+public class ServidorHttp {
+    private static final String RUTA_LIBROS = "/libros";
+    private static final String RECURSO_CACHE = "_cache";
+    private static final String RECURSO_REPORTE = "_reporte";
+    private static final String RECURSO_IMPORTAR = "_importar";
+    private static final String RECURSO_LOTE = "_batch";
+    // Con alguno de estos GET /libros deja de ser el listado completo
+    private static final List<String> PARAMETROS_LISTADO =
+            List.of("ids", "q", "desde", "hasta", "autor", "disponible", "despues", "limite");
+    // Subrecursos de un libro: /libros/{id}/prestamo, etc.
+    private static final String PRESTAMO = "prestamo";
+    private static final String DEVOLUCION = "devolucion";
+    private static final String RESERVA = "reserva";
+    private static final String HISTORIAL = "historial";
+    private static final String RUTA_METRICAS = "/metrics";
+    // Conexiones pendientes de aceptar antes de que el SO empiece a rechazarlas
+    private static final int BACKLOG = 1024;
+    // Bytes de cada buffer de respuesta: una lista mas larga sale de a un buffer por vez
+    private static final int BLOQUE_STREAM = 32 * 1024;
+    // Buffers libres que se conservan entre respuestas
+    private static final int BUFFERS_GUARDADOS = 64;
+
+    private final LibroController controller;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final PoolBuffers buffers = new PoolBuffers(BLOQUE_STREAM, BUFFERS_GUARDADOS);
+    private final ControlAdmision admision = ControlAdmision.desdePropiedades();
+
+    public ServidorHttp(LibroController controller, int puerto) throws IOException {
+        this.controller = controller;
+        this.servidor = HttpServer.create(new InetSocketAddress(puerto), BACKLOG);
+        int hilos = Integer.getInteger("biblioteca.http.hilos", 0);
+        this.ejecutor = hilos > 0
+                ? Executors.newFixedThreadPool(hilos, Thread.ofPlatform().name("http-", 1).factory())
+                : Executors.newVirtualThreadPerTaskExecutor();
+        this.servidor.setExecutor(ejecutor);
+        this.servidor.createContext(RUTA_LIBROS, this::atenderLibros);
+        this.servidor.createContext(RUTA_METRICAS, this::atenderMetricas);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera como maximo un segundo a las peticiones en curso
+     */
+    public void detener() {
+        servidor.stop(1);
+        ejecutor.close();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * Enruta las peticiones de /libros segun el metodo y la ruta
+     */
+    private void atenderLibros(HttpExchange exchange) throws IOException {
+        String metodo = exchange.getRequestMethod();
+        ControlAdmision.Permiso permiso = admision.admitir(clase(exchange, metodo),
+                exchange.getRemoteAddress().getAddress().getHostAddress());
+        if (!permiso.esAdmitido()) {
+            try {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(permiso.getReintentarEnSegundos()));
+                responderError(exchange, permiso.getCodigo(), permiso.getMensaje());
+            } finally {
+                exchange.close();
+            }
+            return;
+        }
+        // El permiso se libera apenas el controller responde (ver servida); el de
+        // finally solo cuenta si no se libero antes (un error, o una MASIVA).
+        // true si la respuesta la escribe despues un future (y el cierra el intercambio)
+        boolean pendiente = false;
+        try {
+            String ruta = exchange.getRequestURI().getPath();
+            if (ruta.length() > RUTA_LIBROS.length() && ruta.charAt(RUTA_LIBROS.length()) != '/') {
+                responderError(exchange, 404, "Ruta no encontrada: " + ruta);
+                return;
+            }
+            String resto = ruta.length() > RUTA_LIBROS.length() ? ruta.substring(RUTA_LIBROS.length() + 1) : "";
+
+            if (resto.isEmpty() && metodo.equals("GET")) {
+                atenderListarLibros(exchange, permiso);
+            } else if (resto.isEmpty() && metodo.equals("POST")) {
+                pendiente = atenderCrearLibro(exchange, permiso);
+            } else if (resto.equals(RECURSO_LOTE) && metodo.equals("POST")) {
+                pendiente = atenderCrearLibros(exchange, permiso);
+            } else if (resto.equals(RECURSO_IMPORTAR) && metodo.equals("POST")) {
+                atenderImportar(exchange);
+            } else if (resto.equals(RECURSO_CACHE) && metodo.equals("GET")) {
+                responderEstadisticasCache(exchange);
+            } else if (resto.equals(RECURSO_REPORTE) && metodo.equals("GET")) {
+                atenderReporte(exchange, permiso);
+            } else if (!resto.isEmpty() && !resto.contains("/") && metodo.equals("GET")) {
+                pendiente = atenderObtenerLibro(exchange, permiso, resto);
+            } else if (!resto.isEmpty() && !resto.contains("/") && (metodo.equals("PUT") || metodo.equals("PATCH"))) {
+                pendiente = atenderActualizarLibro(exchange, permiso, metodo, resto);
+            } else if (resto.indexOf('/') > 0 && resto.indexOf('/') == resto.lastIndexOf('/')) {
+                atenderPrestamo(exchange, permiso, metodo, resto);
+            } else if (resto.isEmpty() || !resto.contains("/")) {
+                responderError(exchange, 405, "Método no permitido: " + metodo);
+            } else {
+                responderError(exchange, 404, "Ruta no encontrada: " + ruta);
+            }
+        } catch (IllegalArgumentException e) {
+            // Query string mal codificado
+            if (exchange.getResponseCode() == -1) {
+                responderError(exchange, 400, "Petición inválida: " + e.getMessage());
+            }
+        } catch (Exception e) {
+            // Error 500 - Internal Server Error (solo si todavia no se enviaron los headers)
+            if (exchange.getResponseCode() == -1) {
+                responderError(exchange, 500, "Error interno del servidor");
+            }
+        } finally {
+            if (!pendiente) {
+                exchange.close();
+                permiso.liberar(exchange.getResponseCode());
+            }
+        }
+    }
+
+    /**
+     * El listado completo, el reporte y la importacion recorren todo el
+     * catalogo y van a MASIVA; el resto se clasifica por metodo
+     */
+    private ClasePeticion clase(HttpExchange exchange, String metodo) {
+        String ruta = exchange.getRequestURI().getPath();
+        if (ruta.equals(RUTA_LIBROS + "/" + RECURSO_REPORTE) || ruta.equals(RUTA_LIBROS + "/" + RECURSO_IMPORTAR)) {
+            return ClasePeticion.MASIVA;
+        }
+        if (metodo.equals("GET") && (ruta.equals(RUTA_LIBROS) || ruta.equals(RUTA_LIBROS + "/"))) {
+            Map<String, String> parametros;
+            try {
+                parametros = parametros(exchange);
+            } catch (IllegalArgumentException e) {
+                // Query string mal codificado: lo rechaza atenderLibros con 400
+                return ClasePeticion.LECTURA;
+            }
+            for (String filtro : PARAMETROS_LISTADO) {
+                if (parametros.containsKey(filtro)) {
+                    return ClasePeticion.LECTURA;
+                }
+            }
+            return ClasePeticion.MASIVA;
+        }
+        return ClasePeticion.deMetodo(metodo);
+    }
+
+    /**
+     * Libera el permiso con el codigo de la respuesta del controller, antes de
+     * escribirla: el limite adaptativo mide el servicio y no la red del cliente
+     */
+    private static <T> RespuestaHttp<T> servida(ControlAdmision.Permiso permiso, RespuestaHttp<T> respuesta) {
+        permiso.liberar(respuesta.getCodigo());
+        return respuesta;
+    }
+
+    private void atenderMetricas(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestURI().getPath().equals(RUTA_METRICAS)) {
+                responderError(exchange, 404, "Ruta no encontrada: " + exchange.getRequestURI().getPath());
+            } else if (!exchange.getRequestMethod().equals("GET")) {
+                responderError(exchange, 405, "Método no permitido: " + exchange.getRequestMethod());
+            } else {
+                responderMetricas(exchange);
+            }
+        } catch (Exception e) {
+            if (exchange.getResponseCode() == -1) {
+                responderError(exchange, 500, "Error interno del servidor");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void atenderListarLibros(HttpExchange exchange, ControlAdmision.Permiso permiso) throws IOException {
+        Map<String, String> parametros = parametros(exchange);
+        Integer limite;
+        Integer desde;
+        Integer hasta;
+        Long despues;
+        try {
+            limite = entero(parametros, "limite");
+            desde = entero(parametros, "desde");
+            hasta = entero(parametros, "hasta");
+            despues = parametros.get("despues") == null ? null : Long.valueOf(parametros.get("despues"));
+        } catch (NumberFormatException e) {
+            responderError(exchange, 400, "Parámetro inválido. Debe ser un número entero.");
+            return;
+        }
+        String consulta = parametros.get("q");
+        String autor = parametros.get("autor");
+        String disponible = parametros.get("disponible");
+
+        if (parametros.containsKey("ids")) {
+            List<Long> ids = new ArrayList<>();
+            try {
+                for (String id : parametros.get("ids").split(",")) {
+                    ids.add(id.isBlank() ? null : Long.valueOf(id.trim()));
+                }
+            } catch (NumberFormatException e) {
+                responderError(exchange, 400, "ID inválido. Debe ser un número entero.");
+                return;
+            }
+            responderLote(exchange, servida(permiso, controller.consultarLibros(ids)));
+        } else if (consulta != null) {
+            responderLista(exchange, servida(permiso, controller.consultarBusqueda(consulta, limite)));
+        } else if (desde != null || hasta != null || autor != null || disponible != null) {
+            if (disponible != null && !disponible.equals("true") && !disponible.equals("false")) {
+                responderError(exchange, 400, "El parámetro disponible debe ser true o false");
+                return;
+            }
+            responderLista(exchange, servida(permiso, controller.consultarFiltro(desde, hasta, autor,
+                    disponible == null ? null : Boolean.valueOf(disponible), limite)));
+        } else if (despues != null || limite != null) {
+            responderPagina(exchange, servida(permiso, controller.consultarPagina(despues, limite)));
+        } else {
+            // MASIVA: el permiso se libera al terminar de escribir el catalogo
+            responderStream(exchange, controller.consultarStreamDeLibros());
+        }
+    }
+
+    private void atenderReporte(HttpExchange exchange, ControlAdmision.Permiso permiso) throws IOException {
+        Integer autores;
+        try {
+            autores = entero(parametros(exchange), "autores");
+        } catch (NumberFormatException e) {
+            responderError(exchange, 400, "Parámetro inválido. Debe ser un número entero.");
+            return;
+        }
+        RespuestaHttp<ReporteCatalogoDTO> respuesta = servida(permiso, controller.consultarReporteCatalogo(autores));
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        ReporteCatalogoDTO reporte = respuesta.getCuerpo();
+        StringBuilder json = new StringBuilder(256 + reporte.getLibrosPorDecada().size() * 16
+                + reporte.getAutoresConMasLibros().size() * 48);
+        json.append("{\"total\":").append(reporte.getTotal())
+                .append(",\"disponibles\":").append(reporte.getDisponibles())
+                .append(",\"noDisponibles\":").append(reporte.getNoDisponibles())
+                .append(",\"tasaDeDisponibilidad\":").append(reporte.getTasaDeDisponibilidad())
+                .append(",\"anoMinimo\":").append(reporte.getAnoMinimo())
+                .append(",\"anoMaximo\":").append(reporte.getAnoMaximo())
+                .append(",\"cantidadDeAutores\":").append(reporte.getCantidadDeAutores())
+                .append(",\"librosPorDecada\":{");
+        boolean primero = true;
+        for (Map.Entry<Integer, Long> decada : reporte.getLibrosPorDecada().entrySet()) {
+            json.append(primero ? "\"" : ",\"").append(decada.getKey()).append("\":").append(decada.getValue());
+            primero = false;
+        }
+        json.append("},\"autoresConMasLibros\":[");
+        primero = true;
+        for (Map.Entry<String, Long> autor : reporte.getAutoresConMasLibros().entrySet()) {
+            json.append(primero ? "{\"autor\":" : ",{\"autor\":");
+            Json.escribirString(json, autor.getKey()).append(",\"libros\":").append(autor.getValue()).append('}');
+            primero = false;
+        }
+        json.append("]}");
+        responder(exchange, respuesta.getCodigo(), json);
+    }
+
+    private static Integer entero(Map<String, String> parametros, String nombre) {
+        String valor = parametros.get(nombre);
+        return valor == null ? null : Integer.valueOf(valor);
+    }
+
+    private boolean atenderObtenerLibro(HttpExchange exchange, ControlAdmision.Permiso permiso, String idTexto)
+            throws IOException {
+        Long id;
+        try {
+            id = Long.parseLong(idTexto);
+        } catch (NumberFormatException e) {
+            responderError(exchange, 400, "ID inválido. Debe ser un número entero.");
+            return false;
+        }
+        return responderAlCompletar(exchange, permiso, controller.consultarLibroAsync(id), this::responderLibro);
+    }
+
+    /**
+     * PUT y PATCH de un libro. La version va en el cuerpo ("version") o, si
+     * no esta, en el header If-Match
+     */
+    private boolean atenderActualizarLibro(HttpExchange exchange, ControlAdmision.Permiso permiso, String metodo,
+                                           String idTexto) throws IOException {
+        Long id;
+        try {
+            id = Long.parseLong(idTexto);
+        } catch (NumberFormatException e) {
+            responderError(exchange, 400, "ID inválido. Debe ser un número entero.");
+            return false;
+        }
+        Map<String, String> campos;
+        try {
+            campos = Json.parsearObjeto(leerCuerpo(exchange));
+        } catch (IllegalArgumentException e) {
+            responderError(exchange, 400, e.getMessage());
+            return false;
+        }
+        String versionTexto = campos.get("version");
+        if (versionTexto == null) {
+            versionTexto = exchange.getRequestHeaders().getFirst("If-Match");
+        }
+        Long version = null;
+        if (versionTexto != null) {
+            try {
+                version = Long.parseLong(versionTexto.replace("\"", "").trim());
+            } catch (NumberFormatException e) {
+                responderError(exchange, 400, "Versión inválida. Debe ser un número entero.");
+                return false;
+            }
+        }
+        // Las validaciones de los campos (y de la version) las hace el Service
+        return responderAlCompletar(exchange, permiso, metodo.equals("PUT")
+                ? controller.actualizarLibroAsync(id, version, campos.get("titulo"), campos.get("autor"), campos.get("anoPublicacion"))
+                : controller.modificarLibroAsync(id, version, campos.get("titulo"), campos.get("autor"), campos.get("anoPublicacion")),
+                this::responderLibro);
+    }
+
+    /**
+     * Subrecursos de prestamo de un libro: 'resto' es "{id}/{subrecurso}"
+     */
+    private void atenderPrestamo(HttpExchange exchange, ControlAdmision.Permiso permiso, String metodo, String resto)
+            throws IOException {
+        int barra = resto.indexOf('/');
+        String subrecurso = resto.substring(barra + 1);
+        if (!subrecurso.equals(PRESTAMO) && !subrecurso.equals(DEVOLUCION)
+                && !subrecurso.equals(RESERVA) && !subrecurso.equals(HISTORIAL)) {
+            responderError(exchange, 404, "Ruta no encontrada: " + exchange.getRequestURI().getPath());
+            return;
+        }
+        Long id;
+        Integer limite;
+        try {
+            id = Long.parseLong(resto.substring(0, barra));
+            limite = entero(parametros(exchange), "limite");
+        } catch (NumberFormatException e) {
+            responderError(exchange, 400, "ID inválido. Debe ser un número entero.");
+            return;
+        }
+
+        if (metodo.equals("GET") && subrecurso.equals(PRESTAMO)) {
+            responderPrestamo(exchange, servida(permiso, controller.consultarPrestamo(id)));
+        } else if (metodo.equals("GET") && subrecurso.equals(HISTORIAL)) {
+            responderHistorial(exchange, servida(permiso, controller.consultarHistorial(id, limite)));
+        } else if (metodo.equals("POST") && !subrecurso.equals(HISTORIAL)) {
+            String usuario;
+            try {
+                usuario = Json.parsearObjeto(leerCuerpo(exchange)).get("usuario");
+            } catch (IllegalArgumentException e) {
+                responderError(exchange, 400, e.getMessage());
+                return;
+            }
+            // Las validaciones y las reglas del prestamo las hace el Service
+            responderPrestamo(exchange, servida(permiso, subrecurso.equals(PRESTAMO) ? controller.pedirPrestamo(id, usuario)
+                    : subrecurso.equals(DEVOLUCION) ? controller.registrarDevolucion(id, usuario)
+                    : controller.registrarReserva(id, usuario)));
+        } else {
+            responderError(exchange, 405, "Método no permitido: " + metodo);
+        }
+    }
+
+    private boolean atenderCrearLibro(HttpExchange exchange, ControlAdmision.Permiso permiso) throws IOException {
+        Map<String, String> campos;
+        try {
+            campos = Json.parsearObjeto(leerCuerpo(exchange));
+        } catch (IllegalArgumentException e) {
+            responderError(exchange, 400, e.getMessage());
+            return false;
+        }
+        // Las validaciones de los campos las hace el Service
+        return responderAlCompletar(exchange, permiso, controller.crearLibroAsync(
+                campos.get("titulo"), campos.get("autor"), campos.get("anoPublicacion")), this::responderLibro);
+    }
+
+    private boolean atenderCrearLibros(HttpExchange exchange, ControlAdmision.Permiso permiso) throws IOException {
+        List<Map<String, String>> objetos;
+        try {
+            objetos = Json.parsearListaDeObjetos(leerCuerpo(exchange));
+        } catch (IllegalArgumentException e) {
+            responderError(exchange, 400, e.getMessage());
+            return false;
+        }
+        List<SolicitudLibroDTO> solicitudes = new ArrayList<>(objetos.size());
+        for (Map<String, String> campos : objetos) {
+            solicitudes.add(new SolicitudLibroDTO(campos.get("titulo"), campos.get("autor"), campos.get("anoPublicacion")));
+        }
+        // Las validaciones de cada libro las hace el Service
+        return responderAlCompletar(exchange, permiso, controller.crearLibrosAsync(solicitudes), this::responderLote);
+    }
+
+    /**
+     * El cuerpo se importa a medida que llega, sin guardarlo entero en memoria.
+     * El formato sale del parametro 'formato' o, si no esta, del Content-Type
+     */
+    private void atenderImportar(HttpExchange exchange) throws IOException {
+        String nombreFormato = parametros(exchange).get("formato");
+        if (nombreFormato == null) {
+            String tipo = exchange.getRequestHeaders().getFirst("Content-Type");
+            nombreFormato = tipo == null ? "" : tipo.startsWith("text/csv") ? "csv"
+                    : tipo.startsWith("application/x-ndjson") || tipo.startsWith("application/jsonl") ? "jsonl" : "";
+        }
+        FormatoImportacion formato;
+        try {
+            formato = FormatoImportacion.desdeNombre(nombreFormato);
+        } catch (IllegalArgumentException e) {
+            responderError(exchange, 400, e.getMessage());
+            return;
+        }
+        RespuestaHttp<ResultadoImportacion> respuesta;
+        try (BufferedReader entrada = new BufferedReader(
+                new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8), 1 << 16)) {
+            respuesta = controller.importarLibros(entrada, formato, null);
+        }
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        ResultadoImportacion resultado = respuesta.getCuerpo();
+        StringBuilder json = new StringBuilder(256 + resultado.errores().size() * 96);
+        json.append("{\"lineas\":").append(resultado.lineas())
+                .append(",\"importados\":").append(resultado.importados())
+                .append(",\"rechazados\":").append(resultado.rechazados())
+                .append(",\"milis\":").append(resultado.milis())
+                .append(",\"librosPorMinuto\":").append(resultado.librosPorMinuto())
+                .append(",\"errores\":[");
+        for (int i = 0; i < resultado.errores().size(); i++) {
+            ErrorImportacion error = resultado.errores().get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"linea\":").append(error.linea())
+                    .append(",\"codigo\":").append(error.codigo()).append(",\"campo\":");
+            Json.escribirString(json, error.campo()).append(",\"mensaje\":");
+            Json.escribirString(json, error.mensaje()).append('}');
+        }
+        json.append("]}");
+        responder(exchange, respuesta.getCodigo(), json);
+    }
+
+    /**
+     * Parametros del query string ya decodificados (?q=garc%C3%ADa -> q=garcía)
+     */
+    private Map<String, String> parametros(HttpExchange exchange) {
+        Map<String, String> parametros = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) {
+            return parametros;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private String leerCuerpo(HttpExchange exchange) throws IOException {
+        try (InputStream entrada = exchange.getRequestBody()) {
+            return new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Escribe la respuesta cuando el future se completa. El permiso se libera
+     * ahi mismo, en el hilo del service; la escritura (que puede bloquear con
+     * un cliente lento) pasa al ejecutor del servidor HTTP, asi nunca ocupa
+     * un hilo del service
+     * @return true (la respuesta queda pendiente)
+     */
+    private <T> boolean responderAlCompletar(HttpExchange exchange, ControlAdmision.Permiso permiso,
+                                             CompletableFuture<RespuestaHttp<T>> respuesta, Escritura<T> escritura) {
+        respuesta.whenComplete((valor, error) -> permiso.liberar(error != null ? 500 : valor.getCodigo()))
+                .whenCompleteAsync((valor, error) -> {
+                    try {
+                        if (error != null) {
+                            responderError(exchange, 500, "Error interno del servidor");
+                        } else {
+                            escritura.escribir(exchange, valor);
+                        }
+                    } catch (IOException e) {
+                        // El cliente cerro la conexion: no hay a quien responderle
+                    } finally {
+                        exchange.close();
+                    }
+                }, ejecutor);
+        return true;
+    }
+
+    /**
+     * Como se escribe una respuesta que llega en un future
+     */
+    private interface Escritura<T> {
+        void escribir(HttpExchange exchange, RespuestaHttp<T> respuesta) throws IOException;
+    }
+
+    private void responderLibro(HttpExchange exchange, RespuestaHttp<LibroDTO> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        try (EscritorRespuesta escritor = escritor(exchange, respuesta.getCodigo())) {
+            escritor.escribirLibro(respuesta.getCuerpo());
+        }
+    }
+
+    private void responderLista(HttpExchange exchange, RespuestaHttp<List<LibroDTO>> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        try (EscritorRespuesta escritor = escritor(exchange, respuesta.getCodigo())) {
+            escritor.escribirLista(respuesta.getCuerpo().iterator());
+        }
+    }
+
+    private void responderLote(HttpExchange exchange, RespuestaHttp<List<ResultadoLoteDTO>> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        try (EscritorRespuesta escritor = escritor(exchange, respuesta.getCodigo())) {
+            escritor.escribirLote(respuesta.getCuerpo());
+        }
+    }
+
+    private void responderPagina(HttpExchange exchange, RespuestaHttp<PaginaLibrosDTO> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        try (EscritorRespuesta escritor = escritor(exchange, respuesta.getCodigo())) {
+            escritor.escribirPagina(respuesta.getCuerpo());
+        }
+    }
+
+    /**
+     * Envia la lista completa de a un buffer por vez (chunked si no entra en
+     * uno): la memoria usada no depende del tamaño del catalogo
+     */
+    private void responderStream(HttpExchange exchange, RespuestaHttp<Stream<LibroDTO>> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        try (Stream<LibroDTO> libros = respuesta.getCuerpo();
+             EscritorRespuesta escritor = escritor(exchange, respuesta.getCodigo())) {
+            escritor.escribirLista(libros.iterator());
+        }
+    }
+
+    /**
+     * Escritor de libros en el formato que pide el Accept. Los headers se
+     * envian cuando se llena el primer buffer o al cerrar, con el largo exacto
+     */
+    private EscritorRespuesta escritor(HttpExchange exchange, int codigo) {
+        FormatoRespuesta formato = FormatoRespuesta.negociar(exchange.getRequestHeaders().getFirst("Accept"));
+        return formato.escritor(buffers, largo -> {
+            exchange.getResponseHeaders().set("Content-Type", formato.getContentType());
+            exchange.getResponseHeaders().set("Vary", "Accept");
+            exchange.sendResponseHeaders(codigo, largo);
+            return new CanalSalida(exchange.getResponseBody());
+        });
+    }
+
+    private void responderEstadisticasCache(HttpExchange exchange) throws IOException {
+        EstadisticasCache estadisticas = controller.consultarEstadisticasCache().getCuerpo();
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"aciertos\":").append(estadisticas.aciertos())
+                .append(",\"fallos\":").append(estadisticas.fallos())
+                .append(",\"tasaDeAciertos\":").append(estadisticas.tasaDeAciertos())
+                .append(",\"desalojos\":").append(estadisticas.desalojos())
+                .append(",\"expiradas\":").append(estadisticas.expiradas())
+                .append(",\"invalidaciones\":").append(estadisticas.invalidaciones())
+                .append(",\"entradas\":").append(estadisticas.entradas())
+                .append(",\"bytes\":").append(estadisticas.bytes()).append('}');
+        responder(exchange, 200, json);
+    }
+
+    /**
+     * Una serie summary por capa, operacion y codigo, en segundos
+     */
+    private void responderMetricas(HttpExchange exchange) throws IOException {
+        List<MedidorOperacion> medidores = controller.consultarMetricas().getCuerpo();
+        StringBuilder texto = new StringBuilder(4096);
+        texto.append("# HELP biblioteca_latencia_segundos Latencia por capa, operacion y codigo\n")
+                .append("# TYPE biblioteca_latencia_segundos summary\n");
+        for (MedidorOperacion medidor : medidores) {
+            for (Map.Entry<Integer, HistogramaLatencia> entrada : medidor.histogramasPorCodigo().entrySet()) {
+                String etiquetas = "capa=\"" + medidor.getCapa() + "\",operacion=\"" + medidor.getNombre()
+                        + "\",codigo=\"" + entrada.getKey() + "\"";
+                ResumenLatencia resumen = entrada.getValue().resumen();
+                escribirCuantil(texto, etiquetas, "0.5", resumen.p50Nanos());
+                escribirCuantil(texto, etiquetas, "0.9", resumen.p90Nanos());
+                escribirCuantil(texto, etiquetas, "0.99", resumen.p99Nanos());
+                escribirCuantil(texto, etiquetas, "0.999", resumen.p999Nanos());
+                texto.append("biblioteca_latencia_segundos_sum{").append(etiquetas).append("} ")
+                        .append(resumen.sumaNanos() / 1e9).append('\n')
+                        .append("biblioteca_latencia_segundos_count{").append(etiquetas).append("} ")
+                        .append(resumen.cantidad()).append('\n');
+            }
+        }
+        texto.append("# HELP biblioteca_latencia_maxima_segundos Latencia mas alta por capa, operacion y codigo\n")
+                .append("# TYPE biblioteca_latencia_maxima_segundos gauge\n");
+        for (MedidorOperacion medidor : medidores) {
+            for (Map.Entry<Integer, HistogramaLatencia> entrada : medidor.histogramasPorCodigo().entrySet()) {
+                texto.append("biblioteca_latencia_maxima_segundos{capa=\"").append(medidor.getCapa())
+                        .append("\",operacion=\"").append(medidor.getNombre())
+                        .append("\",codigo=\"").append(entrada.getKey()).append("\"} ")
+                        .append(entrada.getValue().getMaximoMicros() / 1e6).append('\n');
+            }
+        }
+
+        EstadisticasCache cache = controller.consultarEstadisticasCache().getCuerpo();
+        escribirContador(texto, "biblioteca_cache_aciertos_total", "Lecturas resueltas desde la cache", cache.aciertos());
+        escribirContador(texto, "biblioteca_cache_fallos_total", "Lecturas que fueron al DAO", cache.fallos());
+        escribirContador(texto, "biblioteca_cache_desalojos_total", "Entradas sacadas por falta de espacio", cache.desalojos());
+        texto.append("# TYPE biblioteca_cache_entradas gauge\nbiblioteca_cache_entradas ")
+                .append(cache.entradas()).append('\n');
+
+        texto.append("# HELP biblioteca_admision_rechazos_total Peticiones rechazadas por clase y codigo\n")
+                .append("# TYPE biblioteca_admision_rechazos_total counter\n");
+        for (ClasePeticion clase : ClasePeticion.values()) {
+            texto.append("biblioteca_admision_rechazos_total{clase=\"").append(clase.getNombre())
+                    .append("\",codigo=\"429\"} ").append(admision.getRechazadasPorCliente(clase)).append('\n')
+                    .append("biblioteca_admision_rechazos_total{clase=\"").append(clase.getNombre())
+                    .append("\",codigo=\"503\"} ").append(admision.getRechazadasPorSobrecarga(clase)).append('\n');
+        }
+        texto.append("# HELP biblioteca_admision_limite Peticiones que pueden estar en curso por clase\n")
+                .append("# TYPE biblioteca_admision_limite gauge\n");
+        for (ClasePeticion clase : ClasePeticion.values()) {
+            texto.append("biblioteca_admision_limite{clase=\"").append(clase.getNombre()).append("\"} ")
+                    .append(admision.getLimite(clase)).append('\n');
+        }
+        texto.append("# TYPE biblioteca_admision_en_curso gauge\n");
+        for (ClasePeticion clase : ClasePeticion.values()) {
+            texto.append("biblioteca_admision_en_curso{clase=\"").append(clase.getNombre()).append("\"} ")
+                    .append(admision.getEnCurso(clase)).append('\n');
+        }
+
+        byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream salida = exchange.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    private static void escribirCuantil(StringBuilder texto, String etiquetas, String cuantil, long nanos) {
+        texto.append("biblioteca_latencia_segundos{").append(etiquetas).append(",quantile=\"").append(cuantil)
+                .append("\"} ").append(nanos / 1e9).append('\n');
+    }
+
+    private static void escribirContador(StringBuilder texto, String nombre, String ayuda, long valor) {
+        texto.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n')
+                .append("# TYPE ").append(nombre).append(" counter\n")
+                .append(nombre).append(' ').append(valor).append('\n');
+    }
+
+    private void responderPrestamo(HttpExchange exchange, RespuestaHttp<PrestamoDTO> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        PrestamoDTO prestamo = respuesta.getCuerpo();
+        StringBuilder json = new StringBuilder(128 + prestamo.getEspera().size() * 24);
+        json.append("{\"libroId\":").append(prestamo.getLibroId()).append(",\"situacion\":");
+        Json.escribirString(json, prestamo.getSituacion()).append(",\"usuario\":");
+        Json.escribirString(json, prestamo.getUsuario()).append(",\"vence\":");
+        Json.escribirString(json, prestamo.getVence()).append(",\"espera\":[");
+        for (int i = 0; i < prestamo.getEspera().size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            Json.escribirString(json, prestamo.getEspera().get(i));
+        }
+        json.append("]}");
+        responder(exchange, respuesta.getCodigo(), json);
+    }
+
+    private void responderHistorial(HttpExchange exchange, RespuestaHttp<List<EventoPrestamo>> respuesta) throws IOException {
+        if (!respuesta.esExitosa()) {
+            responderError(exchange, respuesta.getCodigo(), respuesta.getMensaje());
+            return;
+        }
+        List<EventoPrestamo> eventos = respuesta.getCuerpo();
+        StringBuilder json = new StringBuilder(64 + eventos.size() * 112);
+        json.append('[');
+        for (int i = 0; i < eventos.size(); i++) {
+            EventoPrestamo evento = eventos.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"secuencia\":").append(evento.secuencia()).append(",\"instante\":");
+            Json.escribirString(json, evento.instante().toString()).append(",\"tipo\":");
+            Json.escribirString(json, evento.tipo().name()).append(",\"usuario\":");
+            Json.escribirString(json, evento.usuario()).append(",\"version\":").append(evento.version()).append('}');
+        }
+        json.append(']');
+        responder(exchange, respuesta.getCodigo(), json);
+    }
+
+    private void responderError(HttpExchange exchange, int codigo, String mensaje) throws IOException {
+        StringBuilder json = new StringBuilder(64);
+        json.append("{\"codigo\":").append(codigo).append(",\"mensaje\":");
+        Json.escribirString(json, mensaje).append('}');
+        responder(exchange, codigo, json);
+    }
+
+    private void responder(HttpExchange exchange, int codigo, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream salida = exchange.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+}
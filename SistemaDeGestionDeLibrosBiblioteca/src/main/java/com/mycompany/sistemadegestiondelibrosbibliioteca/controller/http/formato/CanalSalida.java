@@ -0,0 +1,53 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * CanalSalida - WritableByteChannel sobre el OutputStream de la respuesta
+ *
+ * Channels.newChannel copia cada buffer a un arreglo propio de a 8 KB antes
+ * de escribirlo; con los buffers del heap del PoolBuffers no hace falta, se
+ * escribe el arreglo del buffer directamente. Los buffers directos se copian.
+ */
+public final class CanalSalida implements WritableByteChannel {
+    private final OutputStream salida;
+    private boolean abierto = true;
+
+    public CanalSalida(OutputStream salida) {
+        this.salida = salida;
+    }
+
+    @Override
+    public int write(ByteBuffer buffer) throws IOException {
+        if (!abierto) {
+            throw new ClosedChannelException();
+        }
+        int cantidad = buffer.remaining();
+        if (buffer.hasArray()) {
+            salida.write(buffer.array(), buffer.arrayOffset() + buffer.position(), cantidad);
+            buffer.position(buffer.limit());
+        } else {
+            byte[] copia = new byte[cantidad];
+            buffer.get(copia);
+            salida.write(copia);
+        }
+        return cantidad;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return abierto;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (abierto) {
+            abierto = false;
+            salida.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * EscritorBinario - LibroDTOs en el formato binario "application/x-libros"
+ *
+ * La respuesta es una secuencia de registros, en big-endian:
+ *   largo (int, bytes que siguen) | tipo (byte) | campos
+ *   LIBRO (1):     id (long, 0 = null) | version (long, 0 = null) | anoPublicacion (int,
+ *                  Integer.MIN_VALUE = null) | titulo | autor
+ *   SIGUIENTE (2): cursor (long), al final de una pagina que tiene otra despues
+ *   RESULTADO (3): id (long, 0 = null) | codigo (int) | mensaje | hay libro (byte)
+ *                  y, si hay, los campos de LIBRO
+ * Los strings van como largo en bytes (int, -1 = null) seguido de UTF-8.
+ * Con el largo adelante el cliente puede saltar registros de tipos que no
+ * conoce. Se decodifica con LectorBinario.
+ */
+final class EscritorBinario extends EscritorRespuesta {
+    static final byte LIBRO = 1;
+    static final byte SIGUIENTE = 2;
+    static final byte RESULTADO = 3;
+    static final long ID_NULO = 0;
+    static final long VERSION_NULA = 0;
+    static final int ANO_NULO = Integer.MIN_VALUE;
+    static final int TEXTO_NULO = -1;
+
+    // id, version y año de un libro
+    private static final int FIJOS_LIBRO = 8 + 8 + 4;
+
+    EscritorBinario(PoolBuffers pool, AperturaCanal apertura) {
+        super(pool, apertura);
+    }
+
+    @Override
+    public void escribirLibro(LibroDTO libro) throws IOException {
+        int largoTitulo = largo(libro.getTitulo());
+        int largoAutor = largo(libro.getAutor());
+        cabecera(1 + largoLibro(largoTitulo, largoAutor), LIBRO);
+        camposLibro(libro, largoTitulo, largoAutor);
+    }
+
+    @Override
+    public void escribirLista(Iterator<LibroDTO> libros) throws IOException {
+        while (libros.hasNext()) {
+            escribirLibro(libros.next());
+        }
+    }
+
+    @Override
+    public void escribirPagina(PaginaLibrosDTO pagina) throws IOException {
+        for (LibroDTO libro : pagina.getLibros()) {
+            escribirLibro(libro);
+        }
+        if (pagina.getSiguiente() != null) {
+            cabecera(1 + 8, SIGUIENTE);
+            buffer.putLong(pagina.getSiguiente());
+        }
+    }
+
+    @Override
+    public void escribirLote(List<ResultadoLoteDTO> resultados) throws IOException {
+        for (ResultadoLoteDTO resultado : resultados) {
+            LibroDTO libro = resultado.getLibro();
+            int largoMensaje = largo(resultado.getMensaje());
+            int largoTitulo = libro == null ? 0 : largo(libro.getTitulo());
+            int largoAutor = libro == null ? 0 : largo(libro.getAutor());
+            int largo = 1 + 8 + 4 + 4 + Math.max(largoMensaje, 0) + 1
+                    + (libro == null ? 0 : largoLibro(largoTitulo, largoAutor));
+            cabecera(largo, RESULTADO);
+            asegurar(12);
+            buffer.putLong(resultado.getId() == null ? ID_NULO : resultado.getId());
+            buffer.putInt(resultado.getCodigo());
+            texto(resultado.getMensaje(), largoMensaje);
+            escribirByte(libro == null ? 0 : 1);
+            if (libro != null) {
+                camposLibro(libro, largoTitulo, largoAutor);
+            }
+        }
+    }
+
+    private void cabecera(int largo, byte tipo) throws IOException {
+        // Entra el registro entero si es chico; si no, al menos sus campos fijos
+        asegurar(Math.min(4 + largo, buffer.capacity()));
+        buffer.putInt(largo);
+        buffer.put(tipo);
+    }
+
+    private void camposLibro(LibroDTO libro, int largoTitulo, int largoAutor) throws IOException {
+        asegurar(FIJOS_LIBRO);
+        buffer.putLong(libro.getId() == null ? ID_NULO : libro.getId());
+        buffer.putLong(libro.getVersion() == null ? VERSION_NULA : libro.getVersion());
+        buffer.putInt(libro.getAnoPublicacion() == null ? ANO_NULO : libro.getAnoPublicacion());
+        texto(libro.getTitulo(), largoTitulo);
+        texto(libro.getAutor(), largoAutor);
+    }
+
+    private static int largoLibro(int largoTitulo, int largoAutor) {
+        return FIJOS_LIBRO + 4 + Math.max(largoTitulo, 0) + 4 + Math.max(largoAutor, 0);
+    }
+
+    private void texto(String valor, int largo) throws IOException {
+        asegurar(4);
+        buffer.putInt(largo);
+        if (valor != null) {
+            for (int i = 0; i < valor.length(); ) {
+                i += escribirUtf8(valor, i);
+            }
+        }
+    }
+
+    /**
+     * Bytes del texto en UTF-8, o TEXTO_NULO
+     */
+    private static int largo(String valor) {
+        return valor == null ? TEXTO_NULO : largoUtf8(valor);
+    }
+}
@@ -0,0 +1,158 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * EscritorJson - LibroDTOs en JSON, escritos como UTF-8 directo en el buffer
+ *
+ * Mismo JSON que armaba el ServidorHttp con StringBuilder (y mismos escapes
+ * que Json.escribirString), pero los nombres de los campos ya estan
+ * codificados y los numeros y textos se escriben byte por byte.
+ */
+final class EscritorJson extends EscritorRespuesta {
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] TITULO = ascii(",\"titulo\":");
+    private static final byte[] AUTOR = ascii(",\"autor\":");
+    private static final byte[] ANO = ascii(",\"anoPublicacion\":");
+    private static final byte[] VERSION = ascii(",\"version\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] LIBROS = ascii("{\"libros\":[");
+    private static final byte[] SIGUIENTE = ascii("],\"siguiente\":");
+    private static final byte[] CODIGO = ascii(",\"codigo\":");
+    private static final byte[] MENSAJE = ascii(",\"mensaje\":");
+    private static final byte[] LIBRO = ascii(",\"libro\":");
+    private static final byte[] HEXADECIMAL = ascii("0123456789abcdef");
+
+    EscritorJson(PoolBuffers pool, AperturaCanal apertura) {
+        super(pool, apertura);
+    }
+
+    @Override
+    public void escribirLibro(LibroDTO libro) throws IOException {
+        objetoLibro(libro);
+    }
+
+    @Override
+    public void escribirLista(Iterator<LibroDTO> libros) throws IOException {
+        escribirByte('[');
+        librosSeparados(libros);
+        escribirByte(']');
+    }
+
+    @Override
+    public void escribirPagina(PaginaLibrosDTO pagina) throws IOException {
+        escribirBytes(LIBROS);
+        librosSeparados(pagina.getLibros().iterator());
+        escribirBytes(SIGUIENTE);
+        numero(pagina.getSiguiente());
+        escribirByte('}');
+    }
+
+    @Override
+    public void escribirLote(List<ResultadoLoteDTO> resultados) throws IOException {
+        escribirByte('[');
+        for (int i = 0; i < resultados.size(); i++) {
+            ResultadoLoteDTO resultado = resultados.get(i);
+            if (i > 0) {
+                escribirByte(',');
+            }
+            escribirBytes(ID);
+            numero(resultado.getId());
+            escribirBytes(CODIGO);
+            escribirDecimal(resultado.getCodigo());
+            escribirBytes(MENSAJE);
+            texto(resultado.getMensaje());
+            escribirBytes(LIBRO);
+            if (resultado.getLibro() == null) {
+                escribirBytes(NULL);
+            } else {
+                objetoLibro(resultado.getLibro());
+            }
+            escribirByte('}');
+        }
+        escribirByte(']');
+    }
+
+    private void librosSeparados(Iterator<LibroDTO> libros) throws IOException {
+        boolean primero = true;
+        while (libros.hasNext()) {
+            if (!primero) {
+                escribirByte(',');
+            }
+            primero = false;
+            objetoLibro(libros.next());
+        }
+    }
+
+    private void objetoLibro(LibroDTO libro) throws IOException {
+        escribirBytes(ID);
+        numero(libro.getId());
+        escribirBytes(TITULO);
+        texto(libro.getTitulo());
+        escribirBytes(AUTOR);
+        texto(libro.getAutor());
+        escribirBytes(ANO);
+        numero(libro.getAnoPublicacion());
+        escribirBytes(VERSION);
+        numero(libro.getVersion());
+        escribirByte('}');
+    }
+
+    private void numero(Number valor) throws IOException {
+        if (valor == null) {
+            escribirBytes(NULL);
+        } else {
+            escribirDecimal(valor.longValue());
+        }
+    }
+
+    /**
+     * String escapado y entre comillas, o null
+     */
+    private void texto(String valor) throws IOException {
+        if (valor == null) {
+            escribirBytes(NULL);
+            return;
+        }
+        escribirByte('"');
+        int i = 0;
+        while (i < valor.length()) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': escape('"'); break;
+                case '\\': escape('\\'); break;
+                case '\n': escape('n'); break;
+                case '\r': escape('r'); break;
+                case '\t': escape('t'); break;
+                default:
+                    if (c < 0x20) {
+                        escape('u');
+                        asegurar(4);
+                        buffer.put((byte) '0').put((byte) '0').put(HEXADECIMAL[c >> 4]).put(HEXADECIMAL[c & 0xF]);
+                    } else {
+                        i += escribirUtf8(valor, i);
+                        continue;
+                    }
+            }
+            i++;
+        }
+        escribirByte('"');
+    }
+
+    private void escape(char c) throws IOException {
+        asegurar(2);
+        buffer.put((byte) '\\');
+        buffer.put((byte) c);
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
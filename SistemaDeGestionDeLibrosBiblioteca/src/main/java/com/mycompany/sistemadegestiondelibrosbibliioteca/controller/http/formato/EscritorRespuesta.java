@@ -0,0 +1,187 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * EscritorRespuesta - Codifica LibroDTOs directo en un ByteBuffer del pool
+ *
+ * Sin reflexion ni Strings intermedios: cada formato (ver FormatoRespuesta)
+ * escribe los campos como bytes y, cuando el buffer se llena, lo manda por el
+ * canal y sigue escribiendo en el mismo. El canal se abre recien con el
+ * primer envio: si la respuesta entra entera en un buffer se sabe su largo
+ * exacto al cerrar; si no, se abre con largo 0 (chunked).
+ *
+ * Un escritor es de una sola respuesta y de un solo hilo. close envia lo que
+ * quede, cierra el canal y devuelve el buffer al pool.
+ */
+public abstract class EscritorRespuesta implements Closeable {
+    private final PoolBuffers pool;
+    private final AperturaCanal apertura;
+    // Para escribir numeros sin pasar por Long.toString
+    private final byte[] digitos = new byte[20];
+    private WritableByteChannel canal;
+    ByteBuffer buffer;
+
+    /**
+     * Abre el canal de la respuesta (enviando antes los headers, si hace falta)
+     */
+    @FunctionalInterface
+    public interface AperturaCanal {
+        /**
+         * @param largo Bytes de la respuesta, o 0 si todavia no se saben
+         */
+        WritableByteChannel abrir(long largo) throws IOException;
+    }
+
+    EscritorRespuesta(PoolBuffers pool, AperturaCanal apertura) {
+        this.pool = pool;
+        this.apertura = apertura;
+        this.buffer = pool.tomar();
+    }
+
+    public abstract void escribirLibro(LibroDTO libro) throws IOException;
+
+    /**
+     * Escribe los libros a medida que el iterador los entrega
+     */
+    public abstract void escribirLista(Iterator<LibroDTO> libros) throws IOException;
+
+    public abstract void escribirPagina(PaginaLibrosDTO pagina) throws IOException;
+
+    public abstract void escribirLote(List<ResultadoLoteDTO> resultados) throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (canal == null) {
+                canal = apertura.abrir(buffer.position());
+            }
+            enviar();
+            canal.close();
+        } finally {
+            pool.devolver(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Deja al menos 'bytes' libres en el buffer (como mucho su capacidad)
+     */
+    final void asegurar(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            if (canal == null) {
+                canal = apertura.abrir(0);
+            }
+            enviar();
+        }
+    }
+
+    private void enviar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    final void escribirByte(int valor) throws IOException {
+        asegurar(1);
+        buffer.put((byte) valor);
+    }
+
+    final void escribirBytes(byte[] bytes) throws IOException {
+        int escritos = 0;
+        while (escritos < bytes.length) {
+            asegurar(1);
+            int cantidad = Math.min(buffer.remaining(), bytes.length - escritos);
+            buffer.put(bytes, escritos, cantidad);
+            escritos += cantidad;
+        }
+    }
+
+    /**
+     * El numero en decimal (ASCII)
+     */
+    final void escribirDecimal(long valor) throws IOException {
+        asegurar(digitos.length);
+        if (valor < 0) {
+            buffer.put((byte) '-');
+        } else {
+            // Se trabaja en negativo para que Long.MIN_VALUE tambien entre
+            valor = -valor;
+        }
+        int i = digitos.length;
+        do {
+            digitos[--i] = (byte) ('0' - valor % 10);
+            valor /= 10;
+        } while (valor != 0);
+        buffer.put(digitos, i, digitos.length - i);
+    }
+
+    /**
+     * Escribe en UTF-8 el caracter de la posicion i (un par de surrogates
+     * ocupa dos posiciones; uno suelto se escribe como '?', igual que getBytes)
+     * @return Posiciones consumidas
+     */
+    final int escribirUtf8(String texto, int i) throws IOException {
+        asegurar(4);
+        char c = texto.charAt(i);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                && Character.isLowSurrogate(texto.charAt(i + 1))) {
+            int punto = Character.toCodePoint(c, texto.charAt(i + 1));
+            buffer.put((byte) (0xF0 | punto >> 18));
+            buffer.put((byte) (0x80 | punto >> 12 & 0x3F));
+            buffer.put((byte) (0x80 | punto >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | punto & 0x3F));
+            return 2;
+        } else if (Character.isSurrogate(c)) {
+            buffer.put((byte) '?');
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12));
+            buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+            buffer.put((byte) (0x80 | c & 0x3F));
+        }
+        return 1;
+    }
+
+    /**
+     * Bytes que ocupa el texto en UTF-8, sin codificarlo
+     */
+    static int largoUtf8(String texto) {
+        int largo = 0;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                largo++;
+            } else if (c < 0x800) {
+                largo += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                    && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                largo += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                largo++;
+            } else {
+                largo += 3;
+            }
+        }
+        return largo;
+    }
+}
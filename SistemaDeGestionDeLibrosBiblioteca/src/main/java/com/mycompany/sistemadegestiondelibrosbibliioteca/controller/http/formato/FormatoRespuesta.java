@@ -0,0 +1,73 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import java.util.Locale;
+
+/**
+ * FormatoRespuesta - Formato de las respuestas con libros, segun el header Accept
+ *
+ * JSON es el de siempre; BINARIO es el formato con largo adelante de
+ * EscritorBinario, mas chico y sin parseo de texto para clientes que lo
+ * pidan con "Accept: application/x-libros". Los errores siempre van en JSON.
+ */
+public enum FormatoRespuesta {
+    JSON("application/json", "application/json; charset=utf-8"),
+    BINARIO("application/x-libros", "application/x-libros");
+
+    private final String tipo;
+    private final String contentType;
+
+    FormatoRespuesta(String tipo, String contentType) {
+        this.tipo = tipo;
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Escritor de una respuesta en este formato
+     */
+    public EscritorRespuesta escritor(PoolBuffers pool, EscritorRespuesta.AperturaCanal apertura) {
+        return this == BINARIO ? new EscritorBinario(pool, apertura) : new EscritorJson(pool, apertura);
+    }
+
+    /**
+     * BINARIO si el Accept lo nombra con una preferencia (q) mayor a cero y no
+     * menor que la de JSON (contando application/* y el comodin de todos los
+     * tipos); si no, JSON.
+     * Un Accept que no acepta ninguno de los dos tambien recibe JSON
+     */
+    public static FormatoRespuesta negociar(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        double binario = 0;
+        double json = 0;
+        for (String rango : accept.split(",")) {
+            String[] partes = rango.split(";");
+            String tipo = partes[0].trim().toLowerCase(Locale.ROOT);
+            double q = calidad(partes);
+            if (tipo.equals(BINARIO.tipo)) {
+                binario = Math.max(binario, q);
+            } else if (tipo.equals(JSON.tipo) || tipo.equals("application/*") || tipo.equals("*/*")) {
+                json = Math.max(json, q);
+            }
+        }
+        return binario > 0 && binario >= json ? BINARIO : JSON;
+    }
+
+    private static double calidad(String[] partes) {
+        for (int i = 1; i < partes.length; i++) {
+            String parametro = partes[i].trim();
+            if (parametro.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parametro.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
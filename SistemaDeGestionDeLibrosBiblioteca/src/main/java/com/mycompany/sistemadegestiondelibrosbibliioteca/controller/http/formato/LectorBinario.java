@@ -0,0 +1,127 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LectorBinario - Decodifica las respuestas "application/x-libros" (ver EscritorBinario)
+ *
+ * Para clientes Java del ServidorHttp. Lee desde la posicion del buffer hasta
+ * su limite; los registros de tipos desconocidos se saltan. Los strings se
+ * decodifican desde el arreglo del buffer, sin copiarlo antes.
+ */
+public final class LectorBinario {
+
+    private LectorBinario() {
+    }
+
+    /**
+     * Todos los libros de la respuesta (de GET /libros o de un solo libro)
+     * @throws IllegalArgumentException si el contenido no es valido
+     */
+    public static List<LibroDTO> leerLibros(ByteBuffer entrada) {
+        return leerPagina(entrada).getLibros();
+    }
+
+    /**
+     * Libros y cursor de la proxima pagina (null si no hay mas)
+     */
+    public static PaginaLibrosDTO leerPagina(ByteBuffer entrada) {
+        List<LibroDTO> libros = new ArrayList<>();
+        Long siguiente = null;
+        try {
+            while (entrada.hasRemaining()) {
+                int fin = inicioDeRegistro(entrada);
+                byte tipo = entrada.get();
+                if (tipo == EscritorBinario.LIBRO) {
+                    libros.add(leerLibro(entrada));
+                } else if (tipo == EscritorBinario.SIGUIENTE) {
+                    siguiente = entrada.getLong();
+                }
+                finDeRegistro(entrada, fin);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Respuesta binaria incompleta", e);
+        }
+        return new PaginaLibrosDTO(libros, siguiente);
+    }
+
+    /**
+     * Un resultado por elemento de una operacion por lotes
+     */
+    public static List<ResultadoLoteDTO> leerLote(ByteBuffer entrada) {
+        List<ResultadoLoteDTO> resultados = new ArrayList<>();
+        try {
+            while (entrada.hasRemaining()) {
+                int fin = inicioDeRegistro(entrada);
+                if (entrada.get() == EscritorBinario.RESULTADO) {
+                    long id = entrada.getLong();
+                    int codigo = entrada.getInt();
+                    String mensaje = leerTexto(entrada);
+                    LibroDTO libro = entrada.get() == 0 ? null : leerLibro(entrada);
+                    resultados.add(new ResultadoLoteDTO(id == EscritorBinario.ID_NULO ? null : id, codigo, mensaje, libro));
+                }
+                finDeRegistro(entrada, fin);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Respuesta binaria incompleta", e);
+        }
+        return resultados;
+    }
+
+    private static LibroDTO leerLibro(ByteBuffer entrada) {
+        long id = entrada.getLong();
+        long version = entrada.getLong();
+        int ano = entrada.getInt();
+        String titulo = leerTexto(entrada);
+        String autor = leerTexto(entrada);
+        return new LibroDTO(id == EscritorBinario.ID_NULO ? null : id, titulo, autor,
+                ano == EscritorBinario.ANO_NULO ? null : ano,
+                version == EscritorBinario.VERSION_NULA ? null : version);
+    }
+
+    private static String leerTexto(ByteBuffer entrada) {
+        int largo = entrada.getInt();
+        if (largo == EscritorBinario.TEXTO_NULO) {
+            return null;
+        }
+        if (largo < 0 || largo > entrada.remaining()) {
+            throw new IllegalArgumentException("Largo de texto inválido: " + largo);
+        }
+        String texto;
+        if (entrada.hasArray()) {
+            texto = new String(entrada.array(), entrada.arrayOffset() + entrada.position(), largo, StandardCharsets.UTF_8);
+            entrada.position(entrada.position() + largo);
+        } else {
+            byte[] bytes = new byte[largo];
+            entrada.get(bytes);
+            texto = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return texto;
+    }
+
+    /**
+     * Lee el largo del registro y retorna la posicion donde termina
+     */
+    private static int inicioDeRegistro(ByteBuffer entrada) {
+        int largo = entrada.getInt();
+        if (largo < 1 || largo > entrada.remaining()) {
+            throw new IllegalArgumentException("Largo de registro inválido: " + largo);
+        }
+        return entrada.position() + largo;
+    }
+
+    private static void finDeRegistro(ByteBuffer entrada, int fin) {
+        if (entrada.position() > fin) {
+            throw new IllegalArgumentException("Registro más largo que lo indicado");
+        }
+        entrada.position(fin);
+    }
+}
@@ -0,0 +1,64 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.formato;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PoolBuffers - ByteBuffers de tamaño fijo que se reusan entre respuestas
+ *
+ * Cada respuesta toma un buffer, escribe en el y lo devuelve al cerrar, asi
+ * una lista larga no crea un StringBuilder, un String y un byte[] del tamaño
+ * de la respuesta. Los buffers son del heap: el canal de salida escribe su
+ * arreglo tal cual (ver CanalSalida). Si se piden mas de los que se guardan,
+ * los de mas se crean y al devolverlos se descartan.
+ */
+public final class PoolBuffers {
+    private final int capacidad;
+    private final int maximoGuardados;
+    private final ConcurrentLinkedQueue<ByteBuffer> libres = new ConcurrentLinkedQueue<>();
+    // Tamaño de 'libres' (size() de la cola recorre todos los nodos)
+    private final AtomicInteger guardados = new AtomicInteger();
+
+    /**
+     * @param capacidad Bytes de cada buffer
+     * @param maximoGuardados Buffers libres que se conservan como mucho
+     */
+    public PoolBuffers(int capacidad, int maximoGuardados) {
+        if (capacidad < 64 || maximoGuardados < 0) {
+            throw new IllegalArgumentException("Pool de buffers inválido: " + capacidad + " bytes, " + maximoGuardados);
+        }
+        this.capacidad = capacidad;
+        this.maximoGuardados = maximoGuardados;
+    }
+
+    /**
+     * Un buffer vacio (posicion 0, limite en la capacidad)
+     */
+    public ByteBuffer tomar() {
+        ByteBuffer buffer = libres.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(capacidad);
+        }
+        guardados.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Devuelve un buffer tomado de este pool; no se tiene que volver a usar
+     */
+    public void devolver(ByteBuffer buffer) {
+        if (buffer.capacity() != capacidad) {
+            return;
+        }
+        if (guardados.incrementAndGet() > maximoGuardados) {
+            guardados.decrementAndGet();
+            return;
+        }
+        libres.offer(buffer);
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+}
@@ -0,0 +1,53 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * CacheLibros - Cache de lectura entre LibroService y LibroDAO
+ *
+ * Read-through: si el ID no esta en la cache se carga con el 'cargador' (el
+ * DAO) y se guarda el resultado, incluido "no existe" (cache negativa).
+ * Quien escribe debe llamar a invalidar despues de guardar en el DAO.
+ *
+ * Se elige con propiedades del sistema (ver configurada):
+ * -Dbiblioteca.cache=lru|ninguna          (lru por defecto)
+ * -Dbiblioteca.cache.megabytes=N          tamaño maximo estimado (64)
+ * -Dbiblioteca.cache.ttl.segundos=N       vida de un libro encontrado (300)
+ * -Dbiblioteca.cache.ttlNegativo.segundos=N  vida de un "no encontrado" (30)
+ */
+public interface CacheLibros {
+
+    /**
+     * Libro del ID, desde la cache o cargado con el cargador si no estaba
+     */
+    Optional<Libro> obtener(Long id, Function<Long, Optional<Libro>> cargador);
+
+    /**
+     * Descarta lo guardado para el ID (tambien una carga en curso)
+     */
+    void invalidar(Long id);
+
+    EstadisticasCache estadisticas();
+
+    /**
+     * Cache segun las propiedades del sistema
+     */
+    static CacheLibros configurada() {
+        String tipo = System.getProperty("biblioteca.cache", "lru");
+        switch (tipo) {
+            case "ninguna":
+                return new SinCache();
+            case "lru":
+                return new CacheLru(
+                        Long.getLong("biblioteca.cache.megabytes", 64L) * 1024 * 1024,
+                        Duration.ofSeconds(Long.getLong("biblioteca.cache.ttl.segundos", 300L)),
+                        Duration.ofSeconds(Long.getLong("biblioteca.cache.ttlNegativo.segundos", 30L)));
+            default:
+                throw new IllegalArgumentException("Tipo de cache desconocido: " + tipo);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * CacheLru - Cache acotada por tamaño estimado en bytes, con desalojo LRU y TTL
+ *
+ * Se divide en segmentos, cada uno con un LinkedHashMap en orden de acceso y
+ * su propio lock, para que los hilos que leen IDs distintos no compitan.
+ * Cada segmento tiene una parte igual del presupuesto de bytes.
+ *
+ * Si varios hilos piden a la vez un ID que no esta, solo uno va al DAO y el
+ * resto espera ese resultado. Una invalidacion durante la carga descarta el
+ * resultado, asi nunca queda en la cache un valor anterior a un save.
+ */
+public final class CacheLru implements CacheLibros {
+    private static final int SEGMENTOS = 16;
+    // Estimacion del costo fijo de una entrada: nodo del mapa, Long, Entrada y Optional
+    private static final int PESO_ENTRADA = 112;
+    // Estimacion de un Libro sin sus Strings (objeto, Integer y Boolean)
+    private static final int PESO_LIBRO = 48;
+    private static final int PESO_STRING = 40;
+
+    private final Segmento[] segmentos = new Segmento[SEGMENTOS];
+    private final long ttlNanos;
+    private final long ttlNegativoNanos;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder expiradas = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    /**
+     * @param maximoBytes Tamaño maximo estimado de todas las entradas
+     * @param ttl Vida de un libro encontrado
+     * @param ttlNegativo Vida de un "no encontrado" (cero para no guardarlos)
+     */
+    public CacheLru(long maximoBytes, Duration ttl, Duration ttlNegativo) {
+        if (maximoBytes <= 0) {
+            throw new IllegalArgumentException("El tamaño de la cache debe ser positivo");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.ttlNegativoNanos = ttlNegativo.toNanos();
+        for (int i = 0; i < SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(Math.max(1, maximoBytes / SEGMENTOS));
+        }
+    }
+
+    @Override
+    public Optional<Libro> obtener(Long id, Function<Long, Optional<Libro>> cargador) {
+        Segmento segmento = segmento(id);
+        Entrada propia = null;
+        CompletableFuture<Optional<Libro>> carga;
+        synchronized (segmento) {
+            Entrada entrada = segmento.entradas.get(id);
+            if (entrada != null && entrada.cargando()) {
+                carga = entrada.carga;
+            } else if (entrada != null && entrada.vence - System.nanoTime() > 0) {
+                aciertos.increment();
+                return entrada.valor;
+            } else {
+                if (entrada != null) {
+                    segmento.quitar(id);
+                    expiradas.increment();
+                }
+                propia = new Entrada();
+                segmento.entradas.put(id, propia);
+                carga = propia.carga;
+            }
+        }
+        if (propia == null) {
+            // Otro hilo ya lo esta cargando: se espera su resultado
+            aciertos.increment();
+            return esperar(carga);
+        }
+
+        fallos.increment();
+        CompletableFuture<Optional<Libro>> propiaCarga = propia.carga;
+        Optional<Libro> valor;
+        try {
+            valor = cargador.apply(id);
+        } catch (RuntimeException e) {
+            synchronized (segmento) {
+                segmento.entradas.remove(id, propia);
+            }
+            propiaCarga.completeExceptionally(e);
+            throw e;
+        }
+        long ttl = valor.isPresent() ? ttlNanos : ttlNegativoNanos;
+        synchronized (segmento) {
+            // Si se invalido mientras se cargaba, la entrada ya no es la nuestra
+            if (segmento.entradas.get(id) == propia) {
+                if (ttl > 0) {
+                    segmento.completar(propia, valor, System.nanoTime() + ttl, peso(valor));
+                } else {
+                    segmento.entradas.remove(id);
+                }
+            }
+        }
+        propiaCarga.complete(valor);
+        return valor;
+    }
+
+    @Override
+    public void invalidar(Long id) {
+        invalidaciones.increment();
+        Segmento segmento = segmento(id);
+        synchronized (segmento) {
+            segmento.quitar(id);
+        }
+    }
+
+    @Override
+    public EstadisticasCache estadisticas() {
+        long entradas = 0;
+        long bytes = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                entradas += segmento.entradas.size();
+                bytes += segmento.bytes;
+            }
+        }
+        return new EstadisticasCache(aciertos.sum(), fallos.sum(), desalojos.sum(),
+                expiradas.sum(), invalidaciones.sum(), entradas, bytes);
+    }
+
+    private Segmento segmento(Long id) {
+        return segmentos[Long.hashCode(id) & (SEGMENTOS - 1)];
+    }
+
+    private static Optional<Libro> esperar(CompletableFuture<Optional<Libro>> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tamaño aproximado en memoria de una entrada
+     */
+    private static int peso(Optional<Libro> valor) {
+        if (valor.isEmpty()) {
+            return PESO_ENTRADA;
+        }
+        Libro libro = valor.get();
+        return PESO_ENTRADA + PESO_LIBRO + pesoString(libro.getTitulo()) + pesoString(libro.getAutor());
+    }
+
+    private static int pesoString(String texto) {
+        return texto == null ? 0 : PESO_STRING + texto.length() * 2;
+    }
+
+    /**
+     * Una parte de la cache con su propio lock (el del objeto)
+     */
+    private final class Segmento {
+        // accessOrder = true: el primero es el usado hace mas tiempo
+        final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+        final long maximoBytes;
+        long bytes;
+
+        Segmento(long maximoBytes) {
+            this.maximoBytes = maximoBytes;
+        }
+
+        void completar(Entrada entrada, Optional<Libro> valor, long vence, int peso) {
+            entrada.valor = valor;
+            entrada.vence = vence;
+            entrada.peso = peso;
+            entrada.carga = null;
+            bytes += peso;
+            desalojar();
+        }
+
+        void quitar(Long id) {
+            Entrada entrada = entradas.remove(id);
+            if (entrada != null) {
+                bytes -= entrada.peso;
+            }
+        }
+
+        /**
+         * Saca las menos usadas hasta entrar en el presupuesto; las cargas en curso no pesan
+         */
+        private void desalojar() {
+            Iterator<Map.Entry<Long, Entrada>> iterador = entradas.entrySet().iterator();
+            while (bytes > maximoBytes && iterador.hasNext()) {
+                Entrada entrada = iterador.next().getValue();
+                if (!entrada.cargando()) {
+                    iterador.remove();
+                    bytes -= entrada.peso;
+                    desalojos.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Valor guardado, o carga en curso mientras 'carga' no es null
+     */
+    private static final class Entrada {
+        CompletableFuture<Optional<Libro>> carga = new CompletableFuture<>();
+        Optional<Libro> valor;
+        long vence;
+        int peso;
+
+        boolean cargando() {
+            return carga != null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache;
+
+/**
+ * EstadisticasCache - Contadores de una cache, para dimensionarla
+ *
+ * @param aciertos       lecturas resueltas desde la cache (incluye "no encontrado")
+ * @param fallos         lecturas que tuvieron que ir al DAO
+ * @param desalojos      entradas sacadas por falta de espacio
+ * @param expiradas      entradas descartadas por TTL
+ * @param invalidaciones llamadas a invalidar
+ * @param entradas       entradas guardadas ahora
+ * @param bytes          tamaño estimado de esas entradas
+ */
+public record EstadisticasCache(long aciertos, long fallos, long desalojos, long expiradas,
+                                long invalidaciones, long entradas, long bytes) {
+
+    /**
+     * Proporcion de lecturas resueltas sin ir al DAO (0 si no hubo lecturas)
+     */
+    public double tasaDeAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * SinCache - Pasa todas las lecturas al DAO (-Dbiblioteca.cache=ninguna)
+ * Sirve para comparar contra la cache y para cuando el DAO ya esta en memoria
+ */
+public final class SinCache implements CacheLibros {
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    @Override
+    public Optional<Libro> obtener(Long id, Function<Long, Optional<Libro>> cargador) {
+        fallos.increment();
+        return cargador.apply(id);
+    }
+
+    @Override
+    public void invalidar(Long id) {
+        invalidaciones.increment();
+    }
+
+    @Override
+    public EstadisticasCache estadisticas() {
+        return new EstadisticasCache(0, fallos.sum(), 0, 0, invalidaciones.sum(), 0, 0);
+    }
+}
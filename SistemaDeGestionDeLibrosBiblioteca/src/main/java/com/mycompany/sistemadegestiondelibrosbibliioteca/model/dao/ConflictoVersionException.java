@@ -0,0 +1,48 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
+
+/**
+ * ConflictoVersionException - Un update llego con una version vieja del libro:
+ * otra escritura lo cambio despues de que quien llama lo leyo
+ *
+ * El controlador la responde como 409 CONFLICT (y solo a ella: el resto de
+ * los IllegalStateException son 500). Es esperable con mucha concurrencia sobre el mismo libro: no
+ * guarda la pila y el mensaje se arma recien si alguien lo pide
+ */
+public class ConflictoVersionException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final long libroId;
+    private final long versionEsperada;
+    private final long versionActual;
+
+    public ConflictoVersionException(long libroId, long versionEsperada, long versionActual) {
+        super(null, null);
+        this.libroId = libroId;
+        this.versionEsperada = versionEsperada;
+        this.versionActual = versionActual;
+    }
+
+    public long getLibroId() {
+        return libroId;
+    }
+
+    public long getVersionEsperada() {
+        return versionEsperada;
+    }
+
+    public long getVersionActual() {
+        return versionActual;
+    }
+
+    @Override
+    public String getMessage() {
+        return "El libro " + libroId + " ya tiene la versión " + versionActual
+                + " (se esperaba la " + versionEsperada + ")";
+    }
+
+    // Sin pila: se lanza en el camino normal de un conflicto y nadie la imprime
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
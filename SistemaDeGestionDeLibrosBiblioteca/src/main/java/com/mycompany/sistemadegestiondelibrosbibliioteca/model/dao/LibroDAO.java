@@ -8,57 +8,801 @@ package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
  *
  * Lo que hace el DAO es separar la logica de negocio de la logica de acceso a datos.
  */
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.Agregacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios.FlujoCambios;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios.TipoCambio;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice.IndicesLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice.MapaBits;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia.PersistenciaLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia.SnapshotLibros;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.MedidorOperacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.Metricas;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * LibroDAO - Data Access Object
+ * Es seguro para ser usado desde varios hilos a la vez: las lecturas no toman
+ * ningun lock y los IDs se generan de forma atomica.
+ *
+ * Con -Dbiblioteca.datos=carpeta el catalogo se vuelve durable: cada save se
+ * agrega a un write-ahead log y al iniciar se mapea el ultimo snapshot y se
+ * reproduce la cola del log (ver PersistenciaLibros). Los libros del snapshot
+ * se leen directo del archivo mapeado; baseDatos solo guarda lo que cambio
+ * despues. Propiedades opcionales:
+ * -Dbiblioteca.wal.fsync=false y -Dbiblioteca.snapshot.registros=N
+ *
+ * Con -Dbiblioteca.almacen=compacto los libros en memoria se guardan en
+ * columnas de tipos primitivos en vez de un objeto Libro por ID, para
+ * catalogos de decenas de millones (ver AlmacenCompacto), y con
+ * -Dbiblioteca.almacen=nativo fuera del heap, para que el GC no dependa del
+ * tamaño del catalogo (ver AlmacenNativo)
+ *
+ * Cada libro guardado tiene una version que sube en 1 con cada escritura.
+ * update hace compare-and-set contra la version que leyo quien llama
+ * (concurrencia optimista, sin locks): si otro hilo guardo antes, lanza
+ * ConflictoVersionException en vez de pisar el cambio. save siempre gana,
+ * pero tambien publica con compare-and-set y reintenta, asi la version nunca
+ * se repite ni retrocede
+ *
+ * Con persistencia la version se decide antes de escribir el log, y el
+ * libro se publica recien cuando su registro es durable: si el log falla no
+ * queda nada visible (ni en baseDatos, ni en los indices, ni para la cache
+ * del service). Para eso cada escritura toma el cerrojo de su ID (uno de
+ * CERROJOS, por hash) mientras decide la version, escribe el log y publica;
+ * las lecturas siguen sin locks
+ *
+ * Cada creacion, modificacion o cambio de disponibilidad publica un evento en
+ * FlujoCambios, despues de quedar en el log: otros sistemas se suscriben y
+ * siguen el catalogo de a lotes en vez de releerlo entero. Lo que se
+ * recupera del disco al iniciar no publica eventos.
+ * -Dbiblioteca.cambios.capacidad=N eventos que se guardan (0 lo apaga)
+ *
+ * Los reportes (libros por autor, por decada, disponibilidad) no listan el
+ * catalogo: agregar recorre en paralelo las columnas del almacen y del
+ * snapshot con una Agregacion y solo retorna los totales
+ *
+ * Cada metodo publico registra su latencia en Metricas (capa "dao") con un
+ * codigo al estilo HTTP: 200, 404 si findById no encuentra el libro, 400 si
+ * los argumentos son invalidos y 500 si falla. Por dentro los libros se leen
+ * con buscar, asi un listado no se cuenta como miles de findById
  */
 public class LibroDAO {
-    // Base de datos simulada con HashMap en memoria (al ser en memoria, es volatil)
-    private static Map<Long, Libro> baseDatos = new HashMap<>();
+    // Base de datos simulada en memoria (al ser en memoria, es volatil).
+    // Un mapa de libros o columnas compactas, segun -Dbiblioteca.almacen (ver AlmacenLibros)
+    private static final AlmacenLibros baseDatos = AlmacenLibros.configurado();
     // Atributo ID para simular un ID autoincremental en nuestra base
-    private static Long nextId = 1L;
+    private static final AtomicLong nextId = new AtomicLong(1L);
+    // Version "todavia no guardado": la primera escritura de un ID deja la version 1
+    private static final long SIN_VERSION = 0;
+    // IDs guardados en baseDatos, ordenados, para listar por ID sin copiar ni ordenar el mapa
+    private static final MapaBits idsEnMemoria = new MapaBits();
+    // IDs del snapshot que ademas estan en baseDatos (para contar cada libro una sola vez)
+    private static final AtomicLong reemplazadosDelSnapshot = new AtomicLong();
+    // Indices de texto, año, disponibilidad y autor; se actualizan en cada save
+    private static final IndicesLibros indices = new IndicesLibros();
+    // Eventos de cambio para suscriptores (null si esta apagado); antes de los datos de prueba
+    private static final FlujoCambios cambios = FlujoCambios.configurado();
+    // Modo durable (null si el catalogo solo vive en memoria)
+    private static final PersistenciaLibros persistencia = abrirPersistencia();
+    // Snapshot columnar mapeado en memoria, debajo de los cambios de baseDatos (o null)
+    private static final SnapshotLibros snapshot = persistencia == null ? null : persistencia.getSnapshot();
+    // Cerrojos de escritura por ID, solo con persistencia (potencia de 2)
+    private static final int CERROJOS = 1024;
+    private static final ReentrantLock[] cerrojos = crearCerrojos();
+
+    private static final MedidorOperacion FIND_BY_ID = Metricas.operacion("dao", "findById");
+    private static final MedidorOperacion SAVE = Metricas.operacion("dao", "save");
+    private static final MedidorOperacion UPDATE = Metricas.operacion("dao", "update");
+    private static final MedidorOperacion FIND_ALL_BY_ID = Metricas.operacion("dao", "findAllById");
+    private static final MedidorOperacion SAVE_ALL = Metricas.operacion("dao", "saveAll");
+    private static final MedidorOperacion FIND_PAGINA = Metricas.operacion("dao", "findPagina");
+    private static final MedidorOperacion STREAM_ALL = Metricas.operacion("dao", "streamAll");
+    private static final MedidorOperacion COUNT = Metricas.operacion("dao", "count");
+    private static final MedidorOperacion FIND_ALL = Metricas.operacion("dao", "findAll");
+    private static final MedidorOperacion BUSCAR_POR_TEXTO = Metricas.operacion("dao", "buscarPorTexto");
+    private static final MedidorOperacion FIND_BY_FILTROS = Metricas.operacion("dao", "findByFiltros");
+    private static final MedidorOperacion AGREGAR = Metricas.operacion("dao", "agregar");
     
     // Bloque estático para inicializar datos de prueba
+    // (con persistencia solo la primera vez, cuando todavia no hay nada guardado)
     static {
-        baseDatos.put(1L, new Libro(1L, "Danza de Dragones", "George R. R. Martin", 2011, true));
-        baseDatos.put(2L, new Libro(2L, "Cien años de soledad", "Gabriel García Márquez", 1967, false));
-        baseDatos.put(3L, new Libro(3L, "It", "Stephen King", 1986, true));
-        baseDatos.put(4L, new Libro(4L, "El Principito", "Antoine de Saint-Exupéry", 1943, true));
-        baseDatos.put(5L, new Libro(5L, "Alicia en el País de las Maravillas", "Lewis Carrol", 1865, false));
-        nextId = 6L;
+        if (snapshot != null) {
+            nextId.accumulateAndGet(snapshot.maximoId() + 1, Math::max);
+            // El log se reproduce antes de que 'snapshot' tenga valor: recien aca
+            // se sabe cuales de los libros recuperados reemplazan uno del snapshot
+            idsEnMemoria.recorrer(id -> {
+                if (snapshot.posicion(id) >= 0) {
+                    reemplazadosDelSnapshot.incrementAndGet();
+                }
+                return true;
+            });
+        }
+        if (baseDatos.cantidad() == 0 && (snapshot == null || snapshot.cantidad() == 0)) {
+            guardar(new Libro(1L, "Danza de Dragones", "George R. R. Martin", 2011, true));
+            guardar(new Libro(2L, "Cien años de soledad", "Gabriel García Márquez", 1967, false));
+            guardar(new Libro(3L, "It", "Stephen King", 1986, true));
+            guardar(new Libro(4L, "El Principito", "Antoine de Saint-Exupéry", 1943, true));
+            guardar(new Libro(5L, "Alicia en el País de las Maravillas", "Lewis Carrol", 1865, false));
+        }
+        if (snapshot != null && snapshot.cantidad() > 0) {
+            // El snapshot se indexa en segundo plano para no demorar el inicio;
+            // mientras tanto las busquedas y filtros pueden dar resultados parciales
+            Thread.ofPlatform().name("indexador-snapshot").daemon().start(LibroDAO::indexarSnapshot);
+        }
+    }
+
+    private static void indexarSnapshot() {
+        for (int posicion = 0; posicion < snapshot.cantidad(); posicion++) {
+            // Los IDs que cambiaron despues del snapshot ya se indexaron con su version nueva
+            indices.indexarSiAusente(snapshot.libro(posicion));
+        }
+    }
+
+    /**
+     * Abre el modo durable si se configuro una carpeta de datos, recuperando
+     * el snapshot y el log en vez de usar los datos de prueba
+     */
+    private static PersistenciaLibros abrirPersistencia() {
+        String directorio = System.getProperty("biblioteca.datos");
+        if (directorio == null) {
+            return null;
+        }
+        try {
+            PersistenciaLibros abierta = PersistenciaLibros.abrir(Path.of(directorio),
+                    LibroDAO::restaurar,
+                    () -> LibroDAO::recorrerPorId,
+                    Long.getLong("biblioteca.snapshot.registros", 1_000_000L),
+                    Boolean.parseBoolean(System.getProperty("biblioteca.wal.fsync", "true")));
+            Runtime.getRuntime().addShutdownHook(new Thread(abierta::close));
+            return abierta;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo recuperar el catálogo desde " + directorio, e);
+        }
+    }
+
+    /**
+     * Carga un libro recuperado del disco sin volver a escribirlo en el log
+     */
+    private static void restaurar(Libro libro) {
+        // Dos escrituras del mismo libro pueden quedar en el log en otro orden
+        Libro actual = baseDatos.obtener(libro.getId());
+        if (actual != null && actual.getVersion() > libro.getVersion()) {
+            return;
+        }
+        publicar(libro);
+        nextId.accumulateAndGet(libro.getId() + 1, Math::max);
+        indices.indexar(libro);
+    }
+
+    /**
+     * Guarda el libro en baseDatos (sin mirar la version) y lo agrega al orden por ID
+     */
+    private static void publicar(Libro libro) {
+        Long id = libro.getId();
+        if (baseDatos.guardar(libro)) {
+            idsEnMemoria.agregar(id);
+            if (snapshot != null && snapshot.posicion(id) >= 0) {
+                reemplazadosDelSnapshot.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Compare-and-set del libro (que ya tiene ID) contra la version guardada,
+     * sea en baseDatos o en el snapshot. Si gana queda con versionEsperada + 1
+     * @return false si la version guardada no es versionEsperada (SIN_VERSION = que el ID no exista)
+     */
+    private static boolean publicarSiVersion(Libro libro, long versionEsperada) {
+        long id = libro.getId();
+        if (baseDatos.reemplazarSiVersion(libro, versionEsperada)) {
+            return true;
+        }
+        if (baseDatos.contiene(id)) {
+            return false;
+        }
+        // Todavia no esta en baseDatos: se compara con la version del snapshot
+        int posicion = snapshot == null ? -1 : snapshot.posicion(id);
+        long guardada = posicion < 0 ? SIN_VERSION : snapshot.version(posicion);
+        if (guardada != versionEsperada) {
+            return false;
+        }
+        libro.setVersion(versionEsperada + 1);
+        if (!baseDatos.agregarSiAusente(libro)) {
+            return false;
+        }
+        idsEnMemoria.agregar(id);
+        if (posicion >= 0) {
+            reemplazadosDelSnapshot.incrementAndGet();
+        }
+        return true;
+    }
+
+    /**
+     * Publica el libro (que ya tiene ID) como la version siguiente a la que
+     * este guardada, reintentando si otro hilo escribe en el medio
+     * @return La version que reemplazo, o null si el ID no existia
+     */
+    private static Libro publicarSiguienteVersion(Libro libro) {
+        long id = libro.getId();
+        while (true) {
+            Libro actual = buscar(id);
+            if (publicarSiVersion(libro, actual == null ? SIN_VERSION : actual.getVersion())) {
+                return actual;
+            }
+        }
+    }
+
+    /**
+     * Publica el evento del cambio de 'anterior' (null si es nuevo) a 'libro'
+     */
+    private static void avisarCambio(Libro anterior, Libro libro) {
+        if (cambios != null) {
+            cambios.publicar(TipoCambio.entre(anterior, libro), libro);
+        }
+    }
+
+    /**
+     * Menor ID guardado que sea mayor o igual a 'desde', juntando baseDatos y el snapshot
+     * @return El ID, o -1 si no hay mas
+     */
+    private static long siguienteId(long desde) {
+        long enMemoria = idsEnMemoria.siguiente(desde);
+        if (snapshot == null) {
+            return enMemoria;
+        }
+        int posicion = snapshot.posicionDesde(desde);
+        long delSnapshot = posicion < snapshot.cantidad() ? snapshot.id(posicion) : -1;
+        if (enMemoria < 0 || delSnapshot < 0) {
+            return Math.max(enMemoria, delSnapshot);
+        }
+        return Math.min(enMemoria, delSnapshot);
+    }
+
+    /**
+     * Libros del snapshot que no fueron reemplazados mas todos los de baseDatos
+     */
+    private static Stream<Libro> catalogoCompleto() {
+        if (snapshot == null) {
+            return baseDatos.libros();
+        }
+        Stream<Libro> delSnapshot = IntStream.range(0, snapshot.cantidad())
+                .filter(posicion -> !baseDatos.contiene(snapshot.id(posicion)))
+                .mapToObj(snapshot::libro);
+        return Stream.concat(delSnapshot, baseDatos.libros());
+    }
+
+    private static ReentrantLock[] crearCerrojos() {
+        ReentrantLock[] creados = new ReentrantLock[CERROJOS];
+        for (int i = 0; i < CERROJOS; i++) {
+            creados[i] = new ReentrantLock();
+        }
+        return creados;
+    }
+
+    private static int cerrojo(long id) {
+        return Long.hashCode(id) & (CERROJOS - 1);
+    }
+
+    /**
+     * Persistencia activa, o null si el catalogo es solo en memoria
+     */
+    public static PersistenciaLibros getPersistencia() {
+        return persistencia;
+    }
+
+    /**
+     * Flujo de eventos de cambio, o null si se apago con -Dbiblioteca.cambios.capacidad=0
+     */
+    public static FlujoCambios getCambios() {
+        return cambios;
     }
     
     /**
      * Metodo de buscar libro por ID
      */
     public Optional<Libro> findById(Long id) {
-        if (id == null) {
-            return Optional.empty();
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Libro libro = id == null ? null : buscar(id);
+            codigo = libro == null ? 404 : 200;
+            return Optional.ofNullable(libro);
+        } finally {
+            FIND_BY_ID.registrarDesde(codigo, inicio);
         }
-        return Optional.ofNullable(baseDatos.get(id));
+    }
+
+    /**
+     * Libro con ese ID, en baseDatos o en el snapshot, o null si no existe
+     */
+    private static Libro buscar(long id) {
+        Libro libro = baseDatos.obtener(id);
+        if (libro == null && snapshot != null) {
+            // Se sirve desde el archivo mapeado sin copiar los campos
+            int posicion = snapshot.posicion(id);
+            if (posicion >= 0) {
+                libro = snapshot.libro(posicion);
+            }
+        }
+        return libro;
     }
     
     /**
      * metodo de guardar libro (crear o actualizar)
      */
     public Libro save(Libro libro) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Libro guardado = guardar(libro);
+            codigo = 200;
+            return guardado;
+        } finally {
+            SAVE.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Metodo de actualizar un libro existente con concurrencia optimista: se
+     * guarda solo si su version sigue siendo la que leyo quien llama
+     * @param versionEsperada Version del libro cuando se leyo
+     * @return El libro guardado (con versionEsperada + 1), o vacio si el ID no existe
+     * @throws ConflictoVersionException Si otra escritura ya cambio la version
+     */
+    public Optional<Libro> update(Libro libro, long versionEsperada) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Optional<Libro> actualizado = actualizar(libro, versionEsperada);
+            codigo = actualizado.isPresent() ? 200 : 404;
+            return actualizado;
+        } catch (ConflictoVersionException e) {
+            codigo = 409;
+            throw e;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            UPDATE.registrarDesde(codigo, inicio);
+        }
+    }
+
+    private static Optional<Libro> actualizar(Libro libro, long versionEsperada) {
         if (libro.getId() == null) {
-            // Crear nuevo libro - asignar ID automáticamente
-            libro.setId(nextId++);
+            throw new IllegalArgumentException("El libro a actualizar necesita ID");
+        }
+        long id = libro.getId();
+        if (persistencia != null) {
+            return actualizarDurable(libro, versionEsperada);
+        }
+        // Si el compare-and-set gana, 'anterior' es justo la version que reemplazo
+        Libro anterior = buscar(id);
+        if (anterior == null) {
+            return Optional.empty();
+        }
+        // Con SIN_VERSION el compare-and-set crearia el libro: update nunca crea
+        if (versionEsperada == SIN_VERSION || anterior.getVersion() != versionEsperada
+                || !publicarSiVersion(libro, versionEsperada)) {
+            Libro actual = buscar(id);
+            if (actual == null) {
+                return Optional.empty();
+            }
+            throw new ConflictoVersionException(id, versionEsperada, actual.getVersion());
+        }
+        indices.indexar(libro);
+        avisarCambio(anterior, libro);
+        return Optional.of(libro);
+    }
+
+    /**
+     * actualizar con persistencia: con el cerrojo del ID la version guardada
+     * no cambia mientras se compara, se escribe el log y se publica
+     */
+    private static Optional<Libro> actualizarDurable(Libro libro, long versionEsperada) {
+        long id = libro.getId();
+        Libro anterior;
+        ReentrantLock cerrojo = cerrojos[cerrojo(id)];
+        cerrojo.lock();
+        try {
+            anterior = buscar(id);
+            if (anterior == null) {
+                return Optional.empty();
+            }
+            if (versionEsperada == SIN_VERSION || anterior.getVersion() != versionEsperada) {
+                throw new ConflictoVersionException(id, versionEsperada, anterior.getVersion());
+            }
+            libro.setVersion(versionEsperada + 1);
+            persistencia.registrar(libro, () -> publicar(libro));
+            indices.indexar(libro);
+        } finally {
+            cerrojo.unlock();
+        }
+        avisarCambio(anterior, libro);
+        return Optional.of(libro);
+    }
+
+    /**
+     * Metodo de buscar varios libros por ID de una vez
+     * @return Los libros encontrados, en el orden de 'ids' (los que no existen no estan)
+     */
+    public Map<Long, Libro> findAllById(List<Long> ids) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Map<Long, Libro> encontrados = new LinkedHashMap<>(Math.max(16, ids.size() * 2));
+            for (Long id : ids) {
+                if (id != null && !encontrados.containsKey(id)) {
+                    Libro libro = buscar(id);
+                    if (libro != null) {
+                        encontrados.put(id, libro);
+                    }
+                }
+            }
+            codigo = 200;
+            return encontrados;
+        } finally {
+            FIND_ALL_BY_ID.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Guarda varios libros (crear o actualizar). Los libros nuevos reciben un
+     * bloque de IDs consecutivos con una sola operacion atomica, y con
+     * persistencia todo el lote va junto al log y comparte un solo fsync
+     */
+    public List<Libro> saveAll(List<Libro> libros) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            guardarTodos(libros);
+            codigo = 200;
+            return libros;
+        } finally {
+            SAVE_ALL.registrarDesde(codigo, inicio);
+        }
+    }
+
+    private static void guardarTodos(List<Libro> libros) {
+        long nuevos = 0;
+        long mayorDado = 0;
+        for (Libro libro : libros) {
+            if (libro.getId() == null) {
+                nuevos++;
+            } else {
+                mayorDado = Math.max(mayorDado, libro.getId());
+            }
+        }
+        // Primero se corre el generador por los IDs dados, asi el bloque nunca los pisa
+        if (mayorDado > 0) {
+            nextId.accumulateAndGet(mayorDado + 1, Math::max);
+        }
+        long siguiente = nuevos == 0 ? 0 : nextId.getAndAdd(nuevos);
+        if (persistencia != null) {
+            for (Libro libro : libros) {
+                if (libro.getId() == null) {
+                    libro.setId(siguiente++);
+                }
+            }
+            guardarTodosDurable(libros);
+            return;
+        }
+        // Lo que reemplazo cada uno, para el tipo de cada evento (solo si hay flujo de cambios)
+        Libro[] anteriores = cambios == null ? null : new Libro[libros.size()];
+        for (int i = 0; i < libros.size(); i++) {
+            Libro libro = libros.get(i);
+            Libro anterior = null;
+            if (libro.getId() == null) {
+                libro.setId(siguiente++);
+                libro.setVersion(1);
+                publicar(libro);
+            } else {
+                anterior = publicarSiguienteVersion(libro);
+            }
+            indices.indexar(libro);
+            if (anteriores != null) {
+                anteriores[i] = anterior;
+            }
         }
-        // Guardar en la "base de datos"
-        baseDatos.put(libro.getId(), libro);
+        if (anteriores != null) {
+            for (int i = 0; i < libros.size(); i++) {
+                avisarCambio(anteriores[i], libros.get(i));
+            }
+        }
+    }
+
+    /**
+     * saveAll con persistencia (los libros ya tienen ID): toma los cerrojos de
+     * todos los IDs del lote, en orden para no trabarse con otro lote, decide
+     * las versiones, escribe el lote con un solo fsync y recien ahi lo publica
+     */
+    private static void guardarTodosDurable(List<Libro> libros) {
+        if (libros.isEmpty()) {
+            return;
+        }
+        BitSet tomados = new BitSet(CERROJOS);
+        for (Libro libro : libros) {
+            tomados.set(cerrojo(libro.getId()));
+        }
+        for (int i = tomados.nextSetBit(0); i >= 0; i = tomados.nextSetBit(i + 1)) {
+            cerrojos[i].lock();
+        }
+        Libro[] anteriores = new Libro[libros.size()];
+        try {
+            // Un ID repetido en el lote sigue a su aparicion anterior
+            Map<Long, Libro> delLote = new HashMap<>();
+            for (int i = 0; i < libros.size(); i++) {
+                Libro libro = libros.get(i);
+                Libro anterior = delLote.containsKey(libro.getId()) ? delLote.get(libro.getId()) : buscar(libro.getId());
+                libro.setVersion(anterior == null ? 1 : anterior.getVersion() + 1);
+                delLote.put(libro.getId(), libro);
+                anteriores[i] = anterior;
+            }
+            persistencia.registrarTodos(libros, () -> libros.forEach(LibroDAO::publicar));
+            for (Libro libro : libros) {
+                indices.indexar(libro);
+            }
+        } finally {
+            for (int i = tomados.nextSetBit(0); i >= 0; i = tomados.nextSetBit(i + 1)) {
+                cerrojos[i].unlock();
+            }
+        }
+        for (int i = 0; i < libros.size(); i++) {
+            avisarCambio(anteriores[i], libros.get(i));
+        }
+    }
+
+    private static Libro guardar(Libro libro) {
+        Libro anterior = persistencia == null ? publicarConId(libro) : guardarDurable(libro);
+        // El evento despues del log: nadie se entera de un cambio que se pueda perder
+        avisarCambio(anterior, libro);
         return libro;
     }
+
+    /**
+     * save con persistencia: con el cerrojo del ID decide la version, escribe
+     * el log y recien cuando es durable lo publica y lo indexa
+     * @return La version que reemplazo, o null si el libro es nuevo
+     */
+    private static Libro guardarDurable(Libro libro) {
+        if (libro.getId() == null) {
+            libro.setId(nextId.getAndIncrement());
+        } else {
+            nextId.accumulateAndGet(libro.getId() + 1, Math::max);
+        }
+        ReentrantLock cerrojo = cerrojos[cerrojo(libro.getId())];
+        cerrojo.lock();
+        try {
+            Libro anterior = buscar(libro.getId());
+            libro.setVersion(anterior == null ? 1 : anterior.getVersion() + 1);
+            persistencia.registrar(libro, () -> publicar(libro));
+            indices.indexar(libro);
+            return anterior;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Asigna el ID si hace falta, y lo deja visible en baseDatos y en los indices
+     * @return La version que reemplazo, o null si el libro es nuevo
+     */
+    private static Libro publicarConId(Libro libro) {
+        Libro anterior = null;
+        if (libro.getId() == null) {
+            // Crear nuevo libro - asignar ID automáticamente
+            libro.setId(nextId.getAndIncrement());
+            libro.setVersion(1);
+            // Guardar en la "base de datos"
+            publicar(libro);
+        } else {
+            // Si el ID viene dado, el generador nunca debe volver a entregarlo
+            nextId.accumulateAndGet(libro.getId() + 1, Math::max);
+            anterior = publicarSiguienteVersion(libro);
+        }
+        indices.indexar(libro);
+        return anterior;
+    }
     
+    /**
+     * Pagina del catalogo ordenada por ID (paginacion por cursor)
+     * @param despuesDeId Ultimo ID de la pagina anterior (0 para empezar)
+     * @return Como mucho 'limite' libros con ID mayor a 'despuesDeId'
+     */
+    public List<Libro> findPagina(long despuesDeId, int limite) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<Libro> pagina = new ArrayList<>(Math.min(limite, 1024));
+            long id = siguienteId(despuesDeId + 1);
+            while (id >= 0 && pagina.size() < limite) {
+                Libro libro = buscar(id);
+                if (libro != null) {
+                    pagina.add(libro);
+                }
+                id = siguienteId(id + 1);
+            }
+            codigo = 200;
+            return pagina;
+        } finally {
+            FIND_PAGINA.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Recorre todo el catalogo en orden de ID sin copiarlo: cada libro se
+     * busca recien cuando el stream lo pide. La latencia se mide hasta que se
+     * cierra el stream, porque recorrerlo es la parte que cuesta
+     */
+    public Stream<Libro> streamAll() {
+        long inicio = System.nanoTime();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(recorrerPorId(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL), false)
+                .onClose(() -> STREAM_ALL.registrarDesde(200, inicio));
+    }
+
+    /**
+     * Todo el catalogo en orden de ID, juntando el orden de idsEnMemoria con
+     * el del snapshot. Cada libro se busca recien cuando se pide, asi tambien
+     * sirve para escribir el snapshot siguiente sin copiar el catalogo
+     */
+    private static Iterator<Libro> recorrerPorId() {
+        return new Iterator<>() {
+            private long proximo = siguienteId(0);
+
+            @Override
+            public boolean hasNext() {
+                return proximo >= 0;
+            }
+
+            @Override
+            public Libro next() {
+                if (proximo < 0) {
+                    throw new NoSuchElementException();
+                }
+                long id = proximo;
+                proximo = siguienteId(id + 1);
+                return buscar(id);
+            }
+        };
+    }
+
+    /**
+     * Cantidad de libros del catalogo
+     */
+    public long count() {
+        long inicio = System.nanoTime();
+        long delSnapshot = snapshot == null ? 0 : snapshot.cantidad() - reemplazadosDelSnapshot.get();
+        long cantidad = baseDatos.cantidad() + delSnapshot;
+        COUNT.registrarDesde(200, inicio);
+        return cantidad;
+    }
+
+    /**
+     * Recorre todo el catalogo en paralelo sobre el almacen y el snapshot, sin
+     * armar libros, y retorna la suma de los parciales (ver Agregacion).
+     * No es una foto: con escrituras en curso, un libro del snapshot que se
+     * guarda justo mientras se recorre puede contarse dos veces
+     */
+    public <A> A agregar(Agregacion<A> agregacion) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            A resultado;
+            if (snapshot == null) {
+                resultado = baseDatos.agregar(agregacion);
+            } else {
+                resultado = snapshot.agregar(agregacion, baseDatos::contiene);
+                agregacion.combinar(resultado, baseDatos.agregar(agregacion));
+            }
+            codigo = 200;
+            return resultado;
+        } finally {
+            AGREGAR.registrarDesde(codigo, inicio);
+        }
+    }
+
     /**
      * Metodo para obtener todos los libros
      */
     public Map<Long, Libro> findAll() {
-        return new HashMap<>(baseDatos);
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Map<Long, Libro> todos = new HashMap<>();
+            catalogoCompleto().forEach(libro -> todos.put(libro.getId(), libro));
+            codigo = 200;
+            return todos;
+        } finally {
+            FIND_ALL.registrarDesde(codigo, inicio);
+        }
+    }
+    
+    /**
+     * Busqueda por texto en titulo y autor usando el indice invertido
+     * @return Libros ordenados por relevancia, como mucho 'limite'
+     */
+    public List<Libro> buscarPorTexto(String consulta, int limite) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<Libro> libros = new ArrayList<>();
+            for (Long id : indices.buscarTexto(consulta, limite)) {
+                Libro libro = buscar(id);
+                if (libro != null) {
+                    libros.add(libro);
+                }
+            }
+            codigo = 200;
+            return libros;
+        } finally {
+            BUSCAR_POR_TEXTO.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Filtra con los indices secundarios, intersectando los conjuntos de IDs
+     * en vez de recorrer el catalogo. Los filtros null no se aplican, pero
+     * tiene que haber al menos uno
+     * @return Libros que cumplen todos los filtros, ordenados por ID, como mucho 'limite'
+     */
+    public List<Libro> findByFiltros(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<Libro> libros = filtrar(anoDesde, anoHasta, autor, disponible, limite);
+            codigo = 200;
+            return libros;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            FIND_BY_FILTROS.registrarDesde(codigo, inicio);
+        }
+    }
+
+    private static List<Libro> filtrar(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite) {
+        List<MapaBits> conjuntos = new ArrayList<>();
+        if (anoDesde != null || anoHasta != null) {
+            conjuntos.add(indices.idsPorRangoDeAnos(
+                    anoDesde == null ? IndicesLibros.ANO_MINIMO : anoDesde,
+                    anoHasta == null ? IndicesLibros.ANO_MAXIMO : anoHasta));
+        }
+        if (autor != null) {
+            conjuntos.add(indices.idsPorAutor(autor));
+        }
+        if (disponible != null) {
+            conjuntos.add(indices.idsPorDisponibilidad(disponible));
+        }
+        if (conjuntos.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un filtro");
+        }
+        List<Libro> libros = new ArrayList<>();
+        for (Long id : MapaBits.interseccion(conjuntos).primeros(limite)) {
+            Libro libro = buscar(id);
+            if (libro != null) {
+                libros.add(libro);
+            }
+        }
+        return libros;
     }
 }
\ No newline at end of file
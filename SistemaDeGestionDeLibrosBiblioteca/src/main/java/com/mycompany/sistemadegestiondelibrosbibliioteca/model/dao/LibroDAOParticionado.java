@@ -0,0 +1,375 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion.Particion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion.ParticionLocal;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion.ParticionRemota;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.MedidorOperacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas.Metricas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * LibroDAOParticionado - El catalogo repartido en N particiones independientes
+ *
+ * A diferencia de LibroDAO (un solo almacen estatico para todo el proceso),
+ * cada particion tiene su almacen, sus indices, sus locks y su rango de IDs
+ * (ver Particion): un libro con ID va siempre a (id - 1) % N, y los nuevos se
+ * reparten por turno y reciben un ID de la particion que les toco.
+ *
+ *   findById, save, update  van directo a la particion del ID
+ *   saveAll, findAllById    agrupan por particion y mandan un lote a cada una
+ *   findPagina, findByFiltros, count  consultan todas a la vez en un
+ *                           ForkJoinPool (scatter-gather) y juntan los
+ *                           resultados, que cada particion ya da ordenados por ID
+ *
+ * Las particiones pueden ser locales o remotas (ParticionRemota sobre un
+ * TransporteRpc); para este DAO es lo mismo. No tiene persistencia ni flujo
+ * de cambios, y la busqueda por texto sigue en LibroDAO: ordenar por
+ * relevancia entre particiones necesitaria los puntajes de cada indice.
+ *
+ * Cada metodo publico registra su latencia en Metricas (capa "particiones")
+ * con los mismos codigos que LibroDAO.
+ */
+public class LibroDAOParticionado implements AutoCloseable {
+    private static final MedidorOperacion FIND_BY_ID = Metricas.operacion("particiones", "findById");
+    private static final MedidorOperacion SAVE = Metricas.operacion("particiones", "save");
+    private static final MedidorOperacion UPDATE = Metricas.operacion("particiones", "update");
+    private static final MedidorOperacion FIND_ALL_BY_ID = Metricas.operacion("particiones", "findAllById");
+    private static final MedidorOperacion SAVE_ALL = Metricas.operacion("particiones", "saveAll");
+    private static final MedidorOperacion FIND_PAGINA = Metricas.operacion("particiones", "findPagina");
+    private static final MedidorOperacion COUNT = Metricas.operacion("particiones", "count");
+    private static final MedidorOperacion FIND_BY_FILTROS = Metricas.operacion("particiones", "findByFiltros");
+
+    private final Particion[] particiones;
+    private final ForkJoinPool pool;
+    // Turno para repartir los libros nuevos entre las particiones
+    private final AtomicLong turno = new AtomicLong();
+
+    /**
+     * @param particiones La particion k tiene que ser la numero k de particiones.size()
+     * @param pool Donde corren las consultas a todas las particiones
+     */
+    public LibroDAOParticionado(List<? extends Particion> particiones, ForkJoinPool pool) {
+        if (particiones.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos una partición");
+        }
+        this.particiones = particiones.toArray(new Particion[0]);
+        this.pool = pool;
+    }
+
+    /**
+     * 'cantidad' particiones en memoria de este proceso
+     */
+    public static LibroDAOParticionado enMemoria(int cantidad) {
+        List<Particion> particiones = new ArrayList<>(cantidad);
+        for (int numero = 0; numero < cantidad; numero++) {
+            particiones.add(new ParticionLocal(numero, cantidad));
+        }
+        return new LibroDAOParticionado(particiones, new ForkJoinPool(cantidad));
+    }
+
+    /**
+     * 'cantidad' particiones que se usan como si fueran procesos aparte
+     * (ver TransporteEnProceso), cada una atendida por 'hilos' hilos.
+     * Las consultas a todas bloquean esperando la respuesta: el pool tiene
+     * un hilo por particion para que no se esperen entre si
+     */
+    public static LibroDAOParticionado enProcesosSimulados(int cantidad, int hilos) {
+        List<Particion> particiones = new ArrayList<>(cantidad);
+        for (int numero = 0; numero < cantidad; numero++) {
+            particiones.add(ParticionRemota.enProceso(numero, cantidad, hilos));
+        }
+        return new LibroDAOParticionado(particiones, new ForkJoinPool(cantidad));
+    }
+
+    public int getCantidadParticiones() {
+        return particiones.length;
+    }
+
+    /**
+     * Cierra el pool y los transportes de las particiones remotas
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+        for (Particion particion : particiones) {
+            if (particion instanceof ParticionRemota remota) {
+                remota.close();
+            }
+        }
+    }
+
+    /**
+     * Libro por ID, preguntando solo a su particion
+     */
+    public Optional<Libro> findById(Long id) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Libro libro = id == null || id <= 0 ? null : particionDe(id).buscar(id);
+            codigo = libro == null ? 404 : 200;
+            return Optional.ofNullable(libro);
+        } finally {
+            FIND_BY_ID.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Guarda el libro (crear o actualizar, el ultimo gana). Si es nuevo le
+     * toca la particion del turno y recibe un ID de ella
+     * @return El mismo libro, con ID y version
+     */
+    public Libro save(Libro libro) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            Particion particion = libro.getId() == null ? particionDelTurno() : particionDe(libro.getId());
+            copiarIdYVersion(particion.guardar(libro), libro);
+            codigo = 200;
+            return libro;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            SAVE.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Concurrencia optimista como LibroDAO.update, en la particion del libro
+     * @return El libro guardado (con versionEsperada + 1), o vacio si el ID no existe
+     * @throws ConflictoVersionException Si otra escritura ya cambio la version
+     */
+    public Optional<Libro> update(Libro libro, long versionEsperada) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            if (libro.getId() == null) {
+                throw new IllegalArgumentException("El libro a actualizar necesita ID");
+            }
+            Libro guardado = particionDe(libro.getId()).actualizar(libro, versionEsperada);
+            if (guardado != null) {
+                copiarIdYVersion(guardado, libro);
+            }
+            codigo = guardado == null ? 404 : 200;
+            return guardado == null ? Optional.empty() : Optional.of(libro);
+        } catch (ConflictoVersionException e) {
+            codigo = 409;
+            throw e;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            UPDATE.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Guarda varios libros con un solo lote por particion, todas a la vez
+     * @return La misma lista, con los IDs y versiones asignados
+     */
+    public List<Libro> saveAll(List<Libro> libros) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<List<Libro>> porParticion = vacias();
+            for (Libro libro : libros) {
+                int numero = libro.getId() == null ? numeroDelTurno() : Particion.deId(libro.getId(), particiones.length);
+                porParticion.get(numero).add(libro);
+            }
+            List<List<Libro>> guardados = enCadaParticion(numero -> porParticion.get(numero).isEmpty()
+                    ? List.of() : particiones[numero].guardarTodos(porParticion.get(numero)));
+            for (int numero = 0; numero < particiones.length; numero++) {
+                // Con particiones remotas los guardados son copias: el ID y la version se pasan a los originales
+                for (int i = 0; i < guardados.get(numero).size(); i++) {
+                    copiarIdYVersion(guardados.get(numero).get(i), porParticion.get(numero).get(i));
+                }
+            }
+            codigo = 200;
+            return libros;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            SAVE_ALL.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Varios libros por ID, con una consulta por particion, todas a la vez
+     * @return Los libros encontrados, en el orden de 'ids' (los que no existen no estan)
+     */
+    public Map<Long, Libro> findAllById(List<Long> ids) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<List<Long>> porParticion = vacias();
+            for (Long id : ids) {
+                if (id != null && id > 0) {
+                    porParticion.get(Particion.deId(id, particiones.length)).add(id);
+                }
+            }
+            Map<Long, Libro> porId = new HashMap<>(Math.max(16, ids.size() * 2));
+            for (List<Libro> encontrados : enCadaParticion(numero -> porParticion.get(numero).isEmpty()
+                    ? List.<Libro>of() : particiones[numero].buscarVarios(porParticion.get(numero)))) {
+                for (Libro libro : encontrados) {
+                    porId.put(libro.getId(), libro);
+                }
+            }
+            Map<Long, Libro> ordenados = new LinkedHashMap<>(Math.max(16, porId.size() * 2));
+            for (Long id : ids) {
+                Libro libro = id == null ? null : porId.get(id);
+                if (libro != null) {
+                    ordenados.putIfAbsent(id, libro);
+                }
+            }
+            codigo = 200;
+            return ordenados;
+        } finally {
+            FIND_ALL_BY_ID.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Pagina del catalogo ordenada por ID (paginacion por cursor, como LibroDAO):
+     * cada particion da sus primeros 'limite' y se juntan los menores
+     */
+    public List<Libro> findPagina(long despuesDeId, int limite) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            List<Libro> pagina = mezclarPorId(enCadaParticion(
+                    numero -> particiones[numero].pagina(despuesDeId, limite)), limite);
+            codigo = 200;
+            return pagina;
+        } finally {
+            FIND_PAGINA.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Cantidad de libros, sumando la de cada particion
+     */
+    public long count() {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            long cantidad = 0;
+            for (Long deUna : enCadaParticion(numero -> particiones[numero].cantidad())) {
+                cantidad += deUna;
+            }
+            codigo = 200;
+            return cantidad;
+        } finally {
+            COUNT.registrarDesde(codigo, inicio);
+        }
+    }
+
+    /**
+     * Filtros como LibroDAO.findByFiltros, en todas las particiones a la vez
+     * @return Libros que cumplen todos los filtros, ordenados por ID, como mucho 'limite'
+     */
+    public List<Libro> findByFiltros(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite) {
+        long inicio = System.nanoTime();
+        int codigo = 500;
+        try {
+            if (anoDesde == null && anoHasta == null && autor == null && disponible == null) {
+                throw new IllegalArgumentException("Se necesita al menos un filtro");
+            }
+            List<Libro> libros = mezclarPorId(enCadaParticion(
+                    numero -> particiones[numero].filtrar(anoDesde, anoHasta, autor, disponible, limite)), limite);
+            codigo = 200;
+            return libros;
+        } catch (IllegalArgumentException e) {
+            codigo = 400;
+            throw e;
+        } finally {
+            FIND_BY_FILTROS.registrarDesde(codigo, inicio);
+        }
+    }
+
+    private Particion particionDe(long id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("El ID debe ser positivo: " + id);
+        }
+        return particiones[Particion.deId(id, particiones.length)];
+    }
+
+    private int numeroDelTurno() {
+        return (int) (turno.getAndIncrement() % particiones.length);
+    }
+
+    private Particion particionDelTurno() {
+        return particiones[numeroDelTurno()];
+    }
+
+    private <T> List<List<T>> vacias() {
+        List<List<T>> listas = new ArrayList<>(particiones.length);
+        for (int numero = 0; numero < particiones.length; numero++) {
+            listas.add(new ArrayList<>());
+        }
+        return listas;
+    }
+
+    /**
+     * Corre la tarea para cada particion en el pool y espera todas
+     * @return El resultado de cada particion, en orden de particion
+     */
+    private <T> List<T> enCadaParticion(IntFunction<T> tarea) {
+        List<ForkJoinTask<T>> tareas = new ArrayList<>(particiones.length - 1);
+        for (int numero = 1; numero < particiones.length; numero++) {
+            int esta = numero;
+            tareas.add(pool.submit(() -> tarea.apply(esta)));
+        }
+        // La primera la hace el hilo que llama, en vez de quedarse esperando
+        List<T> resultados = new ArrayList<>(particiones.length);
+        resultados.add(tarea.apply(0));
+        // join relanza la excepcion de la particion que fallo
+        for (ForkJoinTask<T> pendiente : tareas) {
+            resultados.add(pendiente.join());
+        }
+        return resultados;
+    }
+
+    /**
+     * Junta listas ordenadas por ID en una sola, ordenada, de como mucho 'limite'
+     */
+    private static List<Libro> mezclarPorId(List<List<Libro>> listas, int limite) {
+        List<Libro> mezcla = new ArrayList<>(Math.min(limite, 1024));
+        // Cada elemento es {lista, posicion} de la cabeza de una lista
+        PriorityQueue<int[]> cabezas = new PriorityQueue<>(Math.max(1, listas.size()),
+                (a, b) -> Long.compare(listas.get(a[0]).get(a[1]).getId(), listas.get(b[0]).get(b[1]).getId()));
+        for (int i = 0; i < listas.size(); i++) {
+            if (!listas.get(i).isEmpty()) {
+                cabezas.add(new int[] {i, 0});
+            }
+        }
+        while (!cabezas.isEmpty() && mezcla.size() < limite) {
+            int[] cabeza = cabezas.poll();
+            List<Libro> lista = listas.get(cabeza[0]);
+            mezcla.add(lista.get(cabeza[1]));
+            if (++cabeza[1] < lista.size()) {
+                cabezas.add(cabeza);
+            }
+        }
+        return mezcla;
+    }
+
+    private static void copiarIdYVersion(Libro desde, Libro hacia) {
+        if (desde != hacia) {
+            hacia.setId(desde.getId());
+            hacia.setVersion(desde.getVersion());
+        }
+    }
+}
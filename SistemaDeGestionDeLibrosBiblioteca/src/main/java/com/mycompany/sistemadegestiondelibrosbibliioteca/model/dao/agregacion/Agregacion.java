@@ -0,0 +1,51 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+/**
+ * Agregacion - Un group-by/count/min/max que se calcula recorriendo el almacen
+ *
+ * El almacen (ver AlmacenLibros.agregar) reparte sus posiciones entre las
+ * tareas de un stream paralelo (fork-join). Cada tarea acumula en su propio
+ * parcial, creado con nuevo, los valores que saca directamente de sus
+ * columnas: no se arma un Libro ni un DTO por fila. Al final los parciales se
+ * juntan de a dos con combinar, asi las tareas no comparten nada mientras
+ * recorren.
+ *
+ * @param <A> Tipo del parcial (mutable, de una sola tarea a la vez)
+ */
+public interface Agregacion<A> {
+    // Valores de anoPublicacion y disponible que reemplazan al null
+    int ANO_NULO = Integer.MIN_VALUE;
+    int DISPONIBLE = 1;
+    int NO_DISPONIBLE = 0;
+    int DISPONIBILIDAD_NULA = -1;
+
+    /**
+     * Parcial vacio para una tarea
+     */
+    A nuevo();
+
+    /**
+     * Suma un libro al parcial
+     * @param autor La instancia que guarda el almacen, o null
+     * @param anoPublicacion ANO_NULO si no tiene
+     * @param disponible DISPONIBLE, NO_DISPONIBLE o DISPONIBILIDAD_NULA
+     */
+    void acumular(A parcial, long id, String autor, int anoPublicacion, int disponible);
+
+    /**
+     * Suma el parcial 'otro' en 'destino'
+     */
+    void combinar(A destino, A otro);
+
+    /**
+     * Suma un libro que ya esta armado (los almacenes que guardan objetos)
+     */
+    default void acumular(A parcial, Libro libro) {
+        Integer ano = libro.getAnoPublicacion();
+        Boolean disponible = libro.getDisponible();
+        acumular(parcial, libro.getId(), libro.getAutor(), ano == null ? ANO_NULO : ano,
+                disponible == null ? DISPONIBILIDAD_NULA : disponible ? DISPONIBLE : NO_DISPONIBLE);
+    }
+}
@@ -0,0 +1,176 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice.IndicesLibros;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * ResumenCatalogo - Todos los reportes del catalogo en una sola pasada
+ *
+ * Cuenta libros, disponibles y no disponibles, el año minimo y maximo, los
+ * libros por decada (un long[] indexado por año / 10) y los libros y
+ * disponibles por autor (un mapa por la instancia del autor que guarda el
+ * almacen, que ya trae su hash calculado). Se llena con AGREGACION: cada
+ * tarea tiene su resumen y al final se suman.
+ */
+public final class ResumenCatalogo {
+    public static final Agregacion<ResumenCatalogo> AGREGACION = new Agregacion<>() {
+        @Override
+        public ResumenCatalogo nuevo() {
+            return new ResumenCatalogo();
+        }
+
+        @Override
+        public void acumular(ResumenCatalogo parcial, long id, String autor, int anoPublicacion, int disponible) {
+            parcial.acumular(autor, anoPublicacion, disponible);
+        }
+
+        @Override
+        public void combinar(ResumenCatalogo destino, ResumenCatalogo otro) {
+            destino.combinar(otro);
+        }
+    };
+
+    private static final int DECADAS = IndicesLibros.ANO_MAXIMO / 10 + 1;
+
+    private long total;
+    private long disponibles;
+    private long noDisponibles;
+    private int anoMinimo = Integer.MAX_VALUE;
+    private int anoMaximo = Integer.MIN_VALUE;
+    private final long[] porDecada = new long[DECADAS];
+    private final Map<String, Conteo> porAutor = new HashMap<>();
+
+    private void acumular(String autor, int anoPublicacion, int disponible) {
+        total++;
+        if (disponible == Agregacion.DISPONIBLE) {
+            disponibles++;
+        } else if (disponible == Agregacion.NO_DISPONIBLE) {
+            noDisponibles++;
+        }
+        if (anoPublicacion != Agregacion.ANO_NULO) {
+            anoMinimo = Math.min(anoMinimo, anoPublicacion);
+            anoMaximo = Math.max(anoMaximo, anoPublicacion);
+            if (anoPublicacion >= IndicesLibros.ANO_MINIMO && anoPublicacion <= IndicesLibros.ANO_MAXIMO) {
+                porDecada[anoPublicacion / 10]++;
+            }
+        }
+        if (autor != null) {
+            Conteo conteo = porAutor.get(autor);
+            if (conteo == null) {
+                conteo = new Conteo();
+                porAutor.put(autor, conteo);
+            }
+            conteo.libros++;
+            if (disponible == Agregacion.DISPONIBLE) {
+                conteo.disponibles++;
+            }
+        }
+    }
+
+    private void combinar(ResumenCatalogo otro) {
+        total += otro.total;
+        disponibles += otro.disponibles;
+        noDisponibles += otro.noDisponibles;
+        anoMinimo = Math.min(anoMinimo, otro.anoMinimo);
+        anoMaximo = Math.max(anoMaximo, otro.anoMaximo);
+        for (int decada = 0; decada < DECADAS; decada++) {
+            porDecada[decada] += otro.porDecada[decada];
+        }
+        for (Map.Entry<String, Conteo> entrada : otro.porAutor.entrySet()) {
+            Conteo conteo = porAutor.putIfAbsent(entrada.getKey(), entrada.getValue());
+            if (conteo != null) {
+                conteo.libros += entrada.getValue().libros;
+                conteo.disponibles += entrada.getValue().disponibles;
+            }
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getDisponibles() {
+        return disponibles;
+    }
+
+    public long getNoDisponibles() {
+        return noDisponibles;
+    }
+
+    /**
+     * Libros sin dato de disponibilidad
+     */
+    public long getSinDisponibilidad() {
+        return total - disponibles - noDisponibles;
+    }
+
+    /**
+     * Año mas viejo, o null si ningun libro tiene año
+     */
+    public Integer getAnoMinimo() {
+        return anoMinimo > anoMaximo ? null : anoMinimo;
+    }
+
+    public Integer getAnoMaximo() {
+        return anoMinimo > anoMaximo ? null : anoMaximo;
+    }
+
+    public int getCantidadDeAutores() {
+        return porAutor.size();
+    }
+
+    /**
+     * Libros por decada (1990 = de 1990 a 1999), solo las que tienen alguno
+     */
+    public SortedMap<Integer, Long> porDecada() {
+        SortedMap<Integer, Long> decadas = new TreeMap<>();
+        for (int decada = 0; decada < DECADAS; decada++) {
+            if (porDecada[decada] > 0) {
+                decadas.put(decada * 10, porDecada[decada]);
+            }
+        }
+        return decadas;
+    }
+
+    /**
+     * Los 'cantidad' autores con mas libros, de mayor a menor (y por nombre si empatan).
+     * Usa un heap de 'cantidad' elementos en vez de ordenar todos los autores
+     */
+    public List<LibrosPorAutor> autoresConMasLibros(int cantidad) {
+        Comparator<LibrosPorAutor> orden = Comparator.comparingLong(LibrosPorAutor::libros)
+                .thenComparing(LibrosPorAutor::autor, Comparator.reverseOrder());
+        PriorityQueue<LibrosPorAutor> primeros = new PriorityQueue<>(Math.max(1, cantidad), orden);
+        for (Map.Entry<String, Conteo> entrada : porAutor.entrySet()) {
+            LibrosPorAutor candidato = new LibrosPorAutor(entrada.getKey(),
+                    entrada.getValue().libros, entrada.getValue().disponibles);
+            if (primeros.size() < cantidad) {
+                primeros.add(candidato);
+            } else if (cantidad > 0 && orden.compare(candidato, primeros.peek()) > 0) {
+                primeros.poll();
+                primeros.add(candidato);
+            }
+        }
+        List<LibrosPorAutor> autores = new ArrayList<>(primeros);
+        autores.sort(orden.reversed());
+        return autores;
+    }
+
+    /**
+     * Libros y disponibles de un autor
+     */
+    public record LibrosPorAutor(String autor, long libros, long disponibles) {
+    }
+
+    private static final class Conteo {
+        private long libros;
+        private long disponibles;
+    }
+}
@@ -0,0 +1,354 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.Agregacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * AlmacenCompacto - Catalogo en columnas de tipos primitivos (-Dbiblioteca.almacen=compacto)
+ *
+ * Cada libro ocupa una posicion en las columnas (struct of arrays):
+ *   ids       long[]
+ *   versiones long[]
+ *   anos      int[]     Integer.MIN_VALUE = null
+ *   banderas  byte[]    bit 0 disponible, bit 1 disponible null
+ *   titulos   String[]  la misma instancia que guarda el indice de texto
+ *   autores   int[]     posicion en el diccionario de autores, -1 = null
+ * Los autores se repiten mucho y se guardan una sola vez en el diccionario.
+ *
+ * La posicion de un ID se busca en una tabla de direccionamiento abierto
+ * (sondeo lineal) de int: cada casilla tiene posicion + 1 (0 = vacia) y la
+ * clave se compara contra la columna de ids, asi no hay un Long ni un nodo por
+ * libro. La tabla nunca pasa de la mitad de carga. No se borran libros.
+ *
+ * Las escrituras se serializan con un StampedLock. Las lecturas son optimistas:
+ * leen sin lock y solo si hubo una escritura en el medio se repiten con el
+ * lock de lectura. Entrega copias: cambiar un Libro leido no cambia el almacen
+ * hasta que se vuelve a guardar.
+ *
+ * Las agregaciones recorren las columnas en paralelo, tambien de forma
+ * optimista: si hubo una escritura mientras tanto se recorren de nuevo con el
+ * lock de lectura.
+ */
+public final class AlmacenCompacto implements AlmacenLibros {
+    private static final int ANO_NULO = Integer.MIN_VALUE;
+    private static final byte DISPONIBLE = 1;
+    private static final byte DISPONIBLE_NULO = 1 << 1;
+    private static final int SIN_AUTOR = -1;
+    // Para que la tabla de casillas (el doble de la capacidad) siga siendo un int[]
+    private static final int CAPACIDAD_MAXIMA = 1 << 29;
+
+    private final StampedLock candado = new StampedLock();
+
+    // Columnas, todas con el mismo largo (la capacidad)
+    private long[] ids;
+    private long[] versiones;
+    private int[] anos;
+    private byte[] banderas;
+    private String[] titulos;
+    private int[] autores;
+    private volatile int cantidad;
+
+    // Casillas de la tabla de IDs, largo potencia de 2 y al menos el doble de la capacidad
+    private int[] casillas;
+
+    // Diccionario de autores (solo se usa con el lock de escritura)
+    private final Map<String, Integer> diccionario = new HashMap<>();
+    private String[] nombresDeAutores = new String[64];
+    private int cantidadDeAutores;
+
+    public AlmacenCompacto(int capacidadInicial) {
+        if (capacidadInicial < 1 || capacidadInicial > CAPACIDAD_MAXIMA) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidadInicial);
+        }
+        redimensionar(Math.max(16, capacidadInicial));
+    }
+
+    @Override
+    public Libro obtener(long id) {
+        long sello = candado.tryOptimisticRead();
+        Libro libro = leer(id);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                libro = leer(id);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return libro;
+    }
+
+    @Override
+    public boolean guardar(Libro libro) {
+        long sello = candado.writeLock();
+        try {
+            int posicion = buscar(libro.getId(), casillas, ids);
+            boolean nuevo = posicion < 0;
+            if (nuevo) {
+                posicion = insertar(libro.getId());
+            }
+            escribir(posicion, libro);
+            return nuevo;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean agregarSiAusente(Libro libro) {
+        long sello = candado.writeLock();
+        try {
+            if (buscar(libro.getId(), casillas, ids) >= 0) {
+                return false;
+            }
+            escribir(insertar(libro.getId()), libro);
+            return true;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean reemplazarSiVersion(Libro libro, long versionEsperada) {
+        long sello = candado.writeLock();
+        try {
+            int posicion = buscar(libro.getId(), casillas, ids);
+            if (posicion < 0 || versiones[posicion] != versionEsperada) {
+                return false;
+            }
+            libro.setVersion(versionEsperada + 1);
+            escribir(posicion, libro);
+            return true;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean contiene(long id) {
+        long sello = candado.tryOptimisticRead();
+        boolean esta = buscar(id, casillas, ids) >= 0;
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                esta = buscar(id, casillas, ids) >= 0;
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return esta;
+    }
+
+    @Override
+    public long cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Los libros que habia al llamarlo, leidos a medida que el stream los pide
+     */
+    @Override
+    public Stream<Libro> libros() {
+        return IntStream.range(0, cantidad).mapToObj(this::leerPosicion);
+    }
+
+    @Override
+    public <A> A agregar(Agregacion<A> agregacion) {
+        long sello = candado.tryOptimisticRead();
+        A resultado = recorrer(agregacion);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                resultado = recorrer(agregacion);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre las posiciones en un stream paralelo leyendo solo las columnas
+     * primitivas y el diccionario. Sin lock las columnas pueden ser de distinto
+     * tamaño mientras crecen: se recorre hasta la mas corta
+     */
+    private <A> A recorrer(Agregacion<A> agregacion) {
+        int hasta = cantidad;
+        long[] ids = this.ids;
+        int[] anos = this.anos;
+        byte[] banderas = this.banderas;
+        int[] autores = this.autores;
+        String[] nombres = this.nombresDeAutores;
+        hasta = Math.min(hasta, Math.min(Math.min(ids.length, anos.length), Math.min(banderas.length, autores.length)));
+        return IntStream.range(0, hasta).parallel().collect(agregacion::nuevo, (parcial, posicion) -> {
+            int bandera = banderas[posicion];
+            int autor = autores[posicion];
+            agregacion.acumular(parcial, ids[posicion],
+                    autor < 0 || autor >= nombres.length ? null : nombres[autor],
+                    anos[posicion],
+                    (bandera & DISPONIBLE_NULO) != 0 ? Agregacion.DISPONIBILIDAD_NULA
+                            : (bandera & DISPONIBLE) != 0 ? Agregacion.DISPONIBLE : Agregacion.NO_DISPONIBLE);
+        }, agregacion::combinar);
+    }
+
+    /**
+     * Agrega el ID al final de las columnas (con el lock de escritura)
+     */
+    private int insertar(long id) {
+        if (cantidad == ids.length) {
+            crecer();
+        }
+        int posicion = cantidad;
+        ids[posicion] = id;
+        ubicar(casillas, id, posicion);
+        cantidad = posicion + 1;
+        return posicion;
+    }
+
+    private Libro leer(long id) {
+        int posicion = buscar(id, casillas, ids);
+        return posicion < 0 ? null : armar(posicion);
+    }
+
+    private Libro leerPosicion(int posicion) {
+        long sello = candado.tryOptimisticRead();
+        Libro libro = armar(posicion);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                libro = armar(posicion);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return libro;
+    }
+
+    /**
+     * Arma la copia del libro. Sin lock puede ver columnas de distinto tamaño
+     * mientras crecen: en ese caso retorna null y el validate de quien llama falla
+     */
+    private Libro armar(int posicion) {
+        long[] ids = this.ids;
+        long[] versiones = this.versiones;
+        int[] anos = this.anos;
+        byte[] banderas = this.banderas;
+        String[] titulos = this.titulos;
+        int[] autores = this.autores;
+        String[] nombres = this.nombresDeAutores;
+        if (posicion >= ids.length || posicion >= versiones.length || posicion >= anos.length || posicion >= banderas.length
+                || posicion >= titulos.length || posicion >= autores.length) {
+            return null;
+        }
+        int ano = anos[posicion];
+        int bandera = banderas[posicion];
+        int autor = autores[posicion];
+        return new Libro(ids[posicion], titulos[posicion],
+                autor < 0 || autor >= nombres.length ? null : nombres[autor],
+                ano == ANO_NULO ? null : ano,
+                (bandera & DISPONIBLE_NULO) != 0 ? null : (bandera & DISPONIBLE) != 0,
+                versiones[posicion]);
+    }
+
+    private void escribir(int posicion, Libro libro) {
+        versiones[posicion] = libro.getVersion();
+        anos[posicion] = libro.getAnoPublicacion() == null ? ANO_NULO : libro.getAnoPublicacion();
+        byte bandera = 0;
+        if (libro.getDisponible() == null) {
+            bandera |= DISPONIBLE_NULO;
+        } else if (libro.getDisponible()) {
+            bandera |= DISPONIBLE;
+        }
+        banderas[posicion] = bandera;
+        titulos[posicion] = libro.getTitulo();
+        int autor = indiceDeAutor(libro.getAutor());
+        autores[posicion] = autor;
+        if (autor != SIN_AUTOR && libro.getAutor() != nombresDeAutores[autor]) {
+            // Asi los indices tambien guardan la instancia del diccionario y no una copia por libro
+            libro.setAutor(nombresDeAutores[autor]);
+        }
+    }
+
+    private int indiceDeAutor(String autor) {
+        if (autor == null) {
+            return SIN_AUTOR;
+        }
+        Integer indice = diccionario.get(autor);
+        if (indice == null) {
+            if (cantidadDeAutores == nombresDeAutores.length) {
+                nombresDeAutores = Arrays.copyOf(nombresDeAutores, cantidadDeAutores * 2);
+            }
+            indice = cantidadDeAutores;
+            nombresDeAutores[cantidadDeAutores++] = autor;
+            diccionario.put(autor, indice);
+        }
+        return indice;
+    }
+
+    private void crecer() {
+        if (ids.length == CAPACIDAD_MAXIMA) {
+            throw new IllegalStateException("El almacen compacto no admite más de " + CAPACIDAD_MAXIMA + " libros");
+        }
+        redimensionar(Math.min(CAPACIDAD_MAXIMA, ids.length + (ids.length >> 1)));
+    }
+
+    /**
+     * Copia las columnas a la nueva capacidad y rearma la tabla de casillas
+     */
+    private void redimensionar(int capacidad) {
+        int[] nuevas = new int[Integer.highestOneBit(capacidad * 2 - 1) << 1];
+        long[] nuevosIds = ids == null ? new long[capacidad] : Arrays.copyOf(ids, capacidad);
+        for (int posicion = 0; posicion < cantidad; posicion++) {
+            ubicar(nuevas, nuevosIds[posicion], posicion);
+        }
+        versiones = versiones == null ? new long[capacidad] : Arrays.copyOf(versiones, capacidad);
+        anos = anos == null ? new int[capacidad] : Arrays.copyOf(anos, capacidad);
+        banderas = banderas == null ? new byte[capacidad] : Arrays.copyOf(banderas, capacidad);
+        titulos = titulos == null ? new String[capacidad] : Arrays.copyOf(titulos, capacidad);
+        autores = autores == null ? new int[capacidad] : Arrays.copyOf(autores, capacidad);
+        ids = nuevosIds;
+        casillas = nuevas;
+    }
+
+    /**
+     * Posicion del ID, o -1 si no esta. Sin lock las casillas pueden no estar
+     * al dia, pero siempre queda alguna vacia y el sondeo termina
+     */
+    private static int buscar(long id, int[] casillas, long[] ids) {
+        int mascara = casillas.length - 1;
+        for (int i = mezclar(id) & mascara; ; i = (i + 1) & mascara) {
+            int casilla = casillas[i];
+            if (casilla == 0) {
+                return -1;
+            }
+            int posicion = casilla - 1;
+            if (posicion < ids.length && ids[posicion] == id) {
+                return posicion;
+            }
+        }
+    }
+
+    private static void ubicar(int[] casillas, long id, int posicion) {
+        int mascara = casillas.length - 1;
+        int i = mezclar(id) & mascara;
+        while (casillas[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        casillas[i] = posicion + 1;
+    }
+
+    /**
+     * Los IDs suelen ser consecutivos: se mezclan los bits para repartirlos en la tabla
+     */
+    private static int mezclar(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
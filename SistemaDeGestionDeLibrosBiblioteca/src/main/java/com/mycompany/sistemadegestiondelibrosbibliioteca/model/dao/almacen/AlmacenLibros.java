@@ -0,0 +1,80 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.Agregacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.stream.Stream;
+
+/**
+ * AlmacenLibros - Donde el LibroDAO guarda los libros en memoria, por ID
+ *
+ * Tiene que ser seguro con varios hilos y no tomar locks para leer.
+ * Se elige con propiedades del sistema (ver configurado):
+ * -Dbiblioteca.almacen=mapa|compacto|nativo  (mapa por defecto)
+ * -Dbiblioteca.almacen.capacidad=N            libros reservados de entrada (compacto y nativo)
+ * Solo cambia donde estan los libros: los indices del LibroDAO (IndicesLibros)
+ * quedan en el heap con cualquiera de los tres.
+ */
+public interface AlmacenLibros {
+
+    /**
+     * Libro del ID, o null si no esta
+     */
+    Libro obtener(long id);
+
+    /**
+     * Guarda el libro (que ya tiene ID), reemplazando el anterior con ese ID.
+     * Puede cambiar los strings del libro por instancias iguales compartidas
+     * @return true si el ID no estaba
+     */
+    boolean guardar(Libro libro);
+
+    /**
+     * Guarda el libro solo si su ID no estaba
+     * @return false si ya habia un libro con ese ID (y no cambia nada)
+     */
+    boolean agregarSiAusente(Libro libro);
+
+    /**
+     * Compare-and-set por version: reemplaza el libro guardado con ese ID solo
+     * si su version sigue siendo versionEsperada. Si gana, el libro nuevo queda
+     * guardado (y devuelto por obtener) con version versionEsperada + 1
+     * @return false si el ID no esta o si otro hilo ya cambio la version
+     */
+    boolean reemplazarSiVersion(Libro libro, long versionEsperada);
+
+    boolean contiene(long id);
+
+    long cantidad();
+
+    /**
+     * Todos los libros, sin orden
+     */
+    Stream<Libro> libros();
+
+    /**
+     * Recorre todos los libros en paralelo y retorna la suma de los parciales.
+     * Por defecto sobre libros(); los almacenes en columnas lo hacen sobre
+     * sus columnas, sin armar un Libro por fila
+     */
+    default <A> A agregar(Agregacion<A> agregacion) {
+        return libros().parallel().collect(agregacion::nuevo, agregacion::acumular, agregacion::combinar);
+    }
+
+    /**
+     * Almacen segun las propiedades del sistema
+     */
+    static AlmacenLibros configurado() {
+        String tipo = System.getProperty("biblioteca.almacen", "mapa");
+        switch (tipo) {
+            case "mapa":
+                return new AlmacenMapa();
+            case "compacto":
+                return new AlmacenCompacto(Integer.getInteger("biblioteca.almacen.capacidad", 1024));
+            case "nativo":
+                return new AlmacenNativo(Integer.getInteger("biblioteca.almacen.capacidad", 1024));
+            default:
+                throw new IllegalArgumentException("Tipo de almacen desconocido: " + tipo);
+        }
+    }
+}
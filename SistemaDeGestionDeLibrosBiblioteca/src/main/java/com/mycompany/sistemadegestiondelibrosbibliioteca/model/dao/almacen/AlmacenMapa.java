@@ -0,0 +1,65 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * AlmacenMapa - Un Libro por ID en un ConcurrentHashMap (-Dbiblioteca.almacen=mapa)
+ * Entrega las mismas instancias que se guardaron, sin copiar.
+ * Cada libro cuesta un nodo del mapa, un Long, un Integer y sus strings propios
+ * (ver AlmacenCompacto para catalogos grandes)
+ */
+public final class AlmacenMapa implements AlmacenLibros {
+    // ConcurrentHashMap divide la tabla en bins con lock propio para escrituras
+    // y permite lecturas sin lock, asi las busquedas escalan con los nucleos
+    private final Map<Long, Libro> libros = new ConcurrentHashMap<>();
+
+    @Override
+    public Libro obtener(long id) {
+        return libros.get(id);
+    }
+
+    @Override
+    public boolean guardar(Libro libro) {
+        return libros.put(libro.getId(), libro) == null;
+    }
+
+    @Override
+    public boolean agregarSiAusente(Libro libro) {
+        return libros.putIfAbsent(libro.getId(), libro) == null;
+    }
+
+    @Override
+    public boolean reemplazarSiVersion(Libro libro, long versionEsperada) {
+        // computeIfPresent corre con el lock del bin: comparar la version y
+        // reemplazar es atomico aunque 'libro' sea la misma instancia guardada
+        boolean[] reemplazado = new boolean[1];
+        libros.computeIfPresent(libro.getId(), (id, actual) -> {
+            if (actual.getVersion() != versionEsperada) {
+                return actual;
+            }
+            libro.setVersion(versionEsperada + 1);
+            reemplazado[0] = true;
+            return libro;
+        });
+        return reemplazado[0];
+    }
+
+    @Override
+    public boolean contiene(long id) {
+        return libros.containsKey(id);
+    }
+
+    @Override
+    public long cantidad() {
+        return libros.size();
+    }
+
+    @Override
+    public Stream<Libro> libros() {
+        return libros.values().stream();
+    }
+}
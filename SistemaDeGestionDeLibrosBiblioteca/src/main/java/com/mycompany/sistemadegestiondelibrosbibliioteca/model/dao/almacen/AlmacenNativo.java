@@ -0,0 +1,524 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.Agregacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * AlmacenNativo - Catalogo fuera del heap, en MemorySegments (-Dbiblioteca.almacen=nativo)
+ *
+ * Ni los libros ni sus strings viven en el heap, asi el trabajo del GC no
+ * crece con el catalogo. Los Libro se arman recien al leer y mueren jovenes.
+ * Eso vale para el almacen solo: a traves del LibroDAO cada libro sigue
+ * dejando en el heap lo que guardan los IndicesLibros (titulo, autor, año y
+ * version por ID, mas sus IDs en los indices), que es la mayor parte.
+ *
+ * Registros de 40 bytes, en bloques de 2^20 registros (40 MB):
+ *   0  id        long
+ *   8  titulo    long   referencia al area de textos, -1 = null
+ *   16 autor     long   referencia al area de textos, -1 = null
+ *   24 ano       int    Integer.MIN_VALUE = null
+ *   28 banderas  int    bit 0 disponible, bit 1 disponible null
+ *   32 version   long
+ * Area de textos: UTF-8 en bloques de 64 MB; una referencia es
+ * bloque << 42 | offset << 16 | largo (como mucho 65535 bytes por texto).
+ * Cada autor distinto se escribe una sola vez (el diccionario, en el heap,
+ * crece con los autores distintos y no con los libros). Si un titulo cambia
+ * y el nuevo entra en el lugar del viejo se pisa; si no se agrega al final
+ * y el viejo queda sin usar hasta reiniciar.
+ *
+ * La posicion de un ID se busca en una tabla de direccionamiento abierto
+ * (sondeo lineal) de int, tambien fuera del heap, igual que en AlmacenCompacto.
+ * Las escrituras se serializan con un StampedLock y las lecturas son optimistas.
+ *
+ * Los bloques se piden a un Arena compartido y se liberan con close(). La
+ * tabla se reemplaza al crecer y las lecturas sin lock pueden seguir usando la
+ * vieja, por eso cada tabla sale de un Arena automatico que la libera el GC.
+ *
+ * Las agregaciones recorren los registros en paralelo sin decodificar los
+ * textos: el autor se resuelve por su referencia contra una copia del
+ * diccionario, y si hubo una escritura en el medio se repite con el lock.
+ */
+public final class AlmacenNativo implements AlmacenLibros, AutoCloseable {
+    private static final long REGISTRO = 40;
+    private static final long ID = 0;
+    private static final long TITULO = 8;
+    private static final long AUTOR = 16;
+    private static final long ANO = 24;
+    private static final long BANDERAS = 28;
+    private static final long VERSION = 32;
+
+    private static final int BITS_BLOQUE = 20;
+    private static final int MASCARA_BLOQUE = (1 << BITS_BLOQUE) - 1;
+    private static final int BYTES_TEXTO = 1 << 26;
+    private static final int LARGO_MAXIMO = 0xFFFF;
+    private static final long TEXTO_NULO = -1;
+
+    private static final int ANO_NULO = Integer.MIN_VALUE;
+    private static final int DISPONIBLE = 1;
+    private static final int DISPONIBLE_NULO = 1 << 1;
+    // Para que posicion + 1 entre en una casilla int
+    private static final int CANTIDAD_MAXIMA = 1 << 30;
+
+    private final Arena arena = Arena.ofShared();
+    private final StampedLock candado = new StampedLock();
+
+    private MemorySegment[] registros = new MemorySegment[0];
+    private MemorySegment[] textos = new MemorySegment[0];
+    // Bytes usados del ultimo bloque de textos
+    private int usadoTexto = BYTES_TEXTO;
+    private volatile int cantidad;
+
+    // Casillas int con posicion + 1 (0 = vacia), nunca por encima de la mitad de carga
+    private MemorySegment casillas;
+
+    // Autores ya escritos en el area de textos (solo con el lock de escritura)
+    private final Map<String, AutorGuardado> autores = new HashMap<>();
+
+    public AlmacenNativo(int capacidadInicial) {
+        if (capacidadInicial < 1 || capacidadInicial > CANTIDAD_MAXIMA) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidadInicial);
+        }
+        casillas = nuevaTabla(Long.highestOneBit(Math.max(16, capacidadInicial) * 2L - 1) << 1);
+    }
+
+    @Override
+    public Libro obtener(long id) {
+        long sello = candado.tryOptimisticRead();
+        Libro libro = leer(id);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                libro = leer(id);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return libro;
+    }
+
+    @Override
+    public boolean guardar(Libro libro) {
+        long sello = candado.writeLock();
+        try {
+            int posicion = buscar(libro.getId());
+            boolean nuevo = posicion < 0;
+            if (nuevo) {
+                posicion = insertar(libro.getId());
+            }
+            escribir(posicion, libro);
+            return nuevo;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean agregarSiAusente(Libro libro) {
+        long sello = candado.writeLock();
+        try {
+            if (buscar(libro.getId()) >= 0) {
+                return false;
+            }
+            escribir(insertar(libro.getId()), libro);
+            return true;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean reemplazarSiVersion(Libro libro, long versionEsperada) {
+        long sello = candado.writeLock();
+        try {
+            int posicion = buscar(libro.getId());
+            if (posicion < 0
+                    || registro(registros, posicion).get(ValueLayout.JAVA_LONG, base(posicion) + VERSION) != versionEsperada) {
+                return false;
+            }
+            libro.setVersion(versionEsperada + 1);
+            escribir(posicion, libro);
+            return true;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    @Override
+    public boolean contiene(long id) {
+        long sello = candado.tryOptimisticRead();
+        boolean esta = buscar(id) >= 0;
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                esta = buscar(id) >= 0;
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return esta;
+    }
+
+    @Override
+    public long cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Los libros que habia al llamarlo, armados a medida que el stream los pide
+     */
+    @Override
+    public Stream<Libro> libros() {
+        return IntStream.range(0, cantidad).mapToObj(this::leerPosicion);
+    }
+
+    @Override
+    public <A> A agregar(Agregacion<A> agregacion) {
+        long sello = candado.readLock();
+        NombresDeAutores nombres;
+        try {
+            nombres = new NombresDeAutores(autores.values());
+        } finally {
+            candado.unlockRead(sello);
+        }
+        sello = candado.tryOptimisticRead();
+        A resultado = recorrer(agregacion, nombres);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                resultado = recorrer(agregacion, new NombresDeAutores(autores.values()));
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorre los registros que se ven en un stream paralelo. Un autor que no
+     * esta en la copia del diccionario (se agrego despues) se lee del area de textos
+     */
+    private <A> A recorrer(Agregacion<A> agregacion, NombresDeAutores nombres) {
+        int hasta = cantidad;
+        MemorySegment[] registros = this.registros;
+        hasta = (int) Math.min(hasta, (long) registros.length << BITS_BLOQUE);
+        return IntStream.range(0, hasta).parallel().collect(agregacion::nuevo, (parcial, posicion) -> {
+            MemorySegment registro = registros[posicion >>> BITS_BLOQUE];
+            long base = base(posicion);
+            long referencia = registro.get(ValueLayout.JAVA_LONG, base + AUTOR);
+            String autor = nombres.nombre(referencia);
+            if (autor == null && referencia != TEXTO_NULO) {
+                autor = texto(referencia);
+            }
+            int banderas = registro.get(ValueLayout.JAVA_INT, base + BANDERAS);
+            agregacion.acumular(parcial, registro.get(ValueLayout.JAVA_LONG, base + ID), autor,
+                    registro.get(ValueLayout.JAVA_INT, base + ANO),
+                    (banderas & DISPONIBLE_NULO) != 0 ? Agregacion.DISPONIBILIDAD_NULA
+                            : (banderas & DISPONIBLE) != 0 ? Agregacion.DISPONIBLE : Agregacion.NO_DISPONIBLE);
+        }, agregacion::combinar);
+    }
+
+    /**
+     * Bytes pedidos fuera del heap (registros, textos y tabla)
+     */
+    public long bytesReservados() {
+        long sello = candado.readLock();
+        try {
+            return (long) registros.length * (MASCARA_BLOQUE + 1) * REGISTRO
+                    + (long) textos.length * BYTES_TEXTO + casillas.byteSize();
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Libera los bloques; el almacen no se puede volver a usar
+     */
+    @Override
+    public void close() {
+        long sello = candado.writeLock();
+        try {
+            arena.close();
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Agrega un registro para el ID al final (con el lock de escritura)
+     */
+    private int insertar(long id) {
+        if (cantidad == CANTIDAD_MAXIMA) {
+            throw new IllegalStateException("El almacen nativo no admite más de " + CANTIDAD_MAXIMA + " libros");
+        }
+        int posicion = cantidad;
+        if ((posicion & MASCARA_BLOQUE) == 0) {
+            registros = Arrays.copyOf(registros, registros.length + 1);
+            registros[registros.length - 1] = arena.allocate((MASCARA_BLOQUE + 1) * REGISTRO, 8);
+        }
+        if ((posicion + 1) * 2L > casillas.byteSize() / 4) {
+            casillas = rearmarTabla(casillas.byteSize() / 4 * 2, posicion);
+        }
+        registro(registros, posicion).set(ValueLayout.JAVA_LONG, base(posicion) + ID, id);
+        registro(registros, posicion).set(ValueLayout.JAVA_LONG, base(posicion) + TITULO, TEXTO_NULO);
+        ubicar(casillas, id, posicion);
+        cantidad = posicion + 1;
+        return posicion;
+    }
+
+    private Libro leer(long id) {
+        int posicion = buscar(id);
+        return posicion < 0 ? null : armar(posicion);
+    }
+
+    private Libro leerPosicion(int posicion) {
+        long sello = candado.tryOptimisticRead();
+        Libro libro = armar(posicion);
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                libro = armar(posicion);
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return libro;
+    }
+
+    /**
+     * Arma la copia del libro. Sin lock puede ver un bloque que todavia no
+     * esta o una referencia a medio escribir: en ese caso retorna null (o un
+     * texto cualquiera) y el validate de quien llama falla
+     */
+    private Libro armar(int posicion) {
+        MemorySegment registro = registro(registros, posicion);
+        if (registro == null) {
+            return null;
+        }
+        long base = base(posicion);
+        int ano = registro.get(ValueLayout.JAVA_INT, base + ANO);
+        int banderas = registro.get(ValueLayout.JAVA_INT, base + BANDERAS);
+        return new Libro(registro.get(ValueLayout.JAVA_LONG, base + ID),
+                texto(registro.get(ValueLayout.JAVA_LONG, base + TITULO)),
+                texto(registro.get(ValueLayout.JAVA_LONG, base + AUTOR)),
+                ano == ANO_NULO ? null : ano,
+                (banderas & DISPONIBLE_NULO) != 0 ? null : (banderas & DISPONIBLE) != 0,
+                registro.get(ValueLayout.JAVA_LONG, base + VERSION));
+    }
+
+    private void escribir(int posicion, Libro libro) {
+        MemorySegment registro = registro(registros, posicion);
+        long base = base(posicion);
+        long tituloAnterior = registro.get(ValueLayout.JAVA_LONG, base + TITULO);
+        registro.set(ValueLayout.JAVA_LONG, base + TITULO, guardarTitulo(libro.getTitulo(), tituloAnterior));
+        registro.set(ValueLayout.JAVA_LONG, base + AUTOR, guardarAutor(libro));
+        registro.set(ValueLayout.JAVA_INT, base + ANO,
+                libro.getAnoPublicacion() == null ? ANO_NULO : libro.getAnoPublicacion());
+        int banderas = 0;
+        if (libro.getDisponible() == null) {
+            banderas |= DISPONIBLE_NULO;
+        } else if (libro.getDisponible()) {
+            banderas |= DISPONIBLE;
+        }
+        registro.set(ValueLayout.JAVA_INT, base + BANDERAS, banderas);
+        registro.set(ValueLayout.JAVA_LONG, base + VERSION, libro.getVersion());
+    }
+
+    private long guardarTitulo(String titulo, long anterior) {
+        if (titulo == null) {
+            return TEXTO_NULO;
+        }
+        byte[] bytes = utf8(titulo);
+        if (anterior != TEXTO_NULO && bytes.length <= largo(anterior)) {
+            // Entra en el lugar del titulo viejo
+            MemorySegment.copy(bytes, 0, textos[bloque(anterior)], ValueLayout.JAVA_BYTE, offset(anterior), bytes.length);
+            return referencia(bloque(anterior), offset(anterior), bytes.length);
+        }
+        return agregarTexto(bytes);
+    }
+
+    private long guardarAutor(Libro libro) {
+        String autor = libro.getAutor();
+        if (autor == null) {
+            return TEXTO_NULO;
+        }
+        AutorGuardado guardado = autores.get(autor);
+        if (guardado == null) {
+            guardado = new AutorGuardado(autor, agregarTexto(utf8(autor)));
+            autores.put(autor, guardado);
+        } else if (guardado.nombre() != autor) {
+            // Asi los indices tambien guardan la instancia del diccionario y no una copia por libro
+            libro.setAutor(guardado.nombre());
+        }
+        return guardado.referencia();
+    }
+
+    private long agregarTexto(byte[] bytes) {
+        if (usadoTexto + bytes.length > BYTES_TEXTO) {
+            textos = Arrays.copyOf(textos, textos.length + 1);
+            textos[textos.length - 1] = arena.allocate(BYTES_TEXTO, 1);
+            usadoTexto = 0;
+        }
+        MemorySegment.copy(bytes, 0, textos[textos.length - 1], ValueLayout.JAVA_BYTE, usadoTexto, bytes.length);
+        long referencia = referencia(textos.length - 1, usadoTexto, bytes.length);
+        usadoTexto += bytes.length;
+        return referencia;
+    }
+
+    private String texto(long referencia) {
+        if (referencia == TEXTO_NULO) {
+            return null;
+        }
+        MemorySegment[] textos = this.textos;
+        int bloque = bloque(referencia);
+        int offset = offset(referencia);
+        int largo = largo(referencia);
+        if (bloque < 0 || bloque >= textos.length || textos[bloque] == null || offset + largo > BYTES_TEXTO) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        MemorySegment.copy(textos[bloque], ValueLayout.JAVA_BYTE, offset, bytes, 0, largo);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > LARGO_MAXIMO) {
+            throw new IllegalArgumentException("Texto demasiado largo para el almacen nativo: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static long referencia(int bloque, int offset, int largo) {
+        return (long) bloque << 42 | (long) offset << 16 | largo;
+    }
+
+    private static int bloque(long referencia) {
+        return (int) (referencia >>> 42);
+    }
+
+    private static int offset(long referencia) {
+        return (int) (referencia >>> 16) & (BYTES_TEXTO - 1);
+    }
+
+    private static int largo(long referencia) {
+        return (int) referencia & LARGO_MAXIMO;
+    }
+
+    /**
+     * Bloque del registro, o null si todavia no se ve (lectura sin lock)
+     */
+    private static MemorySegment registro(MemorySegment[] registros, int posicion) {
+        int bloque = posicion >>> BITS_BLOQUE;
+        return bloque < registros.length ? registros[bloque] : null;
+    }
+
+    private static long base(int posicion) {
+        return (posicion & MASCARA_BLOQUE) * REGISTRO;
+    }
+
+    /**
+     * Posicion del ID, o -1 si no esta
+     */
+    private int buscar(long id) {
+        MemorySegment[] registros = this.registros;
+        MemorySegment casillas = this.casillas;
+        long mascara = casillas.byteSize() / 4 - 1;
+        for (long i = mezclar(id) & mascara; ; i = (i + 1) & mascara) {
+            int casilla = casillas.getAtIndex(ValueLayout.JAVA_INT, i);
+            if (casilla == 0) {
+                return -1;
+            }
+            int posicion = casilla - 1;
+            MemorySegment registro = registro(registros, posicion);
+            if (registro != null && registro.get(ValueLayout.JAVA_LONG, base(posicion) + ID) == id) {
+                return posicion;
+            }
+        }
+    }
+
+    private static void ubicar(MemorySegment casillas, long id, int posicion) {
+        long mascara = casillas.byteSize() / 4 - 1;
+        long i = mezclar(id) & mascara;
+        while (casillas.getAtIndex(ValueLayout.JAVA_INT, i) != 0) {
+            i = (i + 1) & mascara;
+        }
+        casillas.setAtIndex(ValueLayout.JAVA_INT, i, posicion + 1);
+    }
+
+    /**
+     * Tabla nueva con las primeras 'cantidad' posiciones
+     */
+    private MemorySegment rearmarTabla(long tamano, int cantidad) {
+        MemorySegment nueva = nuevaTabla(tamano);
+        for (int posicion = 0; posicion < cantidad; posicion++) {
+            ubicar(nueva, registro(registros, posicion).get(ValueLayout.JAVA_LONG, base(posicion) + ID), posicion);
+        }
+        return nueva;
+    }
+
+    private static MemorySegment nuevaTabla(long tamano) {
+        return Arena.ofAuto().allocate(tamano * 4, 4);
+    }
+
+    /**
+     * Los IDs suelen ser consecutivos: se mezclan los bits para repartirlos en la tabla
+     */
+    private static long mezclar(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private record AutorGuardado(String nombre, long referencia) {
+    }
+
+    /**
+     * Copia del diccionario de autores por referencia, en una tabla de sondeo
+     * lineal de long, para resolver el autor de cada registro sin lock ni boxing
+     */
+    private static final class NombresDeAutores {
+        private final long[] referencias;
+        private final String[] nombres;
+
+        NombresDeAutores(Collection<AutorGuardado> autores) {
+            int tamano = Integer.highestOneBit(Math.max(8, autores.size()) * 2 - 1) << 1;
+            referencias = new long[tamano];
+            nombres = new String[tamano];
+            Arrays.fill(referencias, TEXTO_NULO);
+            for (AutorGuardado autor : autores) {
+                int i = (int) mezclar(autor.referencia()) & (tamano - 1);
+                while (referencias[i] != TEXTO_NULO) {
+                    i = (i + 1) & (tamano - 1);
+                }
+                referencias[i] = autor.referencia();
+                nombres[i] = autor.nombre();
+            }
+        }
+
+        /**
+         * Nombre del autor, o null si la referencia no esta en la copia
+         */
+        String nombre(long referencia) {
+            int mascara = referencias.length - 1;
+            for (int i = (int) mezclar(referencia) & mascara; ; i = (i + 1) & mascara) {
+                if (referencias[i] == referencia) {
+                    return nombres[i];
+                }
+                if (referencias[i] == TEXTO_NULO) {
+                    return null;
+                }
+            }
+        }
+    }
+}
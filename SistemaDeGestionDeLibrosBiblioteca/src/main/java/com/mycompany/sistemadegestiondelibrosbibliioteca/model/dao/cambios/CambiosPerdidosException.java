@@ -0,0 +1,31 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+/**
+ * CambiosPerdidosException - Los eventos que pidio un suscriptor ya se pisaron
+ *
+ * El buffer de cambios es acotado y los escritores nunca esperan a un
+ * suscriptor lento: si se atrasa mas que la capacidad, pierde eventos. Quien
+ * la recibe tiene que volver a leer el catalogo completo y suscribirse de
+ * nuevo desde getPrimeraDisponible (o desde la ultima secuencia de ese momento).
+ */
+public class CambiosPerdidosException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final long secuenciaPedida;
+    private final long primeraDisponible;
+
+    public CambiosPerdidosException(long secuenciaPedida, long primeraDisponible) {
+        super("El cambio " + secuenciaPedida + " ya no está en el buffer (el más viejo es el "
+                + primeraDisponible + ")");
+        this.secuenciaPedida = secuenciaPedida;
+        this.primeraDisponible = primeraDisponible;
+    }
+
+    public long getSecuenciaPedida() {
+        return secuenciaPedida;
+    }
+
+    public long getPrimeraDisponible() {
+        return primeraDisponible;
+    }
+}
@@ -0,0 +1,15 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+import java.time.Instant;
+
+/**
+ * EventoCambio - Un libro como quedo despues de un cambio
+ *
+ * Lleva todos los campos (no solo los que cambiaron), asi quien lo consume no
+ * tiene que volver a leer el libro del DAO.
+ * @param secuencia Orden global en el flujo de cambios, desde 1
+ * @param version Version que quedo guardada: ordena los eventos de un mismo libro
+ */
+public record EventoCambio(long secuencia, Instant instante, TipoCambio tipo, long libroId, long version,
+                           String titulo, String autor, Integer anoPublicacion, Boolean disponible) {
+}
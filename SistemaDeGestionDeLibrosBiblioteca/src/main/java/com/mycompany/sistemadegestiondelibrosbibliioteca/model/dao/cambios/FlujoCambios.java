@@ -0,0 +1,251 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * FlujoCambios - Cambios del catalogo en orden, para consumirlos de a lotes
+ *
+ * Los eventos van a un buffer circular acotado, igual que HistorialPrestamos:
+ * publicar es un incrementAndGet para la secuencia y un compareAndSet en el
+ * array, sin locks, y cuando se llena cada evento nuevo pisa al mas viejo. Un
+ * escritor nunca espera a un suscriptor.
+ *
+ * Los suscriptores usan java.util.concurrent.Flow: cada request(n) pide n
+ * lotes de hasta 'tamanoLote' eventos, y solo se entregan lotes pedidos
+ * (backpressure). La entrega corre en el ejecutor, nunca en el hilo que
+ * guardo el libro. Para retomar despues de un corte, se suscribe desde la
+ * secuencia siguiente a la ultima procesada; si esa ya se piso, el
+ * suscriptor recibe onError con CambiosPerdidosException.
+ *
+ * Las secuencias siguen el orden en que los escritores las toman, que para
+ * dos escrituras simultaneas del mismo libro puede no ser el de sus
+ * versiones: vale la version (ver EventoCambio). Empiezan en 1 cada vez que
+ * arranca el proceso.
+ */
+public final class FlujoCambios implements Flow.Publisher<List<EventoCambio>> {
+    public static final int CAPACIDAD_POR_DEFECTO = 1 << 16;
+    public static final int LOTE_POR_DEFECTO = 256;
+
+    private final AtomicReferenceArray<EventoCambio> eventos;
+    // Ultima secuencia tomada por un escritor (0: ninguna)
+    private final AtomicLong ultima = new AtomicLong();
+    // Se recorre en cada publicacion y cambia solo al suscribirse o cancelar
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+    private final Executor ejecutor;
+
+    public FlujoCambios(int capacidad, Executor ejecutor) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad del flujo de cambios debe ser positiva");
+        }
+        this.eventos = new AtomicReferenceArray<>(capacidad);
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Flujo segun -Dbiblioteca.cambios.capacidad (eventos que se guardan; 0 lo
+     * apaga y retorna null). Cada entrega corre en un hilo virtual
+     */
+    public static FlujoCambios configurado() {
+        int capacidad = Integer.getInteger("biblioteca.cambios.capacidad", CAPACIDAD_POR_DEFECTO);
+        if (capacidad < 0) {
+            throw new IllegalArgumentException("Capacidad del flujo de cambios inválida: " + capacidad);
+        }
+        return capacidad == 0 ? null : new FlujoCambios(capacidad, Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Agrega el cambio del libro (ya guardado, con su version) y avisa a los suscriptores
+     * @return Secuencia del evento
+     */
+    public long publicar(TipoCambio tipo, Libro libro) {
+        long secuencia = ultima.incrementAndGet();
+        EventoCambio evento = new EventoCambio(secuencia, Instant.now(), tipo, libro.getId(), libro.getVersion(),
+                libro.getTitulo(), libro.getAutor(), libro.getAnoPublicacion(), libro.getDisponible());
+        int lugar = (int) (secuencia % eventos.length());
+        EventoCambio anterior;
+        do {
+            anterior = eventos.get(lugar);
+            // Un escritor que se demoro una vuelta entera no pisa al evento mas nuevo
+            if (anterior != null && anterior.secuencia() > secuencia) {
+                break;
+            }
+        } while (!eventos.compareAndSet(lugar, anterior, evento));
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.avisar();
+        }
+        return secuencia;
+    }
+
+    /**
+     * Ultima secuencia publicada (0 si todavia no hubo cambios)
+     */
+    public long ultimaSecuencia() {
+        return ultima.get();
+    }
+
+    /**
+     * Secuencia mas vieja que todavia se puede pedir
+     */
+    public long primeraDisponible() {
+        return Math.max(1, ultima.get() - eventos.length() + 1);
+    }
+
+    /**
+     * Suscribe desde el proximo cambio, con lotes de LOTE_POR_DEFECTO
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<EventoCambio>> suscriptor) {
+        suscribir(suscriptor, ultima.get() + 1, LOTE_POR_DEFECTO);
+    }
+
+    /**
+     * Suscribe desde una secuencia: la siguiente a la ultima que se proceso,
+     * o primeraDisponible() para empezar por lo mas viejo que hay
+     * @param tamanoLote Eventos como mucho en cada onNext
+     */
+    public void suscribir(Flow.Subscriber<? super List<EventoCambio>> suscriptor, long desde, int tamanoLote) {
+        if (tamanoLote < 1) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser positivo");
+        }
+        Suscripcion suscripcion = new Suscripcion(suscriptor, desde, tamanoLote);
+        suscripciones.add(suscripcion);
+        suscriptor.onSubscribe(suscripcion);
+        if (desde < 1 || desde > ultima.get() + 1) {
+            suscripcion.fallar(new IllegalArgumentException("Secuencia de inicio inválida: " + desde
+                    + " (la última es " + ultima.get() + ")"));
+        }
+    }
+
+    /**
+     * Agrega a 'destino' los eventos desde 'desde', hasta 'maximo' o hasta el
+     * primero que todavia no se escribio
+     * @return Cuantos agrego, o -1 si el de 'desde' ya se piso
+     */
+    private int leer(long desde, int maximo, List<EventoCambio> destino) {
+        for (int leidos = 0; leidos < maximo; leidos++) {
+            long secuencia = desde + leidos;
+            EventoCambio evento = eventos.get((int) (secuencia % eventos.length()));
+            // null o mas viejo: la secuencia no se tomo, o se tomo y el evento todavia no esta
+            if (evento == null || evento.secuencia() < secuencia) {
+                return leidos;
+            }
+            if (evento.secuencia() > secuencia) {
+                // Se entrega lo que se leyo; el proximo lote da el error
+                return leidos == 0 ? -1 : leidos;
+            }
+            destino.add(evento);
+        }
+        return maximo;
+    }
+
+    /**
+     * Estado de un suscriptor. Solo un hilo a la vez entrega (el que lleva
+     * 'avisos' de 0 a 1), asi los onNext nunca se solapan y 'siguiente' no
+     * necesita sincronizacion
+     */
+    private final class Suscripcion implements Flow.Subscription {
+        private final Flow.Subscriber<? super List<EventoCambio>> suscriptor;
+        private final int tamanoLote;
+        private final AtomicLong pedidos = new AtomicLong();
+        private final AtomicInteger avisos = new AtomicInteger();
+        private long siguiente;
+        private volatile boolean terminada;
+        private volatile Throwable error;
+
+        Suscripcion(Flow.Subscriber<? super List<EventoCambio>> suscriptor, long desde, int tamanoLote) {
+            this.suscriptor = suscriptor;
+            this.siguiente = desde;
+            this.tamanoLote = tamanoLote;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fallar(new IllegalArgumentException("request debe pedir al menos un lote: " + n));
+                return;
+            }
+            // Sin desbordar: Long.MAX_VALUE es "sin limite"
+            pedidos.accumulateAndGet(n, (actuales, mas) -> actuales + mas < 0 ? Long.MAX_VALUE : actuales + mas);
+            programar();
+        }
+
+        @Override
+        public void cancel() {
+            terminada = true;
+            suscripciones.remove(this);
+        }
+
+        /**
+         * Hay un evento nuevo; si no pidio nada se le entrega cuando pida
+         */
+        void avisar() {
+            if (pedidos.get() > 0 && !terminada) {
+                programar();
+            }
+        }
+
+        void fallar(Throwable causa) {
+            error = causa;
+            programar();
+        }
+
+        private void programar() {
+            if (avisos.getAndIncrement() == 0) {
+                ejecutor.execute(this::entregar);
+            }
+        }
+
+        private void entregar() {
+            int atendidos = 1;
+            do {
+                entregarPedidos();
+                // Los avisos que llegaron mientras se entregaba se atienden en otra vuelta
+                atendidos = avisos.addAndGet(-atendidos);
+            } while (atendidos != 0);
+        }
+
+        private void entregarPedidos() {
+            while (!terminada) {
+                if (error != null) {
+                    cancel();
+                    suscriptor.onError(error);
+                    return;
+                }
+                if (pedidos.get() == 0) {
+                    return;
+                }
+                List<EventoCambio> lote = new ArrayList<>();
+                int leidos = leer(siguiente, tamanoLote, lote);
+                if (leidos < 0) {
+                    error = new CambiosPerdidosException(siguiente, primeraDisponible());
+                    continue;
+                }
+                if (leidos == 0) {
+                    return;
+                }
+                siguiente += leidos;
+                if (pedidos.get() != Long.MAX_VALUE) {
+                    pedidos.decrementAndGet();
+                }
+                try {
+                    suscriptor.onNext(lote);
+                } catch (RuntimeException e) {
+                    // Un suscriptor que falla no recibe mas eventos
+                    cancel();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.Objects;
+
+/**
+ * TipoCambio - Que le paso a un libro en el catalogo
+ */
+public enum TipoCambio {
+    CREACION,
+    // Cambio el titulo, el autor o el año (o se volvio a guardar igual)
+    MODIFICACION,
+    // Solo cambio si esta disponible (un prestamo o una devolucion)
+    DISPONIBILIDAD;
+
+    /**
+     * Tipo del cambio de 'anterior' (null si el libro no existia) a 'nuevo'
+     */
+    public static TipoCambio entre(Libro anterior, Libro nuevo) {
+        if (anterior == null) {
+            return CREACION;
+        }
+        boolean mismosDatos = Objects.equals(anterior.getTitulo(), nuevo.getTitulo())
+                && Objects.equals(anterior.getAutor(), nuevo.getAutor())
+                && Objects.equals(anterior.getAnoPublicacion(), nuevo.getAnoPublicacion());
+        return mismosDatos && !Objects.equals(anterior.getDisponible(), nuevo.getDisponible())
+                ? DISPONIBILIDAD : MODIFICACION;
+    }
+}
@@ -0,0 +1,285 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * IndiceTexto - Indice invertido en memoria sobre titulo y autor
+ *
+ * Por cada palabra normalizada (ver Tokenizador) guarda los IDs de los libros
+ * que la contienen en un MapaBits (no en un Set<Long>: un ID ocupa unos bits
+ * y no un Long y un nodo de hash), separado por campo. Soporta:
+ * - coincidencia exacta
+ * - prefijo ("dragon" encuentra "dragones"), con el diccionario ordenado
+ * - errores de tipeo de una letra ("soldead" encuentra "soledad"), buscando
+ *   las variantes con una letra borrada (tecnica de SymSpell)
+ * Los resultados se ordenan por puntaje: tipo de coincidencia x campo x rareza de la palabra.
+ *
+ * Las busquedas no toman locks. Quien lo actualiza (IndicesLibros) debe
+ * serializar los cambios de un mismo ID y pasar los valores anteriores al quitar.
+ */
+final class IndiceTexto {
+    // Peso de cada campo: una coincidencia en el titulo vale mas que en el autor
+    private static final double PESO_TITULO = 2.0;
+    private static final double PESO_AUTOR = 1.0;
+    // Peso de cada tipo de coincidencia
+    private static final double PESO_EXACTA = 1.0;
+    private static final double PESO_PREFIJO = 0.6;
+    private static final double PESO_APROXIMADA = 0.4;
+    // Limites para que una consulta no recorra todo el catalogo
+    private static final int MAX_EXPANSIONES_PREFIJO = 64;
+    private static final int MAX_CANDIDATOS = 4096;
+    private static final int LARGO_MINIMO_PREFIJO = 3;
+    private static final int LARGO_MINIMO_APROXIMADA = 4;
+
+    private final Campo titulos = new Campo(PESO_TITULO);
+    private final Campo autores = new Campo(PESO_AUTOR);
+
+    void agregar(long id, String titulo, String autor) {
+        titulos.agregar(id, titulo);
+        autores.agregar(id, autor);
+    }
+
+    void quitar(long id, String titulo, String autor) {
+        titulos.quitar(id, titulo);
+        autores.quitar(id, autor);
+    }
+
+    /**
+     * Busca los libros que mejor coinciden con la consulta
+     * @param totalLibros Cantidad de libros indexados, para calcular la rareza de cada palabra
+     * @return IDs ordenados de mayor a menor puntaje, como mucho 'limite'
+     */
+    List<Long> buscar(String consulta, int limite, long totalLibros) {
+        List<String> palabras = new ArrayList<>(new HashSet<>(Tokenizador.tokenizar(consulta)));
+        if (palabras.isEmpty() || limite <= 0) {
+            return Collections.emptyList();
+        }
+        double total = Math.max(1, totalLibros);
+
+        // Coincidencias de cada palabra; se procesan de la mas rara a la mas comun
+        List<List<Coincidencia>> porPalabra = new ArrayList<>();
+        for (String palabra : palabras) {
+            List<Coincidencia> coincidencias = new ArrayList<>();
+            titulos.coincidencias(palabra, coincidencias);
+            autores.coincidencias(palabra, coincidencias);
+            porPalabra.add(coincidencias);
+        }
+        porPalabra.sort((a, b) -> Long.compare(frecuencia(a), frecuencia(b)));
+
+        Map<Long, Double> puntajes = new HashMap<>();
+        for (List<Coincidencia> coincidencias : porPalabra) {
+            long frecuencia = frecuencia(coincidencias);
+            if (frecuencia == 0) {
+                continue;
+            }
+            // Si ya hay candidatos y esta palabra es mas comun que ellos, solo se
+            // consultan los candidatos en vez de recorrer toda la lista de la palabra
+            boolean soloCandidatos = !puntajes.isEmpty() && frecuencia > puntajes.size();
+            Map<Long, Double> mejorDeLaPalabra = new HashMap<>();
+            for (Coincidencia coincidencia : coincidencias) {
+                double puntaje = coincidencia.peso * Math.log(1 + total / coincidencia.cantidad);
+                if (soloCandidatos) {
+                    for (Long id : puntajes.keySet()) {
+                        if (coincidencia.ids.contiene(id)) {
+                            mejorDeLaPalabra.merge(id, puntaje, Math::max);
+                        }
+                    }
+                } else {
+                    coincidencia.ids.recorrer(id -> {
+                        if (mejorDeLaPalabra.size() >= MAX_CANDIDATOS && !mejorDeLaPalabra.containsKey(id)) {
+                            return false;
+                        }
+                        mejorDeLaPalabra.merge(id, puntaje, Math::max);
+                        return true;
+                    });
+                }
+            }
+            mejorDeLaPalabra.forEach((id, puntaje) -> puntajes.merge(id, puntaje, Double::sum));
+        }
+
+        // Top 'limite' con un heap de minimos
+        PriorityQueue<Map.Entry<Long, Double>> mejores = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Long.compare(b.getKey(), a.getKey())
+                        : Double.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Long, Double> entrada : puntajes.entrySet()) {
+            mejores.add(entrada);
+            if (mejores.size() > limite) {
+                mejores.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(mejores.size());
+        while (!mejores.isEmpty()) {
+            ids.add(mejores.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    private static long frecuencia(List<Coincidencia> coincidencias) {
+        long total = 0;
+        for (Coincidencia coincidencia : coincidencias) {
+            total += coincidencia.cantidad;
+        }
+        return total;
+    }
+
+    /**
+     * Lista de IDs de una palabra junto al peso con que coincidio con la consulta
+     */
+    private static final class Coincidencia {
+        final MapaBits ids;
+        final double peso;
+        // cantidad() de MapaBits recorre los bloques: se cuenta una sola vez
+        final long cantidad;
+
+        Coincidencia(MapaBits ids, long cantidad, double peso) {
+            this.ids = ids;
+            this.cantidad = cantidad;
+            this.peso = peso;
+        }
+    }
+
+    /**
+     * Indice de un campo: palabra -> IDs, mas las variantes con una letra borrada
+     */
+    private static final class Campo {
+        private final double peso;
+        // Ordenado para poder recorrer todas las palabras con un prefijo
+        private final NavigableMap<String, MapaBits> palabras = new ConcurrentSkipListMap<>();
+        // Variante con una letra borrada -> palabras que la generan
+        private final Map<String, Set<String>> borrados = new ConcurrentHashMap<>();
+
+        Campo(double peso) {
+            this.peso = peso;
+        }
+
+        void agregar(long id, String texto) {
+            for (String palabra : Tokenizador.tokenizar(texto)) {
+                MapaBits ids = palabras.get(palabra);
+                if (ids == null) {
+                    ids = palabras.computeIfAbsent(palabra, p -> new MapaBits());
+                    if (palabra.length() >= LARGO_MINIMO_APROXIMADA) {
+                        for (String variante : variantes(palabra)) {
+                            borrados.computeIfAbsent(variante, v -> ConcurrentHashMap.newKeySet()).add(palabra);
+                        }
+                    }
+                }
+                ids.agregar(id);
+            }
+        }
+
+        void quitar(long id, String texto) {
+            for (String palabra : Tokenizador.tokenizar(texto)) {
+                MapaBits ids = palabras.get(palabra);
+                if (ids != null) {
+                    ids.quitar(id);
+                    // Las palabras que quedan vacias se dejan en el diccionario:
+                    // sacarlas compite con un agregar concurrente de la misma palabra
+                }
+            }
+        }
+
+        void coincidencias(String palabra, List<Coincidencia> destino) {
+            MapaBits exacta = palabras.get(palabra);
+            long cantidadExacta = exacta == null ? 0 : exacta.cantidad();
+            if (cantidadExacta > 0) {
+                destino.add(new Coincidencia(exacta, cantidadExacta, peso * PESO_EXACTA));
+            }
+            if (palabra.length() >= LARGO_MINIMO_PREFIJO) {
+                int expansiones = 0;
+                for (Map.Entry<String, MapaBits> entrada
+                        : palabras.subMap(palabra, false, palabra + Character.MAX_VALUE, false).entrySet()) {
+                    if (++expansiones > MAX_EXPANSIONES_PREFIJO) {
+                        break;
+                    }
+                    long cantidad = entrada.getValue().cantidad();
+                    if (cantidad > 0) {
+                        destino.add(new Coincidencia(entrada.getValue(), cantidad, peso * PESO_PREFIJO));
+                    }
+                }
+            }
+            if (palabra.length() >= LARGO_MINIMO_APROXIMADA && cantidadExacta == 0) {
+                for (String similar : similares(palabra)) {
+                    MapaBits ids = palabras.get(similar);
+                    long cantidad = ids == null ? 0 : ids.cantidad();
+                    if (cantidad > 0) {
+                        destino.add(new Coincidencia(ids, cantidad, peso * PESO_APROXIMADA));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Palabras del diccionario a distancia de edicion 1 (borrar, insertar,
+         * reemplazar o transponer una letra): comparten la palabra o alguna de
+         * sus variantes con una letra borrada
+         */
+        private Set<String> similares(String palabra) {
+            Set<String> similares = new HashSet<>();
+            Set<String> directas = borrados.get(palabra);
+            if (directas != null) {
+                similares.addAll(directas);
+            }
+            for (String variante : variantes(palabra)) {
+                if (palabras.containsKey(variante)) {
+                    similares.add(variante);
+                }
+                Set<String> comunes = borrados.get(variante);
+                if (comunes != null) {
+                    for (String candidata : comunes) {
+                        if (distanciaMaximaUno(palabra, candidata)) {
+                            similares.add(candidata);
+                        }
+                    }
+                }
+            }
+            similares.remove(palabra);
+            return similares;
+        }
+
+        private static List<String> variantes(String palabra) {
+            List<String> variantes = new ArrayList<>(palabra.length());
+            for (int i = 0; i < palabra.length(); i++) {
+                variantes.add(palabra.substring(0, i) + palabra.substring(i + 1));
+            }
+            return variantes;
+        }
+
+        /**
+         * Dos palabras del mismo largo que comparten una variante difieren en
+         * un reemplazo o en una transposicion; se descarta el resto
+         */
+        private static boolean distanciaMaximaUno(String a, String b) {
+            if (a.length() != b.length()) {
+                return true;
+            }
+            int primera = -1;
+            int diferencias = 0;
+            for (int i = 0; i < a.length(); i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    if (diferencias == 0) {
+                        primera = i;
+                    }
+                    diferencias++;
+                }
+            }
+            if (diferencias <= 1) {
+                return true;
+            }
+            return diferencias == 2 && primera + 1 < a.length()
+                    && a.charAt(primera) == b.charAt(primera + 1)
+                    && a.charAt(primera + 1) == b.charAt(primera);
+        }
+    }
+}
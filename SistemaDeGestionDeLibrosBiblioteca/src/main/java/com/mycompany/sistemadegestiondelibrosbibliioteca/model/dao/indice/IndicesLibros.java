@@ -0,0 +1,180 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * IndicesLibros - Todos los indices del catalogo, actualizados en cada save
+ *
+ * - texto: indice invertido de titulo y autor (IndiceTexto)
+ * - anoPublicacion: un MapaBits por año en un array indexado por el año,
+ *   asi un rango de años es un tramo contiguo del array
+ * - disponible: un MapaBits con los disponibles y otro con los no disponibles
+ * - autor: hash del autor normalizado (sin acentos ni mayusculas) a MapaBits
+ *
+ * Guarda lo indexado de cada ID para poder sacarlo cuando el libro cambia,
+ * aunque la entidad se haya modificado en el lugar. Los cambios de un mismo
+ * ID se serializan con locks por franjas; las consultas no toman locks.
+ *
+ * Todo esto vive en el heap y crece con el catalogo, sea cual sea el
+ * AlmacenLibros: tambien con el nativo, cada libro deja aca su titulo, su
+ * autor, su año y su version (indexados) y su ID en los MapaBits. Es lo que
+ * mas ocupa por libro, mas que el propio almacen en mapa.
+ */
+public class IndicesLibros {
+    // Los años fuera de este rango no se indexan por año
+    public static final int ANO_MINIMO = 0;
+    public static final int ANO_MAXIMO = 9999;
+    private static final int FRANJAS = 256;
+
+    private final IndiceTexto texto = new IndiceTexto();
+    private final AtomicReferenceArray<MapaBits> porAno = new AtomicReferenceArray<>(ANO_MAXIMO + 1);
+    private final MapaBits disponibles = new MapaBits();
+    private final MapaBits noDisponibles = new MapaBits();
+    private final Map<String, MapaBits> porAutor = new ConcurrentHashMap<>();
+
+    private final Map<Long, Indexado> indexados = new ConcurrentHashMap<>();
+    private final Object[] candados = new Object[FRANJAS];
+
+    public IndicesLibros() {
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new Object();
+        }
+    }
+
+    /**
+     * Indexa el libro, reemplazando lo que hubiera indexado antes para su ID.
+     * Si ya hay indexada una version mas nueva (dos escrituras que llegan en
+     * otro orden) no cambia nada
+     */
+    public void indexar(Libro libro) {
+        long id = libro.getId();
+        Indexado nuevo = Indexado.de(libro);
+        synchronized (candado(id)) {
+            Indexado anterior = indexados.get(id);
+            if (anterior != null) {
+                if (anterior.version() > nuevo.version()) {
+                    return;
+                }
+                quitar(id, anterior);
+            }
+            indexados.put(id, nuevo);
+            agregar(id, nuevo);
+        }
+    }
+
+    /**
+     * Indexa el libro solo si su ID todavia no fue indexado
+     * (para la carga inicial en segundo plano, que no debe pisar un cambio mas nuevo)
+     */
+    public void indexarSiAusente(Libro libro) {
+        long id = libro.getId();
+        synchronized (candado(id)) {
+            if (!indexados.containsKey(id)) {
+                Indexado nuevo = Indexado.de(libro);
+                indexados.put(id, nuevo);
+                agregar(id, nuevo);
+            }
+        }
+    }
+
+    /**
+     * Cantidad de libros indexados
+     */
+    public long cantidad() {
+        return indexados.size();
+    }
+
+    /**
+     * Busqueda por texto en titulo y autor
+     * @return IDs ordenados por relevancia
+     */
+    public List<Long> buscarTexto(String consulta, int limite) {
+        return texto.buscar(consulta, limite, indexados.size());
+    }
+
+    /**
+     * IDs publicados entre los dos años (inclusive)
+     */
+    public MapaBits idsPorRangoDeAnos(int desde, int hasta) {
+        List<MapaBits> anos = new ArrayList<>();
+        for (int ano = Math.max(desde, ANO_MINIMO); ano <= Math.min(hasta, ANO_MAXIMO); ano++) {
+            MapaBits ids = porAno.get(ano);
+            if (ids != null) {
+                anos.add(ids);
+            }
+        }
+        return MapaBits.union(anos);
+    }
+
+    /**
+     * IDs con el campo disponible en el valor pedido (conjunto vivo, no modificar)
+     */
+    public MapaBits idsPorDisponibilidad(boolean disponible) {
+        return disponible ? disponibles : noDisponibles;
+    }
+
+    /**
+     * IDs de un autor, sin importar acentos, mayusculas ni espacios extra
+     * (conjunto vivo, no modificar)
+     */
+    public MapaBits idsPorAutor(String autor) {
+        MapaBits ids = porAutor.get(Tokenizador.normalizar(autor));
+        return ids == null ? new MapaBits() : ids;
+    }
+
+    private Object candado(long id) {
+        return candados[(int) (id & (FRANJAS - 1))];
+    }
+
+    private void agregar(long id, Indexado indexado) {
+        texto.agregar(id, indexado.titulo(), indexado.autor());
+        Integer ano = indexado.anoPublicacion();
+        if (ano != null && ano >= ANO_MINIMO && ano <= ANO_MAXIMO) {
+            MapaBits ids = porAno.get(ano);
+            if (ids == null) {
+                porAno.compareAndSet(ano, null, new MapaBits());
+                ids = porAno.get(ano);
+            }
+            ids.agregar(id);
+        }
+        if (indexado.disponible() != null) {
+            idsPorDisponibilidad(indexado.disponible()).agregar(id);
+        }
+        if (indexado.autor() != null) {
+            porAutor.computeIfAbsent(Tokenizador.normalizar(indexado.autor()), a -> new MapaBits()).agregar(id);
+        }
+    }
+
+    private void quitar(long id, Indexado indexado) {
+        texto.quitar(id, indexado.titulo(), indexado.autor());
+        Integer ano = indexado.anoPublicacion();
+        if (ano != null && ano >= ANO_MINIMO && ano <= ANO_MAXIMO && porAno.get(ano) != null) {
+            porAno.get(ano).quitar(id);
+        }
+        if (indexado.disponible() != null) {
+            idsPorDisponibilidad(indexado.disponible()).quitar(id);
+        }
+        if (indexado.autor() != null) {
+            MapaBits ids = porAutor.get(Tokenizador.normalizar(indexado.autor()));
+            if (ids != null) {
+                ids.quitar(id);
+            }
+        }
+    }
+
+    /**
+     * Valores con los que se indexo un libro
+     */
+    private record Indexado(String titulo, String autor, Integer anoPublicacion, Boolean disponible, long version) {
+        static Indexado de(Libro libro) {
+            return new Indexado(libro.getTitulo(), libro.getAutor(), libro.getAnoPublicacion(), libro.getDisponible(),
+                    libro.getVersion());
+        }
+    }
+}
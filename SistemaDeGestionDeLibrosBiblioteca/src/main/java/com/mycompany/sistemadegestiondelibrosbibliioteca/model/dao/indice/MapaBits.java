@@ -0,0 +1,420 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongPredicate;
+
+/**
+ * MapaBits - Conjunto comprimido de IDs (al estilo de los Roaring bitmaps)
+ *
+ * Los IDs se agrupan en bloques de 65536 segun sus bits altos. Cada bloque
+ * guarda sus 16 bits bajos como un array ordenado mientras tiene pocos
+ * elementos, y como un bitmap de 8 KB cuando pasa de 4096. Los bloques sin
+ * IDs no ocupan nada. Las uniones se hacen palabra a palabra; las
+ * intersecciones copian solo el bloque con menos IDs y lo filtran contra los
+ * otros en el lugar (un array contra un array avanza en paralelo).
+ *
+ * Es seguro con varios hilos: cada bloque se sincroniza por separado.
+ */
+public final class MapaBits {
+    private static final int BITS_BLOQUE = 16;
+    private static final int PALABRAS = (1 << BITS_BLOQUE) / 64;
+    // Por encima de esta cantidad un array de char ocupa mas que el bitmap
+    private static final int LIMITE_ARRAY = 4096;
+
+    private final ConcurrentSkipListMap<Long, Bloque> bloques = new ConcurrentSkipListMap<>();
+
+    public void agregar(long id) {
+        bloques.computeIfAbsent(id >>> BITS_BLOQUE, clave -> new Bloque()).agregar((char) id);
+    }
+
+    public void quitar(long id) {
+        Bloque bloque = bloques.get(id >>> BITS_BLOQUE);
+        if (bloque != null) {
+            // Los bloques vacios se dejan: sacarlos compite con un agregar concurrente
+            bloque.quitar((char) id);
+        }
+    }
+
+    public boolean contiene(long id) {
+        Bloque bloque = bloques.get(id >>> BITS_BLOQUE);
+        return bloque != null && bloque.contiene((char) id);
+    }
+
+    public long cantidad() {
+        long total = 0;
+        for (Bloque bloque : bloques.values()) {
+            total += bloque.cantidad();
+        }
+        return total;
+    }
+
+    /**
+     * Menor ID del conjunto que sea mayor o igual a 'desde'
+     * @return El ID, o -1 si no hay ninguno
+     */
+    public long siguiente(long desde) {
+        if (desde < 0) {
+            desde = 0;
+        }
+        long claveDesde = desde >>> BITS_BLOQUE;
+        for (Map.Entry<Long, Bloque> entrada : bloques.tailMap(claveDesde, true).entrySet()) {
+            int bajo = entrada.getKey() == claveDesde ? (int) (desde & 0xFFFF) : 0;
+            int encontrado = entrada.getValue().siguiente(bajo);
+            if (encontrado >= 0) {
+                return (entrada.getKey() << BITS_BLOQUE) | encontrado;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recorre los IDs en orden ascendente mientras la accion retorne true
+     */
+    public void recorrer(LongPredicate accion) {
+        for (Map.Entry<Long, Bloque> entrada : bloques.entrySet()) {
+            long base = entrada.getKey() << BITS_BLOQUE;
+            // Se copia el bloque para no llamar a la accion con el lock tomado
+            for (int bajo : entrada.getValue().valores()) {
+                if (!accion.test(base | bajo)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Primeros 'limite' IDs en orden ascendente
+     */
+    public List<Long> primeros(int limite) {
+        List<Long> ids = new ArrayList<>(Math.min(limite, 1024));
+        if (limite > 0) {
+            recorrer(id -> {
+                ids.add(id);
+                return ids.size() < limite;
+            });
+        }
+        return ids;
+    }
+
+    /**
+     * IDs presentes en todos los conjuntos
+     */
+    public static MapaBits interseccion(List<MapaBits> conjuntos) {
+        MapaBits resultado = new MapaBits();
+        if (conjuntos.isEmpty()) {
+            return resultado;
+        }
+        // Se recorren los bloques del conjunto con menos bloques
+        MapaBits menor = conjuntos.get(0);
+        for (MapaBits conjunto : conjuntos) {
+            if (conjunto.bloques.size() < menor.bloques.size()) {
+                menor = conjunto;
+            }
+        }
+        List<Bloque> delBloque = new ArrayList<>(conjuntos.size());
+        bloque:
+        for (Map.Entry<Long, Bloque> entrada : menor.bloques.entrySet()) {
+            delBloque.clear();
+            // Solo se copia el bloque con menos IDs; los otros se leen en el lugar
+            Bloque primero = entrada.getValue();
+            int menorCantidad = primero.cantidad();
+            for (MapaBits conjunto : conjuntos) {
+                Bloque otro = conjunto == menor ? entrada.getValue() : conjunto.bloques.get(entrada.getKey());
+                if (otro == null) {
+                    continue bloque;
+                }
+                int cantidad = otro.cantidad();
+                if (cantidad < menorCantidad) {
+                    primero = otro;
+                    menorCantidad = cantidad;
+                }
+                delBloque.add(otro);
+            }
+            Bloque interseccion = primero.intersecar(delBloque);
+            if (interseccion != null) {
+                resultado.bloques.put(entrada.getKey(), interseccion);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * IDs presentes en alguno de los conjuntos
+     */
+    public static MapaBits union(List<MapaBits> conjuntos) {
+        TreeMap<Long, long[]> acumulado = new TreeMap<>();
+        for (MapaBits conjunto : conjuntos) {
+            for (Map.Entry<Long, Bloque> entrada : conjunto.bloques.entrySet()) {
+                long[] palabras = acumulado.computeIfAbsent(entrada.getKey(), clave -> new long[PALABRAS]);
+                entrada.getValue().unirEn(palabras);
+            }
+        }
+        MapaBits resultado = new MapaBits();
+        for (Map.Entry<Long, long[]> entrada : acumulado.entrySet()) {
+            resultado.agregarBloque(entrada.getKey(), entrada.getValue());
+        }
+        return resultado;
+    }
+
+    private void agregarBloque(long clave, long[] palabras) {
+        Bloque bloque = Bloque.desdePalabras(palabras);
+        if (bloque != null) {
+            bloques.put(clave, bloque);
+        }
+    }
+
+    /**
+     * Bloque de 65536 IDs: array ordenado de los bits bajos o bitmap
+     */
+    private static final class Bloque {
+        private char[] valores = new char[4];
+        private long[] palabras; // != null cuando el bloque es un bitmap
+        private int cantidad;
+
+        synchronized void agregar(char valor) {
+            if (palabras != null) {
+                long mascara = 1L << valor;
+                if ((palabras[valor >>> 6] & mascara) == 0) {
+                    palabras[valor >>> 6] |= mascara;
+                    cantidad++;
+                }
+                return;
+            }
+            int posicion = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (posicion >= 0) {
+                return;
+            }
+            if (cantidad == LIMITE_ARRAY) {
+                convertirABitmap();
+                agregar(valor);
+                return;
+            }
+            posicion = -posicion - 1;
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(LIMITE_ARRAY, valores.length * 2));
+            }
+            System.arraycopy(valores, posicion, valores, posicion + 1, cantidad - posicion);
+            valores[posicion] = valor;
+            cantidad++;
+        }
+
+        synchronized void quitar(char valor) {
+            if (palabras != null) {
+                long mascara = 1L << valor;
+                if ((palabras[valor >>> 6] & mascara) != 0) {
+                    palabras[valor >>> 6] &= ~mascara;
+                    cantidad--;
+                }
+                return;
+            }
+            int posicion = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (posicion >= 0) {
+                System.arraycopy(valores, posicion + 1, valores, posicion, cantidad - posicion - 1);
+                cantidad--;
+            }
+        }
+
+        synchronized boolean contiene(char valor) {
+            if (palabras != null) {
+                return (palabras[valor >>> 6] & (1L << valor)) != 0;
+            }
+            return Arrays.binarySearch(valores, 0, cantidad, valor) >= 0;
+        }
+
+        synchronized int cantidad() {
+            return cantidad;
+        }
+
+        synchronized int siguiente(int desde) {
+            if (palabras != null) {
+                int indice = desde >>> 6;
+                long palabra = palabras[indice] & (-1L << desde);
+                while (true) {
+                    if (palabra != 0) {
+                        return indice * 64 + Long.numberOfTrailingZeros(palabra);
+                    }
+                    if (++indice == PALABRAS) {
+                        return -1;
+                    }
+                    palabra = palabras[indice];
+                }
+            }
+            int posicion = Arrays.binarySearch(valores, 0, cantidad, (char) desde);
+            if (posicion < 0) {
+                posicion = -posicion - 1;
+            }
+            return posicion < cantidad ? valores[posicion] : -1;
+        }
+
+        /**
+         * Copia de los valores, en orden
+         */
+        synchronized int[] valores() {
+            int[] copia = new int[cantidad];
+            if (palabras == null) {
+                for (int i = 0; i < cantidad; i++) {
+                    copia[i] = valores[i];
+                }
+                return copia;
+            }
+            int j = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    copia[j++] = i * 64 + Long.numberOfTrailingZeros(palabra);
+                    palabra &= palabra - 1;
+                }
+            }
+            return copia;
+        }
+
+        /**
+         * Interseccion de una copia de este bloque con los otros, que no se
+         * copian: un array se filtra contra cada uno y un bitmap se combina
+         * palabra a palabra. Conviene que este sea el de menos IDs
+         * @param otros Bloques a intersecar (si este esta entre ellos se saltea)
+         * @return El bloque resultante, o null si queda vacio
+         */
+        Bloque intersecar(List<Bloque> otros) {
+            char[] copiaValores = null;
+            long[] copiaPalabras = null;
+            int n;
+            synchronized (this) {
+                n = cantidad;
+                if (palabras == null) {
+                    copiaValores = Arrays.copyOf(valores, cantidad);
+                } else {
+                    copiaPalabras = palabras.clone();
+                }
+            }
+            for (Bloque otro : otros) {
+                if (otro == this) {
+                    continue;
+                }
+                if (copiaValores != null) {
+                    n = otro.filtrar(copiaValores, n);
+                    if (n == 0) {
+                        return null;
+                    }
+                } else {
+                    otro.intersecarEn(copiaPalabras);
+                }
+            }
+            if (copiaPalabras != null) {
+                return desdePalabras(copiaPalabras);
+            }
+            if (n == 0) {
+                return null;
+            }
+            Bloque bloque = new Bloque();
+            bloque.valores = copiaValores;
+            bloque.cantidad = n;
+            return bloque;
+        }
+
+        /**
+         * Deja al principio de 'destino' (ordenado) los valores que tambien
+         * estan en este bloque
+         * @return Cuantos quedaron
+         */
+        synchronized int filtrar(char[] destino, int n) {
+            int quedan = 0;
+            if (palabras != null) {
+                for (int i = 0; i < n; i++) {
+                    char valor = destino[i];
+                    if ((palabras[valor >>> 6] & (1L << valor)) != 0) {
+                        destino[quedan++] = valor;
+                    }
+                }
+                return quedan;
+            }
+            // Los dos arrays estan ordenados: se avanza en paralelo
+            int j = 0;
+            for (int i = 0; i < n && j < cantidad; i++) {
+                char valor = destino[i];
+                while (j < cantidad && valores[j] < valor) {
+                    j++;
+                }
+                if (j < cantidad && valores[j] == valor) {
+                    destino[quedan++] = valor;
+                }
+            }
+            return quedan;
+        }
+
+        /**
+         * Apaga en 'destino' los bits que no estan en este bloque
+         */
+        synchronized void intersecarEn(long[] destino) {
+            if (palabras != null) {
+                for (int i = 0; i < PALABRAS; i++) {
+                    destino[i] &= palabras[i];
+                }
+                return;
+            }
+            int j = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                long mascara = 0;
+                while (j < cantidad && valores[j] >>> 6 == i) {
+                    mascara |= 1L << valores[j++];
+                }
+                destino[i] &= mascara;
+            }
+        }
+
+        synchronized void unirEn(long[] destino) {
+            if (palabras != null) {
+                for (int i = 0; i < PALABRAS; i++) {
+                    destino[i] |= palabras[i];
+                }
+            } else {
+                for (int i = 0; i < cantidad; i++) {
+                    destino[valores[i] >>> 6] |= 1L << valores[i];
+                }
+            }
+        }
+
+        private void convertirABitmap() {
+            palabras = new long[PALABRAS];
+            for (int i = 0; i < cantidad; i++) {
+                palabras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            valores = null;
+        }
+
+        /**
+         * Arma el bloque con la representacion mas chica, o null si esta vacio
+         */
+        static Bloque desdePalabras(long[] palabras) {
+            int cantidad = 0;
+            for (long palabra : palabras) {
+                cantidad += Long.bitCount(palabra);
+            }
+            if (cantidad == 0) {
+                return null;
+            }
+            Bloque bloque = new Bloque();
+            bloque.cantidad = cantidad;
+            if (cantidad > LIMITE_ARRAY) {
+                bloque.palabras = palabras;
+                bloque.valores = null;
+                return bloque;
+            }
+            bloque.valores = new char[cantidad];
+            int j = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    bloque.valores[j++] = (char) (i * 64 + Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+            return bloque;
+        }
+    }
+}
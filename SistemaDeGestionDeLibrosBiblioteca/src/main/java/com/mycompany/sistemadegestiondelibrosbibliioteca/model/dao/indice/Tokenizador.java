@@ -0,0 +1,70 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tokenizador - Separa un texto en palabras normalizadas para buscar
+ * Pasa a minusculas y quita los acentos ("García Márquez" -> "garcia", "marquez"),
+ * asi las busquedas funcionan con o sin tildes. La ñ se pliega a n.
+ */
+public final class Tokenizador {
+
+    private Tokenizador() {
+    }
+
+    /**
+     * @return Palabras normalizadas del texto, en orden (vacio si el texto es null)
+     */
+    public static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        if (texto == null) {
+            return tokens;
+        }
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = plegar(texto.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                actual.append(c);
+            } else if (actual.length() > 0) {
+                tokens.add(actual.toString());
+                actual.setLength(0);
+            }
+        }
+        if (actual.length() > 0) {
+            tokens.add(actual.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Texto completo normalizado: minusculas, sin acentos y con los espacios colapsados
+     * ("  Gabriel  García " -> "gabriel garcia")
+     */
+    public static String normalizar(String texto) {
+        return String.join(" ", tokenizar(texto));
+    }
+
+    /**
+     * Minuscula sin acento. Los caracteres del español se resuelven con un
+     * switch; el resto pasa por Normalizer (mas lento pero poco frecuente)
+     */
+    static char plegar(char c) {
+        if (c < 0x80) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + 32) : c;
+        }
+        switch (c) {
+            case 'á': case 'Á': case 'à': case 'À': case 'ä': case 'Ä': case 'â': case 'Â': return 'a';
+            case 'é': case 'É': case 'è': case 'È': case 'ë': case 'Ë': case 'ê': case 'Ê': return 'e';
+            case 'í': case 'Í': case 'ì': case 'Ì': case 'ï': case 'Ï': case 'î': case 'Î': return 'i';
+            case 'ó': case 'Ó': case 'ò': case 'Ò': case 'ö': case 'Ö': case 'ô': case 'Ô': return 'o';
+            case 'ú': case 'Ú': case 'ù': case 'Ù': case 'ü': case 'Ü': case 'û': case 'Û': return 'u';
+            case 'ñ': case 'Ñ': return 'n';
+            case 'ç': case 'Ç': return 'c';
+            default:
+                String descompuesto = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                return Character.toLowerCase(descompuesto.charAt(0));
+        }
+    }
+}
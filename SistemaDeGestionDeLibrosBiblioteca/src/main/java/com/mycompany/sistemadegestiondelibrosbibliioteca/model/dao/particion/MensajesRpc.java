@@ -0,0 +1,138 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MensajesRpc - Formato binario de las peticiones y respuestas a una particion
+ *
+ * Peticion: operacion (byte) y sus argumentos. Respuesta: estado (byte) y el
+ * resultado, o los datos del error. Todo en big-endian con DataOutputStream;
+ * los valores que pueden ser null llevan antes un byte 0 (null) o 1.
+ * Libro: id, version, titulo, autor, anoPublicacion, disponible.
+ * Los strings van como largo en bytes (int) seguido de UTF-8.
+ */
+final class MensajesRpc {
+    // Operaciones (una por metodo de Particion)
+    static final byte BUSCAR = 1;
+    static final byte BUSCAR_VARIOS = 2;
+    static final byte GUARDAR = 3;
+    static final byte GUARDAR_TODOS = 4;
+    static final byte ACTUALIZAR = 5;
+    static final byte PAGINA = 6;
+    static final byte FILTRAR = 7;
+    static final byte CANTIDAD = 8;
+
+    // Estados de la respuesta
+    static final byte OK = 0;
+    // Seguido de libroId, versionEsperada y versionActual (ConflictoVersionException)
+    static final byte CONFLICTO = 1;
+    // Seguido del mensaje (IllegalArgumentException)
+    static final byte INVALIDO = 2;
+    // Seguido del mensaje (cualquier otra falla)
+    static final byte ERROR = 3;
+
+    private MensajesRpc() {
+    }
+
+    static DataOutputStream salida(ByteArrayOutputStream bytes) {
+        return new DataOutputStream(bytes);
+    }
+
+    static DataInputStream entrada(byte[] mensaje) {
+        return new DataInputStream(new ByteArrayInputStream(mensaje));
+    }
+
+    static void escribirLibro(DataOutputStream salida, Libro libro) throws IOException {
+        salida.writeBoolean(libro != null);
+        if (libro == null) {
+            return;
+        }
+        escribirLong(salida, libro.getId());
+        salida.writeLong(libro.getVersion());
+        escribirString(salida, libro.getTitulo());
+        escribirString(salida, libro.getAutor());
+        escribirInteger(salida, libro.getAnoPublicacion());
+        salida.writeBoolean(libro.getDisponible() != null);
+        if (libro.getDisponible() != null) {
+            salida.writeBoolean(libro.getDisponible());
+        }
+    }
+
+    static Libro leerLibro(DataInputStream entrada) throws IOException {
+        if (!entrada.readBoolean()) {
+            return null;
+        }
+        Long id = leerLong(entrada);
+        long version = entrada.readLong();
+        String titulo = leerString(entrada);
+        String autor = leerString(entrada);
+        Integer ano = leerInteger(entrada);
+        Boolean disponible = entrada.readBoolean() ? entrada.readBoolean() : null;
+        return new Libro(id, titulo, autor, ano, disponible, version);
+    }
+
+    static void escribirLibros(DataOutputStream salida, List<Libro> libros) throws IOException {
+        salida.writeInt(libros.size());
+        for (Libro libro : libros) {
+            escribirLibro(salida, libro);
+        }
+    }
+
+    static List<Libro> leerLibros(DataInputStream entrada) throws IOException {
+        int cantidad = entrada.readInt();
+        List<Libro> libros = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            libros.add(leerLibro(entrada));
+        }
+        return libros;
+    }
+
+    static void escribirString(DataOutputStream salida, String valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            salida.writeInt(bytes.length);
+            salida.write(bytes);
+        }
+    }
+
+    static String leerString(DataInputStream entrada) throws IOException {
+        if (!entrada.readBoolean()) {
+            return null;
+        }
+        byte[] bytes = new byte[entrada.readInt()];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void escribirInteger(DataOutputStream salida, Integer valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeInt(valor);
+        }
+    }
+
+    static Integer leerInteger(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readInt() : null;
+    }
+
+    static void escribirLong(DataOutputStream salida, Long valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeLong(valor);
+        }
+    }
+
+    static Long leerLong(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readLong() : null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.List;
+
+/**
+ * Particion - Una parte del catalogo, con sus propios libros, indices e IDs
+ *
+ * Con N particiones, la numero k (desde 0) tiene los IDs que cumplen
+ * (id - 1) % N == k, y los libros nuevos que crea reciben IDs de esa clase:
+ * k + 1, k + 1 + N, k + 1 + 2N... Asi con saber el ID se sabe la particion
+ * sin preguntarle a ninguna.
+ *
+ * Los metodos solo reciben y retornan valores (nada de streams ni callbacks)
+ * para que la particion pueda estar en otro proceso (ver ParticionRemota).
+ * Los libros retornados pueden ser copias: los cambios no se ven en la particion.
+ */
+public interface Particion {
+
+    /**
+     * Libro del ID, o null si no esta
+     */
+    Libro buscar(long id);
+
+    /**
+     * Los libros de esos IDs que existen, en el orden de 'ids'
+     */
+    List<Libro> buscarVarios(List<Long> ids);
+
+    /**
+     * Guarda el libro: sin ID recibe uno de la particion y la version 1; con
+     * ID queda como la version siguiente a la guardada (el ultimo gana)
+     * @return El libro guardado, con ID y version
+     * @throws IllegalArgumentException si el ID es de otra particion
+     */
+    Libro guardar(Libro libro);
+
+    /**
+     * Guarda varios libros (ver guardar)
+     * @return Los libros guardados, en el mismo orden
+     */
+    List<Libro> guardarTodos(List<Libro> libros);
+
+    /**
+     * Compare-and-set por version, como LibroDAO.update
+     * @return El libro guardado (con versionEsperada + 1), o null si el ID no existe
+     * @throws com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException
+     *         Si otra escritura ya cambio la version
+     */
+    Libro actualizar(Libro libro, long versionEsperada);
+
+    /**
+     * Como mucho 'limite' libros con ID mayor a 'despuesDeId', ordenados por ID
+     */
+    List<Libro> pagina(long despuesDeId, int limite);
+
+    /**
+     * Libros que cumplen los filtros que no son null, ordenados por ID, como mucho 'limite'
+     * @throws IllegalArgumentException si no hay ningun filtro
+     */
+    List<Libro> filtrar(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite);
+
+    long cantidad();
+
+    /**
+     * Particion de un ID cuando hay 'total' particiones
+     */
+    static int deId(long id, int total) {
+        return (int) Math.floorMod(id - 1, (long) total);
+    }
+}
@@ -0,0 +1,191 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.almacen.AlmacenLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice.IndicesLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.indice.MapaBits;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ParticionLocal - Particion en memoria de este proceso
+ *
+ * Es un LibroDAO en chico y sin persistencia: su propio AlmacenLibros (del
+ * tipo de -Dbiblioteca.almacen), su MapaBits de IDs para listar en orden y
+ * sus IndicesLibros, con sus propios locks. Dos particiones no comparten
+ * nada, asi las escrituras de una no frenan a las de otra.
+ */
+public final class ParticionLocal implements Particion {
+    // Version "todavia no guardado", como en LibroDAO
+    private static final long SIN_VERSION = 0;
+
+    private final int numero;
+    private final int total;
+    private final AlmacenLibros almacen = AlmacenLibros.configurado();
+    private final MapaBits ids = new MapaBits();
+    private final IndicesLibros indices = new IndicesLibros();
+    // Proximo indice dentro de la clase de IDs de la particion: ID = numero + 1 + indice * total
+    private final AtomicLong siguienteIndice = new AtomicLong();
+
+    /**
+     * @param numero Numero de la particion, de 0 a total - 1
+     * @param total Cantidad de particiones
+     */
+    public ParticionLocal(int numero, int total) {
+        if (total < 1 || numero < 0 || numero >= total) {
+            throw new IllegalArgumentException("Partición inválida: " + numero + " de " + total);
+        }
+        this.numero = numero;
+        this.total = total;
+    }
+
+    @Override
+    public Libro buscar(long id) {
+        return almacen.obtener(id);
+    }
+
+    @Override
+    public List<Libro> buscarVarios(List<Long> ids) {
+        List<Libro> encontrados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Libro libro = id == null ? null : almacen.obtener(id);
+            if (libro != null) {
+                encontrados.add(libro);
+            }
+        }
+        return encontrados;
+    }
+
+    @Override
+    public Libro guardar(Libro libro) {
+        if (libro.getId() == null) {
+            libro.setId(numero + 1 + siguienteIndice.getAndIncrement() * total);
+            libro.setVersion(1);
+            publicarNuevo(libro);
+        } else {
+            long id = verificarId(libro.getId());
+            // El ID dado no se vuelve a entregar
+            siguienteIndice.accumulateAndGet((id - 1) / total + 1, Math::max);
+            publicarSiguienteVersion(libro);
+        }
+        indices.indexar(libro);
+        return libro;
+    }
+
+    @Override
+    public List<Libro> guardarTodos(List<Libro> libros) {
+        for (Libro libro : libros) {
+            if (libro.getId() != null) {
+                verificarId(libro.getId());
+            }
+        }
+        for (Libro libro : libros) {
+            guardar(libro);
+        }
+        return libros;
+    }
+
+    @Override
+    public Libro actualizar(Libro libro, long versionEsperada) {
+        if (libro.getId() == null) {
+            throw new IllegalArgumentException("El libro a actualizar necesita ID");
+        }
+        long id = verificarId(libro.getId());
+        Libro anterior = almacen.obtener(id);
+        if (anterior == null) {
+            return null;
+        }
+        // Con SIN_VERSION el compare-and-set crearia el libro: actualizar nunca crea
+        if (versionEsperada == SIN_VERSION || anterior.getVersion() != versionEsperada
+                || !almacen.reemplazarSiVersion(libro, versionEsperada)) {
+            Libro actual = almacen.obtener(id);
+            if (actual == null) {
+                return null;
+            }
+            throw new ConflictoVersionException(id, versionEsperada, actual.getVersion());
+        }
+        indices.indexar(libro);
+        return libro;
+    }
+
+    @Override
+    public List<Libro> pagina(long despuesDeId, int limite) {
+        List<Libro> pagina = new ArrayList<>(Math.min(limite, 1024));
+        long id = ids.siguiente(despuesDeId + 1);
+        while (id >= 0 && pagina.size() < limite) {
+            Libro libro = almacen.obtener(id);
+            if (libro != null) {
+                pagina.add(libro);
+            }
+            id = ids.siguiente(id + 1);
+        }
+        return pagina;
+    }
+
+    @Override
+    public List<Libro> filtrar(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite) {
+        List<MapaBits> conjuntos = new ArrayList<>();
+        if (anoDesde != null || anoHasta != null) {
+            conjuntos.add(indices.idsPorRangoDeAnos(
+                    anoDesde == null ? IndicesLibros.ANO_MINIMO : anoDesde,
+                    anoHasta == null ? IndicesLibros.ANO_MAXIMO : anoHasta));
+        }
+        if (autor != null) {
+            conjuntos.add(indices.idsPorAutor(autor));
+        }
+        if (disponible != null) {
+            conjuntos.add(indices.idsPorDisponibilidad(disponible));
+        }
+        if (conjuntos.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un filtro");
+        }
+        List<Libro> libros = new ArrayList<>();
+        for (Long id : MapaBits.interseccion(conjuntos).primeros(limite)) {
+            Libro libro = almacen.obtener(id);
+            if (libro != null) {
+                libros.add(libro);
+            }
+        }
+        return libros;
+    }
+
+    @Override
+    public long cantidad() {
+        return almacen.cantidad();
+    }
+
+    private long verificarId(long id) {
+        if (id <= 0 || Particion.deId(id, total) != numero) {
+            throw new IllegalArgumentException("El ID " + id + " no es de la partición " + numero);
+        }
+        return id;
+    }
+
+    private void publicarNuevo(Libro libro) {
+        if (almacen.guardar(libro)) {
+            ids.agregar(libro.getId());
+        }
+    }
+
+    /**
+     * Compare-and-set contra la version guardada hasta ganar (como LibroDAO.save)
+     */
+    private void publicarSiguienteVersion(Libro libro) {
+        long id = libro.getId();
+        while (true) {
+            Libro actual = almacen.obtener(id);
+            if (actual == null) {
+                libro.setVersion(1);
+                if (almacen.agregarSiAusente(libro)) {
+                    ids.agregar(id);
+                    return;
+                }
+            } else if (almacen.reemplazarSiVersion(libro, actual.getVersion())) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * ParticionRemota - Particion que se usa a traves de un TransporteRpc
+ *
+ * Cada metodo codifica la llamada (ver MensajesRpc), la envia y decodifica la
+ * respuesta. Los libros retornados son copias nuevas; los errores del otro
+ * lado se vuelven a lanzar con el mismo tipo (ConflictoVersionException,
+ * IllegalArgumentException) o como IllegalStateException.
+ */
+public final class ParticionRemota implements Particion, AutoCloseable {
+    private final TransporteRpc transporte;
+
+    public ParticionRemota(TransporteRpc transporte) {
+        this.transporte = transporte;
+    }
+
+    /**
+     * Particion local detras de un TransporteEnProceso, como si fuera de otro proceso
+     */
+    public static ParticionRemota enProceso(int numero, int total, int hilos) {
+        ServidorParticion servidor = new ServidorParticion(new ParticionLocal(numero, total));
+        return new ParticionRemota(new TransporteEnProceso(servidor, "particion-" + numero + "-", hilos));
+    }
+
+    @Override
+    public Libro buscar(long id) {
+        return llamar(MensajesRpc.BUSCAR, salida -> salida.writeLong(id), MensajesRpc::leerLibro);
+    }
+
+    @Override
+    public List<Libro> buscarVarios(List<Long> ids) {
+        return llamar(MensajesRpc.BUSCAR_VARIOS, salida -> {
+            salida.writeInt(ids.size());
+            for (long id : ids) {
+                salida.writeLong(id);
+            }
+        }, MensajesRpc::leerLibros);
+    }
+
+    @Override
+    public Libro guardar(Libro libro) {
+        return llamar(MensajesRpc.GUARDAR, salida -> MensajesRpc.escribirLibro(salida, libro), MensajesRpc::leerLibro);
+    }
+
+    @Override
+    public List<Libro> guardarTodos(List<Libro> libros) {
+        return llamar(MensajesRpc.GUARDAR_TODOS, salida -> MensajesRpc.escribirLibros(salida, libros),
+                MensajesRpc::leerLibros);
+    }
+
+    @Override
+    public Libro actualizar(Libro libro, long versionEsperada) {
+        return llamar(MensajesRpc.ACTUALIZAR, salida -> {
+            MensajesRpc.escribirLibro(salida, libro);
+            salida.writeLong(versionEsperada);
+        }, MensajesRpc::leerLibro);
+    }
+
+    @Override
+    public List<Libro> pagina(long despuesDeId, int limite) {
+        return llamar(MensajesRpc.PAGINA, salida -> {
+            salida.writeLong(despuesDeId);
+            salida.writeInt(limite);
+        }, MensajesRpc::leerLibros);
+    }
+
+    @Override
+    public List<Libro> filtrar(Integer anoDesde, Integer anoHasta, String autor, Boolean disponible, int limite) {
+        return llamar(MensajesRpc.FILTRAR, salida -> {
+            MensajesRpc.escribirInteger(salida, anoDesde);
+            MensajesRpc.escribirInteger(salida, anoHasta);
+            MensajesRpc.escribirString(salida, autor);
+            salida.writeBoolean(disponible != null);
+            if (disponible != null) {
+                salida.writeBoolean(disponible);
+            }
+            salida.writeInt(limite);
+        }, MensajesRpc::leerLibros);
+    }
+
+    @Override
+    public long cantidad() {
+        return llamar(MensajesRpc.CANTIDAD, salida -> { }, DataInputStream::readLong);
+    }
+
+    @Override
+    public void close() {
+        transporte.close();
+    }
+
+    private <T> T llamar(byte operacion, Escritor argumentos, Lector<T> resultado) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream salida = MensajesRpc.salida(bytes);
+            salida.writeByte(operacion);
+            argumentos.escribir(salida);
+            salida.flush();
+
+            DataInputStream entrada = MensajesRpc.entrada(transporte.enviar(bytes.toByteArray()));
+            byte estado = entrada.readByte();
+            switch (estado) {
+                case MensajesRpc.OK:
+                    return resultado.leer(entrada);
+                case MensajesRpc.CONFLICTO:
+                    throw new ConflictoVersionException(entrada.readLong(), entrada.readLong(), entrada.readLong());
+                case MensajesRpc.INVALIDO:
+                    throw new IllegalArgumentException(MensajesRpc.leerString(entrada));
+                default:
+                    throw new IllegalStateException("Error en la partición: " + MensajesRpc.leerString(entrada));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Respuesta de la partición inválida", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Escritor {
+        void escribir(DataOutputStream salida) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Lector<T> {
+        T leer(DataInputStream entrada) throws IOException;
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ServidorParticion - Lado de la particion en una llamada remota
+ *
+ * Decodifica la peticion (ver MensajesRpc), llama a la particion y codifica
+ * el resultado. Las excepciones no cruzan: viajan como un estado y un mensaje
+ * en la respuesta, y ParticionRemota las vuelve a lanzar del otro lado.
+ * Es lo que correria el proceso de cada particion detras de su transporte.
+ */
+public final class ServidorParticion {
+    private final Particion particion;
+
+    public ServidorParticion(Particion particion) {
+        this.particion = particion;
+    }
+
+    /**
+     * Atiende una peticion y retorna la respuesta codificada
+     */
+    public byte[] atender(byte[] peticion) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream salida = MensajesRpc.salida(bytes);
+        try {
+            try {
+                byte[] resultado = ejecutar(MensajesRpc.entrada(peticion));
+                salida.writeByte(MensajesRpc.OK);
+                salida.write(resultado);
+            } catch (ConflictoVersionException e) {
+                salida.writeByte(MensajesRpc.CONFLICTO);
+                salida.writeLong(e.getLibroId());
+                salida.writeLong(e.getVersionEsperada());
+                salida.writeLong(e.getVersionActual());
+            } catch (IllegalArgumentException e) {
+                salida.writeByte(MensajesRpc.INVALIDO);
+                MensajesRpc.escribirString(salida, e.getMessage());
+            } catch (RuntimeException | IOException e) {
+                salida.writeByte(MensajesRpc.ERROR);
+                MensajesRpc.escribirString(salida, String.valueOf(e.getMessage()));
+            }
+            salida.flush();
+        } catch (IOException e) {
+            // Escribir en memoria no falla
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] ejecutar(DataInputStream entrada) throws IOException {
+        byte operacion = entrada.readByte();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream salida = MensajesRpc.salida(bytes);
+        switch (operacion) {
+            case MensajesRpc.BUSCAR:
+                MensajesRpc.escribirLibro(salida, particion.buscar(entrada.readLong()));
+                break;
+            case MensajesRpc.BUSCAR_VARIOS: {
+                int cantidad = entrada.readInt();
+                List<Long> ids = new ArrayList<>(cantidad);
+                for (int i = 0; i < cantidad; i++) {
+                    ids.add(entrada.readLong());
+                }
+                MensajesRpc.escribirLibros(salida, particion.buscarVarios(ids));
+                break;
+            }
+            case MensajesRpc.GUARDAR:
+                MensajesRpc.escribirLibro(salida, particion.guardar(MensajesRpc.leerLibro(entrada)));
+                break;
+            case MensajesRpc.GUARDAR_TODOS:
+                MensajesRpc.escribirLibros(salida, particion.guardarTodos(MensajesRpc.leerLibros(entrada)));
+                break;
+            case MensajesRpc.ACTUALIZAR:
+                // Los argumentos se leen de izquierda a derecha, en el orden de la peticion
+                MensajesRpc.escribirLibro(salida,
+                        particion.actualizar(MensajesRpc.leerLibro(entrada), entrada.readLong()));
+                break;
+            case MensajesRpc.PAGINA:
+                MensajesRpc.escribirLibros(salida, particion.pagina(entrada.readLong(), entrada.readInt()));
+                break;
+            case MensajesRpc.FILTRAR:
+                MensajesRpc.escribirLibros(salida, particion.filtrar(MensajesRpc.leerInteger(entrada),
+                        MensajesRpc.leerInteger(entrada), MensajesRpc.leerString(entrada),
+                        entrada.readBoolean() ? entrada.readBoolean() : null, entrada.readInt()));
+                break;
+            case MensajesRpc.CANTIDAD:
+                salida.writeLong(particion.cantidad());
+                break;
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + operacion);
+        }
+        salida.flush();
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,50 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * TransporteEnProceso - Hace de cuenta que la particion esta en otro proceso
+ *
+ * La particion solo recibe y devuelve bytes, y la atienden sus propios hilos
+ * (como el proceso que la tendria): quien llama no comparte ningun objeto con
+ * ella y paga la codificacion y el cambio de hilo de cada llamada. Sirve para
+ * medir y probar el camino remoto antes de tener la red.
+ */
+public final class TransporteEnProceso implements TransporteRpc {
+    private final ServidorParticion servidor;
+    private final ExecutorService hilos;
+
+    /**
+     * @param nombre Prefijo de los hilos que atienden (por ejemplo "particion-3-")
+     * @param hilos Peticiones que se atienden a la vez
+     */
+    public TransporteEnProceso(ServidorParticion servidor, String nombre, int hilos) {
+        if (hilos < 1) {
+            throw new IllegalArgumentException("Cantidad de hilos inválida: " + hilos);
+        }
+        this.servidor = servidor;
+        // Daemon: no hace falta cerrarlo para que termine la aplicacion
+        this.hilos = Executors.newFixedThreadPool(hilos, Thread.ofPlatform().name(nombre, 1).daemon().factory());
+    }
+
+    @Override
+    public byte[] enviar(byte[] peticion) {
+        // La peticion se copia: del otro lado no se ve el array de quien llama
+        byte[] copia = peticion.clone();
+        try {
+            return hilos.submit(() -> servidor.atender(copia)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Se interrumpió la llamada a la partición", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falló la llamada a la partición", e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        hilos.shutdown();
+    }
+}
@@ -0,0 +1,20 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.particion;
+
+/**
+ * TransporteRpc - Lleva una peticion codificada a una particion y trae la respuesta
+ *
+ * Es lo unico que cambia entre una particion en este proceso (TransporteEnProceso)
+ * y una en otro proceso o maquina: un socket o un pipe implementan esto mismo
+ * y del otro lado le pasan los bytes a un ServidorParticion.
+ */
+public interface TransporteRpc extends AutoCloseable {
+
+    /**
+     * Envia la peticion y espera la respuesta
+     * @throws IllegalStateException si no se pudo llegar a la particion
+     */
+    byte[] enviar(byte[] peticion);
+
+    @Override
+    void close();
+}
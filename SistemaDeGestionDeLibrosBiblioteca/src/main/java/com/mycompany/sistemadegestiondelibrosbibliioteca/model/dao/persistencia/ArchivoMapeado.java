@@ -0,0 +1,96 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ArchivoMapeado - Archivo de solo lectura mapeado en tramos
+ *
+ * Un MappedByteBuffer no puede pasar de 2 GB, asi que el archivo se mapea en
+ * tramos de 'bytesPorTramo' y las posiciones son long. Un int o long que cae
+ * justo en el borde entre dos tramos se arma byte por byte (big-endian, como
+ * lo escribe DataOutputStream).
+ */
+final class ArchivoMapeado {
+    static final int BYTES_POR_TRAMO = 1 << 30;
+
+    private final MappedByteBuffer[] tramos;
+    private final int bitsPorTramo;
+    private final long mascara;
+    private final long largo;
+
+    private ArchivoMapeado(MappedByteBuffer[] tramos, int bitsPorTramo, long largo) {
+        this.tramos = tramos;
+        this.bitsPorTramo = bitsPorTramo;
+        this.mascara = (1L << bitsPorTramo) - 1;
+        this.largo = largo;
+    }
+
+    /**
+     * @param bytesPorTramo Potencia de 2 (BYTES_POR_TRAMO salvo para probar los bordes)
+     */
+    static ArchivoMapeado abrir(Path archivo, int bytesPorTramo) throws IOException {
+        if (Integer.bitCount(bytesPorTramo) != 1) {
+            throw new IllegalArgumentException("El tramo debe ser una potencia de 2: " + bytesPorTramo);
+        }
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long largo = canal.size();
+            int cantidad = (int) ((largo + bytesPorTramo - 1) / bytesPorTramo);
+            MappedByteBuffer[] tramos = new MappedByteBuffer[cantidad];
+            for (int i = 0; i < cantidad; i++) {
+                long inicio = (long) i * bytesPorTramo;
+                // El mapeo sigue valido despues de cerrar el canal
+                tramos[i] = canal.map(FileChannel.MapMode.READ_ONLY, inicio, Math.min(bytesPorTramo, largo - inicio));
+            }
+            return new ArchivoMapeado(tramos, Integer.numberOfTrailingZeros(bytesPorTramo), largo);
+        }
+    }
+
+    long largo() {
+        return largo;
+    }
+
+    byte get(long posicion) {
+        return tramos[(int) (posicion >>> bitsPorTramo)].get((int) (posicion & mascara));
+    }
+
+    int getInt(long posicion) {
+        MappedByteBuffer tramo = tramos[(int) (posicion >>> bitsPorTramo)];
+        int desde = (int) (posicion & mascara);
+        if (desde + Integer.BYTES <= tramo.capacity()) {
+            return tramo.getInt(desde);
+        }
+        int valor = 0;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            valor = (valor << 8) | (get(posicion + i) & 0xFF);
+        }
+        return valor;
+    }
+
+    long getLong(long posicion) {
+        MappedByteBuffer tramo = tramos[(int) (posicion >>> bitsPorTramo)];
+        int desde = (int) (posicion & mascara);
+        if (desde + Long.BYTES <= tramo.capacity()) {
+            return tramo.getLong(desde);
+        }
+        return ((long) getInt(posicion) << 32) | (getInt(posicion + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Copia bytes.length bytes desde la posicion, aunque crucen de tramo
+     */
+    void get(long posicion, byte[] bytes) {
+        int copiados = 0;
+        while (copiados < bytes.length) {
+            long actual = posicion + copiados;
+            MappedByteBuffer tramo = tramos[(int) (actual >>> bitsPorTramo)];
+            int desde = (int) (actual & mascara);
+            int cantidad = Math.min(bytes.length - copiados, tramo.capacity() - desde);
+            tramo.get(desde, bytes, copiados, cantidad);
+            copiados += cantidad;
+        }
+    }
+}
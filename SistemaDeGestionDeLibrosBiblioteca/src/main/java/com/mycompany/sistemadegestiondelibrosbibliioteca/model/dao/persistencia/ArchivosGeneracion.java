@@ -0,0 +1,59 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ArchivosGeneracion - Busca los archivos "{prefijo}{generacion}{extension}" de
+ * un directorio, y hace durables sus entradas (crear, renombrar, borrar)
+ */
+final class ArchivosGeneracion {
+
+    private ArchivosGeneracion() {
+    }
+
+    /**
+     * @return Generaciones encontradas, de menor a mayor
+     */
+    static List<Long> listar(Path directorio, String prefijo, String extension) throws IOException {
+        List<Long> generaciones = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, prefijo + "*" + extension)) {
+            for (Path archivo : archivos) {
+                String nombre = archivo.getFileName().toString();
+                String numero = nombre.substring(prefijo.length(), nombre.length() - extension.length());
+                try {
+                    generaciones.add(Long.parseLong(numero));
+                } catch (NumberFormatException ignorada) {
+                    // No es un archivo nuestro
+                }
+            }
+        }
+        Collections.sort(generaciones);
+        return generaciones;
+    }
+
+    /**
+     * fsync del directorio: un archivo creado o renombrado no sobrevive a una
+     * caida hasta que su entrada en el directorio es durable
+     */
+    static void sincronizarDirectorio(Path directorio) throws IOException {
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(directorio, StandardOpenOption.READ);
+        } catch (AccessDeniedException sinSoporte) {
+            // Windows no deja abrir un directorio; ahi el rename ya es durable
+            return;
+        }
+        try (canal) {
+            canal.force(true);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CodificadorLibro - Formato binario de un Libro en el log y en el snapshot
+ *
+ * id (long) | anoPublicacion (int) | disponible (byte) | titulo | autor | version (long)
+ * Los strings van como largo en bytes (int, -1 si es null) seguido de UTF-8.
+ * La version va al final: los registros viejos, que terminan en el autor, se
+ * leen con version 1
+ */
+final class CodificadorLibro {
+    // Marcas para representar los campos nulos de la entidad
+    private static final int ANO_NULO = Integer.MIN_VALUE;
+    private static final byte DISPONIBLE_NULO = 2;
+    private static final long VERSION_SIN_DATO = 1;
+
+    private CodificadorLibro() {
+    }
+
+    static byte[] codificar(Libro libro) {
+        byte[] titulo = bytes(libro.getTitulo());
+        byte[] autor = bytes(libro.getAutor());
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 4 + 1 + 4 + largo(titulo) + 4 + largo(autor) + 8);
+        buffer.putLong(libro.getId());
+        buffer.putInt(libro.getAnoPublicacion() == null ? ANO_NULO : libro.getAnoPublicacion());
+        buffer.put(libro.getDisponible() == null ? DISPONIBLE_NULO : (byte) (libro.getDisponible() ? 1 : 0));
+        escribirBytes(buffer, titulo);
+        escribirBytes(buffer, autor);
+        buffer.putLong(libro.getVersion());
+        return buffer.array();
+    }
+
+    static Libro decodificar(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        int ano = buffer.getInt();
+        byte disponible = buffer.get();
+        String titulo = leerString(buffer);
+        String autor = leerString(buffer);
+        long version = buffer.remaining() >= 8 ? buffer.getLong() : VERSION_SIN_DATO;
+        return new Libro(id, titulo, autor,
+                ano == ANO_NULO ? null : ano,
+                disponible == DISPONIBLE_NULO ? null : disponible == 1,
+                version);
+    }
+
+    private static byte[] bytes(String valor) {
+        return valor == null ? null : valor.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int largo(byte[] valor) {
+        return valor == null ? 0 : valor.length;
+    }
+
+    private static void escribirBytes(ByteBuffer buffer, byte[] valor) {
+        if (valor == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(valor.length);
+            buffer.put(valor);
+        }
+    }
+
+    private static String leerString(ByteBuffer buffer) {
+        int largo = buffer.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        String valor = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), largo, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + largo);
+        return valor;
+    }
+}
@@ -0,0 +1,94 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+/**
+ * LibroMapeado - Libro que lee sus campos del snapshot mapeado en memoria
+ * Solo guarda la posicion; los strings se decodifican cuando se piden.
+ * Si se usa un setter, ese campo pasa a vivir en el objeto como en un Libro comun
+ */
+final class LibroMapeado extends Libro {
+    private static final int TITULO = 1;
+    private static final int AUTOR = 1 << 1;
+    private static final int ANO = 1 << 2;
+    private static final int DISPONIBLE = 1 << 3;
+    private static final int VERSION = 1 << 4;
+
+    private final SnapshotLibros snapshot;
+    private final int posicion;
+    // Campos que ya fueron modificados con un setter
+    private int modificados;
+
+    LibroMapeado(SnapshotLibros snapshot, int posicion) {
+        this.snapshot = snapshot;
+        this.posicion = posicion;
+        super.setId(snapshot.id(posicion));
+    }
+
+    @Override
+    public String getTitulo() {
+        return (modificados & TITULO) != 0 ? super.getTitulo() : snapshot.titulo(posicion);
+    }
+
+    @Override
+    public void setTitulo(String titulo) {
+        modificados |= TITULO;
+        super.setTitulo(titulo);
+    }
+
+    @Override
+    public String getAutor() {
+        return (modificados & AUTOR) != 0 ? super.getAutor() : snapshot.autor(posicion);
+    }
+
+    @Override
+    public void setAutor(String autor) {
+        modificados |= AUTOR;
+        super.setAutor(autor);
+    }
+
+    @Override
+    public Integer getAnoPublicacion() {
+        return (modificados & ANO) != 0 ? super.getAnoPublicacion() : snapshot.anoPublicacion(posicion);
+    }
+
+    @Override
+    public void setAnoPublicacion(Integer anoPublicacion) {
+        modificados |= ANO;
+        super.setAnoPublicacion(anoPublicacion);
+    }
+
+    @Override
+    public Boolean getDisponible() {
+        return (modificados & DISPONIBLE) != 0 ? super.getDisponible() : snapshot.disponible(posicion);
+    }
+
+    @Override
+    public void setDisponible(Boolean disponible) {
+        modificados |= DISPONIBLE;
+        super.setDisponible(disponible);
+    }
+
+    @Override
+    public long getVersion() {
+        return (modificados & VERSION) != 0 ? super.getVersion() : snapshot.version(posicion);
+    }
+
+    @Override
+    public void setVersion(long version) {
+        modificados |= VERSION;
+        super.setVersion(version);
+    }
+
+    @Override
+    public String toString() {
+        return "Libro{" + 
+                "id=" + getId() + 
+                ", titulo='" + getTitulo() + '\'' + 
+                ", autor='" + getAutor() + '\'' + 
+                ", anoPublicacion=" + getAnoPublicacion() + 
+                ", disponible=" + getDisponible() + 
+                ", version=" + getVersion() + 
+                '}';
+    }
+}
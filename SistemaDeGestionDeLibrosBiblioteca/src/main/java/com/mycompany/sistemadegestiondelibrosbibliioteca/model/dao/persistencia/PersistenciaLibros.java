@@ -0,0 +1,253 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * PersistenciaLibros - Modo durable del LibroDAO
+ *
+ * Cada save se agrega al write-ahead log (RegistroEscritura) y recien
+ * cuando es durable se publica en el catalogo (ver registrar): si el log
+ * falla, nadie llega a ver el cambio. Cuando el log acumula suficientes
+ * registros se compacta en un snapshot columnar (SnapshotLibros) y se borran
+ * los segmentos que ya quedaron dentro.
+ * Al iniciar se mapea el ultimo snapshot (sin leerlo) y se reproduce la cola del log.
+ */
+public final class PersistenciaLibros implements AutoCloseable {
+    private final Path directorio;
+    private final RegistroEscritura registro;
+    private final Supplier<Iterable<Libro>> catalogo;
+    private final long registrosPorSnapshot;
+    // Snapshot mapeado al iniciar (null si todavia no habia ninguno)
+    private final SnapshotLibros snapshot;
+
+    private final AtomicLong registrosDesdeSnapshot = new AtomicLong();
+    private final AtomicBoolean compactando = new AtomicBoolean();
+    // Compactaciones en segundo plano que fallaron, y el error de la ultima
+    private final AtomicLong compactacionesFallidas = new AtomicLong();
+    private volatile Exception ultimoErrorDeCompactacion;
+    // Los registrar la toman para leer mientras escriben y publican; compactar
+    // la toma para escribir solo mientras rota el log
+    private final ReentrantReadWriteLock barrera = new ReentrantReadWriteLock();
+
+    // Estadisticas de la recuperacion al iniciar
+    private final long librosRecuperados;
+    private final long milisRecuperacion;
+
+    private PersistenciaLibros(Path directorio, RegistroEscritura registro, Supplier<Iterable<Libro>> catalogo,
+                               long registrosPorSnapshot, SnapshotLibros snapshot,
+                               long librosRecuperados, long milisRecuperacion) {
+        this.directorio = directorio;
+        this.registro = registro;
+        this.catalogo = catalogo;
+        this.registrosPorSnapshot = registrosPorSnapshot;
+        this.snapshot = snapshot;
+        this.librosRecuperados = librosRecuperados;
+        this.milisRecuperacion = milisRecuperacion;
+    }
+
+    /**
+     * Recupera el catalogo guardado en el directorio y deja el log listo para escribir
+     * @param directorio Carpeta de los snapshots y segmentos del log (se crea si no existe)
+     * @param destino Recibe cada libro reproducido del log, en orden (el ultimo de cada ID gana).
+     *                Los libros del snapshot no pasan por aqui, se consultan con getSnapshot()
+     * @param catalogo Entrega el estado actual completo (snapshot + cambios), ordenado por ID,
+     *                 para el proximo snapshot. Se recorre una sola vez y sin copiarlo
+     * @param registrosPorSnapshot Registros agregados al log que disparan una compactacion
+     * @param fsync Si es false no se hace fsync (mas rapido pero no sobrevive a un corte de luz)
+     */
+    public static PersistenciaLibros abrir(Path directorio, Consumer<Libro> destino,
+                                           Supplier<Iterable<Libro>> catalogo,
+                                           long registrosPorSnapshot, boolean fsync) throws IOException {
+        long inicio = System.nanoTime();
+        Files.createDirectories(directorio);
+
+        // 1. Ultimo snapshot completo, solo se mapea
+        List<Long> snapshots = SnapshotLibros.generaciones(directorio);
+        long base = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        long recuperados = 0;
+        SnapshotLibros snapshot = null;
+        if (base > 0) {
+            snapshot = SnapshotLibros.abrir(SnapshotLibros.archivo(directorio, base));
+            recuperados += snapshot.cantidad();
+        }
+
+        // 2. Cola del log: todos los segmentos desde la generacion del snapshot
+        List<Long> segmentos = RegistroEscritura.generaciones(directorio);
+        long ultima = base;
+        for (long generacion : segmentos) {
+            if (generacion >= base) {
+                recuperados += RegistroEscritura.reproducir(RegistroEscritura.segmento(directorio, generacion), destino);
+            }
+            ultima = Math.max(ultima, generacion);
+        }
+
+        // Siempre se escribe en un segmento nuevo, los recuperados no se tocan mas
+        RegistroEscritura registro = new RegistroEscritura(directorio, ultima + 1, fsync);
+        PersistenciaLibros persistencia = new PersistenciaLibros(directorio, registro, catalogo,
+                registrosPorSnapshot, snapshot, recuperados, (System.nanoTime() - inicio) / 1_000_000);
+        persistencia.borrarAnteriores(base);
+        return persistencia;
+    }
+
+    /**
+     * Hace durable el libro y despues lo publica; retorna cuando su registro
+     * ya tuvo fsync y 'publicar' termino. Si el log falla lanza la excepcion
+     * sin llamar a 'publicar'.
+     * Una rotacion del log espera a los registrar en curso, asi todo lo que
+     * quedo en un segmento viejo ya esta publicado cuando se escribe el snapshot
+     * @param publicar Deja el libro visible en el catalogo
+     */
+    public void registrar(Libro libro, Runnable publicar) {
+        barrera.readLock().lock();
+        try {
+            registro.agregar(libro);
+            publicar.run();
+        } finally {
+            barrera.readLock().unlock();
+        }
+        if (registrosDesdeSnapshot.incrementAndGet() >= registrosPorSnapshot) {
+            compactarEnSegundoPlano();
+        }
+    }
+
+    /**
+     * Hace durables todos los libros con un solo fsync y despues los publica,
+     * como registrar
+     */
+    public void registrarTodos(List<Libro> libros, Runnable publicar) {
+        barrera.readLock().lock();
+        try {
+            registro.agregarTodos(libros);
+            publicar.run();
+        } finally {
+            barrera.readLock().unlock();
+        }
+        if (registrosDesdeSnapshot.addAndGet(libros.size()) >= registrosPorSnapshot) {
+            compactarEnSegundoPlano();
+        }
+    }
+
+    /**
+     * Escribe un snapshot del catalogo actual y borra los segmentos del log que ya contiene.
+     * Si el snapshot no se pudo escribir completo no se borra nada
+     */
+    public void compactar() throws IOException {
+        registrosDesdeSnapshot.set(0);
+        // Todo lo registrado antes de rotar queda en segmentos anteriores a
+        // 'generacion', y la barrera espera a que este publicado: el snapshot lo incluye
+        long generacion;
+        barrera.writeLock().lock();
+        try {
+            generacion = registro.rotar();
+        } finally {
+            barrera.writeLock().unlock();
+        }
+        SnapshotLibros.escribir(directorio, generacion, catalogo.get());
+        borrarAnteriores(generacion);
+    }
+
+    private void compactarEnSegundoPlano() {
+        if (!compactando.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofPlatform().name("wal-compactador").daemon().start(() -> {
+            try {
+                compactar();
+            } catch (IOException | UncheckedIOException e) {
+                // El log sigue completo, se reintenta en la proxima compactacion
+                // (rotar llega como UncheckedIOException, el snapshot como IOException)
+                compactacionesFallidas.incrementAndGet();
+                ultimoErrorDeCompactacion = e;
+            } finally {
+                compactando.set(false);
+            }
+        });
+    }
+
+    private void borrarAnteriores(long generacion) throws IOException {
+        for (long anterior : SnapshotLibros.generaciones(directorio)) {
+            if (anterior < generacion) {
+                try {
+                    Files.deleteIfExists(SnapshotLibros.archivo(directorio, anterior));
+                } catch (IOException enUso) {
+                    // Sigue mapeado (en Windows no se puede borrar); se borra en el proximo inicio
+                }
+            }
+        }
+        for (long anterior : RegistroEscritura.generaciones(directorio)) {
+            if (anterior < generacion) {
+                Files.deleteIfExists(RegistroEscritura.segmento(directorio, anterior));
+            }
+        }
+    }
+
+    /**
+     * Snapshot mapeado al iniciar, o null si no habia ninguno.
+     * No cambia hasta el proximo inicio aunque se escriban snapshots nuevos
+     */
+    public SnapshotLibros getSnapshot() {
+        return snapshot;
+    }
+
+    public long getLibrosRecuperados() {
+        return librosRecuperados;
+    }
+
+    public long getMilisRecuperacion() {
+        return milisRecuperacion;
+    }
+
+    public long getRegistrosEscritos() {
+        return registro.getRegistrosEscritos();
+    }
+
+    public long getBytesEscritos() {
+        return registro.getBytesEscritos();
+    }
+
+    public long getFsyncs() {
+        return registro.getFsyncs();
+    }
+
+    /**
+     * Compactaciones en segundo plano que fallaron desde que se abrio
+     */
+    public long getCompactacionesFallidas() {
+        return compactacionesFallidas.get();
+    }
+
+    /**
+     * Error de la ultima compactacion en segundo plano que fallo, o null si ninguna fallo
+     */
+    public Exception getUltimoErrorDeCompactacion() {
+        return ultimoErrorDeCompactacion;
+    }
+
+    @Override
+    public void close() {
+        registro.close();
+    }
+
+    @Override
+    public String toString() {
+        return "PersistenciaLibros{" +
+                "directorio=" + directorio +
+                ", librosRecuperados=" + librosRecuperados +
+                ", milisRecuperacion=" + milisRecuperacion +
+                ", registrosEscritos=" + getRegistrosEscritos() +
+                ", fsyncs=" + getFsyncs() +
+                ", compactacionesFallidas=" + getCompactacionesFallidas() +
+                '}';
+    }
+}
@@ -0,0 +1,402 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * RegistroEscritura - Write-ahead log de solo agregado
+ *
+ * Cada registro es: largo (int) | crc32 (int) | libro codificado.
+ * El log se divide en segmentos "wal-{generacion}.log"; al hacer un snapshot
+ * se rota a un segmento nuevo y los anteriores se pueden borrar.
+ *
+ * Group commit: los hilos que guardan solo encolan su registro y esperan.
+ * Un unico hilo escritor junta todo lo pendiente en un lote, lo escribe con
+ * una sola llamada y hace un solo fsync para todo el lote.
+ *
+ * Si escribir un lote falla, el segmento se trunca hasta el final del ultimo
+ * lote confirmado antes de seguir: si no, los bytes a medio escribir cortarian
+ * la reproduccion y se perderian los lotes confirmados despues. Si ni siquiera
+ * se puede truncar, el log queda roto y rechaza todo lo que venga.
+ */
+final class RegistroEscritura implements AutoCloseable {
+    private static final int MAX_LOTE = 4096;
+    private static final String PREFIJO = "wal-";
+    private static final String EXTENSION = ".log";
+
+    private final Path directorio;
+    private final boolean fsync;
+    private final LinkedBlockingQueue<Pendiente> cola = new LinkedBlockingQueue<>();
+    private final Thread escritor;
+
+    // Solo los usa el hilo escritor
+    private final AbridorSegmento abridor;
+    private FileChannel canal;
+    private long generacion;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+    // Fin del ultimo lote confirmado en el segmento actual
+    private long posicionConfirmada;
+    // Error que dejo el segmento en un estado desconocido (null si esta sano)
+    private IOException roto;
+
+    // Estadisticas para medir el throughput de escritura
+    private final AtomicLong registrosEscritos = new AtomicLong();
+    private final AtomicLong bytesEscritos = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+
+    // Encolar y cerrar son atomicos entre si: nada se encola despues de CERRAR
+    // (quedaria sin completar y quien lo espera no volveria nunca)
+    private final ReentrantLock candadoCola = new ReentrantLock();
+    private boolean cerrado;
+
+    RegistroEscritura(Path directorio, long generacion, boolean fsync) throws IOException {
+        this(directorio, generacion, fsync, segmento -> FileChannel.open(segmento,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * @param abridor Abre cada segmento para agregar al final (las pruebas lo cambian para simular fallas)
+     */
+    RegistroEscritura(Path directorio, long generacion, boolean fsync, AbridorSegmento abridor) throws IOException {
+        this.directorio = directorio;
+        this.fsync = fsync;
+        this.abridor = abridor;
+        abrirSegmento(generacion);
+        this.escritor = Thread.ofPlatform().name("wal-escritor").daemon().start(this::ejecutar);
+    }
+
+    /**
+     * Agrega el libro al log y bloquea hasta que el registro es durable
+     */
+    void agregar(Libro libro) {
+        esperar(encolar(new Pendiente(registro(libro))));
+    }
+
+    /**
+     * Agrega todos los libros y bloquea hasta que son durables; se encolan
+     * juntos, asi el hilo escritor los toma en el mismo lote (un solo fsync)
+     */
+    void agregarTodos(List<Libro> libros) {
+        List<Pendiente> pendientes = new ArrayList<>(libros.size());
+        for (Libro libro : libros) {
+            pendientes.add(new Pendiente(registro(libro)));
+        }
+        candadoCola.lock();
+        try {
+            verificarAbierto();
+            // Con el candado tomado nadie se intercala: llegan juntos al escritor
+            cola.addAll(pendientes);
+        } finally {
+            candadoCola.unlock();
+        }
+        for (Pendiente pendiente : pendientes) {
+            esperar(pendiente.hecho);
+        }
+    }
+
+    /**
+     * Cierra el segmento actual y empieza uno nuevo
+     * @return Generacion del segmento nuevo; todo lo agregado antes quedo en segmentos anteriores
+     */
+    long rotar() {
+        return esperar(encolar(new Pendiente(Pendiente.ROTAR)));
+    }
+
+    long getRegistrosEscritos() {
+        return registrosEscritos.get();
+    }
+
+    long getBytesEscritos() {
+        return bytesEscritos.get();
+    }
+
+    long getFsyncs() {
+        return fsyncs.get();
+    }
+
+    @Override
+    public void close() {
+        candadoCola.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            // No se interrumpe al escritor: un FileChannel interrumpido se cierra solo
+            cola.add(new Pendiente(Pendiente.CERRAR));
+        } finally {
+            candadoCola.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Long> encolar(Pendiente pendiente) {
+        candadoCola.lock();
+        try {
+            verificarAbierto();
+            cola.add(pendiente);
+        } finally {
+            candadoCola.unlock();
+        }
+        return pendiente.hecho;
+    }
+
+    private void verificarAbierto() {
+        if (cerrado) {
+            throw new IllegalStateException("El registro de escritura está cerrado");
+        }
+    }
+
+    private static long esperar(CompletableFuture<Long> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            throw e;
+        }
+    }
+
+    private static byte[] registro(Libro libro) {
+        byte[] datos = CodificadorLibro.codificar(libro);
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        ByteBuffer registro = ByteBuffer.allocate(8 + datos.length);
+        registro.putInt(datos.length).putInt((int) crc.getValue()).put(datos);
+        return registro.array();
+    }
+
+    /**
+     * Bucle del hilo escritor: un lote, una escritura, un fsync
+     */
+    private void ejecutar() {
+        List<Pendiente> lote = new ArrayList<>(MAX_LOTE);
+        boolean terminar = false;
+        while (!terminar) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            cola.drainTo(lote, MAX_LOTE - 1);
+            terminar = lote.get(lote.size() - 1).registro == Pendiente.CERRAR;
+            procesar(lote);
+            lote.clear();
+        }
+        try {
+            canal.close();
+        } catch (IOException ignorada) {
+            // Todo lo confirmado ya tuvo su fsync
+        }
+    }
+
+    private void procesar(List<Pendiente> lote) {
+        if (roto != null) {
+            for (Pendiente pendiente : lote) {
+                if (pendiente.registro == Pendiente.CERRAR) {
+                    pendiente.hecho.complete(generacion);
+                } else {
+                    pendiente.hecho.completeExceptionally(roto);
+                }
+            }
+            return;
+        }
+        int desde = 0;
+        try {
+            for (int i = 0; i < lote.size(); i++) {
+                Pendiente pendiente = lote.get(i);
+                if (pendiente.registro == Pendiente.ROTAR) {
+                    // Una rotacion divide el lote: lo anterior va al segmento viejo
+                    escribir(lote, desde, i);
+                    abrirSegmento(generacion + 1);
+                    pendiente.hecho.complete(generacion);
+                    desde = i + 1;
+                } else if (pendiente.registro == Pendiente.CERRAR) {
+                    escribir(lote, desde, i);
+                    pendiente.hecho.complete(generacion);
+                    desde = i + 1;
+                }
+            }
+            escribir(lote, desde, lote.size());
+        } catch (IOException e) {
+            descartarLoteFallido(e);
+            for (int i = desde; i < lote.size(); i++) {
+                Pendiente pendiente = lote.get(i);
+                if (pendiente.registro == Pendiente.CERRAR) {
+                    pendiente.hecho.complete(generacion);
+                } else {
+                    pendiente.hecho.completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Saca del segmento lo que haya quedado del lote que fallo, antes de
+     * escribir el siguiente
+     */
+    private void descartarLoteFallido(IOException causa) {
+        try {
+            canal.truncate(posicionConfirmada);
+            canal.force(false);
+        } catch (IOException | RuntimeException e) {
+            causa.addSuppressed(e);
+            roto = causa;
+        }
+    }
+
+    private void escribir(List<Pendiente> lote, int desde, int hasta) throws IOException {
+        if (desde >= hasta) {
+            return;
+        }
+        buffer.clear();
+        for (int i = desde; i < hasta; i++) {
+            byte[] registro = lote.get(i).registro;
+            if (buffer.remaining() < registro.length) {
+                vaciarBuffer();
+                if (buffer.capacity() < registro.length) {
+                    buffer = ByteBuffer.allocateDirect(registro.length);
+                }
+            }
+            buffer.put(registro);
+            bytesEscritos.addAndGet(registro.length);
+        }
+        vaciarBuffer();
+        if (fsync) {
+            canal.force(false);
+            fsyncs.incrementAndGet();
+        }
+        posicionConfirmada = canal.size();
+        registrosEscritos.addAndGet(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            lote.get(i).hecho.complete(generacion);
+        }
+    }
+
+    private void vaciarBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void abrirSegmento(long nuevaGeneracion) throws IOException {
+        if (canal != null) {
+            canal.force(false);
+            canal.close();
+        }
+        canal = abridor.abrir(segmento(directorio, nuevaGeneracion));
+        posicionConfirmada = canal.size();
+        generacion = nuevaGeneracion;
+        if (fsync) {
+            // Si no, un fsync de los registros no alcanza: el segmento nuevo podria no existir despues de una caida
+            ArchivosGeneracion.sincronizarDirectorio(directorio);
+        }
+    }
+
+    static Path segmento(Path directorio, long generacion) {
+        return directorio.resolve(PREFIJO + String.format("%020d", generacion) + EXTENSION);
+    }
+
+    /**
+     * Generaciones de los segmentos existentes, ordenadas
+     */
+    static List<Long> generaciones(Path directorio) throws IOException {
+        return ArchivosGeneracion.listar(directorio, PREFIJO, EXTENSION);
+    }
+
+    /**
+     * Relee un segmento y entrega cada libro en orden. Si el final del archivo
+     * quedo incompleto o corrupto (caida durante una escritura) se trunca ahi
+     * @return Cantidad de registros leidos
+     */
+    static long reproducir(Path segmento, Consumer<Libro> destino) throws IOException {
+        long leidos = 0;
+        long posicionValida = 0;
+        try (InputStream archivo = Files.newInputStream(segmento);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(archivo, 1 << 16))) {
+            while (true) {
+                int largo;
+                try {
+                    largo = entrada.readInt();
+                } catch (EOFException fin) {
+                    break;
+                }
+                int crcEsperado;
+                byte[] datos;
+                try {
+                    crcEsperado = entrada.readInt();
+                    if (largo < 0 || largo > (1 << 24)) {
+                        break;
+                    }
+                    datos = new byte[largo];
+                    entrada.readFully(datos);
+                } catch (EOFException incompleto) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(datos);
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+                destino.accept(CodificadorLibro.decodificar(ByteBuffer.wrap(datos)));
+                posicionValida += 8 + largo;
+                leidos++;
+            }
+        }
+        if (posicionValida < Files.size(segmento)) {
+            try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+                canal.truncate(posicionValida);
+            }
+        }
+        return leidos;
+    }
+
+    /**
+     * Abre un segmento para agregar registros al final
+     */
+    interface AbridorSegmento {
+        FileChannel abrir(Path segmento) throws IOException;
+    }
+
+    /**
+     * Registro encolado esperando al hilo escritor, o una de las marcas de control
+     */
+    private static final class Pendiente {
+        static final byte[] ROTAR = new byte[0];
+        static final byte[] CERRAR = new byte[0];
+
+        final byte[] registro;
+        final CompletableFuture<Long> hecho = new CompletableFuture<>();
+
+        Pendiente(byte[] registro) {
+            this.registro = registro;
+        }
+    }
+}
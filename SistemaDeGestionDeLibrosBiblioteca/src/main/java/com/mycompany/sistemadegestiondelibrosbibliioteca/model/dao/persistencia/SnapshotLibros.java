@@ -0,0 +1,401 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.Agregacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * SnapshotLibros - Foto completa del catalogo en formato columnar, "snapshot-{generacion}.dat"
+ *
+ * El archivo se abre mapeado en memoria (ver ArchivoMapeado) y se consulta
+ * directamente desde el mapeo: al iniciar no se crea ningun Libro, asi un
+ * catalogo de millones de libros queda disponible en milisegundos.
+ *
+ * Formato (cabecera de 64 bytes y luego las columnas, ordenadas por id):
+ *   ids            long[n]   ordenados, para busqueda binaria
+ *   versiones      long[n]
+ *   anos           int[n]    Integer.MIN_VALUE = null
+ *   banderas       byte[n]   bit 0 disponible, bit 1 disponible null, bit 2 titulo null
+ *   tituloOffsets  long[n+1] inicio de cada titulo en tituloDatos
+ *   tituloDatos    UTF-8
+ *   autorIndices   int[n]    posicion en el diccionario de autores, -1 = null
+ *   autorOffsets   long[m+1] diccionario: los autores se repiten mucho y se guardan una sola vez
+ *   autorDatos     UTF-8
+ *
+ * Los snapshots "LSN3" (offsets int) y "LSN2" (ademas sin la columna de
+ * versiones, que se leen con version 1) se siguen leyendo.
+ *
+ * El archivo puede pasar de 2 GB; el limite es de Integer.MAX_VALUE - 8
+ * libros y autores distintos, y escribir falla antes de publicar un snapshot
+ * que no lo cumpla.
+ */
+public final class SnapshotLibros {
+    private static final int MAGICO = 0x4C534E34; // "LSN4"
+    private static final int MAGICO_OFFSETS_INT = 0x4C534E33; // "LSN3"
+    private static final int MAGICO_SIN_VERSIONES = 0x4C534E32; // "LSN2"
+    private static final long VERSION_SIN_DATO = 1;
+    private static final int CABECERA = 64;
+    private static final int MAXIMO = Integer.MAX_VALUE - 8;
+    private static final String PREFIJO = "snapshot-";
+    private static final String EXTENSION = ".dat";
+
+    private static final int ANO_NULO = Integer.MIN_VALUE;
+    private static final int DISPONIBLE = 1;
+    private static final int DISPONIBLE_NULO = 1 << 1;
+    private static final int TITULO_NULO = 1 << 2;
+
+    private final ArchivoMapeado mapa;
+    private final int cantidad;
+    private final int cantidadAutores;
+    // Bytes de cada offset de titulo y de autor: 8, o 4 en los snapshots viejos
+    private final int anchoOffset;
+    // -1 si el snapshot no tiene versiones
+    private final long offVersiones;
+    private final long offAnos;
+    private final long offBanderas;
+    private final long offTituloOffsets;
+    private final long offTituloDatos;
+    private final long offAutorIndices;
+    private final long offAutorOffsets;
+    private final long offAutorDatos;
+    // Autores ya decodificados del diccionario (carrera benigna: todos decodifican lo mismo)
+    private final String[] autores;
+
+    private SnapshotLibros(ArchivoMapeado mapa) throws IOException {
+        this.mapa = mapa;
+        int magico = mapa.largo() < CABECERA ? 0 : mapa.getInt(0);
+        if (magico != MAGICO && magico != MAGICO_OFFSETS_INT && magico != MAGICO_SIN_VERSIONES) {
+            throw new IOException("Snapshot con formato desconocido");
+        }
+        this.cantidad = mapa.getInt(4);
+        this.cantidadAutores = mapa.getInt(8);
+        if (cantidad < 0 || cantidad > MAXIMO || cantidadAutores < 0 || cantidadAutores > MAXIMO) {
+            throw new IOException("Snapshot con cabecera inválida");
+        }
+        this.anchoOffset = magico == MAGICO ? Long.BYTES : Integer.BYTES;
+        this.offVersiones = magico == MAGICO_SIN_VERSIONES ? -1 : CABECERA + cantidad * 8L;
+        this.offAnos = CABECERA + cantidad * (offVersiones < 0 ? 8L : 16L);
+        this.offBanderas = offAnos + cantidad * 4L;
+        this.offTituloOffsets = offBanderas + cantidad;
+        this.offTituloDatos = offTituloOffsets + (cantidad + 1L) * anchoOffset;
+        if (offTituloDatos > mapa.largo()) {
+            throw new IOException("Snapshot incompleto");
+        }
+        this.offAutorIndices = offTituloDatos + offset(offTituloOffsets, cantidad);
+        this.offAutorOffsets = offAutorIndices + cantidad * 4L;
+        this.offAutorDatos = offAutorOffsets + (cantidadAutores + 1L) * anchoOffset;
+        if (offAutorDatos > mapa.largo() || offAutorDatos + offset(offAutorOffsets, cantidadAutores) != mapa.largo()) {
+            throw new IOException("Snapshot incompleto");
+        }
+        this.autores = new String[cantidadAutores];
+    }
+
+    static Path archivo(Path directorio, long generacion) {
+        return directorio.resolve(PREFIJO + String.format("%020d", generacion) + EXTENSION);
+    }
+
+    static List<Long> generaciones(Path directorio) throws IOException {
+        return ArchivosGeneracion.listar(directorio, PREFIJO, EXTENSION);
+    }
+
+    /**
+     * Mapea un snapshot en memoria (solo lectura); no lee los registros
+     */
+    static SnapshotLibros abrir(Path archivo) throws IOException {
+        return abrir(archivo, ArchivoMapeado.BYTES_POR_TRAMO);
+    }
+
+    static SnapshotLibros abrir(Path archivo, int bytesPorTramo) throws IOException {
+        return new SnapshotLibros(ArchivoMapeado.abrir(archivo, bytesPorTramo));
+    }
+
+    /**
+     * Escribe el snapshot de forma atomica (archivo temporal + rename).
+     * El catalogo se recorre una sola vez, en orden de ID, y cada columna va
+     * a su propio archivo temporal que despues se concatena: no se guarda
+     * ningun libro en memoria, solo el diccionario de autores.
+     * Si el snapshot no se podria volver a leer (demasiados libros, IDs
+     * desordenados, o el archivo no tiene el largo esperado) lanza
+     * IOException sin tocar el destino.
+     * @param catalogo Libros ordenados por ID, sin repetidos
+     * @return Cantidad de libros escritos
+     */
+    static long escribir(Path directorio, long generacion, Iterable<Libro> catalogo) throws IOException {
+        Path destino = archivo(directorio, generacion);
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        Columna ids = new Columna(temporal, "ids");
+        Columna versiones = new Columna(temporal, "versiones");
+        Columna anos = new Columna(temporal, "anos");
+        Columna banderas = new Columna(temporal, "banderas");
+        Columna tituloOffsets = new Columna(temporal, "tituloOffsets");
+        Columna tituloDatos = new Columna(temporal, "tituloDatos");
+        Columna autorIndices = new Columna(temporal, "autorIndices");
+        Columna[] columnas = {ids, versiones, anos, banderas, tituloOffsets, tituloDatos, autorIndices};
+        try {
+            int n = 0;
+            long anterior = Long.MIN_VALUE;
+            long bytesTitulos = 0;
+            Map<String, Integer> diccionario = new HashMap<>();
+            List<byte[]> autoresUtf8 = new ArrayList<>();
+            long bytesAutores = 0;
+            tituloOffsets.salida.writeLong(0);
+            for (Libro libro : catalogo) {
+                long id = libro.getId();
+                if (id <= anterior) {
+                    throw new IOException("El catálogo no está ordenado por ID: " + id + " después de " + anterior);
+                }
+                if (n == MAXIMO) {
+                    throw new IOException("Demasiados libros para un snapshot: más de " + MAXIMO);
+                }
+                anterior = id;
+                n++;
+                ids.salida.writeLong(id);
+                versiones.salida.writeLong(libro.getVersion());
+                Integer ano = libro.getAnoPublicacion();
+                anos.salida.writeInt(ano == null ? ANO_NULO : ano);
+                String titulo = libro.getTitulo();
+                Boolean disponible = libro.getDisponible();
+                banderas.salida.writeByte((disponible == null ? DISPONIBLE_NULO : disponible ? DISPONIBLE : 0)
+                        | (titulo == null ? TITULO_NULO : 0));
+                if (titulo != null) {
+                    byte[] bytes = titulo.getBytes(StandardCharsets.UTF_8);
+                    tituloDatos.salida.write(bytes);
+                    bytesTitulos += bytes.length;
+                }
+                tituloOffsets.salida.writeLong(bytesTitulos);
+                String autor = libro.getAutor();
+                if (autor == null) {
+                    autorIndices.salida.writeInt(-1);
+                } else {
+                    Integer indice = diccionario.get(autor);
+                    if (indice == null) {
+                        if (autoresUtf8.size() == MAXIMO) {
+                            throw new IOException("Demasiados autores para un snapshot: más de " + MAXIMO);
+                        }
+                        indice = autoresUtf8.size();
+                        diccionario.put(autor, indice);
+                        byte[] bytes = autor.getBytes(StandardCharsets.UTF_8);
+                        autoresUtf8.add(bytes);
+                        bytesAutores += bytes.length;
+                    }
+                    autorIndices.salida.writeInt(indice);
+                }
+            }
+            long largoEsperado = CABECERA + n * (8L + 8L + 4L + 1L + 4L) + (n + 1L) * 8L + bytesTitulos
+                    + (autoresUtf8.size() + 1L) * 8L + bytesAutores;
+
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 1 << 16));
+                salida.writeInt(MAGICO);
+                salida.writeInt(n);
+                salida.writeInt(autoresUtf8.size());
+                salida.write(new byte[CABECERA - 12]);
+                salida.flush();
+                for (Columna columna : columnas) {
+                    columna.copiarA(canal);
+                }
+                long offset = 0;
+                salida.writeLong(offset);
+                for (byte[] autor : autoresUtf8) {
+                    offset += autor.length;
+                    salida.writeLong(offset);
+                }
+                for (byte[] autor : autoresUtf8) {
+                    salida.write(autor);
+                }
+                salida.flush();
+                canal.force(true);
+                if (canal.size() != largoEsperado) {
+                    throw new IOException("Snapshot con largo inesperado: " + canal.size() + " en vez de " + largoEsperado);
+                }
+            }
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // Antes de que se borre el log que el snapshot reemplaza, el rename tiene que ser durable
+            ArchivosGeneracion.sincronizarDirectorio(directorio);
+            return n;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        } finally {
+            for (Columna columna : columnas) {
+                columna.borrar();
+            }
+        }
+    }
+
+    /**
+     * Archivo temporal con una columna del snapshot mientras se escribe
+     */
+    private static final class Columna {
+        private final Path archivo;
+        private final DataOutputStream salida;
+
+        Columna(Path temporal, String nombre) throws IOException {
+            this.archivo = temporal.resolveSibling(temporal.getFileName() + "." + nombre);
+            this.salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archivo), 1 << 16));
+        }
+
+        void copiarA(FileChannel destino) throws IOException {
+            salida.close();
+            try (FileChannel origen = FileChannel.open(archivo, StandardOpenOption.READ)) {
+                long largo = origen.size();
+                long copiados = 0;
+                while (copiados < largo) {
+                    copiados += origen.transferTo(copiados, largo - copiados, destino);
+                }
+            }
+        }
+
+        void borrar() throws IOException {
+            salida.close();
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * Busqueda binaria sobre la columna de ids
+     * @return Posicion del libro o -1 si no esta en el snapshot
+     */
+    public int posicion(long id) {
+        int bajo = 0;
+        int alto = cantidad - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            long actual = mapa.getLong(CABECERA + medio * 8L);
+            if (actual < id) {
+                bajo = medio + 1;
+            } else if (actual > id) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Primera posicion cuyo id es mayor o igual al dado (cantidad() si no hay ninguna)
+     */
+    public int posicionDesde(long id) {
+        int bajo = 0;
+        int alto = cantidad;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (mapa.getLong(CABECERA + medio * 8L) < id) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    public long id(int posicion) {
+        return mapa.getLong(CABECERA + posicion * 8L);
+    }
+
+    /**
+     * Mayor id del snapshot, o 0 si esta vacio
+     */
+    public long maximoId() {
+        return cantidad == 0 ? 0 : id(cantidad - 1);
+    }
+
+    public long version(int posicion) {
+        return offVersiones < 0 ? VERSION_SIN_DATO : mapa.getLong(offVersiones + posicion * 8L);
+    }
+
+    public Integer anoPublicacion(int posicion) {
+        int ano = mapa.getInt(offAnos + posicion * 4L);
+        return ano == ANO_NULO ? null : ano;
+    }
+
+    public Boolean disponible(int posicion) {
+        int banderas = mapa.get(offBanderas + posicion);
+        if ((banderas & DISPONIBLE_NULO) != 0) {
+            return null;
+        }
+        return (banderas & DISPONIBLE) != 0;
+    }
+
+    public String titulo(int posicion) {
+        if ((mapa.get(offBanderas + posicion) & TITULO_NULO) != 0) {
+            return null;
+        }
+        long inicio = offset(offTituloOffsets, posicion);
+        return leerUtf8(offTituloDatos + inicio, (int) (offset(offTituloOffsets, posicion + 1) - inicio));
+    }
+
+    public String autor(int posicion) {
+        int indice = mapa.getInt(offAutorIndices + posicion * 4L);
+        if (indice < 0) {
+            return null;
+        }
+        String autor = autores[indice];
+        if (autor == null) {
+            long inicio = offset(offAutorOffsets, indice);
+            autor = leerUtf8(offAutorDatos + inicio, (int) (offset(offAutorOffsets, indice + 1) - inicio));
+            autores[indice] = autor;
+        }
+        return autor;
+    }
+
+    /**
+     * Vista perezosa del libro: los campos se leen del mapeo solo cuando se piden
+     */
+    public Libro libro(int posicion) {
+        return new LibroMapeado(this, posicion);
+    }
+
+    /**
+     * Recorre las columnas en paralelo, sin armar libros ni leer titulos
+     * @param omitir IDs que no se cuentan (los que ya se reemplazaron en memoria)
+     */
+    public <A> A agregar(Agregacion<A> agregacion, LongPredicate omitir) {
+        return IntStream.range(0, cantidad).parallel().collect(agregacion::nuevo, (parcial, posicion) -> {
+            long id = id(posicion);
+            if (omitir.test(id)) {
+                return;
+            }
+            int banderas = mapa.get(offBanderas + posicion);
+            agregacion.acumular(parcial, id, autor(posicion), mapa.getInt(offAnos + posicion * 4L),
+                    (banderas & DISPONIBLE_NULO) != 0 ? Agregacion.DISPONIBILIDAD_NULA
+                            : (banderas & DISPONIBLE) != 0 ? Agregacion.DISPONIBLE : Agregacion.NO_DISPONIBLE);
+        }, agregacion::combinar);
+    }
+
+    /**
+     * Offset numero 'indice' de la columna de offsets que empieza en 'columna'
+     */
+    private long offset(long columna, int indice) {
+        return anchoOffset == Long.BYTES ? mapa.getLong(columna + indice * 8L)
+                : mapa.getInt(columna + indice * 4L) & 0xFFFFFFFFL;
+    }
+
+    private String leerUtf8(long offset, int largo) {
+        byte[] bytes = new byte[largo];
+        mapa.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
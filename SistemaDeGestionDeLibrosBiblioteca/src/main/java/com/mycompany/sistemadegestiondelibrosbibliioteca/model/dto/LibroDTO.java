@@ -14,6 +14,8 @@ public class LibroDTO {
     private String titulo;
     private String autor;
     private Integer anoPublicacion;
+    // Version para actualizar con concurrencia optimista (PUT/PATCH la devuelven)
+    private Long version;
     // El campo 'disponible' está OCULTO
 
     /**
@@ -25,6 +27,11 @@ public class LibroDTO {
         this.autor = autor;
         this.anoPublicacion = anoPublicacion;
     }
+
+    public LibroDTO(Long id, String titulo, String autor, Integer anoPublicacion, Long version) {
+        this(id, titulo, autor, anoPublicacion);
+        this.version = version;
+    }
     
     // Getters y Setters
     public Long getId() {
@@ -59,6 +66,14 @@ public class LibroDTO {
         this.anoPublicacion = anoPublicacion;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "LibroDTO{" + 
@@ -66,6 +81,7 @@ public class LibroDTO {
                 ", titulo='" + titulo + '\'' + 
                 ", autor='" + autor + '\'' + 
                 ", anoPublicacion=" + anoPublicacion + 
+                ", version=" + version + 
                 '}';
     }
 }
\ No newline at end of file
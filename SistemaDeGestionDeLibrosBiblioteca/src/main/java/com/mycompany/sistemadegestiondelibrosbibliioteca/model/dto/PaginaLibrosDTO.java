@@ -0,0 +1,46 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto;
+
+import java.util.List;
+
+/**
+ * PaginaLibrosDTO - Una pagina del listado de libros, ordenado por ID
+ * El cursor 'siguiente' es el ultimo ID de la pagina: se pasa como 'despues'
+ * para pedir la proxima. Es null cuando no quedan mas libros
+ */
+public class PaginaLibrosDTO {
+    private List<LibroDTO> libros;
+    private Long siguiente;
+
+    /**
+     * Constructor
+     */
+    public PaginaLibrosDTO(List<LibroDTO> libros, Long siguiente) {
+        this.libros = libros;
+        this.siguiente = siguiente;
+    }
+
+    // Getters y Setters
+    public List<LibroDTO> getLibros() {
+        return libros;
+    }
+
+    public void setLibros(List<LibroDTO> libros) {
+        this.libros = libros;
+    }
+
+    public Long getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(Long siguiente) {
+        this.siguiente = siguiente;
+    }
+
+    @Override
+    public String toString() {
+        return "PaginaLibrosDTO{" +
+                "libros=" + libros +
+                ", siguiente=" + siguiente +
+                '}';
+    }
+}
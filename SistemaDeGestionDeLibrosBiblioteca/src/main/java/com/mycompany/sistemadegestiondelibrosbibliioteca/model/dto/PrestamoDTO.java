@@ -0,0 +1,79 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto;
+
+import java.util.List;
+
+/**
+ * PrestamoDTO - Estado del prestamo de un libro
+ * 'usuario' es quien lo tiene (PRESTADO) o para quien esta apartado (APARTADO);
+ * 'vence' es la fecha en formato ISO-8601, o null si el libro esta DISPONIBLE
+ */
+public class PrestamoDTO {
+    private Long libroId;
+    private String situacion;
+    private String usuario;
+    private String vence;
+    private List<String> espera;
+
+    /**
+     * Constructor
+     */
+    public PrestamoDTO(Long libroId, String situacion, String usuario, String vence, List<String> espera) {
+        this.libroId = libroId;
+        this.situacion = situacion;
+        this.usuario = usuario;
+        this.vence = vence;
+        this.espera = espera;
+    }
+
+    // Getters y Setters
+    public Long getLibroId() {
+        return libroId;
+    }
+
+    public void setLibroId(Long libroId) {
+        this.libroId = libroId;
+    }
+
+    public String getSituacion() {
+        return situacion;
+    }
+
+    public void setSituacion(String situacion) {
+        this.situacion = situacion;
+    }
+
+    public String getUsuario() {
+        return usuario;
+    }
+
+    public void setUsuario(String usuario) {
+        this.usuario = usuario;
+    }
+
+    public String getVence() {
+        return vence;
+    }
+
+    public void setVence(String vence) {
+        this.vence = vence;
+    }
+
+    public List<String> getEspera() {
+        return espera;
+    }
+
+    public void setEspera(List<String> espera) {
+        this.espera = espera;
+    }
+
+    @Override
+    public String toString() {
+        return "PrestamoDTO{" +
+                "libroId=" + libroId +
+                ", situacion='" + situacion + '\'' +
+                ", usuario='" + usuario + '\'' +
+                ", vence='" + vence + '\'' +
+                ", espera=" + espera +
+                '}';
+    }
+}
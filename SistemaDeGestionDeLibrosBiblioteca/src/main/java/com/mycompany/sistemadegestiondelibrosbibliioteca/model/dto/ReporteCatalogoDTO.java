@@ -0,0 +1,127 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto;
+
+import java.util.Map;
+
+/**
+ * ReporteCatalogoDTO - Totales del catalogo para los reportes
+ * librosPorDecada va de la decada mas vieja a la mas nueva (1990 = 1990 a 1999)
+ * y autoresConMasLibros del autor con mas libros al que menos
+ */
+public class ReporteCatalogoDTO {
+    private long total;
+    private long disponibles;
+    private long noDisponibles;
+    private double tasaDeDisponibilidad;
+    private Integer anoMinimo;
+    private Integer anoMaximo;
+    private int cantidadDeAutores;
+    private Map<Integer, Long> librosPorDecada;
+    private Map<String, Long> autoresConMasLibros;
+
+    /**
+     * Constructor
+     * @param tasaDeDisponibilidad Disponibles sobre el total (0 si el catalogo esta vacio)
+     * @param anoMinimo null si ningun libro tiene año
+     */
+    public ReporteCatalogoDTO(long total, long disponibles, long noDisponibles, double tasaDeDisponibilidad,
+                              Integer anoMinimo, Integer anoMaximo, int cantidadDeAutores,
+                              Map<Integer, Long> librosPorDecada, Map<String, Long> autoresConMasLibros) {
+        this.total = total;
+        this.disponibles = disponibles;
+        this.noDisponibles = noDisponibles;
+        this.tasaDeDisponibilidad = tasaDeDisponibilidad;
+        this.anoMinimo = anoMinimo;
+        this.anoMaximo = anoMaximo;
+        this.cantidadDeAutores = cantidadDeAutores;
+        this.librosPorDecada = librosPorDecada;
+        this.autoresConMasLibros = autoresConMasLibros;
+    }
+
+    // Getters y Setters
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getDisponibles() {
+        return disponibles;
+    }
+
+    public void setDisponibles(long disponibles) {
+        this.disponibles = disponibles;
+    }
+
+    public long getNoDisponibles() {
+        return noDisponibles;
+    }
+
+    public void setNoDisponibles(long noDisponibles) {
+        this.noDisponibles = noDisponibles;
+    }
+
+    public double getTasaDeDisponibilidad() {
+        return tasaDeDisponibilidad;
+    }
+
+    public void setTasaDeDisponibilidad(double tasaDeDisponibilidad) {
+        this.tasaDeDisponibilidad = tasaDeDisponibilidad;
+    }
+
+    public Integer getAnoMinimo() {
+        return anoMinimo;
+    }
+
+    public void setAnoMinimo(Integer anoMinimo) {
+        this.anoMinimo = anoMinimo;
+    }
+
+    public Integer getAnoMaximo() {
+        return anoMaximo;
+    }
+
+    public void setAnoMaximo(Integer anoMaximo) {
+        this.anoMaximo = anoMaximo;
+    }
+
+    public int getCantidadDeAutores() {
+        return cantidadDeAutores;
+    }
+
+    public void setCantidadDeAutores(int cantidadDeAutores) {
+        this.cantidadDeAutores = cantidadDeAutores;
+    }
+
+    public Map<Integer, Long> getLibrosPorDecada() {
+        return librosPorDecada;
+    }
+
+    public void setLibrosPorDecada(Map<Integer, Long> librosPorDecada) {
+        this.librosPorDecada = librosPorDecada;
+    }
+
+    public Map<String, Long> getAutoresConMasLibros() {
+        return autoresConMasLibros;
+    }
+
+    public void setAutoresConMasLibros(Map<String, Long> autoresConMasLibros) {
+        this.autoresConMasLibros = autoresConMasLibros;
+    }
+
+    @Override
+    public String toString() {
+        return "ReporteCatalogoDTO{" +
+                "total=" + total +
+                ", disponibles=" + disponibles +
+                ", noDisponibles=" + noDisponibles +
+                ", tasaDeDisponibilidad=" + tasaDeDisponibilidad +
+                ", anoMinimo=" + anoMinimo +
+                ", anoMaximo=" + anoMaximo +
+                ", cantidadDeAutores=" + cantidadDeAutores +
+                ", librosPorDecada=" + librosPorDecada +
+                ", autoresConMasLibros=" + autoresConMasLibros +
+                '}';
+    }
+}
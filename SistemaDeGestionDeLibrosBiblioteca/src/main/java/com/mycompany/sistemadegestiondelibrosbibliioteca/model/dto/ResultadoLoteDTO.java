@@ -0,0 +1,73 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto;
+
+/**
+ * ResultadoLoteDTO - Resultado de un elemento de una operacion por lotes
+ * Cada elemento tiene su propio codigo estilo HTTP (200, 201, 400, 404):
+ * un elemento invalido no hace fallar a los demas
+ */
+public class ResultadoLoteDTO {
+    private Long id;
+    private int codigo;
+    private String mensaje;
+    private LibroDTO libro;
+
+    /**
+     * Constructor
+     * @param id ID pedido o asignado (null si no se conoce)
+     * @param mensaje null si el elemento fue exitoso
+     * @param libro null si el elemento fallo
+     */
+    public ResultadoLoteDTO(Long id, int codigo, String mensaje, LibroDTO libro) {
+        this.id = id;
+        this.codigo = codigo;
+        this.mensaje = mensaje;
+        this.libro = libro;
+    }
+
+    public boolean esExitoso() {
+        return codigo >= 200 && codigo < 300;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public void setCodigo(int codigo) {
+        this.codigo = codigo;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    public void setMensaje(String mensaje) {
+        this.mensaje = mensaje;
+    }
+
+    public LibroDTO getLibro() {
+        return libro;
+    }
+
+    public void setLibro(LibroDTO libro) {
+        this.libro = libro;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLoteDTO{" +
+                "id=" + id +
+                ", codigo=" + codigo +
+                ", mensaje='" + mensaje + '\'' +
+                ", libro=" + libro +
+                '}';
+    }
+}
@@ -0,0 +1,54 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto;
+
+/**
+ * SolicitudLibroDTO - Datos de un libro a crear, tal como llegan del cliente
+ * El año viaja como texto: lo valida y convierte el Service
+ */
+public class SolicitudLibroDTO {
+    private String titulo;
+    private String autor;
+    private String anoPublicacion;
+
+    /**
+     * Constructor
+     */
+    public SolicitudLibroDTO(String titulo, String autor, String anoPublicacion) {
+        this.titulo = titulo;
+        this.autor = autor;
+        this.anoPublicacion = anoPublicacion;
+    }
+
+    // Getters y Setters
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public void setTitulo(String titulo) {
+        this.titulo = titulo;
+    }
+
+    public String getAutor() {
+        return autor;
+    }
+
+    public void setAutor(String autor) {
+        this.autor = autor;
+    }
+
+    public String getAnoPublicacion() {
+        return anoPublicacion;
+    }
+
+    public void setAnoPublicacion(String anoPublicacion) {
+        this.anoPublicacion = anoPublicacion;
+    }
+
+    @Override
+    public String toString() {
+        return "SolicitudLibroDTO{" +
+                "titulo='" + titulo + '\'' +
+                ", autor='" + autor + '\'' +
+                ", anoPublicacion='" + anoPublicacion + '\'' +
+                '}';
+    }
+}
@@ -17,7 +17,9 @@ public class Libro {
     private String autor;
     private Integer anoPublicacion;
     private Boolean disponible;
-    
+    // Sube en 1 con cada escritura guardada; 0 = todavia no se guardo
+    private long version;
+
 
     public Libro() {
     }
@@ -28,6 +30,10 @@ public class Libro {
         this.anoPublicacion = anoPublicacion;
         this.disponible = disponible;
     }
+    public Libro(Long id, String titulo, String autor, Integer anoPublicacion, Boolean disponible, long version) {
+        this(id, titulo, autor, anoPublicacion, disponible);
+        this.version = version;
+    }
     
     // Getters y Setters
     public Long getId() {
@@ -70,6 +76,14 @@ public class Libro {
         this.disponible = disponible;
     }
     
+    public long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(long version) {
+        this.version = version;
+    }
+    
     @Override
     public String toString() {
         return "Libro{" + 
@@ -78,6 +92,7 @@ public class Libro {
                 ", autor='" + autor + '\'' + 
                 ", anoPublicacion=" + anoPublicacion + 
                 ", disponible=" + disponible + 
+                ", version=" + version + 
                 '}';
     }
 }
\ No newline at end of file
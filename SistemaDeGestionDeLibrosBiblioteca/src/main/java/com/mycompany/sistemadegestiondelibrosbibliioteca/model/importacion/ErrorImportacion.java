@@ -0,0 +1,17 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion;
+
+/**
+ * ErrorImportacion - Fila rechazada durante una importacion
+ *
+ * @param linea   Numero de linea en el archivo (empieza en 1)
+ * @param codigo  Codigo estilo HTTP: 400 si la fila es invalida
+ * @param campo   Campo que fallo, o null si no se pudo leer la fila
+ * @param mensaje Mismo mensaje que daria el alta de a un libro
+ */
+public record ErrorImportacion(long linea, int codigo, String campo, String mensaje) {
+
+    @Override
+    public String toString() {
+        return "Línea " + linea + " (Error " + codigo + ")" + (campo == null ? "" : " [" + campo + "]") + ": " + mensaje;
+    }
+}
@@ -0,0 +1,47 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion;
+
+import java.util.Locale;
+
+/**
+ * FormatoImportacion - Formatos de archivo que acepta ImportadorLibros
+ *
+ * CSV: una fila por libro, con encabezado opcional (titulo,autor,anoPublicacion
+ * en cualquier orden; sin encabezado se asume ese orden). Los campos pueden ir
+ * entre comillas dobles ("" es una comilla), pero no pueden ocupar varias lineas.
+ * JSON_LINES: un objeto JSON plano por linea, {"titulo":..,"autor":..,"anoPublicacion":..}
+ */
+public enum FormatoImportacion {
+    CSV,
+    JSON_LINES;
+
+    /**
+     * Formato segun la extension del archivo (.csv, .jsonl o .ndjson)
+     * @throws IllegalArgumentException si la extension no es ninguna de esas
+     */
+    public static FormatoImportacion desdeArchivo(String nombre) {
+        String minusculas = nombre.toLowerCase(Locale.ROOT);
+        if (minusculas.endsWith(".csv")) {
+            return CSV;
+        }
+        if (minusculas.endsWith(".jsonl") || minusculas.endsWith(".ndjson")) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Formato de archivo no soportado (use .csv o .jsonl): " + nombre);
+    }
+
+    /**
+     * Formato por nombre: "csv" o "jsonl"
+     * @throws IllegalArgumentException si no es ninguno de los dos
+     */
+    public static FormatoImportacion desdeNombre(String nombre) {
+        switch (nombre.toLowerCase(Locale.ROOT)) {
+            case "csv":
+                return CSV;
+            case "jsonl":
+            case "ndjson":
+                return JSON_LINES;
+            default:
+                throw new IllegalArgumentException("Formato no soportado (use csv o jsonl): " + nombre);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.CacheLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ErrorValidacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ResultadoValidacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ValidadorLibro;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * ImportadorLibros - Carga masiva de libros desde un archivo CSV o JSON lines
+ *
+ * Tres etapas conectadas por colas, cada una en sus propios hilos:
+ *   lectura (hilo que llama) -> validacion (un hilo por nucleo) -> guardado (un hilo)
+ * - la lectura arma lotes de LINEAS_POR_LOTE lineas, sin cargar el archivo entero
+ * - la validacion parsea cada linea y aplica las mismas reglas que el alta de
+ *   a un libro (ValidadorLibro); una fila invalida se informa como error 400
+ *   y la importacion sigue con las demas
+ * - el guardado recibe los lotes en el orden del archivo (los IDs quedan en
+ *   ese orden) y los guarda con LibroDAO.saveAll, un fsync por lote
+ *
+ * Contrapresion: la lectura necesita un permiso por lote y el guardado lo
+ * devuelve al terminarlo, asi nunca hay mas de LOTES_EN_VUELO lotes en memoria
+ * aunque el disco sea mas lento que el parseo.
+ */
+public final class ImportadorLibros {
+    public static final int LINEAS_POR_LOTE = 1000;
+    public static final int MAX_ERRORES_INFORMADOS = 1000;
+
+    private final LibroDAO libroDAO;
+    private final CacheLibros cache;
+    private final ValidadorLibro validador;
+    private final int validadores;
+    private final int lotesEnVuelo;
+
+    public ImportadorLibros(LibroDAO libroDAO, CacheLibros cache, ValidadorLibro validador) {
+        this(libroDAO, cache, validador, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ImportadorLibros(LibroDAO libroDAO, CacheLibros cache, ValidadorLibro validador, int validadores) {
+        this.libroDAO = libroDAO;
+        this.cache = cache;
+        this.validador = validador;
+        this.validadores = Math.max(1, validadores);
+        this.lotesEnVuelo = 2 * this.validadores + 2;
+    }
+
+    /**
+     * Importa todas las filas del archivo; las invalidas no cortan la importacion
+     * @param entrada Archivo a importar (se lee hasta el final, no se cierra)
+     * @param alError Recibe cada fila rechazada en orden de linea (puede ser null)
+     * @throws IllegalArgumentException si el encabezado del CSV esta incompleto
+     * @throws UncheckedIOException si falla la lectura o el guardado; lo ya guardado queda guardado
+     */
+    public ResultadoImportacion importar(BufferedReader entrada, FormatoImportacion formato,
+                                         Consumer<ErrorImportacion> alError) {
+        long inicio = System.nanoTime();
+        Ejecucion ejecucion = new Ejecucion(new LectorFilas(formato), alError);
+        List<Thread> hilos = new ArrayList<>(validadores + 1);
+        for (int i = 0; i < validadores; i++) {
+            hilos.add(Thread.ofPlatform().name("importador-validador-" + i).daemon().start(ejecucion::validar));
+        }
+        hilos.add(Thread.ofPlatform().name("importador-guardado").daemon().start(ejecucion::guardar));
+
+        try {
+            ejecucion.leer(entrada);
+        } finally {
+            // Un lote vacio por validador indica el final
+            for (int i = 0; i < validadores; i++) {
+                ejecucion.leidos.add(Lote.FIN);
+            }
+            for (Thread hilo : hilos) {
+                esperar(hilo);
+            }
+        }
+        if (ejecucion.fallo != null) {
+            throw ejecucion.fallo;
+        }
+        return new ResultadoImportacion(ejecucion.lineas, ejecucion.importados, ejecucion.rechazados,
+                ejecucion.errores, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private static void esperar(Thread hilo) {
+        boolean interrumpido = false;
+        while (true) {
+            try {
+                hilo.join();
+                break;
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Estado de una importacion en curso, compartido por las tres etapas
+     */
+    private final class Ejecucion {
+        final LectorFilas lector;
+        final Consumer<ErrorImportacion> alError;
+        final Semaphore permisos = new Semaphore(lotesEnVuelo);
+        final BlockingQueue<Lote> leidos = new LinkedBlockingQueue<>();
+        final BlockingQueue<Lote> validados = new LinkedBlockingQueue<>();
+
+        // Los escribe solo el hilo de guardado (se leen despues del join)
+        long importados;
+        long rechazados;
+        final List<ErrorImportacion> errores = new ArrayList<>();
+        // Lo escribe solo la lectura
+        long lineas;
+        volatile RuntimeException fallo;
+
+        Ejecucion(LectorFilas lector, Consumer<ErrorImportacion> alError) {
+            this.lector = lector;
+            this.alError = alError;
+        }
+
+        /**
+         * Etapa 1: agrupa las lineas en lotes numerados
+         */
+        void leer(BufferedReader entrada) {
+            long numeroLinea = 0;
+            long secuencia = 0;
+            boolean primera = true;
+            Lote lote = new Lote(secuencia);
+            try {
+                String linea;
+                while (fallo == null && (linea = entrada.readLine()) != null) {
+                    numeroLinea++;
+                    if (linea.isBlank()) {
+                        continue;
+                    }
+                    if (primera) {
+                        primera = false;
+                        // Sin las columnas del encabezado no se puede leer ninguna fila:
+                        // un encabezado incompleto corta la importacion (IllegalArgumentException)
+                        if (lector.leerEncabezado(linea)) {
+                            continue;
+                        }
+                    }
+                    lote.agregarLinea(numeroLinea, linea);
+                    lineas++;
+                    if (lote.cantidad() == LINEAS_POR_LOTE) {
+                        enviar(lote);
+                        lote = new Lote(++secuencia);
+                    }
+                }
+                if (fallo == null && lote.cantidad() > 0) {
+                    enviar(lote);
+                }
+            } catch (IOException e) {
+                fallar(new UncheckedIOException("Error al leer el archivo a importar", e));
+            } catch (RuntimeException e) {
+                fallar(e);
+            }
+        }
+
+        /**
+         * Espera un permiso (contrapresion) y pasa el lote a la validacion
+         */
+        private void enviar(Lote lote) {
+            try {
+                while (!permisos.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+                    if (fallo != null) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fallar(new IllegalStateException("Importación interrumpida"));
+                return;
+            }
+            leidos.add(lote);
+        }
+
+        /**
+         * Etapa 2 (varios hilos): parsea y valida cada linea del lote
+         */
+        void validar() {
+            ResultadoValidacion resultado = new ResultadoValidacion();
+            try {
+                while (true) {
+                    Lote lote = tomar(leidos);
+                    if (lote == Lote.FIN) {
+                        return;
+                    }
+                    lote.libros = new ArrayList<>(lote.cantidad());
+                    for (int i = 0; i < lote.cantidad(); i++) {
+                        validarLinea(lote, lote.numerosDeLinea[i], lote.lineas.get(i), resultado);
+                    }
+                    lote.lineas = null;
+                    validados.add(lote);
+                }
+            } catch (RuntimeException e) {
+                // El lote que se estaba validando no llega al guardado: con 'fallo'
+                // la lectura deja de esperar su permiso y la importacion termina
+                fallar(e);
+            } catch (Error e) {
+                fallar(new IllegalStateException("Error inesperado al validar la importación", e));
+                throw e;
+            } finally {
+                // Sin el FIN de cada validador el guardado esperaria para siempre
+                validados.add(Lote.FIN);
+            }
+        }
+
+        private void validarLinea(Lote lote, long numeroLinea, String linea, ResultadoValidacion resultado) {
+            String[] campos;
+            try {
+                campos = lector.leer(linea);
+            } catch (IllegalArgumentException e) {
+                lote.errores.add(new ErrorImportacion(numeroLinea, 400, null, e.getMessage()));
+                return;
+            }
+            if (!validador.validar(campos[LectorFilas.TITULO], campos[LectorFilas.AUTOR],
+                    campos[LectorFilas.ANO], resultado)) {
+                ErrorValidacion error = resultado.getPrimerError();
+                lote.errores.add(new ErrorImportacion(numeroLinea, 400, error.getCampo(), error.getMensaje()));
+                return;
+            }
+            lote.libros.add(new Libro(null, resultado.getTitulo(), resultado.getAutor(),
+                    resultado.getAnoPublicacion(), true));
+        }
+
+        /**
+         * Etapa 3 (un hilo): guarda los lotes en el orden del archivo
+         */
+        void guardar() {
+            Map<Long, Lote> adelantados = new HashMap<>();
+            long siguiente = 0;
+            int terminados = 0;
+            while (terminados < validadores) {
+                Lote lote = tomar(validados);
+                if (lote == Lote.FIN) {
+                    terminados++;
+                    continue;
+                }
+                adelantados.put(lote.secuencia, lote);
+                while ((lote = adelantados.remove(siguiente)) != null) {
+                    siguiente++;
+                    guardarLote(lote);
+                    permisos.release();
+                }
+            }
+        }
+
+        private void guardarLote(Lote lote) {
+            if (fallo != null) {
+                // Se siguen consumiendo los lotes para que nadie quede bloqueado
+                return;
+            }
+            try {
+                if (lote.libros != null && !lote.libros.isEmpty()) {
+                    libroDAO.saveAll(lote.libros);
+                    for (Libro libro : lote.libros) {
+                        // Algun ID nuevo pudo haber quedado en la cache como "no encontrado"
+                        cache.invalidar(libro.getId());
+                    }
+                    importados += lote.libros.size();
+                }
+                // Un solo validador recorre el lote, asi que los errores ya estan en orden de linea
+                for (ErrorImportacion error : lote.errores) {
+                    rechazados++;
+                    if (errores.size() < MAX_ERRORES_INFORMADOS) {
+                        errores.add(error);
+                    }
+                    if (alError != null) {
+                        alError.accept(error);
+                    }
+                }
+            } catch (RuntimeException e) {
+                fallar(e);
+            }
+        }
+
+        private void fallar(RuntimeException e) {
+            if (fallo == null) {
+                fallo = e;
+            }
+        }
+
+        private Lote tomar(BlockingQueue<Lote> cola) {
+            while (true) {
+                try {
+                    return cola.take();
+                } catch (InterruptedException e) {
+                    // Los hilos de la importacion solo terminan con el lote FIN
+                }
+            }
+        }
+    }
+
+    /**
+     * Lineas consecutivas del archivo, y despues de validarlas sus libros y errores
+     */
+    private static final class Lote {
+        static final Lote FIN = new Lote(-1);
+
+        final long secuencia;
+        List<String> lineas = new ArrayList<>(LINEAS_POR_LOTE);
+        final long[] numerosDeLinea;
+        List<Libro> libros;
+        final List<ErrorImportacion> errores = new ArrayList<>();
+
+        Lote(long secuencia) {
+            this.secuencia = secuencia;
+            this.numerosDeLinea = secuencia < 0 ? new long[0] : new long[LINEAS_POR_LOTE];
+        }
+
+        void agregarLinea(long numeroLinea, String linea) {
+            numerosDeLinea[lineas.size()] = numeroLinea;
+            lineas.add(linea);
+        }
+
+        int cantidad() {
+            return lineas.size();
+        }
+    }
+}
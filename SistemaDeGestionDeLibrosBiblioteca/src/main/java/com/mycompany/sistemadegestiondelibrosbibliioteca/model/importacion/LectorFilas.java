@@ -0,0 +1,127 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.Json;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * LectorFilas - Convierte una linea del archivo en los tres campos del libro
+ * Los errores de formato se lanzan como IllegalArgumentException con el mensaje para el usuario
+ */
+final class LectorFilas {
+    static final int TITULO = 0;
+    static final int AUTOR = 1;
+    static final int ANO = 2;
+
+    private final FormatoImportacion formato;
+    // Columna del CSV de cada campo (por defecto titulo,autor,anoPublicacion)
+    private final int[] columnas = {0, 1, 2};
+
+    LectorFilas(FormatoImportacion formato) {
+        this.formato = formato;
+    }
+
+    /**
+     * Si la primera linea del CSV es un encabezado, toma de ahi el orden de las columnas
+     * @return true si era un encabezado (y no hay que importarla)
+     */
+    boolean leerEncabezado(String linea) {
+        if (formato != FormatoImportacion.CSV) {
+            return false;
+        }
+        List<String> nombres;
+        try {
+            nombres = separarCsv(linea);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        int[] encontradas = {-1, -1, -1};
+        for (int i = 0; i < nombres.size(); i++) {
+            switch (nombres.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "titulo":
+                case "título":
+                    encontradas[TITULO] = i;
+                    break;
+                case "autor":
+                    encontradas[AUTOR] = i;
+                    break;
+                case "anopublicacion":
+                case "añopublicacion":
+                case "año":
+                case "ano":
+                    encontradas[ANO] = i;
+                    break;
+                default:
+                    // Columnas extra (id, disponible, ...) se ignoran
+                    break;
+            }
+        }
+        if (encontradas[TITULO] < 0 && encontradas[AUTOR] < 0 && encontradas[ANO] < 0) {
+            return false;
+        }
+        for (int campo = 0; campo < encontradas.length; campo++) {
+            if (encontradas[campo] < 0) {
+                throw new IllegalArgumentException("Al encabezado del CSV le falta la columna "
+                        + (campo == TITULO ? "titulo" : campo == AUTOR ? "autor" : "anoPublicacion"));
+            }
+        }
+        System.arraycopy(encontradas, 0, columnas, 0, columnas.length);
+        return true;
+    }
+
+    /**
+     * @return titulo, autor y año como texto (null si falta)
+     */
+    String[] leer(String linea) {
+        String[] campos = new String[3];
+        if (formato == FormatoImportacion.JSON_LINES) {
+            Map<String, String> objeto = Json.parsearObjeto(linea);
+            campos[TITULO] = objeto.get("titulo");
+            campos[AUTOR] = objeto.get("autor");
+            campos[ANO] = objeto.get("anoPublicacion");
+            return campos;
+        }
+        List<String> valores = separarCsv(linea);
+        for (int campo = 0; campo < campos.length; campo++) {
+            campos[campo] = columnas[campo] < valores.size() ? valores.get(columnas[campo]) : null;
+        }
+        return campos;
+    }
+
+    /**
+     * Separa una linea CSV respetando las comillas dobles
+     */
+    static List<String> separarCsv(String linea) {
+        List<String> valores = new ArrayList<>(4);
+        StringBuilder actual = new StringBuilder(linea.length());
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c != '"') {
+                    actual.append(c);
+                } else if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else {
+                    entreComillas = false;
+                }
+            } else if (c == '"' && actual.isEmpty()) {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("CSV inválido: comillas sin cerrar");
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion;
+
+import java.util.List;
+
+/**
+ * ResultadoImportacion - Resumen de una importacion
+ *
+ * @param lineas     Lineas leidas (sin contar vacias ni el encabezado)
+ * @param importados Libros guardados
+ * @param rechazados Filas con error
+ * @param errores    Primeros errores, en orden de linea (como mucho ImportadorLibros.MAX_ERRORES_INFORMADOS)
+ * @param milis      Duracion total
+ */
+public record ResultadoImportacion(long lineas, long importados, long rechazados,
+                                   List<ErrorImportacion> errores, long milis) {
+
+    public long librosPorMinuto() {
+        return milis == 0 ? importados * 60_000 : importados * 60_000 / milis;
+    }
+}
@@ -0,0 +1,38 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * EstadoPrestamo - Foto inmutable del prestamo de un libro
+ *
+ * Nunca se modifica: cada operacion arma un estado nuevo y lo publica con un
+ * compareAndSet, asi dos prestamos simultaneos del mismo libro no pueden ganar los dos.
+ *
+ * @param version Sube en 1 con cada cambio
+ * @param usuario Quien lo tiene (PRESTADO, null si se presto fuera del sistema)
+ *                o para quien esta apartado (APARTADO); null si esta DISPONIBLE
+ * @param vence Vencimiento del prestamo o del apartado; null si esta DISPONIBLE
+ * @param espera Usuarios que reservaron, en orden de llegada (sin el de 'usuario')
+ */
+public record EstadoPrestamo(long version, SituacionPrestamo situacion, String usuario,
+                             Instant vence, List<String> espera) {
+
+    public EstadoPrestamo {
+        espera = List.copyOf(espera);
+    }
+
+    /**
+     * Estado de un libro que todavia no paso por el sistema de prestamos,
+     * segun el campo disponible de la entidad (null cuenta como disponible)
+     */
+    static EstadoPrestamo inicial(Boolean disponible) {
+        return Boolean.FALSE.equals(disponible)
+                ? new EstadoPrestamo(0, SituacionPrestamo.PRESTADO, null, null, List.of())
+                : new EstadoPrestamo(0, SituacionPrestamo.DISPONIBLE, null, null, List.of());
+    }
+
+    public boolean estaDisponible() {
+        return situacion == SituacionPrestamo.DISPONIBLE;
+    }
+}
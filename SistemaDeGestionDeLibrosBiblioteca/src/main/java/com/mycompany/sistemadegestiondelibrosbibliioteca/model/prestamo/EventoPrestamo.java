@@ -0,0 +1,12 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+import java.time.Instant;
+
+/**
+ * EventoPrestamo - Un cambio en el prestamo de un libro
+ * @param secuencia Orden global de llegada al historial
+ * @param version Version del estado del libro que produjo el evento: ordena los eventos de un mismo libro
+ */
+public record EventoPrestamo(long secuencia, Instant instante, TipoEventoPrestamo tipo,
+                             long libroId, String usuario, long version) {
+}
@@ -0,0 +1,59 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * HistorialPrestamos - Ultimos eventos de prestamos, en un buffer circular
+ *
+ * Agregar es un getAndIncrement y una escritura en el array, sin locks: los
+ * hilos que prestan el mismo libro no se frenan por el historial. Cuando se
+ * llena, cada evento nuevo pisa al mas viejo.
+ */
+public final class HistorialPrestamos {
+    private final AtomicReferenceArray<EventoPrestamo> eventos;
+    private final AtomicLong siguiente = new AtomicLong();
+
+    public HistorialPrestamos(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad del historial debe ser positiva");
+        }
+        this.eventos = new AtomicReferenceArray<>(capacidad);
+    }
+
+    void registrar(Instant instante, TipoEventoPrestamo tipo, long libroId, String usuario, long version) {
+        long secuencia = siguiente.getAndIncrement();
+        eventos.set((int) (secuencia % eventos.length()),
+                new EventoPrestamo(secuencia, instante, tipo, libroId, usuario, version));
+    }
+
+    /**
+     * Eventos de un libro, del mas nuevo al mas viejo, como mucho 'limite'
+     */
+    public List<EventoPrestamo> delLibro(long libroId, int limite) {
+        List<EventoPrestamo> encontrados = new ArrayList<>();
+        long ultima = siguiente.get() - 1;
+        for (long secuencia = ultima; secuencia >= 0 && secuencia > ultima - eventos.length(); secuencia--) {
+            EventoPrestamo evento = eventos.get((int) (secuencia % eventos.length()));
+            // Un hilo puede haber tomado la secuencia y todavia no haber escrito el evento
+            if (evento != null && evento.secuencia() == secuencia && evento.libroId() == libroId) {
+                encontrados.add(evento);
+            }
+        }
+        // Dos hilos pueden escribir en otro orden que el de sus cambios: vale la version
+        encontrados.sort(Comparator.comparingLong(EventoPrestamo::version).reversed()
+                .thenComparing(Comparator.comparingLong(EventoPrestamo::secuencia).reversed()));
+        return encontrados.size() > limite ? new ArrayList<>(encontrados.subList(0, limite)) : encontrados;
+    }
+
+    /**
+     * Eventos registrados desde que se inicio (incluidos los que ya se pisaron)
+     */
+    public long total() {
+        return siguiente.get();
+    }
+}
@@ -0,0 +1,244 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * MotorPrestamos - Prestamos, devoluciones y reservas con lista de espera
+ *
+ * Cada libro tiene su EstadoPrestamo inmutable en un AtomicReference. Una
+ * operacion lee el estado, arma el siguiente y lo publica con compareAndSet;
+ * si otro hilo cambio el libro en el medio se reintenta con el estado nuevo.
+ * No hay un lock global: los hilos solo compiten cuando operan sobre el mismo
+ * libro, y aun asi ninguno se bloquea. De miles de prestamos simultaneos del
+ * mismo libro gana exactamente uno; los demas reciben IllegalStateException.
+ *
+ * Al devolver un libro con lista de espera queda APARTADO para el primero.
+ * Si no lo retira antes de que venza el apartado pierde el lugar y pasa al
+ * siguiente; eso se resuelve en la proxima operacion sobre el libro.
+ *
+ * Propiedades del sistema (ver configurado):
+ * -Dbiblioteca.prestamos.dias=N           duracion de un prestamo (14)
+ * -Dbiblioteca.prestamos.apartado.dias=N  tiempo para retirar un apartado (3)
+ * -Dbiblioteca.prestamos.historial=N      eventos que se guardan (100000)
+ */
+public final class MotorPrestamos {
+    // Reservas por libro, para que una lista no crezca sin limite
+    public static final int ESPERA_MAXIMA = 1000;
+
+    private final Map<Long, AtomicReference<EstadoPrestamo>> estados = new ConcurrentHashMap<>();
+    private final HistorialPrestamos historial;
+    private final Clock reloj;
+    private final Duration plazoPrestamo;
+    private final Duration plazoApartado;
+
+    private final LongAdder operaciones = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder reintentos = new LongAdder();
+
+    public MotorPrestamos(HistorialPrestamos historial, Clock reloj, Duration plazoPrestamo, Duration plazoApartado) {
+        this.historial = historial;
+        this.reloj = reloj;
+        this.plazoPrestamo = plazoPrestamo;
+        this.plazoApartado = plazoApartado;
+    }
+
+    /**
+     * Motor segun las propiedades del sistema
+     */
+    public static MotorPrestamos configurado() {
+        return new MotorPrestamos(
+                new HistorialPrestamos(Integer.getInteger("biblioteca.prestamos.historial", 100_000)),
+                Clock.systemUTC(),
+                Duration.ofDays(Long.getLong("biblioteca.prestamos.dias", 14L)),
+                Duration.ofDays(Long.getLong("biblioteca.prestamos.apartado.dias", 3L)));
+    }
+
+    /**
+     * Estado actual del libro
+     * @param disponible Campo disponible de la entidad, se usa solo si el libro nunca paso por el motor
+     */
+    public EstadoPrestamo estado(long libroId, Boolean disponible) {
+        EstadoPrestamo leido = referencia(libroId, disponible).get();
+        return vencerApartados(leido, reloj.instant());
+    }
+
+    /**
+     * Presta el libro si esta disponible, o si esta apartado para este usuario
+     * @throws IllegalStateException Si esta prestado o apartado para otro
+     */
+    public EstadoPrestamo prestar(long libroId, Boolean disponible, String usuario) {
+        return cambiar(libroId, disponible, TipoEventoPrestamo.PRESTAMO, usuario, actual -> {
+            switch (actual.situacion()) {
+                case PRESTADO:
+                    throw new IllegalStateException(usuario.equals(actual.usuario())
+                            ? "El usuario ya tiene este libro prestado"
+                            : "El libro ya está prestado");
+                case APARTADO:
+                    if (!usuario.equals(actual.usuario())) {
+                        throw new IllegalStateException("El libro está apartado para otro usuario");
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return new EstadoPrestamo(actual.version() + 1, SituacionPrestamo.PRESTADO, usuario,
+                    reloj.instant().plus(plazoPrestamo), actual.espera());
+        });
+    }
+
+    /**
+     * Devuelve el libro. Un libro que se presto fuera del sistema lo puede devolver cualquiera
+     * @throws IllegalStateException Si no esta prestado o lo tiene otro usuario
+     */
+    public EstadoPrestamo devolver(long libroId, Boolean disponible, String usuario) {
+        return cambiar(libroId, disponible, TipoEventoPrestamo.DEVOLUCION, usuario, actual -> {
+            if (actual.situacion() != SituacionPrestamo.PRESTADO) {
+                throw new IllegalStateException("El libro no está prestado");
+            }
+            if (actual.usuario() != null && !usuario.equals(actual.usuario())) {
+                throw new IllegalStateException("El libro está prestado a otro usuario");
+            }
+            if (actual.espera().isEmpty()) {
+                return new EstadoPrestamo(actual.version() + 1, SituacionPrestamo.DISPONIBLE, null, null, List.of());
+            }
+            // Queda guardado para el primero de la lista
+            return new EstadoPrestamo(actual.version() + 1, SituacionPrestamo.APARTADO, actual.espera().get(0),
+                    reloj.instant().plus(plazoApartado), actual.espera().subList(1, actual.espera().size()));
+        });
+    }
+
+    /**
+     * Agrega al usuario al final de la lista de espera de un libro que no esta disponible
+     * @throws IllegalStateException Si el libro esta disponible, el usuario ya lo tiene o ya esta en la lista
+     */
+    public EstadoPrestamo reservar(long libroId, Boolean disponible, String usuario) {
+        return cambiar(libroId, disponible, TipoEventoPrestamo.RESERVA, usuario, actual -> {
+            if (actual.situacion() == SituacionPrestamo.DISPONIBLE) {
+                throw new IllegalStateException("El libro está disponible, se puede pedir prestado");
+            }
+            if (usuario.equals(actual.usuario())) {
+                throw new IllegalStateException(actual.situacion() == SituacionPrestamo.PRESTADO
+                        ? "El usuario ya tiene este libro prestado"
+                        : "El libro ya está apartado para este usuario");
+            }
+            if (actual.espera().contains(usuario)) {
+                throw new IllegalStateException("El usuario ya está en la lista de espera");
+            }
+            if (actual.espera().size() >= ESPERA_MAXIMA) {
+                throw new IllegalStateException("La lista de espera está completa");
+            }
+            List<String> espera = new ArrayList<>(actual.espera().size() + 1);
+            espera.addAll(actual.espera());
+            espera.add(usuario);
+            return new EstadoPrestamo(actual.version() + 1, actual.situacion(), actual.usuario(), actual.vence(), espera);
+        });
+    }
+
+    public List<EventoPrestamo> historialDelLibro(long libroId, int limite) {
+        return historial.delLibro(libroId, limite);
+    }
+
+    public HistorialPrestamos getHistorial() {
+        return historial;
+    }
+
+    /**
+     * Operaciones que cambiaron un estado
+     */
+    public long getOperaciones() {
+        return operaciones.sum();
+    }
+
+    /**
+     * Operaciones rechazadas por el estado del libro (prestado, apartado, etc.)
+     */
+    public long getRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * compareAndSet que fallaron porque otro hilo cambio el mismo libro (contencion)
+     */
+    public long getReintentos() {
+        return reintentos.sum();
+    }
+
+    private AtomicReference<EstadoPrestamo> referencia(long libroId, Boolean disponible) {
+        AtomicReference<EstadoPrestamo> referencia = estados.get(libroId);
+        if (referencia == null) {
+            referencia = estados.computeIfAbsent(libroId, id -> new AtomicReference<>(EstadoPrestamo.inicial(disponible)));
+        }
+        return referencia;
+    }
+
+    /**
+     * Bucle de compareAndSet: el cambio se vuelve a calcular sobre el estado mas nuevo hasta que gana
+     */
+    private EstadoPrestamo cambiar(long libroId, Boolean disponible, TipoEventoPrestamo tipo, String usuario,
+                                   UnaryOperator<EstadoPrestamo> cambio) {
+        AtomicReference<EstadoPrestamo> referencia = referencia(libroId, disponible);
+        while (true) {
+            Instant ahora = reloj.instant();
+            EstadoPrestamo leido = referencia.get();
+            EstadoPrestamo vigente = vencerApartados(leido, ahora);
+            EstadoPrestamo nuevo;
+            try {
+                nuevo = cambio.apply(vigente);
+            } catch (IllegalStateException e) {
+                rechazadas.increment();
+                throw e;
+            }
+            if (referencia.compareAndSet(leido, nuevo)) {
+                operaciones.increment();
+                registrarVencidos(libroId, leido, vigente, ahora);
+                historial.registrar(ahora, tipo, libroId, usuario, nuevo.version());
+                if (nuevo.situacion() == SituacionPrestamo.APARTADO && vigente.situacion() != SituacionPrestamo.APARTADO) {
+                    historial.registrar(ahora, TipoEventoPrestamo.APARTADO, libroId, nuevo.usuario(), nuevo.version());
+                }
+                return nuevo;
+            }
+            reintentos.increment();
+        }
+    }
+
+    /**
+     * Saca los apartados vencidos: el siguiente de la lista hereda el libro por
+     * otro plazo contado desde que vencio el anterior. Sin lista queda disponible
+     */
+    private EstadoPrestamo vencerApartados(EstadoPrestamo estado, Instant ahora) {
+        while (estado.situacion() == SituacionPrestamo.APARTADO && ahora.isAfter(estado.vence())) {
+            if (estado.espera().isEmpty()) {
+                estado = new EstadoPrestamo(estado.version(), SituacionPrestamo.DISPONIBLE, null, null, List.of());
+            } else {
+                estado = new EstadoPrestamo(estado.version(), SituacionPrestamo.APARTADO, estado.espera().get(0),
+                        estado.vence().plus(plazoApartado), estado.espera().subList(1, estado.espera().size()));
+            }
+        }
+        return estado;
+    }
+
+    /**
+     * Registra los apartados que vencieron entre el estado leido y el vigente
+     */
+    private void registrarVencidos(long libroId, EstadoPrestamo leido, EstadoPrestamo vigente, Instant ahora) {
+        if (leido == vigente) {
+            return;
+        }
+        // Vencieron el apartado leido y los primeros de la lista que ya no estan
+        historial.registrar(ahora, TipoEventoPrestamo.APARTADO_VENCIDO, libroId, leido.usuario(), leido.version());
+        int vencidosDeLaLista = leido.espera().size() - vigente.espera().size()
+                - (vigente.situacion() == SituacionPrestamo.APARTADO ? 1 : 0);
+        for (int i = 0; i < vencidosDeLaLista; i++) {
+            historial.registrar(ahora, TipoEventoPrestamo.APARTADO_VENCIDO, libroId, leido.espera().get(i), leido.version());
+        }
+    }
+}
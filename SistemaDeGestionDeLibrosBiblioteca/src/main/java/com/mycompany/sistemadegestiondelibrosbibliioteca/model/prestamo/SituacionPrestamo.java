@@ -0,0 +1,13 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+/**
+ * SituacionPrestamo - Donde esta un libro para el sistema de prestamos
+ */
+public enum SituacionPrestamo {
+    // En el estante: cualquiera lo puede pedir
+    DISPONIBLE,
+    // Lo tiene un usuario hasta la fecha de vencimiento
+    PRESTADO,
+    // Devuelto pero guardado para el primero de la lista de espera hasta que venza
+    APARTADO
+}
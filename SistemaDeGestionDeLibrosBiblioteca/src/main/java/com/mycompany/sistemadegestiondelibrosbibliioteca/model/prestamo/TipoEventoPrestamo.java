@@ -0,0 +1,14 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo;
+
+/**
+ * TipoEventoPrestamo - Lo que puede pasar con un libro en el historial de prestamos
+ */
+public enum TipoEventoPrestamo {
+    PRESTAMO,
+    DEVOLUCION,
+    RESERVA,
+    // El libro quedo guardado para el primero de la lista de espera
+    APARTADO,
+    // El usuario no lo retiro a tiempo y perdio su lugar
+    APARTADO_VENCIDO
+}
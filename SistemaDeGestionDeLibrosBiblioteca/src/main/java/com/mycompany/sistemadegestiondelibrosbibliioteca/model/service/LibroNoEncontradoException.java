@@ -0,0 +1,29 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.service;
+
+/**
+ * LibroNoEncontradoException - El ID pedido no existe (404)
+ *
+ * No guarda la pila de llamadas y arma el mensaje recien cuando se lo pide:
+ * crearla y lanzarla cuesta casi lo mismo que retornar un valor, y los IDs
+ * que no existen (enlaces viejos) son una parte grande de las consultas.
+ * El controlador la reconoce por su tipo, no por el texto del mensaje.
+ */
+public class LibroNoEncontradoException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long libroId;
+
+    public LibroNoEncontradoException(long libroId) {
+        super(null, null, false, false);
+        this.libroId = libroId;
+    }
+
+    public long getLibroId() {
+        return libroId;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Libro no encontrado con ID: " + libroId;
+    }
+}
@@ -8,14 +8,34 @@ package com.mycompany.sistemadegestiondelibrosbibliioteca.model.service;
  *
  * @author gian_
  */
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.CacheLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.EstadisticasCache;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.agregacion.ResumenCatalogo;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ReporteCatalogoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.SolicitudLibroDTO;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
-
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ErrorImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.FormatoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ImportadorLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ResultadoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ErrorValidacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ResultadoValidacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion.ValidadorLibro;
+
+import java.io.BufferedReader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * LibroService - Capa de lógica de negocio
@@ -24,24 +44,92 @@ import java.util.Optional;
  * Maneja todas las excepciones de negocio
  */
 // contiene:
-// -metodo de obtener un solo libro, con las validaciones de los ids
+// -metodo de obtener un solo libro, con las validaciones de los ids; pasa
+// por la cache (CacheLibros), que tambien recuerda los IDs que no existen.
+// buscarLibroPorId retorna Optional vacio si no existe, sin excepciones, y
+// obtenerLibroPorId lanza LibroNoEncontradoException (sin pila de llamadas)
 // -metodo de obtener todos los libros, que este no lo pedia la consigna pero lo
 // agregamos para hacer la demostracion por consola; crea un arraylist y lo
 // itera con la informacion que le llega de la persistencia, en este caso
 // memoria
+// -metodos de listar por paginas (cursor por ID) y como stream, para
+// catalogos grandes que no conviene copiar enteros
+// -metodo de buscar libros por titulo o autor, usa el indice invertido del
+// DAO (sin acentos, por prefijo y tolerando un error de tipeo)
+// -metodos de filtrar por rango de años, autor y disponibilidad, usan los
+// indices secundarios del DAO en vez de recorrer todos los libros
 // -metodo de agregar libro, mas pesado en cuanto a validaciones, las delega a
-// metodos privados y llama al metodo de convertir a dto, para formatear la
-// informacion
+// ValidadorLibro (sin regex ni excepciones internas, el año se convierte una
+// sola vez) y llama al metodo de convertir a dto, para formatear la
+// informacion; despues de guardar invalida el ID en la cache
+// -metodos de actualizar (todos los campos) y modificar (solo los que vienen)
+// un libro, con concurrencia optimista: el cliente manda la version que leyo
+// y si otro cambio se guardo antes el DAO lanza ConflictoVersionException (409)
+// -metodos por lotes (obtener varios IDs y agregar varios libros de una vez),
+// con un resultado por elemento; el alta usa un solo bloque de IDs y un fsync
+// -metodo de importar libros desde un archivo CSV o JSON lines, valida en
+// paralelo y guarda por lotes (ver ImportadorLibros)
+// -metodo del reporte del catalogo (disponibilidad, años, libros por decada y
+// autores con mas libros), calculado en una pasada paralela sobre el almacen
+// del DAO sin convertir ningun libro a DTO
 // por simplicidad dejamos solo esta implementacion, no se uso una interfaz
 
 public class LibroService {
+    // Cantidad de resultados de una busqueda por texto si no se indica otra
+    public static final int LIMITE_BUSQUEDA_POR_DEFECTO = 10;
+    private static final int LIMITE_BUSQUEDA_MAXIMO = 100;
+    // Tamaño de pagina del listado paginado
+    public static final int LIMITE_PAGINA_POR_DEFECTO = 50;
+    private static final int LIMITE_PAGINA_MAXIMO = 1000;
+    // Cantidad de resultados de un filtro por año, autor o disponibilidad
+    public static final int LIMITE_FILTRO_POR_DEFECTO = 100;
+    private static final int LIMITE_FILTRO_MAXIMO = 1000;
+    // Elementos de una operacion por lotes (lectura o alta)
+    public static final int MAXIMO_POR_LOTE = 1000;
+    // Autores del ranking del reporte del catalogo
+    public static final int AUTORES_REPORTE_POR_DEFECTO = 10;
+    private static final int AUTORES_REPORTE_MAXIMO = 1000;
+
+    // Una sola cache para todos los services por defecto, igual que los datos del DAO:
+    // si cada instancia tuviera la suya, un save no invalidaria las de las demas
+    // (sin private para que PrestamoService invalide la misma)
+    static final CacheLibros cacheCompartida = CacheLibros.configurada();
+
     private LibroDAO libroDAO;
+    private CacheLibros cache;
+    // Se crea una sola vez: libroDAO::findById en cada llamada seria un objeto nuevo
+    private final Function<Long, Optional<Libro>> cargador;
+    private final ValidadorLibro validador = new ValidadorLibro();
 
     public LibroService() {
-        this.libroDAO = new LibroDAO();
+        this(new LibroDAO(), cacheCompartida);
+    }
+
+    public LibroService(LibroDAO libroDAO, CacheLibros cache) {
+        this.libroDAO = libroDAO;
+        this.cache = cache;
+        this.cargador = libroDAO::findById;
     }
 
+    /**
+     * Libro por ID
+     * @throws LibroNoEncontradoException Si no existe
+     */
     public LibroDTO obtenerLibroPorId(Long id) {
+        Optional<LibroDTO> libro = buscarLibroPorId(id);
+        // Libro debe existir (Error 404)
+        if (libro.isEmpty()) {
+            throw new LibroNoEncontradoException(id);
+        }
+        return libro.get();
+    }
+
+    /**
+     * Libro por ID, o vacio si no existe. Un ID que no existe cuesta lo mismo
+     * que uno que existe: no se crea ninguna excepcion
+     * @throws IllegalArgumentException Si el ID es nulo o no es positivo
+     */
+    public Optional<LibroDTO> buscarLibroPorId(Long id) {
         // ID no puede ser nulo
         if (id == null) {
             throw new IllegalArgumentException("El ID no puede ser nulo");
@@ -51,134 +139,342 @@ public class LibroService {
         if (id <= 0) {
             throw new IllegalArgumentException("El ID debe ser un número positivo");
         }
-        // Buscar en la base de datos
-        Optional<Libro> libroOpt = libroDAO.findById(id);
-
-        // Libro debe existir (Error 404)
+        // Buscar en la cache, y si no esta en la base de datos
+        Optional<Libro> libroOpt = cache.obtener(id, cargador);
         if (libroOpt.isEmpty()) {
-            throw new RuntimeException("Libro no encontrado con ID: " + id + " (Error 404)");
+            return Optional.empty();
         }
-        Libro libro = libroOpt.get();
 
         // Convertir Entity a DTO (ocultar campo disponible)
-        return convertirADTO(libro);
+        return Optional.of(convertirADTO(libroOpt.get()));
+    }
+
+    public List<ResultadoLoteDTO> obtenerLibrosPorIds(List<Long> ids) {
+        validarLote(ids);
+
+        // Una sola consulta al DAO para todo el lote (no pasa por la cache,
+        // que es para los libros que se piden de a uno muchas veces)
+        Map<Long, Libro> encontrados = libroDAO.findAllById(ids);
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // Las mismas reglas que obtenerLibroPorId, pero por elemento
+            if (id == null) {
+                resultados.add(new ResultadoLoteDTO(null, 400, "El ID no puede ser nulo", null));
+            } else if (id <= 0) {
+                resultados.add(new ResultadoLoteDTO(id, 400, "El ID debe ser un número positivo", null));
+            } else if (!encontrados.containsKey(id)) {
+                resultados.add(new ResultadoLoteDTO(id, 404, "Libro no encontrado con ID: " + id, null));
+            } else {
+                resultados.add(new ResultadoLoteDTO(id, 200, null, convertirADTO(encontrados.get(id))));
+            }
+        }
+        return resultados;
     }
 
     public List<LibroDTO> obtenerTodosLosLibros() {
-        Map<Long, Libro> todosLosLibros = libroDAO.findAll();
+        // Se recorre el catalogo en orden de ID, sin copiar el mapa del DAO
         List<LibroDTO> librosDTO = new ArrayList<>();
+        libroDAO.streamAll().forEach(libro -> librosDTO.add(convertirADTO(libro)));
+        return librosDTO;
+    }
+
+    public PaginaLibrosDTO obtenerPaginaDeLibros(Long despuesDeId, Integer limite) {
+        // El cursor es el ultimo ID de la pagina anterior (null o 0 para empezar)
+        long cursor = despuesDeId == null ? 0 : despuesDeId;
+        if (cursor < 0) {
+            throw new IllegalArgumentException("El cursor no puede ser negativo");
+        }
+
+        int cantidad = limite == null ? LIMITE_PAGINA_POR_DEFECTO : limite;
+        if (cantidad < 1 || cantidad > LIMITE_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException(
+                    "El tamaño de página debe estar entre 1 y " + LIMITE_PAGINA_MAXIMO);
+        }
+
+        // Se pide uno mas para saber si hay otra pagina sin hacer otra consulta
+        List<Libro> libros = libroDAO.findPagina(cursor, cantidad + 1);
+        boolean hayMas = libros.size() > cantidad;
+        List<LibroDTO> librosDTO = new ArrayList<>(Math.min(libros.size(), cantidad));
+        for (int i = 0; i < libros.size() && i < cantidad; i++) {
+            librosDTO.add(convertirADTO(libros.get(i)));
+        }
+        Long siguiente = hayMas ? librosDTO.get(librosDTO.size() - 1).getId() : null;
+        return new PaginaLibrosDTO(librosDTO, siguiente);
+    }
+
+    /**
+     * Todos los libros en orden de ID, convertidos a DTO a medida que se consumen.
+     * Nunca arma la lista completa en memoria
+     */
+    public Stream<LibroDTO> streamLibros() {
+        return libroDAO.streamAll().map(this::convertirADTO);
+    }
+
+    public long contarLibros() {
+        return libroDAO.count();
+    }
+
+    public ReporteCatalogoDTO obtenerReporteCatalogo(Integer autores) {
+        int cantidad = autores == null ? AUTORES_REPORTE_POR_DEFECTO : autores;
+        if (cantidad < 0 || cantidad > AUTORES_REPORTE_MAXIMO) {
+            throw new IllegalArgumentException(
+                    "La cantidad de autores debe estar entre 0 y " + AUTORES_REPORTE_MAXIMO);
+        }
+
+        // Una sola pasada del DAO junta todos los totales
+        ResumenCatalogo resumen = libroDAO.agregar(ResumenCatalogo.AGREGACION);
+        Map<String, Long> autoresConMasLibros = new LinkedHashMap<>();
+        for (ResumenCatalogo.LibrosPorAutor autor : resumen.autoresConMasLibros(cantidad)) {
+            autoresConMasLibros.put(autor.autor(), autor.libros());
+        }
+        double tasa = resumen.getTotal() == 0 ? 0 : (double) resumen.getDisponibles() / resumen.getTotal();
+        return new ReporteCatalogoDTO(resumen.getTotal(), resumen.getDisponibles(), resumen.getNoDisponibles(),
+                tasa, resumen.getAnoMinimo(), resumen.getAnoMaximo(), resumen.getCantidadDeAutores(),
+                resumen.porDecada(), autoresConMasLibros);
+    }
+
+    public EstadisticasCache obtenerEstadisticasCache() {
+        return cache.estadisticas();
+    }
+
+    public List<LibroDTO> buscarLibros(String consulta, Integer limite) {
+        // La consulta no puede estar vacia
+        if (consulta == null || consulta.trim().isEmpty()) {
+            throw new IllegalArgumentException("La búsqueda no puede estar vacía");
+        }
+
+        if (consulta.trim().length() > 200) {
+            throw new IllegalArgumentException("La búsqueda no puede exceder 200 caracteres");
+        }
+
+        int cantidad = limite == null ? LIMITE_BUSQUEDA_POR_DEFECTO : limite;
+        if (cantidad < 1 || cantidad > LIMITE_BUSQUEDA_MAXIMO) {
+            throw new IllegalArgumentException(
+                    "El límite debe estar entre 1 y " + LIMITE_BUSQUEDA_MAXIMO);
+        }
 
-        for (Libro libro : todosLosLibros.values()) {
+        // El DAO los retorna ordenados por relevancia
+        List<LibroDTO> librosDTO = new ArrayList<>();
+        for (Libro libro : libroDAO.buscarPorTexto(consulta, cantidad)) {
             librosDTO.add(convertirADTO(libro));
         }
+        return librosDTO;
+    }
 
+    public List<LibroDTO> obtenerLibrosPorRangoDeAnos(Integer anoDesde, Integer anoHasta, Integer limite) {
+        if (anoDesde == null || anoHasta == null) {
+            throw new IllegalArgumentException("El rango de años debe tener inicio y fin");
+        }
+        return filtrarLibros(anoDesde, anoHasta, null, null, limite);
+    }
+
+    public List<LibroDTO> obtenerLibrosDisponiblesPorAutor(String autor, Integer limite) {
+        if (autor == null || autor.trim().isEmpty()) {
+            throw new IllegalArgumentException("El autor no puede estar vacío");
+        }
+        return filtrarLibros(null, null, autor, true, limite);
+    }
+
+    public List<LibroDTO> filtrarLibros(Integer anoDesde, Integer anoHasta, String autor,
+                                        Boolean disponible, Integer limite) {
+        // Al menos un filtro, para no devolver el catalogo entero
+        if (anoDesde == null && anoHasta == null && autor == null && disponible == null) {
+            throw new IllegalArgumentException("Debe indicar al menos un filtro");
+        }
+
+        // El rango de años debe ser valido
+        if (anoDesde != null && anoHasta != null && anoDesde > anoHasta) {
+            throw new IllegalArgumentException("El año inicial no puede ser mayor al año final");
+        }
+
+        // El autor, si se indica, no puede estar vacio
+        if (autor != null && autor.trim().isEmpty()) {
+            throw new IllegalArgumentException("El autor no puede estar vacío");
+        }
+
+        int cantidad = limite == null ? LIMITE_FILTRO_POR_DEFECTO : limite;
+        if (cantidad < 1 || cantidad > LIMITE_FILTRO_MAXIMO) {
+            throw new IllegalArgumentException(
+                    "El límite debe estar entre 1 y " + LIMITE_FILTRO_MAXIMO);
+        }
+
+        // El DAO intersecta los indices de año, autor y disponibilidad
+        List<LibroDTO> librosDTO = new ArrayList<>();
+        for (Libro libro : libroDAO.findByFiltros(anoDesde, anoHasta, autor, disponible, cantidad)) {
+            librosDTO.add(convertirADTO(libro));
+        }
         return librosDTO;
     }
 
     public LibroDTO agregarLibro(String titulo, String autor, String anoPublicacionStr) {
-        // Ejecutar TODAS las validaciones de negocio
-        validarTitulo(titulo);
-        validarAutor(autor);
-        validarAnoPublicacion(anoPublicacionStr); // Validar como String
-
-        // Convertir a Integer (ya validado)
-        Integer anoPublicacion = Integer.parseInt(anoPublicacionStr);
+        // Ejecutar TODAS las validaciones de negocio; el año queda convertido a numero
+        ResultadoValidacion validacion = validador.validar(titulo, autor, anoPublicacionStr);
+        if (!validacion.esValido()) {
+            throw new IllegalArgumentException(validacion.getPrimerError().getMensaje());
+        }
 
-        // Crear nueva entidad
+        // Crear nueva entidad con los valores ya normalizados por el validador
         Libro nuevoLibro = new Libro();
-        nuevoLibro.setTitulo(titulo.trim());
-        nuevoLibro.setAutor(autor.trim());
-        nuevoLibro.setAnoPublicacion(anoPublicacion);
+        nuevoLibro.setTitulo(validacion.getTitulo());
+        nuevoLibro.setAutor(validacion.getAutor());
+        nuevoLibro.setAnoPublicacion(validacion.getAnoPublicacion());
         nuevoLibro.setDisponible(true); // Por defecto disponible
 
         // Guardar en la base de datos
         Libro libroGuardado = libroDAO.save(nuevoLibro);
+        // El ID pudo haber quedado en la cache como "no encontrado"
+        cache.invalidar(libroGuardado.getId());
 
         // Convertir a DTO para retornar
         return convertirADTO(libroGuardado);
     }
 
-    private void validarTitulo(String titulo) {
-        if (titulo == null || titulo.trim().isEmpty()) {
-            throw new IllegalArgumentException("El título no puede estar vacío");
-        }
-
-        if (titulo.trim().length() < 2) {
-            throw new IllegalArgumentException("El título debe tener al menos 2 caracteres");
+    /**
+     * Reemplaza titulo, autor y año de un libro (PUT), con las mismas
+     * validaciones que agregarLibro. Solo se guarda si el libro sigue en la
+     * version que leyo el cliente; la disponibilidad no cambia
+     * @return El libro actualizado (con su version nueva), o vacio si no existe
+     * @throws ConflictoVersionException Si otro cambio ya guardo una version mas nueva
+     */
+    public Optional<LibroDTO> actualizarLibro(Long id, Long version, String titulo, String autor,
+                                              String anoPublicacionStr) {
+        validarIdYVersion(id, version);
+        ResultadoValidacion validacion = validador.validar(titulo, autor, anoPublicacionStr);
+        if (!validacion.esValido()) {
+            throw new IllegalArgumentException(validacion.getPrimerError().getMensaje());
         }
 
-        if (titulo.trim().length() > 200) {
-            throw new IllegalArgumentException("El título no puede exceder 200 caracteres");
+        Optional<Libro> actual = libroDAO.findById(id);
+        if (actual.isEmpty()) {
+            return Optional.empty();
         }
+        return guardarVersion(actual.get(), version, validacion.getTitulo(), validacion.getAutor(),
+                validacion.getAnoPublicacion());
     }
 
-    private void validarAutor(String autor) {
-        if (autor == null || autor.trim().isEmpty()) {
-            throw new IllegalArgumentException("El autor no puede estar vacío");
+    /**
+     * Cambia solo los campos que no son null (PATCH); los demas conservan lo
+     * guardado. Se validan solo los campos que vienen
+     * @return El libro modificado (con su version nueva), o vacio si no existe
+     * @throws ConflictoVersionException Si otro cambio ya guardo una version mas nueva
+     */
+    public Optional<LibroDTO> modificarLibro(Long id, Long version, String titulo, String autor,
+                                             String anoPublicacionStr) {
+        validarIdYVersion(id, version);
+        if (titulo == null && autor == null && anoPublicacionStr == null) {
+            throw new IllegalArgumentException("Debe indicar al menos un campo a modificar");
         }
 
-        if (autor.trim().length() < 2) {
-            throw new IllegalArgumentException("El autor debe tener al menos 2 caracteres");
+        Optional<Libro> actualOpt = libroDAO.findById(id);
+        if (actualOpt.isEmpty()) {
+            return Optional.empty();
         }
+        Libro actual = actualOpt.get();
+        // Los campos que no vienen se completan con lo guardado y sus errores no cuentan
+        ResultadoValidacion validacion = validador.validar(
+                titulo == null ? actual.getTitulo() : titulo,
+                autor == null ? actual.getAutor() : autor,
+                anoPublicacionStr == null ? String.valueOf(actual.getAnoPublicacion()) : anoPublicacionStr);
+        for (ErrorValidacion error : validacion.getErrores()) {
+            String campo = error.getCampo();
+            if ((campo.equals("titulo") && titulo != null) || (campo.equals("autor") && autor != null)
+                    || (campo.equals("anoPublicacion") && anoPublicacionStr != null)) {
+                throw new IllegalArgumentException(error.getMensaje());
+            }
+        }
+
+        return guardarVersion(actual, version,
+                titulo == null ? actual.getTitulo() : validacion.getTitulo(),
+                autor == null ? actual.getAutor() : validacion.getAutor(),
+                anoPublicacionStr == null ? actual.getAnoPublicacion() : Integer.valueOf(validacion.getAnoPublicacion()));
+    }
 
-        if (autor.trim().length() > 100) {
-            throw new IllegalArgumentException("El autor no puede exceder 100 caracteres");
+    private void validarIdYVersion(Long id, Long version) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException("El ID debe ser un número positivo");
         }
 
-        // El autor no debe contener números
-        if (autor.matches(".*\\d.*")) {
-            throw new IllegalArgumentException("El autor no puede contener números");
+        // Sin version no se puede saber si el cliente vio el ultimo cambio
+        if (version == null) {
+            throw new IllegalArgumentException("La versión es obligatoria para actualizar");
         }
 
-        // El autor solo debe contener letras, espacios y algunos caracteres especiales
-        if (!autor.matches("^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s\\.\\-']+$")) {
-            throw new IllegalArgumentException(
-                    "El autor solo puede contener letras, espacios, puntos, guiones y apostrofes");
+        if (version <= 0) {
+            throw new IllegalArgumentException("La versión debe ser un número positivo");
         }
     }
 
-    private void validarAnoPublicacion(String anoPublicacionStr) {
-        // VALIDACIÓN 1: No nulo o vacío
-        if (anoPublicacionStr == null || anoPublicacionStr.trim().isEmpty()) {
-            throw new IllegalArgumentException("El año de publicación no puede estar vacío");
-        }
+    /**
+     * Guarda una copia nueva (la entidad leida puede estar compartida con la
+     * cache) con compare-and-set contra la version del cliente
+     */
+    private Optional<LibroDTO> guardarVersion(Libro actual, long version, String titulo, String autor,
+                                              Integer anoPublicacion) {
+        Libro libro = new Libro(actual.getId(), titulo, autor, anoPublicacion, actual.getDisponible());
+        Optional<Libro> guardado = libroDAO.update(libro, version);
+        guardado.ifPresent(l -> cache.invalidar(l.getId()));
+        return guardado.map(this::convertirADTO);
+    }
 
-        // VALIDACIÓN 2: No contiene letras
-        if (anoPublicacionStr.matches(".*[a-zA-Z].*")) {
-            throw new IllegalArgumentException("El año de publicación no puede contener letras");
+    public List<ResultadoLoteDTO> agregarLibros(List<SolicitudLibroDTO> solicitudes) {
+        validarLote(solicitudes);
+
+        // Se validan todos con el mismo resultado; los invalidos quedan con su 400
+        ResultadoLoteDTO[] resultados = new ResultadoLoteDTO[solicitudes.size()];
+        List<Libro> validos = new ArrayList<>(solicitudes.size());
+        int[] posiciones = new int[solicitudes.size()];
+        ResultadoValidacion validacion = new ResultadoValidacion();
+        for (int i = 0; i < solicitudes.size(); i++) {
+            SolicitudLibroDTO solicitud = solicitudes.get(i);
+            if (solicitud == null) {
+                resultados[i] = new ResultadoLoteDTO(null, 400, "El libro no puede ser nulo", null);
+            } else if (!validador.validar(solicitud.getTitulo(), solicitud.getAutor(),
+                    solicitud.getAnoPublicacion(), validacion)) {
+                resultados[i] = new ResultadoLoteDTO(null, 400, validacion.getPrimerError().getMensaje(), null);
+            } else {
+                posiciones[validos.size()] = i;
+                validos.add(new Libro(null, validacion.getTitulo(), validacion.getAutor(),
+                        validacion.getAnoPublicacion(), true)); // Por defecto disponible
+            }
         }
 
-        // VALIDACIÓN 3: Es número válido
-        Integer anoPublicacion;
-        try {
-            anoPublicacion = Integer.parseInt(anoPublicacionStr.trim());
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("El año de publicación debe ser un número válido");
+        // Un solo bloque de IDs y un solo fsync para todos los validos
+        libroDAO.saveAll(validos);
+        for (int j = 0; j < validos.size(); j++) {
+            Libro libro = validos.get(j);
+            cache.invalidar(libro.getId());
+            resultados[posiciones[j]] = new ResultadoLoteDTO(libro.getId(), 201, null, convertirADTO(libro));
         }
+        return Arrays.asList(resultados);
+    }
 
-        // VALIDACIÓN 4: Número positivo
-        if (anoPublicacion <= 0) {
-            throw new IllegalArgumentException("El año de publicación debe ser válido");
-        }
+    /**
+     * Importa un archivo CSV o JSON lines completo con las mismas reglas que agregarLibro.
+     * Las filas invalidas no cortan la importacion: se informan en el resultado y a 'alError'
+     */
+    public ResultadoImportacion importarLibros(BufferedReader entrada, FormatoImportacion formato,
+                                               Consumer<ErrorImportacion> alError) {
+        return new ImportadorLibros(libroDAO, cache, validador).importar(entrada, formato, alError);
+    }
 
-        // VALIDACIÓN 5: No futuro
-        int anoActual = java.time.Year.now().getValue();
-        if (anoPublicacion > anoActual) {
-            throw new IllegalArgumentException("El año de publicación no puede ser futuro");
+    private void validarLote(List<?> elementos) {
+        if (elementos == null || elementos.isEmpty()) {
+            throw new IllegalArgumentException("El lote no puede estar vacío");
         }
 
-        // VALIDACIÓN 6: Rango razonable
-        if (anoPublicacion < 1000) {
-            throw new IllegalArgumentException("El año de publicación debe ser desde el año 1000");
+        if (elementos.size() > MAXIMO_POR_LOTE) {
+            throw new IllegalArgumentException("El lote no puede tener más de " + MAXIMO_POR_LOTE + " elementos");
         }
     }
 
-    private LibroDTO convertirADTO(Libro libro) {
+    // Sin private para que el benchmark del mismo paquete lo pueda medir solo
+    LibroDTO convertirADTO(Libro libro) {
         return new LibroDTO(
                 libro.getId(),
                 libro.getTitulo(),
                 libro.getAutor(),
-                libro.getAnoPublicacion()
+                libro.getAnoPublicacion(),
+                libro.getVersion()
         // Nota: NO se incluye el campo 'disponible'
         );
     }
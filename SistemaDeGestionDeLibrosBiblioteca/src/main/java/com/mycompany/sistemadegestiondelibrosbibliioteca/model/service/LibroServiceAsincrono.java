@@ -0,0 +1,104 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.service;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ResultadoLoteDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.SolicitudLibroDTO;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * LibroServiceAsincrono - Las operaciones de LibroService como CompletableFuture
+ *
+ * Cada llamada se encola en el ejecutor y retorna enseguida: quien la hace (un
+ * hilo que acepta peticiones) no espera al fsync del log ni a los indices, y
+ * puede lanzar varias y combinarlas con thenCombine, allOf, etc. Las reglas de
+ * negocio son las de LibroService; sus excepciones (IllegalArgumentException,
+ * LibroNoEncontradoException, ConflictoVersionException) completan el future
+ * con error, envueltas en CompletionException.
+ *
+ * -Dbiblioteca.async.hilos=N  N hilos de plataforma para el trabajo; con 0 (por
+ *                             defecto) cada tarea corre en su propio hilo virtual
+ */
+public class LibroServiceAsincrono {
+    // Un solo ejecutor para todos, igual que la cache: N hilos por instancia no serian N
+    static final Executor ejecutorCompartido = ejecutorConfigurado();
+
+    private final LibroService libroService;
+    private final Executor ejecutor;
+
+    public LibroServiceAsincrono(LibroService libroService) {
+        this(libroService, ejecutorCompartido);
+    }
+
+    public LibroServiceAsincrono(LibroService libroService, Executor ejecutor) {
+        this.libroService = libroService;
+        this.ejecutor = ejecutor;
+    }
+
+    /**
+     * Ejecutor segun las propiedades del sistema
+     */
+    static Executor ejecutorConfigurado() {
+        int hilos = Integer.getInteger("biblioteca.async.hilos", 0);
+        if (hilos < 0) {
+            throw new IllegalArgumentException("Cantidad de hilos inválida: " + hilos);
+        }
+        if (hilos == 0) {
+            return Executors.newVirtualThreadPerTaskExecutor();
+        }
+        // Daemon: no hace falta cerrarlo para que termine la aplicacion
+        return Executors.newFixedThreadPool(hilos, Thread.ofPlatform().name("libros-async-", 1).daemon().factory());
+    }
+
+    /**
+     * Libro por ID, o vacio si no existe (ver LibroService.buscarLibroPorId)
+     */
+    public CompletableFuture<Optional<LibroDTO>> buscarLibroPorId(Long id) {
+        return CompletableFuture.supplyAsync(() -> libroService.buscarLibroPorId(id), ejecutor);
+    }
+
+    /**
+     * Libro por ID; si no existe el future termina con LibroNoEncontradoException
+     */
+    public CompletableFuture<LibroDTO> obtenerLibroPorId(Long id) {
+        return CompletableFuture.supplyAsync(() -> libroService.obtenerLibroPorId(id), ejecutor);
+    }
+
+    public CompletableFuture<List<ResultadoLoteDTO>> obtenerLibrosPorIds(List<Long> ids) {
+        return CompletableFuture.supplyAsync(() -> libroService.obtenerLibrosPorIds(ids), ejecutor);
+    }
+
+    public CompletableFuture<List<LibroDTO>> buscarLibros(String consulta, Integer limite) {
+        return CompletableFuture.supplyAsync(() -> libroService.buscarLibros(consulta, limite), ejecutor);
+    }
+
+    public CompletableFuture<LibroDTO> agregarLibro(String titulo, String autor, String anoPublicacionStr) {
+        return CompletableFuture.supplyAsync(() -> libroService.agregarLibro(titulo, autor, anoPublicacionStr), ejecutor);
+    }
+
+    public CompletableFuture<List<ResultadoLoteDTO>> agregarLibros(List<SolicitudLibroDTO> solicitudes) {
+        return CompletableFuture.supplyAsync(() -> libroService.agregarLibros(solicitudes), ejecutor);
+    }
+
+    /**
+     * PUT con concurrencia optimista (ver LibroService.actualizarLibro)
+     */
+    public CompletableFuture<Optional<LibroDTO>> actualizarLibro(Long id, Long version, String titulo,
+                                                               String autor, String anoPublicacionStr) {
+        return CompletableFuture.supplyAsync(
+                () -> libroService.actualizarLibro(id, version, titulo, autor, anoPublicacionStr), ejecutor);
+    }
+
+    /**
+     * PATCH con concurrencia optimista (ver LibroService.modificarLibro)
+     */
+    public CompletableFuture<Optional<LibroDTO>> modificarLibro(Long id, Long version, String titulo,
+                                                              String autor, String anoPublicacionStr) {
+        return CompletableFuture.supplyAsync(
+                () -> libroService.modificarLibro(id, version, titulo, autor, anoPublicacionStr), ejecutor);
+    }
+}
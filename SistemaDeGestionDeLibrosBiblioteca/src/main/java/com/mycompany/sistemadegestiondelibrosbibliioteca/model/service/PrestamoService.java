@@ -0,0 +1,156 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.service;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.cache.CacheLibros;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.ConflictoVersionException;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PrestamoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.EstadoPrestamo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.EventoPrestamo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.MotorPrestamos;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * PrestamoService - Reglas de negocio de prestamos, devoluciones y reservas
+ * Valida los datos y que el libro exista, y delega el estado en MotorPrestamos
+ * (compareAndSet por libro, sin lock global). Los rechazos por el estado del
+ * libro (ya prestado, apartado para otro...) salen como IllegalStateException
+ * y un libro que no existe como LibroNoEncontradoException.
+ *
+ * Despues de cada cambio copia la disponibilidad al campo disponible de la
+ * entidad, asi el filtro por disponibilidad del DAO la refleja. Esa copia se
+ * guarda con LibroDAO.update contra la version leida: si otro hilo (otro
+ * prestamo o un PATCH) escribio en el medio, se vuelve a leer el motor y el
+ * libro y se reintenta, asi no se pisan cambios y el ultimo en copiar siempre
+ * lee el estado mas nuevo del motor. Los rechazos no llegan a tocar el DAO.
+ * Los prestamos viven solo en memoria (no van al log del DAO).
+ */
+public class PrestamoService {
+    // Eventos del historial de un libro si no se indica otra cantidad
+    public static final int LIMITE_HISTORIAL_POR_DEFECTO = 20;
+    private static final int LIMITE_HISTORIAL_MAXIMO = 1000;
+    private static final int USUARIO_MAXIMO = 100;
+
+    // Un solo motor para todos los services, igual que los datos del DAO
+    private static final MotorPrestamos motorCompartido = MotorPrestamos.configurado();
+
+    private final LibroDAO libroDAO;
+    private final CacheLibros cache;
+    private final MotorPrestamos motor;
+    private final Function<Long, Optional<Libro>> cargador;
+
+    public PrestamoService() {
+        this(new LibroDAO(), LibroService.cacheCompartida, motorCompartido);
+    }
+
+    public PrestamoService(LibroDAO libroDAO, CacheLibros cache, MotorPrestamos motor) {
+        this.libroDAO = libroDAO;
+        this.cache = cache;
+        this.motor = motor;
+        this.cargador = libroDAO::findById;
+    }
+
+    public PrestamoDTO consultarPrestamo(Long libroId) {
+        Libro libro = buscarLibro(libroId);
+        return convertirADTO(libro.getId(), motor.estado(libro.getId(), libro.getDisponible()));
+    }
+
+    public PrestamoDTO prestarLibro(Long libroId, String usuario) {
+        String prestatario = validarUsuario(usuario);
+        Libro libro = buscarLibro(libroId);
+        EstadoPrestamo estado = motor.prestar(libro.getId(), libro.getDisponible(), prestatario);
+        sincronizarDisponible(libro.getId());
+        return convertirADTO(libro.getId(), estado);
+    }
+
+    public PrestamoDTO devolverLibro(Long libroId, String usuario) {
+        String prestatario = validarUsuario(usuario);
+        Libro libro = buscarLibro(libroId);
+        EstadoPrestamo estado = motor.devolver(libro.getId(), libro.getDisponible(), prestatario);
+        sincronizarDisponible(libro.getId());
+        return convertirADTO(libro.getId(), estado);
+    }
+
+    public PrestamoDTO reservarLibro(Long libroId, String usuario) {
+        String lector = validarUsuario(usuario);
+        Libro libro = buscarLibro(libroId);
+        // Reservar no cambia la disponibilidad: el libro ya no estaba en el estante
+        return convertirADTO(libro.getId(), motor.reservar(libro.getId(), libro.getDisponible(), lector));
+    }
+
+    /**
+     * Eventos del libro, del mas nuevo al mas viejo
+     */
+    public List<EventoPrestamo> obtenerHistorial(Long libroId, Integer limite) {
+        int cantidad = limite == null ? LIMITE_HISTORIAL_POR_DEFECTO : limite;
+        if (cantidad <= 0 || cantidad > LIMITE_HISTORIAL_MAXIMO) {
+            throw new IllegalArgumentException("El límite debe estar entre 1 y " + LIMITE_HISTORIAL_MAXIMO);
+        }
+        Libro libro = buscarLibro(libroId);
+        return motor.historialDelLibro(libro.getId(), cantidad);
+    }
+
+    private Libro buscarLibro(Long libroId) {
+        // ID no puede ser nulo
+        if (libroId == null) {
+            throw new IllegalArgumentException("El ID no puede ser nulo");
+        }
+
+        // ID debe ser positivo
+        if (libroId <= 0) {
+            throw new IllegalArgumentException("El ID debe ser un número positivo");
+        }
+
+        // Libro debe existir (Error 404)
+        Optional<Libro> libro = cache.obtener(libroId, cargador);
+        if (libro.isEmpty()) {
+            throw new LibroNoEncontradoException(libroId);
+        }
+        return libro.get();
+    }
+
+    private String validarUsuario(String usuario) {
+        if (usuario == null || usuario.isBlank()) {
+            throw new IllegalArgumentException("El usuario no puede estar vacío");
+        }
+
+        String recortado = usuario.trim();
+        if (recortado.length() > USUARIO_MAXIMO) {
+            throw new IllegalArgumentException("El usuario no puede superar " + USUARIO_MAXIMO + " caracteres");
+        }
+        return recortado;
+    }
+
+    /**
+     * Deja el campo disponible de la entidad igual al estado del motor.
+     * Se guarda una copia: la entidad que se leyo puede estar compartida con la cache
+     */
+    private void sincronizarDisponible(long libroId) {
+        while (true) {
+            Libro libro = libroDAO.findById(libroId).orElse(null);
+            if (libro == null) {
+                return;
+            }
+            Boolean disponible = motor.estado(libroId, libro.getDisponible()).estaDisponible();
+            if (disponible.equals(libro.getDisponible())) {
+                return;
+            }
+            try {
+                libroDAO.update(new Libro(libro.getId(), libro.getTitulo(), libro.getAutor(),
+                        libro.getAnoPublicacion(), disponible), libro.getVersion());
+                cache.invalidar(libroId);
+                return;
+            } catch (ConflictoVersionException e) {
+                // Otro hilo guardo una version nueva: se vuelve a leer todo
+            }
+        }
+    }
+
+    private PrestamoDTO convertirADTO(long libroId, EstadoPrestamo estado) {
+        return new PrestamoDTO(libroId, estado.situacion().name(), estado.usuario(),
+                estado.vence() == null ? null : estado.vence().toString(), estado.espera());
+    }
+}
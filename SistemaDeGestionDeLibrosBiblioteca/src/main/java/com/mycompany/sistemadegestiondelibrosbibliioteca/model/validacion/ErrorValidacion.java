@@ -0,0 +1,41 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion;
+
+/**
+ * ErrorValidacion - Cada regla que puede fallar al validar un libro
+ * Son constantes: informar un error no crea objetos ni lanza excepciones
+ */
+public enum ErrorValidacion {
+    TITULO_VACIO("titulo", "El título no puede estar vacío"),
+    TITULO_CORTO("titulo", "El título debe tener al menos 2 caracteres"),
+    TITULO_LARGO("titulo", "El título no puede exceder 200 caracteres"),
+
+    AUTOR_VACIO("autor", "El autor no puede estar vacío"),
+    AUTOR_CORTO("autor", "El autor debe tener al menos 2 caracteres"),
+    AUTOR_LARGO("autor", "El autor no puede exceder 100 caracteres"),
+    AUTOR_CON_NUMEROS("autor", "El autor no puede contener números"),
+    AUTOR_CARACTERES_INVALIDOS("autor",
+            "El autor solo puede contener letras, espacios, puntos, guiones y apostrofes"),
+
+    ANO_VACIO("anoPublicacion", "El año de publicación no puede estar vacío"),
+    ANO_CON_LETRAS("anoPublicacion", "El año de publicación no puede contener letras"),
+    ANO_NO_NUMERICO("anoPublicacion", "El año de publicación debe ser un número válido"),
+    ANO_NO_POSITIVO("anoPublicacion", "El año de publicación debe ser válido"),
+    ANO_FUTURO("anoPublicacion", "El año de publicación no puede ser futuro"),
+    ANO_ANTERIOR_A_1000("anoPublicacion", "El año de publicación debe ser desde el año 1000");
+
+    private final String campo;
+    private final String mensaje;
+
+    ErrorValidacion(String campo, String mensaje) {
+        this.campo = campo;
+        this.mensaje = mensaje;
+    }
+
+    public String getCampo() {
+        return campo;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+}
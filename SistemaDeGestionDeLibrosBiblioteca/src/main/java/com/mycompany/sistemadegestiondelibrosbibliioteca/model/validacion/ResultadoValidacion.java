@@ -0,0 +1,95 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ResultadoValidacion - Resultado de validar los campos de un libro
+ *
+ * Guarda como mucho un error por campo (el primero que falla) y, si todo es
+ * valido, los valores ya normalizados: titulo y autor sin espacios en los
+ * extremos y el año ya convertido a numero, para no volver a procesarlos.
+ * Se puede reutilizar en cargas masivas (ValidadorLibro.validar lo reinicia).
+ */
+public final class ResultadoValidacion {
+    private ErrorValidacion errorTitulo;
+    private ErrorValidacion errorAutor;
+    private ErrorValidacion errorAno;
+    private String titulo;
+    private String autor;
+    private int anoPublicacion;
+
+    void reiniciar() {
+        errorTitulo = null;
+        errorAutor = null;
+        errorAno = null;
+        titulo = null;
+        autor = null;
+        anoPublicacion = 0;
+    }
+
+    void setTitulo(String titulo, ErrorValidacion error) {
+        this.titulo = titulo;
+        this.errorTitulo = error;
+    }
+
+    void setAutor(String autor, ErrorValidacion error) {
+        this.autor = autor;
+        this.errorAutor = error;
+    }
+
+    void setAnoPublicacion(int anoPublicacion, ErrorValidacion error) {
+        this.anoPublicacion = anoPublicacion;
+        this.errorAno = error;
+    }
+
+    public boolean esValido() {
+        return errorTitulo == null && errorAutor == null && errorAno == null;
+    }
+
+    /**
+     * Primer error en el orden titulo, autor, año (null si es valido)
+     */
+    public ErrorValidacion getPrimerError() {
+        if (errorTitulo != null) {
+            return errorTitulo;
+        }
+        return errorAutor != null ? errorAutor : errorAno;
+    }
+
+    /**
+     * Todos los errores, uno por campo como mucho
+     */
+    public List<ErrorValidacion> getErrores() {
+        List<ErrorValidacion> errores = new ArrayList<>(3);
+        if (errorTitulo != null) {
+            errores.add(errorTitulo);
+        }
+        if (errorAutor != null) {
+            errores.add(errorAutor);
+        }
+        if (errorAno != null) {
+            errores.add(errorAno);
+        }
+        return errores;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getAutor() {
+        return autor;
+    }
+
+    public int getAnoPublicacion() {
+        return anoPublicacion;
+    }
+
+    @Override
+    public String toString() {
+        return esValido()
+                ? "ResultadoValidacion{titulo='" + titulo + "', autor='" + autor + "', anoPublicacion=" + anoPublicacion + "}"
+                : "ResultadoValidacion{errores=" + getErrores() + "}";
+    }
+}
@@ -0,0 +1,227 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.validacion;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * ValidadorLibro - Reglas de negocio de los campos de un libro
+ *
+ * Aplica las mismas reglas que antes se hacian con String.matches y
+ * Integer.parseInt, pero recorriendo cada texto una sola vez:
+ * - los extremos en blanco se calculan con indices, sin crear Strings
+ *   (solo se recorta al final, y trim no copia si no hay nada que sacar)
+ * - los caracteres permitidos del autor estan en una tabla precalculada
+ * - el año se convierte a numero una sola vez y queda en el resultado
+ * - el año actual se guarda hasta que cambia el año, no se pide en cada alta
+ * Los errores se informan en el ResultadoValidacion, nunca con excepciones.
+ *
+ * Es seguro para usar desde varios hilos.
+ */
+public final class ValidadorLibro {
+    public static final int TITULO_MINIMO = 2;
+    public static final int TITULO_MAXIMO = 200;
+    public static final int AUTOR_MINIMO = 2;
+    public static final int AUTOR_MAXIMO = 100;
+    public static final int ANO_MINIMO = 1000;
+
+    // Caracteres permitidos en el autor: letras (con acentos, ñ y ü),
+    // espacios en blanco, puntos, guiones y apostrofes
+    private static final boolean[] PERMITIDOS_AUTOR = new boolean[256];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            PERMITIDOS_AUTOR[c] = true;
+            PERMITIDOS_AUTOR[Character.toUpperCase(c)] = true;
+        }
+        for (char c : "áéíóúÁÉÍÓÚñÑüÜ .-'\t\n\u000B\f\r".toCharArray()) {
+            PERMITIDOS_AUTOR[c] = true;
+        }
+    }
+
+    private final Clock reloj;
+    // Año actual y hasta cuando vale (en milisegundos del reloj)
+    private volatile AnoVigente anoVigente;
+
+    public ValidadorLibro() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public ValidadorLibro(Clock reloj) {
+        this.reloj = reloj;
+    }
+
+    /**
+     * Valida los tres campos en un resultado nuevo
+     */
+    public ResultadoValidacion validar(String titulo, String autor, String anoPublicacion) {
+        ResultadoValidacion resultado = new ResultadoValidacion();
+        validar(titulo, autor, anoPublicacion, resultado);
+        return resultado;
+    }
+
+    /**
+     * Valida los tres campos reutilizando el resultado (para cargas masivas)
+     * @return true si los tres son validos
+     */
+    public boolean validar(String titulo, String autor, String anoPublicacion, ResultadoValidacion resultado) {
+        resultado.reiniciar();
+        ErrorValidacion error = validarTitulo(titulo);
+        resultado.setTitulo(error == null ? titulo.trim() : null, error);
+        error = validarAutor(autor);
+        resultado.setAutor(error == null ? autor.trim() : null, error);
+        validarAno(anoPublicacion, resultado);
+        return resultado.esValido();
+    }
+
+    /**
+     * @return El error, o null si el titulo es valido
+     */
+    public ErrorValidacion validarTitulo(String titulo) {
+        if (titulo == null) {
+            return ErrorValidacion.TITULO_VACIO;
+        }
+        int largo = largoSinBlancos(titulo);
+        if (largo == 0) {
+            return ErrorValidacion.TITULO_VACIO;
+        }
+        if (largo < TITULO_MINIMO) {
+            return ErrorValidacion.TITULO_CORTO;
+        }
+        if (largo > TITULO_MAXIMO) {
+            return ErrorValidacion.TITULO_LARGO;
+        }
+        return null;
+    }
+
+    /**
+     * @return El error, o null si el autor es valido
+     */
+    public ErrorValidacion validarAutor(String autor) {
+        if (autor == null) {
+            return ErrorValidacion.AUTOR_VACIO;
+        }
+        int largo = largoSinBlancos(autor);
+        if (largo == 0) {
+            return ErrorValidacion.AUTOR_VACIO;
+        }
+        if (largo < AUTOR_MINIMO) {
+            return ErrorValidacion.AUTOR_CORTO;
+        }
+        if (largo > AUTOR_MAXIMO) {
+            return ErrorValidacion.AUTOR_LARGO;
+        }
+        // Una sola pasada: los numeros tienen su propio mensaje, y tienen
+        // prioridad sobre cualquier otro caracter invalido
+        boolean invalido = false;
+        for (int i = 0; i < autor.length(); i++) {
+            char c = autor.charAt(i);
+            if (c >= '0' && c <= '9') {
+                return ErrorValidacion.AUTOR_CON_NUMEROS;
+            }
+            if (c >= PERMITIDOS_AUTOR.length || !PERMITIDOS_AUTOR[c]) {
+                invalido = true;
+            }
+        }
+        return invalido ? ErrorValidacion.AUTOR_CARACTERES_INVALIDOS : null;
+    }
+
+    /**
+     * Valida el año y, si es valido, lo deja convertido en el resultado
+     */
+    private void validarAno(String texto, ResultadoValidacion resultado) {
+        if (texto == null) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_VACIO);
+            return;
+        }
+        int inicio = 0;
+        int fin = texto.length();
+        while (inicio < fin && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        if (inicio == fin) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_VACIO);
+            return;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                resultado.setAnoPublicacion(0, ErrorValidacion.ANO_CON_LETRAS);
+                return;
+            }
+        }
+
+        // Mismas reglas que Integer.parseInt: signo opcional y digitos
+        int i = inicio;
+        boolean negativo = false;
+        char signo = texto.charAt(i);
+        if (signo == '-' || signo == '+') {
+            negativo = signo == '-';
+            i++;
+        }
+        if (i == fin) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_NO_NUMERICO);
+            return;
+        }
+        long valor = 0;
+        for (; i < fin; i++) {
+            int digito = Character.digit(texto.charAt(i), 10);
+            valor = valor * 10 + digito;
+            if (digito < 0 || valor > Integer.MAX_VALUE + 1L) {
+                resultado.setAnoPublicacion(0, ErrorValidacion.ANO_NO_NUMERICO);
+                return;
+            }
+        }
+        if (!negativo && valor > Integer.MAX_VALUE) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_NO_NUMERICO);
+            return;
+        }
+        int ano = (int) (negativo ? -valor : valor);
+
+        if (ano <= 0) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_NO_POSITIVO);
+        } else if (ano > anoActual()) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_FUTURO);
+        } else if (ano < ANO_MINIMO) {
+            resultado.setAnoPublicacion(0, ErrorValidacion.ANO_ANTERIOR_A_1000);
+        } else {
+            resultado.setAnoPublicacion(ano, null);
+        }
+    }
+
+    /**
+     * Año actual del reloj; solo se recalcula cuando pasa el 1 de enero
+     */
+    int anoActual() {
+        AnoVigente vigente = anoVigente;
+        long ahora = reloj.millis();
+        if (vigente == null || ahora >= vigente.hasta) {
+            int ano = Year.now(reloj).getValue();
+            long hasta = LocalDate.of(ano + 1, 1, 1).atStartOfDay(reloj.getZone()).toInstant().toEpochMilli();
+            vigente = new AnoVigente(ano, hasta);
+            anoVigente = vigente;
+        }
+        return vigente.ano;
+    }
+
+    /**
+     * Largo del texto sin los blancos de los extremos (igual que trim().length())
+     */
+    private static int largoSinBlancos(String texto) {
+        int inicio = 0;
+        int fin = texto.length();
+        while (inicio < fin && texto.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fin > inicio && texto.charAt(fin - 1) <= ' ') {
+            fin--;
+        }
+        return fin - inicio;
+    }
+
+    private record AnoVigente(int ano, long hasta) {
+    }
+}
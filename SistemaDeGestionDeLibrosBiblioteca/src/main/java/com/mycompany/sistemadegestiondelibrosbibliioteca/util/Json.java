@@ -0,0 +1,221 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json - Lectura y escritura minima de JSON sin dependencias externas
+ * Solo soporta objetos planos (sin objetos ni arrays anidados) y arrays de
+ * esos objetos, que es todo lo que necesitan los cuerpos de las peticiones de libros
+ */
+public final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Parsea un objeto JSON plano. Los valores se retornan como texto:
+     * los numeros y booleanos tal cual aparecen y null como null
+     * @param texto Objeto JSON, por ejemplo {"titulo":"It","anoPublicacion":1986}
+     * @return Mapa campo - valor en el orden en que aparecen
+     * @throws IllegalArgumentException si el texto no es un objeto JSON valido
+     */
+    public static Map<String, String> parsearObjeto(String texto) {
+        Lector lector = new Lector(texto);
+        Map<String, String> campos = lector.leerObjeto();
+        lector.saltarEspacios();
+        if (!lector.fin()) {
+            throw new IllegalArgumentException("JSON inválido: contenido extra en la posición " + lector.pos);
+        }
+        return campos;
+    }
+
+    /**
+     * Parsea un array JSON de objetos planos, por ejemplo [{"titulo":"It"},{"titulo":"Carrie"}]
+     * @return Un mapa campo - valor por objeto, en orden
+     * @throws IllegalArgumentException si el texto no es un array de objetos valido
+     */
+    public static List<Map<String, String>> parsearListaDeObjetos(String texto) {
+        Lector lector = new Lector(texto);
+        List<Map<String, String>> objetos = new ArrayList<>();
+        lector.esperar('[');
+        if (lector.ver() == ']') {
+            lector.pos++;
+        } else {
+            while (true) {
+                objetos.add(lector.leerObjeto());
+                char c = lector.ver();
+                lector.pos++;
+                if (c == ']') {
+                    break;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("JSON inválido: se esperaba ',' o ']' en la posición " + (lector.pos - 1));
+                }
+            }
+        }
+        lector.saltarEspacios();
+        if (!lector.fin()) {
+            throw new IllegalArgumentException("JSON inválido: contenido extra en la posición " + lector.pos);
+        }
+        return objetos;
+    }
+
+    /**
+     * Agrega un string escapado y entre comillas al StringBuilder
+     */
+    public static StringBuilder escribirString(StringBuilder sb, String valor) {
+        if (valor == null) {
+            return sb.append("null");
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"');
+    }
+
+    /**
+     * Recorre el texto caracter por caracter
+     */
+    static final class Lector {
+        private final String texto;
+        private int pos;
+
+        Lector(String texto) {
+            if (texto == null) {
+                throw new IllegalArgumentException("JSON inválido: el cuerpo está vacío");
+            }
+            this.texto = texto;
+        }
+
+        boolean fin() {
+            return pos >= texto.length();
+        }
+
+        void saltarEspacios() {
+            while (pos < texto.length() && Character.isWhitespace(texto.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        char ver() {
+            saltarEspacios();
+            if (fin()) {
+                throw new IllegalArgumentException("JSON inválido: fin inesperado");
+            }
+            return texto.charAt(pos);
+        }
+
+        void esperar(char c) {
+            if (ver() != c) {
+                throw new IllegalArgumentException("JSON inválido: se esperaba '" + c + "' en la posición " + pos);
+            }
+            pos++;
+        }
+
+        Map<String, String> leerObjeto() {
+            Map<String, String> campos = new LinkedHashMap<>();
+            esperar('{');
+            if (ver() == '}') {
+                pos++;
+                return campos;
+            }
+            while (true) {
+                String clave = leerString();
+                esperar(':');
+                campos.put(clave, leerValor());
+                char c = ver();
+                pos++;
+                if (c == '}') {
+                    return campos;
+                }
+                if (c != ',') {
+                    throw new IllegalArgumentException("JSON inválido: se esperaba ',' o '}' en la posición " + (pos - 1));
+                }
+            }
+        }
+
+        String leerValor() {
+            char c = ver();
+            if (c == '"') {
+                return leerString();
+            }
+            if (c == '{' || c == '[') {
+                throw new IllegalArgumentException("JSON inválido: no se admiten valores anidados");
+            }
+            // Numero, true, false o null: se lee hasta el proximo separador
+            int inicio = pos;
+            while (pos < texto.length()) {
+                char actual = texto.charAt(pos);
+                if (actual == ',' || actual == '}' || actual == ']' || Character.isWhitespace(actual)) {
+                    break;
+                }
+                pos++;
+            }
+            String literal = texto.substring(inicio, pos);
+            if (literal.isEmpty()) {
+                throw new IllegalArgumentException("JSON inválido: valor vacío en la posición " + inicio);
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String leerString() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (pos < texto.length()) {
+                char c = texto.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (fin()) {
+                    break;
+                }
+                char escape = texto.charAt(pos++);
+                switch (escape) {
+                    case '"': sb.append('"'); break;
+                    case '\\': sb.append('\\'); break;
+                    case '/': sb.append('/'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > texto.length()) {
+                            throw new IllegalArgumentException("JSON inválido: escape unicode incompleto");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(texto.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("JSON inválido: escape unicode incorrecto");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("JSON inválido: escape desconocido \\" + escape);
+                }
+            }
+            throw new IllegalArgumentException("JSON inválido: string sin cerrar");
+        }
+    }
+}
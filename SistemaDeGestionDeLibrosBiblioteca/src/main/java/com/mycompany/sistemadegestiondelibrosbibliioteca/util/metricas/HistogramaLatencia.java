@@ -0,0 +1,133 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HistogramaLatencia - Histograma de latencias en nanosegundos al estilo HDR
+ *
+ * Las cubetas son lineales dentro de cada potencia de 2 y se duplican de una
+ * potencia a la siguiente: con 32 cubetas por potencia el error de cualquier
+ * percentil es menor al 3%, desde 1 ns hasta Long.MAX_VALUE, con un array fijo
+ * de menos de 2000 contadores. Registrar es calcular el indice con
+ * numberOfLeadingZeros e incrementar un contador: no toma locks ni crea objetos.
+ */
+public final class HistogramaLatencia implements HistogramaLatenciaMXBean {
+    // Bits significativos que se conservan de cada valor (el primero siempre es 1)
+    private static final int BITS_PRECISION = 6;
+    // Cubetas por potencia de 2
+    private static final int POR_POTENCIA = 1 << (BITS_PRECISION - 1);
+    static final int CUBETAS = cubeta(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder sumaNanos = new LongAdder();
+    private final AtomicLong maximoNanos = new AtomicLong();
+
+    public void registrar(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        cubetas.incrementAndGet(cubeta(nanos));
+        sumaNanos.add(nanos);
+        // Casi siempre es menor al maximo: asi no se escribe la linea compartida
+        if (nanos > maximoNanos.get()) {
+            maximoNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Cantidad, suma, maximo y percentiles de lo registrado hasta ahora. Con
+     * registros concurrentes es una foto aproximada, pero cada percentil sale
+     * de la misma copia de las cubetas
+     */
+    public ResumenLatencia resumen() {
+        long[] copia = new long[CUBETAS];
+        long cantidad = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            cantidad += copia[i];
+        }
+        long maximo = maximoNanos.get();
+        return new ResumenLatencia(cantidad, sumaNanos.sum(), maximo,
+                percentil(copia, cantidad, maximo, 0.50),
+                percentil(copia, cantidad, maximo, 0.90),
+                percentil(copia, cantidad, maximo, 0.99),
+                percentil(copia, cantidad, maximo, 0.999));
+    }
+
+    /**
+     * Mayor valor de la cubeta donde cae el percentil (nunca mas que el maximo visto)
+     */
+    private static long percentil(long[] copia, long cantidad, long maximo, double proporcion) {
+        if (cantidad == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(proporcion * cantidad));
+        long acumulado = 0;
+        for (int i = 0; i < copia.length; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo);
+            }
+        }
+        return maximo;
+    }
+
+    /**
+     * Los valores menores a 2^BITS_PRECISION tienen su propia cubeta; el resto
+     * se agrupa por sus BITS_PRECISION bits mas altos
+     */
+    static int cubeta(long nanos) {
+        if (nanos < (1L << BITS_PRECISION)) {
+            return (int) nanos;
+        }
+        int desplazamiento = 64 - Long.numberOfLeadingZeros(nanos) - BITS_PRECISION;
+        return desplazamiento * POR_POTENCIA + (int) (nanos >>> desplazamiento);
+    }
+
+    static long limiteSuperior(int cubeta) {
+        if (cubeta < 2 * POR_POTENCIA) {
+            return cubeta;
+        }
+        int desplazamiento = cubeta / POR_POTENCIA - 1;
+        long mantisa = POR_POTENCIA + cubeta % POR_POTENCIA;
+        // En la ultima cubeta el desplazamiento desborda a Long.MIN_VALUE y el -1 da Long.MAX_VALUE
+        return ((mantisa + 1) << desplazamiento) - 1;
+    }
+
+    @Override
+    public long getCantidad() {
+        return resumen().cantidad();
+    }
+
+    @Override
+    public double getPromedioMicros() {
+        return resumen().promedioNanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return resumen().p50Nanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return resumen().p90Nanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return resumen().p99Nanos() / 1_000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return resumen().p999Nanos() / 1_000.0;
+    }
+
+    @Override
+    public double getMaximoMicros() {
+        return maximoNanos.get() / 1_000.0;
+    }
+}
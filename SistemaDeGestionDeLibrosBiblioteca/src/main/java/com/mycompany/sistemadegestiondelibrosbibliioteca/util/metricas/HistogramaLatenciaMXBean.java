@@ -0,0 +1,22 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+/**
+ * Atributos JMX de un HistogramaLatencia (uno por capa, operacion y codigo),
+ * visibles con jconsole o VisualVM en com.mycompany.biblioteca
+ */
+public interface HistogramaLatenciaMXBean {
+
+    long getCantidad();
+
+    double getPromedioMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaximoMicros();
+}
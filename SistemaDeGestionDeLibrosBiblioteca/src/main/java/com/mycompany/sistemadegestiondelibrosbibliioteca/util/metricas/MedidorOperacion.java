@@ -0,0 +1,86 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * MedidorOperacion - Cantidad y latencia de una operacion, por codigo de estado
+ *
+ * Se crea una sola vez por operacion (ver Metricas.operacion) y se guarda en
+ * un campo static final. Cada codigo tiene su histograma en un array indexado
+ * por el codigo, que se crea la primera vez que aparece: despues registrar es
+ * leer el array e incrementar el histograma, sin buscar en mapas ni armar
+ * Strings. Uso:
+ *   long inicio = System.nanoTime();
+ *   ...
+ *   MEDIDOR.registrarDesde(codigo, inicio);
+ */
+public final class MedidorOperacion {
+    private static final int CODIGO_MINIMO = 100;
+    private static final int CODIGO_MAXIMO = 599;
+    // Los codigos fuera de rango se cuentan como error interno
+    private static final int CODIGO_FUERA_DE_RANGO = 500;
+
+    private final String capa;
+    private final String nombre;
+    private final AtomicReferenceArray<HistogramaLatencia> porCodigo =
+            new AtomicReferenceArray<>(CODIGO_MAXIMO - CODIGO_MINIMO + 1);
+
+    MedidorOperacion(String capa, String nombre) {
+        this.capa = capa;
+        this.nombre = nombre;
+    }
+
+    /**
+     * Registra una operacion que empezo en 'inicioNanos' (de System.nanoTime) y termina ahora
+     */
+    public void registrarDesde(int codigo, long inicioNanos) {
+        if (Metricas.ACTIVAS) {
+            registrar(codigo, System.nanoTime() - inicioNanos);
+        }
+    }
+
+    public void registrar(int codigo, long nanos) {
+        if (codigo < CODIGO_MINIMO || codigo > CODIGO_MAXIMO) {
+            codigo = CODIGO_FUERA_DE_RANGO;
+        }
+        HistogramaLatencia histograma = porCodigo.get(codigo - CODIGO_MINIMO);
+        if (histograma == null) {
+            histograma = crear(codigo);
+        }
+        histograma.registrar(nanos);
+    }
+
+    private HistogramaLatencia crear(int codigo) {
+        HistogramaLatencia nuevo = new HistogramaLatencia();
+        if (porCodigo.compareAndSet(codigo - CODIGO_MINIMO, null, nuevo)) {
+            Metricas.publicarEnJmx(this, codigo, nuevo);
+            return nuevo;
+        }
+        // Otro hilo lo creo primero
+        return porCodigo.get(codigo - CODIGO_MINIMO);
+    }
+
+    public String getCapa() {
+        return capa;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * Histogramas de los codigos que aparecieron, ordenados por codigo
+     */
+    public Map<Integer, HistogramaLatencia> histogramasPorCodigo() {
+        Map<Integer, HistogramaLatencia> histogramas = new TreeMap<>();
+        for (int i = 0; i < porCodigo.length(); i++) {
+            HistogramaLatencia histograma = porCodigo.get(i);
+            if (histograma != null) {
+                histogramas.put(i + CODIGO_MINIMO, histograma);
+            }
+        }
+        return histogramas;
+    }
+}
@@ -0,0 +1,74 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metricas - Registro de los medidores de operaciones de todas las capas
+ *
+ * Cada histograma se publica por JMX como
+ * com.mycompany.biblioteca:type=Latencia,capa=dao,operacion=findById,codigo=200
+ * y el servidor HTTP los expone en texto en GET /metrics.
+ *
+ * Con -Dbiblioteca.metricas=false no se registra nada; como ACTIVAS es una
+ * constante, el JIT elimina el registro de los metodos medidos.
+ */
+public final class Metricas {
+    public static final boolean ACTIVAS = Boolean.parseBoolean(System.getProperty("biblioteca.metricas", "true"));
+    private static final String DOMINIO_JMX = "com.mycompany.biblioteca";
+
+    private static final Map<String, MedidorOperacion> medidores = new ConcurrentHashMap<>();
+
+    // Iniciar JMX tarda cientos de milisegundos: se hace en segundo plano al
+    // cargar la clase, y no en la primera peticion que publica un histograma
+    static {
+        if (ACTIVAS) {
+            Thread.ofPlatform().name("metricas-jmx").daemon().start(ManagementFactory::getPlatformMBeanServer);
+        }
+    }
+
+    private Metricas() {
+    }
+
+    /**
+     * Medidor de la operacion, el mismo para cada par capa/nombre.
+     * Se pide una vez y se guarda, no en cada llamada
+     */
+    public static MedidorOperacion operacion(String capa, String nombre) {
+        return medidores.computeIfAbsent(capa + '.' + nombre, clave -> new MedidorOperacion(capa, nombre));
+    }
+
+    /**
+     * Todos los medidores, ordenados por capa y nombre
+     */
+    public static List<MedidorOperacion> operaciones() {
+        List<MedidorOperacion> ordenados = new ArrayList<>(medidores.values());
+        ordenados.sort(Comparator.comparing(MedidorOperacion::getCapa).thenComparing(MedidorOperacion::getNombre));
+        return ordenados;
+    }
+
+    /**
+     * Se llama una sola vez por histograma, cuando aparece un codigo nuevo
+     */
+    static void publicarEnJmx(MedidorOperacion medidor, int codigo, HistogramaLatencia histograma) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(DOMINIO_JMX + ":type=Latencia"
+                    + ",capa=" + medidor.getCapa()
+                    + ",operacion=" + medidor.getNombre()
+                    + ",codigo=" + codigo);
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(histograma, nombre);
+            }
+        } catch (JMException | SecurityException e) {
+            // Sin JMX las metricas igual se ven en /metrics
+        }
+    }
+}
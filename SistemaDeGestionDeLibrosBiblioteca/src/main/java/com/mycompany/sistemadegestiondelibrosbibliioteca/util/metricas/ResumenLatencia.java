@@ -0,0 +1,23 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.util.metricas;
+
+/**
+ * ResumenLatencia - Foto de un HistogramaLatencia, todo en nanosegundos
+ *
+ * @param cantidad   operaciones registradas
+ * @param sumaNanos  suma de sus latencias
+ * @param maximoNanos latencia mas alta
+ * @param p50Nanos   mediana
+ * @param p90Nanos   percentil 90
+ * @param p99Nanos   percentil 99
+ * @param p999Nanos  percentil 99.9
+ */
+public record ResumenLatencia(long cantidad, long sumaNanos, long maximoNanos,
+                              long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos) {
+
+    /**
+     * Latencia promedio (0 si no hubo operaciones)
+     */
+    public double promedioNanos() {
+        return cantidad == 0 ? 0 : (double) sumaNanos / cantidad;
+    }
+}
@@ -5,9 +5,20 @@ package com.mycompany.sistemadegestiondelibrosbibliioteca.view;
 
 import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.LibroController;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PaginaLibrosDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.PrestamoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.ReporteCatalogoDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ErrorImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.importacion.ResultadoImportacion;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.prestamo.EventoPrestamo;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.view.listado.FormatoListado;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.view.listado.SalidaListado;
 import java.util.InputMismatchException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase BibliotecaView - Implementa la interfaz de usuario del sistema
@@ -15,13 +26,33 @@ import java.util.Scanner;
  */
 public class BibliotecaView {
     // Scanner para leer entrada del usuario
+    // Filas rechazadas que se imprimen de una importacion; el total va en el resumen
+    private static final int MAX_ERRORES_IMPORTACION_MOSTRADOS = 20;
+
     private Scanner scanner;
+    // Los errores de importacion llegan desde el hilo que guarda los lotes
+    private final AtomicInteger erroresImportacionMostrados = new AtomicInteger();
+    // Los listados largos no van con un println por libro sino por bloques
+    private final SalidaListado salidaListado;
+    private final FormatoListado formatoListado;
 
     /**
      * Constructor - Inicializa el scanner para entrada de datos
+     * Los listados salen por la salida estandar en el formato de -Dbiblioteca.listado.formato
      */
     public BibliotecaView() {
+        this(SalidaListado.consola(), FormatoListado.configurado());
+    }
+
+    /**
+     * Constructor con otra salida o formato para los listados (un archivo, por ejemplo)
+     * @param salidaListado Donde se escriben las filas de los listados
+     * @param formatoListado Tabla, CSV o JSON lines
+     */
+    public BibliotecaView(SalidaListado salidaListado, FormatoListado formatoListado) {
         this.scanner = new Scanner(System.in);
+        this.salidaListado = salidaListado;
+        this.formatoListado = formatoListado;
     }
 
     /**
@@ -35,9 +66,25 @@ public class BibliotecaView {
         System.out.println("Título: " + libro.getTitulo());
         System.out.println("Autor: " + libro.getAutor());
         System.out.println("Año: " + libro.getAnoPublicacion());
+        System.out.println("Versión: " + libro.getVersion());
         System.out.println(); // Salto de línea para mejor formato
     }
 
+    /**
+     * Muestra los detalles de un libro despues de editarlo
+     * @param libro Objeto LibroDTO con la información guardada
+     */
+    public void mostrarLibroActualizado(LibroDTO libro) {
+        System.out.println("HTTP 200 OK");
+        System.out.println("Libro actualizado:");
+        System.out.println("ID: " + libro.getId());
+        System.out.println("Título: " + libro.getTitulo());
+        System.out.println("Autor: " + libro.getAutor());
+        System.out.println("Año: " + libro.getAnoPublicacion());
+        System.out.println("Versión: " + libro.getVersion());
+        System.out.println();
+    }
+
     /**
      * Muestra los detalles de un libro recién creado
      * @param libro Objeto LibroDTO con la información del nuevo libro
@@ -57,15 +104,94 @@ public class BibliotecaView {
      * @param libros Lista de objetos LibroDTO a mostrar
      */
     public void mostrarListaLibros(List<LibroDTO> libros) {
+        mostrarListaLibros(libros.size(), libros.iterator());
+    }
+
+    /**
+     * Muestra la lista completa de libros a medida que se recorre,
+     * sin necesitar la lista entera en memoria
+     * @param total Cantidad de libros a mostrar
+     * @param libros Iterador de los libros, en orden
+     */
+    public void mostrarListaLibros(long total, Iterator<LibroDTO> libros) {
         System.out.println("HTTP 200 OK");
         System.out.println("Lista de todos los libros:");
-        System.out.println("Total de libros: " + libros.size());
+        System.out.println("Total de libros: " + total);
         System.out.println();
 
-        if (libros.isEmpty()) {
+        if (!libros.hasNext()) {
+            System.out.println("No hay libros en el sistema.");
+        } else {
+            // Iteramos sobre cada libro; la salida escribe cuando junta un bloque
+            salidaListado.encabezado(formatoListado);
+            while (libros.hasNext()) {
+                salidaListado.fila(formatoListado, libros.next());
+            }
+            // Lo que quedo del ultimo bloque tiene que salir antes que la linea en blanco
+            salidaListado.vaciar();
+        }
+        System.out.println();
+    }
+
+    /**
+     * Muestra el resumen de una importacion masiva
+     * @param resultado Cantidades y duracion de la importacion
+     */
+    public void mostrarResultadoImportacion(ResultadoImportacion resultado) {
+        System.out.println("HTTP 200 OK");
+        System.out.println("Importación terminada en " + resultado.milis() + " ms");
+        System.out.println("Líneas leídas: " + resultado.lineas());
+        System.out.println("Libros importados: " + resultado.importados());
+        System.out.println("Filas rechazadas: " + resultado.rechazados());
+        System.out.println("Velocidad: " + resultado.librosPorMinuto() + " libros por minuto");
+        System.out.println();
+    }
+
+    /**
+     * Muestra una fila rechazada durante una importacion (solo las primeras, para no inundar la consola)
+     * @param error Linea, codigo y mensaje del error
+     */
+    public void mostrarErrorImportacion(ErrorImportacion error) {
+        int mostrados = erroresImportacionMostrados.incrementAndGet();
+        if (mostrados <= MAX_ERRORES_IMPORTACION_MOSTRADOS) {
+            System.out.println(error);
+        } else if (mostrados == MAX_ERRORES_IMPORTACION_MOSTRADOS + 1) {
+            System.out.println("... (hay más filas rechazadas, ver el total al final)");
+        }
+    }
+
+    /**
+     * Muestra una pagina del listado de libros
+     * @param pagina Libros de la pagina y cursor de la siguiente
+     */
+    public void mostrarPaginaLibros(PaginaLibrosDTO pagina) {
+        System.out.println("HTTP 200 OK");
+        if (pagina.getLibros().isEmpty()) {
             System.out.println("No hay libros en el sistema.");
         } else {
-            // Iteramos sobre cada libro y mostramos sus datos
+            salidaListado.encabezado(formatoListado);
+            for (LibroDTO libro : pagina.getLibros()) {
+                salidaListado.fila(formatoListado, libro);
+            }
+            // Cada pagina se ve entera antes de preguntar por la siguiente
+            salidaListado.vaciar();
+        }
+        System.out.println();
+    }
+
+    /**
+     * Muestra los resultados de una busqueda por texto, del mas relevante al menos
+     * @param consulta Texto buscado
+     * @param libros Libros encontrados, ordenados por relevancia
+     */
+    public void mostrarResultadosBusqueda(String consulta, List<LibroDTO> libros) {
+        System.out.println("HTTP 200 OK");
+        System.out.println("Resultados para \"" + consulta + "\": " + libros.size());
+        System.out.println();
+
+        if (libros.isEmpty()) {
+            System.out.println("No se encontraron libros.");
+        } else {
             for (LibroDTO libro : libros) {
                 System.out.println("ID: " + libro.getId() +
                         " | Título: " + libro.getTitulo() +
@@ -76,6 +202,67 @@ public class BibliotecaView {
         System.out.println();
     }
 
+    /**
+     * Muestra el reporte del catalogo: disponibilidad, años, decadas y autores
+     * @param reporte Totales calculados por el DAO
+     */
+    public void mostrarReporteCatalogo(ReporteCatalogoDTO reporte) {
+        System.out.println("HTTP 200 OK");
+        System.out.println("Libros: " + reporte.getTotal());
+        System.out.println("Disponibles: " + reporte.getDisponibles()
+                + String.format(" (%.1f%%)", reporte.getTasaDeDisponibilidad() * 100));
+        System.out.println("No disponibles: " + reporte.getNoDisponibles());
+        if (reporte.getAnoMinimo() != null) {
+            System.out.println("Años: de " + reporte.getAnoMinimo() + " a " + reporte.getAnoMaximo());
+        }
+        System.out.println();
+
+        System.out.println("Libros por década:");
+        for (Map.Entry<Integer, Long> decada : reporte.getLibrosPorDecada().entrySet()) {
+            System.out.println(decada.getKey() + "s | " + decada.getValue());
+        }
+        System.out.println();
+
+        System.out.println("Autores con más libros (de " + reporte.getCantidadDeAutores() + "):");
+        for (Map.Entry<String, Long> autor : reporte.getAutoresConMasLibros().entrySet()) {
+            System.out.println(autor.getKey() + " | " + autor.getValue());
+        }
+        System.out.println();
+    }
+
+    /**
+     * Muestra el estado del prestamo de un libro
+     * @param prestamo Situacion, usuario, vencimiento y lista de espera
+     */
+    public void mostrarPrestamo(PrestamoDTO prestamo) {
+        System.out.println("HTTP 200 OK");
+        System.out.println("Libro ID: " + prestamo.getLibroId());
+        System.out.println("Situación: " + prestamo.getSituacion());
+        if (prestamo.getUsuario() != null) {
+            System.out.println("Usuario: " + prestamo.getUsuario());
+        }
+        if (prestamo.getVence() != null) {
+            System.out.println("Vence: " + prestamo.getVence());
+        }
+        System.out.println("Lista de espera: " + (prestamo.getEspera().isEmpty() ? "vacía" : prestamo.getEspera()));
+        System.out.println();
+    }
+
+    /**
+     * Muestra los eventos de prestamo de un libro, del mas nuevo al mas viejo
+     * @param eventos Eventos a mostrar
+     */
+    public void mostrarHistorialPrestamos(List<EventoPrestamo> eventos) {
+        System.out.println("Historial de préstamos:");
+        if (eventos.isEmpty()) {
+            System.out.println("Sin movimientos.");
+        }
+        for (EventoPrestamo evento : eventos) {
+            System.out.println(evento.instante() + " | " + evento.tipo() + " | " + evento.usuario());
+        }
+        System.out.println();
+    }
+
     /**
      * Muestra mensajes de error con formato HTTP
      * @param codigoHttp Código de estado HTTP
@@ -113,16 +300,34 @@ public class BibliotecaView {
                         ejecutarListarLibros(controller);
                         break;
                     case 4:
+                        ejecutarBusquedaPorTexto(controller);
+                        break;
+                    case 5:
+                        ejecutarListarPorPaginas(controller);
+                        break;
+                    case 6:
+                        ejecutarImportarLibros(controller);
+                        break;
+                    case 7:
+                        ejecutarPrestamos(controller);
+                        break;
+                    case 8:
+                        ejecutarEditarLibro(controller);
+                        break;
+                    case 9:
+                        ejecutarReporteCatalogo(controller);
+                        break;
+                    case 10:
                         continuar = false;
                         System.out.println("Saliendo del sistema...");
                         break;
                     default:
-                        System.out.println("Opción inválida. Seleccione 1-4");
+                        System.out.println("Opción inválida. Seleccione 1-10");
                         break;
                 }
 
                 // Pausa antes de continuar (excepto para salir)
-                if (continuar && opcion >= 1 && opcion <= 3) {
+                if (continuar && opcion >= 1 && opcion <= 9) {
                     System.out.println("Presione Enter para continuar...");
                     scanner.nextLine();
                 }
@@ -156,6 +361,19 @@ public class BibliotecaView {
         }
     }
 
+    /**
+     * Maneja la búsqueda de libros por título o autor
+     * @param controller Controlador para realizar la búsqueda
+     */
+    private void ejecutarBusquedaPorTexto(LibroController controller) {
+        System.out.println("=== Buscar libros por título o autor ===");
+        System.out.print("Ingrese el texto a buscar: ");
+        String consulta = scanner.nextLine().trim();
+
+        // Delegamos la búsqueda al controlador
+        controller.buscarLibros(consulta);
+    }
+
     /**
      * Maneja la adición de un nuevo libro al sistema
      * @param controller Controlador para agregar el libro
@@ -196,6 +414,92 @@ public class BibliotecaView {
         }
     }
 
+    /**
+     * Maneja la importación masiva de libros desde un archivo
+     * @param controller Controlador para importar el archivo
+     */
+    private void ejecutarImportarLibros(LibroController controller) {
+        System.out.println("=== Importar libros desde archivo ===");
+        System.out.println("Formatos: .csv (titulo,autor,anoPublicacion) o .jsonl (un objeto JSON por línea)");
+        System.out.print("Ingrese la ruta del archivo: ");
+        String ruta = scanner.nextLine().trim();
+        erroresImportacionMostrados.set(0);
+
+        // Delegamos la importación al controlador
+        controller.importarArchivo(ruta);
+    }
+
+    /**
+     * Edita los campos de un libro; los que se dejan vacios no cambian.
+     * Pide la version que se vio al buscarlo: si otro lo cambio antes, sale 409
+     * @param controller Controlador para guardar el cambio
+     */
+    private void ejecutarEditarLibro(LibroController controller) {
+        System.out.println("=== Editar libro ===");
+
+        try {
+            System.out.print("Ingrese el ID del libro: ");
+            Long id = scanner.nextLong();
+            System.out.print("Ingrese la versión (la que muestra la búsqueda por ID): ");
+            Long version = scanner.nextLong();
+            scanner.nextLine(); // Limpiar buffer
+
+            System.out.println("Deje vacío un campo para no cambiarlo");
+            System.out.print("Nuevo título: ");
+            String titulo = scanner.nextLine().trim();
+            System.out.print("Nuevo autor: ");
+            String autor = scanner.nextLine().trim();
+            System.out.print("Nuevo año de publicación: ");
+            String anoStr = scanner.nextLine().trim();
+
+            // Delegamos la edición al controlador
+            controller.editarLibro(id, version, titulo.isEmpty() ? null : titulo,
+                    autor.isEmpty() ? null : autor, anoStr.isEmpty() ? null : anoStr);
+
+        } catch (InputMismatchException e) {
+            scanner.nextLine();
+            mostrarError(400, "ID o versión inválidos. Deben ser números enteros.");
+        }
+    }
+
+    /**
+     * Maneja prestamos, devoluciones, reservas y la consulta del estado de un libro
+     * @param controller Controlador para operar el prestamo
+     */
+    private void ejecutarPrestamos(LibroController controller) {
+        System.out.println("=== Préstamos ===");
+        System.out.println("1. Prestar libro");
+        System.out.println("2. Devolver libro");
+        System.out.println("3. Reservar libro (lista de espera)");
+        System.out.println("4. Ver estado e historial");
+        System.out.print("Seleccione una opción: ");
+        int opcion = leerOpcion();
+        if (opcion < 1 || opcion > 4) {
+            System.out.println("Opción inválida. Seleccione 1-4");
+            return;
+        }
+
+        try {
+            System.out.print("Ingrese el ID del libro: ");
+            Long id = scanner.nextLong();
+            scanner.nextLine(); // Limpiar buffer
+
+            if (opcion == 4) {
+                controller.mostrarPrestamo(id);
+                return;
+            }
+            System.out.print("Ingrese el usuario: ");
+            String usuario = scanner.nextLine().trim();
+
+            // Delegamos la operación al controlador
+            controller.operarPrestamo(opcion == 1 ? "prestar" : opcion == 2 ? "devolver" : "reservar", id, usuario);
+
+        } catch (InputMismatchException e) {
+            scanner.nextLine();
+            mostrarError(400, "ID inválido. Debe ser un número entero.");
+        }
+    }
+
     /**
      * Muestra el menú principal de opciones
      */
@@ -204,7 +508,13 @@ public class BibliotecaView {
         System.out.println("1. Buscar libro por ID");
         System.out.println("2. Agregar nuevo libro");
         System.out.println("3. Mostrar todos los libros");
-        System.out.println("4. Salir");
+        System.out.println("4. Buscar libros por título o autor");
+        System.out.println("5. Mostrar libros por páginas");
+        System.out.println("6. Importar libros desde archivo (CSV o JSON lines)");
+        System.out.println("7. Préstamos (prestar, devolver, reservar)");
+        System.out.println("8. Editar libro");
+        System.out.println("9. Reportes del catálogo");
+        System.out.println("10. Salir");
         System.out.print("Seleccione una opción: ");
     }
 
@@ -234,6 +544,7 @@ public class BibliotecaView {
             case 201: return "CREATED";
             case 400: return "BAD REQUEST";
             case 404: return "NOT FOUND";
+            case 409: return "CONFLICT";
             case 500: return "INTERNAL SERVER ERROR";
             default: return "UNKNOWN";
         }
@@ -248,4 +559,33 @@ public class BibliotecaView {
         // Delegamos la operación al controlador
         controller.listarTodosLosLibros();
     }
+
+    /**
+     * Muestra los totales del catalogo, por decada y por autor
+     * @param controller Controlador para pedir el reporte
+     */
+    private void ejecutarReporteCatalogo(LibroController controller) {
+        System.out.println("=== Reportes del catálogo ===");
+        // Delegamos la operación al controlador
+        controller.mostrarReporteCatalogo();
+    }
+
+    /**
+     * Muestra el listado pagina por pagina hasta que no haya mas o el usuario corte
+     * @param controller Controlador para obtener cada pagina
+     */
+    private void ejecutarListarPorPaginas(LibroController controller) {
+        System.out.println("=== Mostrar libros por páginas ===");
+        Long cursor = 0L;
+        while (cursor != null) {
+            // Delegamos cada pagina al controlador, que retorna el cursor de la siguiente
+            cursor = controller.listarPaginaDeLibros(cursor);
+            if (cursor != null) {
+                System.out.print("Enter para la siguiente página, 'q' para terminar: ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                    break;
+                }
+            }
+        }
+    }
 }
\ No newline at end of file
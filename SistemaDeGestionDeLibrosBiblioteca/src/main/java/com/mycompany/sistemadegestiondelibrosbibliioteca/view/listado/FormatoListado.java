@@ -0,0 +1,122 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.view.listado;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.util.Json;
+
+import java.util.Locale;
+
+/**
+ * FormatoListado - Como se escribe cada libro de un listado
+ *
+ * TABLA: la linea de siempre, "ID: 1 | Título: ... | Autor: ... | Año: ...".
+ * CSV: encabezado id,titulo,autor,anoPublicacion y una fila por libro; los
+ * campos con coma, comillas o saltos de linea van entre comillas ("" es una comilla).
+ * JSON_LINES: un objeto JSON por linea, con los mismos campos que la API HTTP.
+ * Los dos ultimos los vuelve a leer ImportadorLibros (ignora id y version).
+ *
+ * Cada formato agrega la fila a un StringBuilder, sin el fin de linea:
+ * SalidaListado es quien lo agrega y decide cuando escribir.
+ */
+public enum FormatoListado {
+    TABLA {
+        @Override
+        void escribirFila(StringBuilder destino, LibroDTO libro) {
+            entero(destino.append("ID: "), libro.getId(), "null")
+                    .append(" | Título: ").append(libro.getTitulo())
+                    .append(" | Autor: ").append(libro.getAutor());
+            entero(destino.append(" | Año: "), libro.getAnoPublicacion(), "null");
+        }
+    },
+    CSV {
+        @Override
+        String encabezado() {
+            return "id,titulo,autor,anoPublicacion";
+        }
+
+        @Override
+        void escribirFila(StringBuilder destino, LibroDTO libro) {
+            // En CSV un valor que falta es un campo vacio, no el texto "null"
+            entero(destino, libro.getId(), "").append(',');
+            campoCsv(destino, libro.getTitulo()).append(',');
+            campoCsv(destino, libro.getAutor()).append(',');
+            entero(destino, libro.getAnoPublicacion(), "");
+        }
+    },
+    JSON_LINES {
+        @Override
+        void escribirFila(StringBuilder destino, LibroDTO libro) {
+            entero(destino.append("{\"id\":"), libro.getId(), "null").append(",\"titulo\":");
+            Json.escribirString(destino, libro.getTitulo()).append(",\"autor\":");
+            Json.escribirString(destino, libro.getAutor()).append(",\"anoPublicacion\":");
+            entero(destino, libro.getAnoPublicacion(), "null").append(",\"version\":");
+            entero(destino, libro.getVersion(), "null").append('}');
+        }
+    };
+
+    /**
+     * Primera linea del listado, o null si el formato no tiene
+     */
+    String encabezado() {
+        return null;
+    }
+
+    /**
+     * Agrega un libro al StringBuilder, sin el fin de linea
+     */
+    abstract void escribirFila(StringBuilder destino, LibroDTO libro);
+
+    /**
+     * Formato por nombre: "tabla", "csv" o "jsonl"
+     * @throws IllegalArgumentException si no es ninguno de esos
+     */
+    public static FormatoListado desdeNombre(String nombre) {
+        switch (nombre.toLowerCase(Locale.ROOT)) {
+            case "tabla":
+                return TABLA;
+            case "csv":
+                return CSV;
+            case "jsonl":
+            case "ndjson":
+                return JSON_LINES;
+            default:
+                throw new IllegalArgumentException("Formato de listado no soportado (use tabla, csv o jsonl): " + nombre);
+        }
+    }
+
+    /**
+     * Formato de -Dbiblioteca.listado.formato (tabla si no esta)
+     */
+    public static FormatoListado configurado() {
+        return desdeNombre(System.getProperty("biblioteca.listado.formato", "tabla"));
+    }
+
+    /**
+     * append(long) escribe los digitos directo; append(Object) crearia un String por numero
+     */
+    private static StringBuilder entero(StringBuilder destino, Number valor, String siEsNulo) {
+        return valor == null ? destino.append(siEsNulo) : destino.append(valor.longValue());
+    }
+
+    private static StringBuilder campoCsv(StringBuilder destino, String valor) {
+        if (valor == null) {
+            return destino;
+        }
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            return destino.append(valor);
+        }
+        destino.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                destino.append('"');
+            }
+            destino.append(c);
+        }
+        return destino.append('"');
+    }
+}
@@ -0,0 +1,157 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.view.listado;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dto.LibroDTO;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * SalidaListado - Escribe listados largos por bloques en un canal de bytes
+ *
+ * Con un println por libro, cada fila concatena un String nuevo, toma el lock
+ * de System.out, lo codifica y hace flush (y un write al sistema operativo).
+ * Aca las filas se arman en un StringBuilder que se reutiliza y recien cuando
+ * junta 'capacidad' caracteres se codifican a un ByteBuffer, tambien
+ * reutilizado, y se escriben al canal de una vez. Un listado de un millon de
+ * libros son unas pocas centenas de writes en vez de un millon.
+ *
+ * Los puntos de vaciado son explicitos: cuando el bloque se llena y cuando
+ * quien escribe llama a vaciar() (al terminar el listado o la pagina). Lo que
+ * queda en el bloque no se ve hasta entonces.
+ *
+ * No es thread-safe: una instancia escribe un listado a la vez.
+ */
+public final class SalidaListado {
+    // 32K caracteres por bloque: unas 400 filas de la tabla
+    public static final int CAPACIDAD_POR_DEFECTO = 32 * 1024;
+    private static final String FIN_DE_LINEA = System.lineSeparator();
+
+    private final WritableByteChannel canal;
+    private final CharsetEncoder codificador;
+    private final int capacidad;
+    private final StringBuilder texto;
+    private char[] caracteres;
+    private final ByteBuffer bytes;
+    // Si comparte el descriptor con System.out, hay que vaciarlo antes para no mezclar el orden
+    private final boolean conSystemOut;
+
+    public SalidaListado(WritableByteChannel canal, Charset charset, int capacidad) {
+        this(canal, charset, capacidad, false);
+    }
+
+    private SalidaListado(WritableByteChannel canal, Charset charset, int capacidad, boolean conSystemOut) {
+        if (capacidad < 1024) {
+            throw new IllegalArgumentException("Capacidad de bloque inválida: " + capacidad);
+        }
+        this.canal = canal;
+        // Igual que PrintStream: un caracter que el charset no tiene se reemplaza, no corta el listado
+        this.codificador = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.capacidad = capacidad;
+        this.texto = new StringBuilder(capacidad + 256);
+        this.caracteres = new char[capacidad + 256];
+        this.bytes = ByteBuffer.allocate(capacidad);
+        this.conSystemOut = conSystemOut;
+    }
+
+    /**
+     * Salida estandar del proceso, con el charset de System.out.
+     * El canal es del descriptor 1 (un FileChannel aunque este redirigida a un
+     * archivo o un pipe) y no se cierra nunca.
+     */
+    public static SalidaListado consola() {
+        return new SalidaListado(Consola.CANAL, System.out.charset(), CAPACIDAD_POR_DEFECTO, true);
+    }
+
+    /**
+     * Encabezado del formato, si tiene (CSV)
+     */
+    public void encabezado(FormatoListado formato) {
+        String encabezado = formato.encabezado();
+        if (encabezado != null) {
+            linea(encabezado);
+        }
+    }
+
+    /**
+     * Un libro en el formato pedido
+     */
+    public void fila(FormatoListado formato, LibroDTO libro) {
+        formato.escribirFila(texto, libro);
+        finDeLinea();
+    }
+
+    /**
+     * Una linea de texto tal cual
+     */
+    public void linea(String linea) {
+        texto.append(linea);
+        finDeLinea();
+    }
+
+    /**
+     * Escribe todo lo pendiente al canal
+     * @throws UncheckedIOException si el canal falla
+     */
+    public void vaciar() {
+        if (texto.isEmpty()) {
+            return;
+        }
+        int largo = texto.length();
+        if (caracteres.length < largo) {
+            // Una fila mas larga que el bloque: se agranda una vez y queda asi
+            caracteres = new char[largo];
+        }
+        texto.getChars(0, largo, caracteres, 0);
+        texto.setLength(0);
+        if (conSystemOut) {
+            System.out.flush();
+        }
+        try {
+            CharBuffer entrada = CharBuffer.wrap(caracteres, 0, largo);
+            codificador.reset();
+            // Con REPLACE el codificador solo para cuando se llena el ByteBuffer
+            while (codificador.encode(entrada, bytes, true).isOverflow()) {
+                escribirBytes();
+            }
+            while (codificador.flush(bytes).isOverflow()) {
+                escribirBytes();
+            }
+            escribirBytes();
+        } catch (IOException e) {
+            bytes.clear();
+            throw new UncheckedIOException("No se pudo escribir el listado", e);
+        }
+    }
+
+    private void finDeLinea() {
+        texto.append(FIN_DE_LINEA);
+        if (texto.length() >= capacidad) {
+            vaciar();
+        }
+    }
+
+    private void escribirBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            canal.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Canal del descriptor de la salida estandar, creado la primera vez que se usa
+     */
+    private static final class Consola {
+        static final WritableByteChannel CANAL = new FileOutputStream(FileDescriptor.out).getChannel();
+    }
+}
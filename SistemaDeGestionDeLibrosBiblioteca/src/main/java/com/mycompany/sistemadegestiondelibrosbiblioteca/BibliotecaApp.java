@@ -9,21 +9,59 @@ package com.mycompany.sistemadegestiondelibrosbiblioteca;
  * @author gian_
  */
 import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.LibroController;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.controller.http.ServidorHttp;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.LibroDAO;
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia.PersistenciaLibros;
 import com.mycompany.sistemadegestiondelibrosbibliioteca.view.BibliotecaView;
 
+import java.io.IOException;
+
 /**
  * BibliotecaApp - Aplicación principal
  *
  * ENDPOINTS REST:
  * GET  /libros/{id}  - Obtener DTO de libro por ID
  * POST /libros       - Crear nuevo libro
+ *
+ * Con el argumento --http [puerto] ademas de la consola se levanta el
+ * ServidorHttp (puerto 8080 por defecto) que comparte el mismo controlador
+ * Con -Dbiblioteca.datos=carpeta el catalogo se guarda en disco
+ * Con -Dbiblioteca.almacen=compacto|nativo los libros ocupan menos heap (ver AlmacenLibros)
+ * Las latencias se ven en GET /metrics y por JMX; -Dbiblioteca.metricas=false las apaga
+ * Con -Dbiblioteca.async.hilos=N el trabajo de las peticiones asincronas corre en N
+ * hilos de plataforma y con -Dbiblioteca.http.hilos=N las peticiones se atienden en otros N
+ * Bajo sobrecarga el servidor HTTP responde 429 o 503 en vez de encolar (ver ControlAdmision)
+ * Con -Dbiblioteca.listado.formato=tabla|csv|jsonl la consola lista los libros en ese formato
+ * Cada cambio de un libro se publica en LibroDAO.getCambios() para suscriptores
+ * (-Dbiblioteca.cambios.capacidad=N eventos guardados, 0 lo apaga)
+ * La opcion 9 del menu (y GET /libros/_reporte) muestra los totales del catalogo,
+ * calculados en paralelo sobre el almacen sin listar los libros
  */
 public class BibliotecaApp {
+    private static final int PUERTO_POR_DEFECTO = 8080;
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         BibliotecaView view = new BibliotecaView();
         LibroController controller = new LibroController(view);
 
+        PersistenciaLibros persistencia = LibroDAO.getPersistencia();
+        if (persistencia != null) {
+            System.out.println("Catálogo recuperado: " + persistencia.getLibrosRecuperados()
+                    + " libros en " + persistencia.getMilisRecuperacion() + " ms");
+        }
+
+        ServidorHttp servidor = null;
+        if (args.length > 0 && args[0].equals("--http")) {
+            int puerto = args.length > 1 ? Integer.parseInt(args[1]) : PUERTO_POR_DEFECTO;
+            servidor = new ServidorHttp(controller, puerto);
+            servidor.iniciar();
+            System.out.println("Servidor HTTP escuchando en el puerto " + servidor.getPuerto());
+        }
+
         view.ejecutarSistemaInteractivo(controller);
+
+        if (servidor != null) {
+            servidor.detener();
+        }
     }
 }
\ No newline at end of file
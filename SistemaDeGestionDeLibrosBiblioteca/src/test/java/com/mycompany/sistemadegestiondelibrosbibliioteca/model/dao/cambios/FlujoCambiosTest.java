@@ -0,0 +1,196 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.cambios;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlujoCambiosTest {
+    // Las entregas se encolan y se corren a mano, asi cada paso es determinista
+    private final Queue<Runnable> tareas = new ArrayDeque<>();
+
+    private FlujoCambios flujo(int capacidad) {
+        return new FlujoCambios(capacidad, tareas::add);
+    }
+
+    private void correr() {
+        Runnable tarea;
+        while ((tarea = tareas.poll()) != null) {
+            tarea.run();
+        }
+    }
+
+    private static void publicar(FlujoCambios flujo, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            flujo.publicar(TipoCambio.CREACION, new Libro(100L + i, "Libro " + i, "Autor", 2000, true, 1));
+        }
+    }
+
+    /**
+     * Guarda las secuencias de cada lote y el error, si llega
+     */
+    private static final class Registro implements Flow.Subscriber<List<EventoCambio>> {
+        final List<List<Long>> lotes = new ArrayList<>();
+        final List<EventoCambio> eventos = new ArrayList<>();
+        Flow.Subscription suscripcion;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flow.Subscription suscripcion) {
+            this.suscripcion = suscripcion;
+        }
+
+        @Override
+        public void onNext(List<EventoCambio> lote) {
+            List<Long> secuencias = new ArrayList<>();
+            for (EventoCambio evento : lote) {
+                secuencias.add(evento.secuencia());
+            }
+            lotes.add(secuencias);
+            eventos.addAll(lote);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    @Test
+    void soloSeEntreganLosLotesPedidosYEnOrden() {
+        FlujoCambios flujo = flujo(64);
+        publicar(flujo, 10);
+        Registro registro = new Registro();
+        flujo.suscribir(registro, 1, 3);
+        correr();
+        assertTrue(registro.lotes.isEmpty());
+
+        registro.suscripcion.request(2);
+        correr();
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L, 5L, 6L)), registro.lotes);
+
+        // Pide mas de lo que hay: lo que falta llega cuando se publica
+        registro.suscripcion.request(3);
+        correr();
+        assertEquals(List.of(7L, 8L, 9L), registro.lotes.get(2));
+        assertEquals(List.of(10L), registro.lotes.get(3));
+        publicar(flujo, 1);
+        correr();
+        assertEquals(List.of(11L), registro.lotes.get(4));
+        assertEquals(5, registro.lotes.size());
+        assertNull(registro.error);
+    }
+
+    @Test
+    void seRetomaDesdeLaPrimeraDisponible() {
+        FlujoCambios flujo = flujo(8);
+        publicar(flujo, 20);
+        assertEquals(13, flujo.primeraDisponible());
+
+        Registro registro = new Registro();
+        flujo.suscribir(registro, flujo.primeraDisponible(), 5);
+        registro.suscripcion.request(Long.MAX_VALUE);
+        correr();
+        assertEquals(List.of(List.of(13L, 14L, 15L, 16L, 17L), List.of(18L, 19L, 20L)), registro.lotes);
+        assertNull(registro.error);
+
+        // Una antes de la primera disponible ya se piso
+        Registro atrasado = new Registro();
+        flujo.suscribir(atrasado, 12, 5);
+        atrasado.suscripcion.request(1);
+        correr();
+        assertTrue(atrasado.lotes.isEmpty());
+        CambiosPerdidosException perdidos = assertInstanceOf(CambiosPerdidosException.class, atrasado.error);
+        assertEquals(12, perdidos.getSecuenciaPedida());
+        assertEquals(13, perdidos.getPrimeraDisponible());
+    }
+
+    @Test
+    void unSuscriptorAlcanzadoPorLosEscritoresRecibeOnError() {
+        FlujoCambios flujo = flujo(4);
+        publicar(flujo, 2);
+        Registro registro = new Registro();
+        flujo.suscribir(registro, 1, 2);
+        registro.suscripcion.request(1);
+        correr();
+        assertEquals(List.of(List.of(1L, 2L)), registro.lotes);
+
+        // Sin pedir nada, los escritores le dan la vuelta al buffer
+        publicar(flujo, 10);
+        registro.suscripcion.request(1);
+        correr();
+        assertEquals(1, registro.lotes.size());
+        CambiosPerdidosException perdidos = assertInstanceOf(CambiosPerdidosException.class, registro.error);
+        assertEquals(3, perdidos.getSecuenciaPedida());
+        assertEquals(9, perdidos.getPrimeraDisponible());
+
+        // Despues del error la suscripcion queda cancelada
+        registro.suscripcion.request(1);
+        publicar(flujo, 1);
+        correr();
+        assertEquals(1, registro.lotes.size());
+    }
+
+    @Test
+    void unEscritorAtrasadoUnaVueltaNoPisaAlEventoMasNuevo() throws InterruptedException {
+        int capacidad = 4;
+        FlujoCambios flujo = flujo(capacidad);
+        CountDownLatch tomada = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+        // publicar lee el titulo despues de tomar la secuencia y antes de escribir en el buffer
+        Libro lento = new Libro(1L, "Lento", "Autor", 2000, true, 1) {
+            @Override
+            public String getTitulo() {
+                tomada.countDown();
+                try {
+                    seguir.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.getTitulo();
+            }
+        };
+        AtomicLong secuenciaLenta = new AtomicLong();
+        Thread escritor = new Thread(() -> secuenciaLenta.set(flujo.publicar(TipoCambio.CREACION, lento)));
+        escritor.start();
+        assertTrue(tomada.await(10, TimeUnit.SECONDS));
+
+        // Mientras tanto otros escritores dan una vuelta entera: la secuencia 5 cae en el lugar de la 1
+        publicar(flujo, capacidad);
+        seguir.countDown();
+        escritor.join(10_000);
+        assertEquals(1, secuenciaLenta.get());
+
+        Registro registro = new Registro();
+        flujo.suscribir(registro, flujo.primeraDisponible(), capacidad);
+        registro.suscripcion.request(Long.MAX_VALUE);
+        correr();
+        assertEquals(List.of(List.of(2L, 3L, 4L, 5L)), registro.lotes);
+        EventoCambio masNuevo = registro.eventos.get(capacidad - 1);
+        assertEquals(100L + capacidad - 1, masNuevo.libroId());
+        assertNull(registro.error);
+
+        // El evento del escritor atrasado se perdio: quien lo pida recibe el error
+        Registro desdeElPrimero = new Registro();
+        flujo.suscribir(desdeElPrimero, 1, capacidad);
+        desdeElPrimero.suscripcion.request(1);
+        correr();
+        assertInstanceOf(CambiosPerdidosException.class, desdeElPrimero.error);
+    }
+}
@@ -0,0 +1,368 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersistenciaLibrosTest {
+    private static final Runnable NADA = () -> { };
+
+    @TempDir
+    Path directorio;
+
+    private PersistenciaLibros abrir(List<Libro> recuperados, List<Libro> catalogo) throws IOException {
+        return PersistenciaLibros.abrir(directorio, recuperados::add, () -> catalogo, Long.MAX_VALUE, true);
+    }
+
+    private Path ultimoSegmento() throws IOException {
+        List<Long> generaciones = RegistroEscritura.generaciones(directorio);
+        return RegistroEscritura.segmento(directorio, generaciones.get(generaciones.size() - 1));
+    }
+
+    private static String resumen(List<Libro> libros) {
+        StringBuilder texto = new StringBuilder();
+        for (Libro libro : libros) {
+            texto.append(libro.getId()).append('v').append(libro.getVersion()).append(':')
+                    .append(libro.getTitulo()).append(' ');
+        }
+        return texto.toString().trim();
+    }
+
+    @Test
+    void elLogSeReproduceEnElOrdenEnQueSeEscribio() throws IOException {
+        try (PersistenciaLibros persistencia = abrir(new ArrayList<>(), List.of())) {
+            persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), NADA);
+            persistencia.registrar(new Libro(2L, "Dos", null, null, null, 1), NADA);
+            persistencia.registrarTodos(List.of(new Libro(1L, "Uno bis", "A", 2001, false, 2),
+                    new Libro(3L, "Tres", "C", 1999, true, 1)), NADA);
+        }
+
+        List<Libro> recuperados = new ArrayList<>();
+        try (PersistenciaLibros reabierta = abrir(recuperados, List.of())) {
+            assertEquals(4, reabierta.getLibrosRecuperados());
+        }
+        assertEquals("1v1:Uno 2v1:Dos 1v2:Uno bis 3v1:Tres", resumen(recuperados));
+        assertEquals(null, recuperados.get(1).getAutor());
+        assertEquals(false, recuperados.get(2).getDisponible());
+    }
+
+    @Test
+    void unRegistroAMedioEscribirAlFinalSeDescartaYSeTrunca() throws IOException {
+        try (PersistenciaLibros persistencia = abrir(new ArrayList<>(), List.of())) {
+            persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), NADA);
+            persistencia.registrar(new Libro(2L, "Dos", "B", 2002, true, 1), NADA);
+        }
+        Path segmento = ultimoSegmento();
+        long completo = Files.size(segmento);
+        // Caida en medio de una escritura: el largo y el crc llegaron, los datos no
+        Files.write(segmento, ByteBuffer.allocate(18).putInt(100).putInt(12345).array(), StandardOpenOption.APPEND);
+
+        List<Libro> recuperados = new ArrayList<>();
+        abrir(recuperados, List.of()).close();
+
+        assertEquals("1v1:Uno 2v1:Dos", resumen(recuperados));
+        assertEquals(completo, Files.size(segmento));
+    }
+
+    @Test
+    void unRegistroConCrcInvalidoCortaLaReproduccion() throws IOException {
+        try (PersistenciaLibros persistencia = abrir(new ArrayList<>(), List.of())) {
+            persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), NADA);
+            persistencia.registrar(new Libro(2L, "Dos", "B", 2002, true, 1), NADA);
+        }
+        Path segmento = ultimoSegmento();
+        byte[] bytes = Files.readAllBytes(segmento);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(segmento, bytes);
+
+        List<Libro> recuperados = new ArrayList<>();
+        abrir(recuperados, List.of()).close();
+
+        assertEquals("1v1:Uno", resumen(recuperados));
+        assertTrue(Files.size(segmento) < bytes.length);
+    }
+
+    @Test
+    void unLoteQueFallaAMedioEscribirNoCortaLosQueSeConfirmanDespues() throws IOException {
+        AtomicBoolean fallarProxima = new AtomicBoolean();
+        try (RegistroEscritura registro = new RegistroEscritura(directorio, 1, true, segmento ->
+                new CanalQueFalla(FileChannel.open(segmento, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND), fallarProxima))) {
+            registro.agregar(new Libro(1L, "Uno", "A", 2001, true, 1));
+            fallarProxima.set(true);
+            assertThrows(UncheckedIOException.class, () -> registro.agregar(new Libro(2L, "Dos", "B", 2002, true, 1)));
+            registro.agregar(new Libro(3L, "Tres", "C", 2003, true, 1));
+            registro.agregarTodos(List.of(new Libro(4L, "Cuatro", "D", 2004, true, 1)));
+        }
+
+        List<Libro> recuperados = new ArrayList<>();
+        assertEquals(3, RegistroEscritura.reproducir(RegistroEscritura.segmento(directorio, 1), recuperados::add));
+        assertEquals("1v1:Uno 3v1:Tres 4v1:Cuatro", resumen(recuperados));
+    }
+
+    @Test
+    void cerrarMientrasSeEscribeNoDejaEsperandoANadie() throws Exception {
+        for (int vuelta = 0; vuelta < 20; vuelta++) {
+            RegistroEscritura registro = new RegistroEscritura(directorio, vuelta + 1, false);
+            List<Thread> escritores = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                long id = i;
+                escritores.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        for (long version = 1; ; version++) {
+                            if (id % 2 == 0) {
+                                registro.agregar(new Libro(id, "Uno", "A", 2001, true, version));
+                            } else {
+                                registro.agregarTodos(List.of(new Libro(id, "Uno", "A", 2001, true, version),
+                                        new Libro(id + 100, "Dos", "B", 2002, true, version)));
+                            }
+                        }
+                    } catch (IllegalStateException cerrado) {
+                        // Cada escritor termina con el cierre, nunca se queda en join()
+                    }
+                }));
+            }
+            Thread.sleep(5);
+            registro.close();
+            for (Thread escritor : escritores) {
+                escritor.join(5_000);
+                assertFalse(escritor.isAlive());
+            }
+        }
+    }
+
+    /**
+     * Canal que, cuando se le pide, escribe unos pocos bytes y falla (disco lleno a mitad de un lote)
+     */
+    private static final class CanalQueFalla extends FileChannel {
+        private final FileChannel canal;
+        private final AtomicBoolean fallarProxima;
+
+        CanalQueFalla(FileChannel canal, AtomicBoolean fallarProxima) {
+            this.canal = canal;
+            this.fallarProxima = fallarProxima;
+        }
+
+        @Override
+        public int write(ByteBuffer origen) throws IOException {
+            if (fallarProxima.compareAndSet(true, false)) {
+                ByteBuffer parte = origen.duplicate();
+                parte.limit(parte.position() + Math.min(6, parte.remaining()));
+                canal.write(parte);
+                throw new IOException("No queda espacio en el disco");
+            }
+            return canal.write(origen);
+        }
+
+        @Override
+        public int read(ByteBuffer destino) throws IOException {
+            return canal.read(destino);
+        }
+
+        @Override
+        public long read(ByteBuffer[] destinos, int desde, int cantidad) throws IOException {
+            return canal.read(destinos, desde, cantidad);
+        }
+
+        @Override
+        public long write(ByteBuffer[] origenes, int desde, int cantidad) throws IOException {
+            return canal.write(origenes, desde, cantidad);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return canal.position();
+        }
+
+        @Override
+        public FileChannel position(long posicion) throws IOException {
+            canal.position(posicion);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return canal.size();
+        }
+
+        @Override
+        public FileChannel truncate(long largo) throws IOException {
+            canal.truncate(largo);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metadatos) throws IOException {
+            canal.force(metadatos);
+        }
+
+        @Override
+        public long transferTo(long posicion, long cantidad, WritableByteChannel destino) throws IOException {
+            return canal.transferTo(posicion, cantidad, destino);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel origen, long posicion, long cantidad) throws IOException {
+            return canal.transferFrom(origen, posicion, cantidad);
+        }
+
+        @Override
+        public int read(ByteBuffer destino, long posicion) throws IOException {
+            return canal.read(destino, posicion);
+        }
+
+        @Override
+        public int write(ByteBuffer origen, long posicion) throws IOException {
+            return canal.write(origen, posicion);
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode modo, long posicion, long largo) throws IOException {
+            return canal.map(modo, posicion, largo);
+        }
+
+        @Override
+        public FileLock lock(long posicion, long largo, boolean compartido) throws IOException {
+            return canal.lock(posicion, largo, compartido);
+        }
+
+        @Override
+        public FileLock tryLock(long posicion, long largo, boolean compartido) throws IOException {
+            return canal.tryLock(posicion, largo, compartido);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            canal.close();
+        }
+    }
+
+    @Test
+    void seRecuperaElSnapshotMasLaColaDelLog() throws IOException {
+        List<Libro> catalogo = new ArrayList<>();
+        try (PersistenciaLibros persistencia = abrir(new ArrayList<>(), catalogo)) {
+            Libro uno = new Libro(1L, "Uno", "A", 2001, true, 1);
+            Libro dos = new Libro(2L, "Dos", "B", 2002, false, 1);
+            persistencia.registrar(uno, () -> catalogo.add(uno));
+            persistencia.registrar(dos, () -> catalogo.add(dos));
+            persistencia.compactar();
+            persistencia.registrar(new Libro(1L, "Uno bis", "A", 2001, true, 2), NADA);
+            persistencia.registrar(new Libro(3L, "Tres", "C", 2003, true, 1), NADA);
+        }
+        // Solo quedan el snapshot nuevo y el segmento que empezo con la rotacion
+        assertEquals(1, SnapshotLibros.generaciones(directorio).size());
+        assertEquals(SnapshotLibros.generaciones(directorio), RegistroEscritura.generaciones(directorio));
+
+        List<Libro> recuperados = new ArrayList<>();
+        try (PersistenciaLibros reabierta = abrir(recuperados, List.of())) {
+            SnapshotLibros snapshot = reabierta.getSnapshot();
+            assertNotNull(snapshot);
+            assertEquals(2, snapshot.cantidad());
+            assertEquals("Uno", snapshot.titulo(snapshot.posicion(1)));
+            assertEquals(false, snapshot.disponible(snapshot.posicion(2)));
+            assertEquals(4, reabierta.getLibrosRecuperados());
+        }
+        assertEquals("1v2:Uno bis 3v1:Tres", resumen(recuperados));
+    }
+
+    @Test
+    void siElLogFallaNoSePublica() throws IOException {
+        PersistenciaLibros persistencia = abrir(new ArrayList<>(), List.of());
+        persistencia.close();
+        AtomicBoolean publicado = new AtomicBoolean();
+
+        assertThrows(IllegalStateException.class,
+                () -> persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), () -> publicado.set(true)));
+        assertThrows(IllegalStateException.class,
+                () -> persistencia.registrarTodos(List.of(new Libro(2L, "Dos", "B", 2002, true, 1)),
+                        () -> publicado.set(true)));
+        assertFalse(publicado.get());
+    }
+
+    @Test
+    void unaCompactacionEnSegundoPlanoQueFallaQuedaRegistrada() throws Exception {
+        // Con un registro por snapshot cada registrar dispara una compactacion
+        try (PersistenciaLibros persistencia = PersistenciaLibros.abrir(directorio, libro -> { }, () -> {
+            throw new UncheckedIOException(new IOException("Disco lleno"));
+        }, 1, true)) {
+            persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), NADA);
+            long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (persistencia.getUltimoErrorDeCompactacion() == null && System.nanoTime() < limite) {
+                Thread.sleep(10);
+            }
+            assertInstanceOf(UncheckedIOException.class, persistencia.getUltimoErrorDeCompactacion());
+            assertEquals(1, persistencia.getCompactacionesFallidas());
+            // El log sigue aceptando escrituras
+            persistencia.registrar(new Libro(2L, "Dos", "B", 2002, true, 1), NADA);
+        }
+    }
+
+    @Test
+    void laRotacionEsperaAQueSePubliqueLoQueYaEstaEnElLog() throws Exception {
+        AtomicBoolean publicado = new AtomicBoolean();
+        AtomicBoolean vistoAlCompactar = new AtomicBoolean();
+        List<Libro> catalogo = new ArrayList<>();
+        PersistenciaLibros persistencia = PersistenciaLibros.abrir(directorio, libro -> { }, () -> {
+            vistoAlCompactar.set(publicado.get());
+            return catalogo;
+        }, Long.MAX_VALUE, true);
+        CountDownLatch enPublicar = new CountDownLatch(1);
+        CountDownLatch seguir = new CountDownLatch(1);
+
+        Thread escritor = Thread.ofPlatform().start(() ->
+                persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), () -> {
+                    enPublicar.countDown();
+                    try {
+                        seguir.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    catalogo.add(new Libro(1L, "Uno", "A", 2001, true, 1));
+                    publicado.set(true);
+                }));
+        assertTrue(enPublicar.await(5, TimeUnit.SECONDS));
+        Thread compactador = Thread.ofPlatform().start(() -> {
+            try {
+                persistencia.compactar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        // El libro ya esta en el log pero todavia no publicado: la rotacion espera
+        compactador.join(300);
+        assertTrue(compactador.isAlive());
+
+        seguir.countDown();
+        escritor.join();
+        compactador.join();
+        persistencia.close();
+        assertTrue(vistoAlCompactar.get());
+        SnapshotLibros snapshot = SnapshotLibros.abrir(
+                SnapshotLibros.archivo(directorio, SnapshotLibros.generaciones(directorio).get(0)));
+        assertEquals(1, snapshot.cantidad());
+    }
+}
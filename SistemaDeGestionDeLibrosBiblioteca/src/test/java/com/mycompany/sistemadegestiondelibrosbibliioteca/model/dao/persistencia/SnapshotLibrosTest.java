@@ -0,0 +1,144 @@
+package com.mycompany.sistemadegestiondelibrosbibliioteca.model.dao.persistencia;
+
+import com.mycompany.sistemadegestiondelibrosbibliioteca.model.entity.Libro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnapshotLibrosTest {
+    @TempDir
+    Path directorio;
+
+    private static List<Libro> catalogo(int cantidad) {
+        List<Libro> libros = new ArrayList<>();
+        for (long id = 1; id <= cantidad; id++) {
+            // Nulos y textos de varios bytes por caracter cada tanto
+            libros.add(new Libro(id * 3, id % 7 == 0 ? null : "Título " + id + " ñandú 📚",
+                    id % 5 == 0 ? null : "Autor " + (id % 4), id % 6 == 0 ? null : (int) (1900 + id),
+                    id % 9 == 0 ? null : id % 2 == 0, id));
+        }
+        return libros;
+    }
+
+    private static void assertMismoLibro(Libro esperado, SnapshotLibros snapshot, int posicion) {
+        assertEquals(esperado.getId(), snapshot.id(posicion));
+        assertEquals(esperado.getVersion(), snapshot.version(posicion));
+        assertEquals(esperado.getTitulo(), snapshot.titulo(posicion));
+        assertEquals(esperado.getAutor(), snapshot.autor(posicion));
+        assertEquals(esperado.getAnoPublicacion(), snapshot.anoPublicacion(posicion));
+        assertEquals(esperado.getDisponible(), snapshot.disponible(posicion));
+    }
+
+    @Test
+    void seLeeLoQueSeEscribioAunqueLosValoresCrucenDeTramo() throws IOException {
+        List<Libro> libros = catalogo(500);
+        assertEquals(500, SnapshotLibros.escribir(directorio, 7, libros));
+
+        // Tramos de 64 bytes: casi todos los long, int y titulos cruzan algun borde
+        SnapshotLibros snapshot = SnapshotLibros.abrir(SnapshotLibros.archivo(directorio, 7), 64);
+        assertEquals(500, snapshot.cantidad());
+        for (int posicion = 0; posicion < libros.size(); posicion++) {
+            assertMismoLibro(libros.get(posicion), snapshot, posicion);
+            assertEquals(posicion, snapshot.posicion(libros.get(posicion).getId()));
+        }
+        assertEquals(-1, snapshot.posicion(4));
+        assertEquals(1, snapshot.posicionDesde(4));
+        assertEquals(1500, snapshot.maximoId());
+    }
+
+    @Test
+    void unCatalogoVacioTambienSeEscribe() throws IOException {
+        assertEquals(0, SnapshotLibros.escribir(directorio, 1, List.of()));
+        SnapshotLibros snapshot = SnapshotLibros.abrir(SnapshotLibros.archivo(directorio, 1));
+        assertEquals(0, snapshot.cantidad());
+        assertEquals(0, snapshot.maximoId());
+    }
+
+    @Test
+    void unCatalogoDesordenadoNoDejaSnapshotNiTemporales() throws IOException {
+        List<Libro> libros = new ArrayList<>(catalogo(10));
+        libros.add(new Libro(2L, "Tarde", "Autor", 2000, true, 1));
+
+        assertThrows(IOException.class, () -> SnapshotLibros.escribir(directorio, 3, libros));
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            assertEquals(0, archivos.count());
+        }
+    }
+
+    @Test
+    void sigueLeyendoSnapshotsConOffsetsInt() throws IOException {
+        // LSN3: offsets de 4 bytes, escrito a mano
+        byte[] titulo = "Rayuela".getBytes(StandardCharsets.UTF_8);
+        byte[] autor = "Julio Cortázar".getBytes(StandardCharsets.UTF_8);
+        Path archivo = SnapshotLibros.archivo(directorio, 2);
+        try (DataOutputStream salida = new DataOutputStream(Files.newOutputStream(archivo))) {
+            salida.writeInt(0x4C534E33);
+            salida.writeInt(1);
+            salida.writeInt(1);
+            salida.write(new byte[52]);
+            salida.writeLong(42);
+            salida.writeLong(3);
+            salida.writeInt(1963);
+            salida.writeByte(1);
+            salida.writeInt(0);
+            salida.writeInt(titulo.length);
+            salida.write(titulo);
+            salida.writeInt(0);
+            salida.writeInt(0);
+            salida.writeInt(autor.length);
+            salida.write(autor);
+        }
+
+        SnapshotLibros snapshot = SnapshotLibros.abrir(archivo);
+        assertMismoLibro(new Libro(42L, "Rayuela", "Julio Cortázar", 1963, true, 3), snapshot, 0);
+    }
+
+    @Test
+    void unArchivoTruncadoNoSeAbre() throws IOException {
+        SnapshotLibros.escribir(directorio, 5, catalogo(20));
+        Path archivo = SnapshotLibros.archivo(directorio, 5);
+        byte[] bytes = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThrows(IOException.class, () -> SnapshotLibros.abrir(archivo));
+    }
+
+    @Test
+    void siLaCompactacionFallaNoSeBorraElLog() throws IOException {
+        List<Libro> catalogo = new ArrayList<>();
+        PersistenciaLibros persistencia = PersistenciaLibros.abrir(directorio, libro -> { }, () -> catalogo,
+                Long.MAX_VALUE, false);
+        persistencia.registrar(new Libro(1L, "Uno", "A", 2001, true, 1), () -> { });
+        persistencia.registrar(new Libro(2L, "Dos", "B", 2002, true, 1), () -> { });
+        // Un catalogo que no se puede escribir (desordenado)
+        catalogo.add(new Libro(2L, "Dos", "B", 2002, true, 1));
+        catalogo.add(new Libro(1L, "Uno", "A", 2001, true, 1));
+
+        assertThrows(IOException.class, persistencia::compactar);
+        persistencia.close();
+
+        assertTrue(SnapshotLibros.generaciones(directorio).isEmpty());
+        List<Libro> recuperados = new ArrayList<>();
+        PersistenciaLibros reabierta = PersistenciaLibros.abrir(directorio, recuperados::add, List::of,
+                Long.MAX_VALUE, false);
+        reabierta.close();
+        assertEquals(2, recuperados.size());
+        assertNull(reabierta.getSnapshot());
+        assertFalse(RegistroEscritura.generaciones(directorio).isEmpty());
+    }
+}